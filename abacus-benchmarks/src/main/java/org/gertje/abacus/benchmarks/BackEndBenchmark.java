@@ -0,0 +1,82 @@
+package org.gertje.abacus.benchmarks;
+
+import org.gertje.abacus.closures.ClosureCompiler;
+import org.gertje.abacus.exception.AbacusException;
+import org.gertje.abacus.nodevisitors.Evaluator;
+import org.gertje.abacus.translator.java.nodevisitors.ClassTranslator;
+import org.gertje.abacus.translator.javascript.nodevisitors.JavaScriptTranslator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the back ends: the evaluator, the closure compiler, the Java translator (generating, loading and executing
+ * the class) and the JavaScript translator. Every operation processes all expressions of the source.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BackEndBenchmark {
+
+	@Benchmark
+	public void evaluate(ExpressionState state, Blackhole blackhole) throws AbacusException {
+		for (int i = 0; i < state.expressions.length; i++) {
+			blackhole.consume(new Evaluator(state.expressions[i].getAbacusContext()).evaluate(state.simplifiedNodes[i]));
+		}
+	}
+
+	@Benchmark
+	public void compileClosure(ExpressionState state, Blackhole blackhole) throws AbacusException {
+		for (int i = 0; i < state.expressions.length; i++) {
+			ClosureCompiler closureCompiler = new ClosureCompiler(state.expressions[i].getAbacusContext().getMathContext());
+			blackhole.consume(closureCompiler.compile(state.simplifiedNodes[i]));
+		}
+	}
+
+	@Benchmark
+	public void evaluateClosure(ExpressionState state, Blackhole blackhole) throws AbacusException {
+		for (int i = 0; i < state.expressions.length; i++) {
+			blackhole.consume(state.closures[i].evaluate(state.expressions[i].getSymbolTable()));
+		}
+	}
+
+	@Benchmark
+	public void translateClass(ExpressionState state, Blackhole blackhole) throws AbacusException {
+		for (int i = 0; i < state.expressions.length; i++) {
+			ClassTranslator translator = new ClassTranslator(state.expressions[i].getAbacusContext());
+			blackhole.consume(translator.translate(state.simplifiedNodes[i], BenchmarkExpressionWrapper.class,
+					ExpressionState.CLASS_NAME));
+		}
+	}
+
+	@Benchmark
+	public void loadClass(ExpressionState state, Blackhole blackhole) throws Exception {
+		for (int i = 0; i < state.expressions.length; i++) {
+			blackhole.consume(ExpressionState.loadClass(ExpressionState.CLASS_NAME, state.byteCodes[i]).newInstance());
+		}
+	}
+
+	@Benchmark
+	public void executeClass(ExpressionState state, Blackhole blackhole) throws Exception {
+		for (int i = 0; i < state.expressions.length; i++) {
+			blackhole.consume(state.wrappers[i].f());
+		}
+	}
+
+	@Benchmark
+	public void translateJavaScript(ExpressionState state, Blackhole blackhole) throws AbacusException {
+		for (int i = 0; i < state.expressions.length; i++) {
+			JavaScriptTranslator translator = new JavaScriptTranslator(state.expressions[i].getAbacusContext());
+			blackhole.consume(translator.translate(state.simplifiedNodes[i]));
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package org.gertje.abacus.benchmarks;
+
+import org.gertje.abacus.context.AbacusContext;
+import org.gertje.abacus.context.SimpleAbacusContext;
+import org.gertje.abacus.symboltable.SimpleSymbolTable;
+
+/**
+ * An expression that is benchmarked, together with the symbol table it is compiled and evaluated against.
+ */
+public class BenchmarkExpression {
+
+	private final String expression;
+	private final SimpleSymbolTable symbolTable;
+	private final AbacusContext abacusContext;
+
+	public BenchmarkExpression(String expression, SimpleSymbolTable symbolTable) {
+		this.expression = expression;
+		this.symbolTable = symbolTable;
+		this.abacusContext = new SimpleAbacusContext(symbolTable);
+	}
+
+	public String getExpression() {
+		return expression;
+	}
+
+	public SimpleSymbolTable getSymbolTable() {
+		return symbolTable;
+	}
+
+	public AbacusContext getAbacusContext() {
+		return abacusContext;
+	}
+}
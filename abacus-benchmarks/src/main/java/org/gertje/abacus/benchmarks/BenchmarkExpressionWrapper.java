@@ -0,0 +1,13 @@
+package org.gertje.abacus.benchmarks;
+
+import org.gertje.abacus.translator.java.runtime.AbacusWrapper;
+
+/**
+ * Base class for the classes that are generated by the benchmarks, implements the functions of the test cases.
+ */
+public abstract class BenchmarkExpressionWrapper<T> extends AbacusWrapper<T> {
+
+	public java.math.BigDecimal function_rand() {
+		return new java.math.BigDecimal("0.5");
+	}
+}
@@ -0,0 +1,178 @@
+package org.gertje.abacus.benchmarks;
+
+import org.gertje.abacus.AbacusTestCase;
+import org.gertje.abacus.AbacusTestFileReader;
+import org.gertje.abacus.AbacusTestSymbolTableFactory;
+import org.gertje.abacus.exception.AbacusException;
+import org.gertje.abacus.functions.RandFunction;
+import org.gertje.abacus.lexer.AbacusLexer;
+import org.gertje.abacus.nodes.AbacusNodeFactory;
+import org.gertje.abacus.nodes.Node;
+import org.gertje.abacus.nodes.NodeFactory;
+import org.gertje.abacus.nodevisitors.Evaluator;
+import org.gertje.abacus.nodevisitors.SemanticsChecker;
+import org.gertje.abacus.nodevisitors.Simplifier;
+import org.gertje.abacus.parser.Parser;
+import org.gertje.abacus.symboltable.IllegalTypeException;
+import org.gertje.abacus.symboltable.NoSuchVariableException;
+import org.gertje.abacus.symboltable.SimpleSymbolTable;
+import org.gertje.abacus.symboltable.Variable;
+import org.gertje.abacus.types.Type;
+
+import java.io.FileNotFoundException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates the expressions for the benchmarks. A source is either the name of one of the test files of abacus-core
+ * (for instance {@code test-add.json}), or the name of a synthetic source.
+ *
+ * Only the test cases that compile and evaluate without an exception are used, so every benchmark measures the same
+ * expressions.
+ */
+public class ExpressionSources {
+
+	/**
+	 * A single expression with a sum of many integer and decimal terms.
+	 */
+	public static final String SYNTHETIC_ARITHMETIC = "synthetic-arithmetic";
+
+	/**
+	 * A single expression with deeply nested if-statements and comparisons.
+	 */
+	public static final String SYNTHETIC_CONDITIONAL = "synthetic-conditional";
+
+	/**
+	 * A script with many statements and assignments.
+	 */
+	public static final String SYNTHETIC_SCRIPT = "synthetic-script";
+
+	/**
+	 * The number of terms, levels or statements in the synthetic expressions.
+	 */
+	private static final int SYNTHETIC_SIZE = 200;
+
+	private ExpressionSources() {
+	}
+
+	/**
+	 * Creates the expressions of the source.
+	 * @param source The name of the source.
+	 * @return The expressions.
+	 * @throws FileNotFoundException When the source is not a synthetic source and the test file does not exist.
+	 */
+	public static List<BenchmarkExpression> load(String source) throws FileNotFoundException {
+		switch (source) {
+			case SYNTHETIC_ARITHMETIC: return createSynthetic(createArithmeticExpression());
+			case SYNTHETIC_CONDITIONAL: return createSynthetic(createConditionalExpression());
+			case SYNTHETIC_SCRIPT: return createSynthetic(createScript());
+		}
+
+		return loadTestFile(source);
+	}
+
+	/**
+	 * Loads the test cases from the test file that compile and evaluate without an exception.
+	 */
+	private static List<BenchmarkExpression> loadTestFile(String fileName) throws FileNotFoundException {
+		List<BenchmarkExpression> expressions = new ArrayList<>();
+		for (AbacusTestCase abacusTestCase : new AbacusTestFileReader(fileName).getAbacusTestCaseList()) {
+			if (abacusTestCase.failsWithException) {
+				continue;
+			}
+
+			BenchmarkExpression expression = new BenchmarkExpression(abacusTestCase.expression,
+					AbacusTestSymbolTableFactory.createSymbolTable(abacusTestCase));
+			if (canEvaluate(expression)) {
+				expressions.add(expression);
+			}
+		}
+		return expressions;
+	}
+
+	private static List<BenchmarkExpression> createSynthetic(String expression) {
+		SimpleSymbolTable symbolTable = new SimpleSymbolTable();
+		symbolTable.registerFunction(new RandFunction());
+		symbolTable.addVariable(new Variable("a", Type.INTEGER));
+		symbolTable.addVariable(new Variable("b", Type.DECIMAL));
+		symbolTable.addVariable(new Variable("c", Type.INTEGER));
+		symbolTable.addVariable(new Variable("s", Type.STRING));
+		try {
+			symbolTable.setVariableValue("a", 7L);
+			symbolTable.setVariableValue("b", new BigDecimal("1.25"));
+			symbolTable.setVariableValue("c", 3L);
+			symbolTable.setVariableValue("s", "abacus");
+		} catch (IllegalTypeException | NoSuchVariableException e) {
+			throw new IllegalStateException(e);
+		}
+
+		BenchmarkExpression benchmarkExpression = new BenchmarkExpression(expression, symbolTable);
+		if (!canEvaluate(benchmarkExpression)) {
+			throw new IllegalStateException("The synthetic expression can not be evaluated.");
+		}
+
+		List<BenchmarkExpression> expressions = new ArrayList<>();
+		expressions.add(benchmarkExpression);
+		return expressions;
+	}
+
+	/**
+	 * Creates {@code a * 1 + b - c * 2 + (a + 3) / 4 ...}.
+	 */
+	private static String createArithmeticExpression() {
+		StringBuilder builder = new StringBuilder("a");
+		for (int i = 1; i < SYNTHETIC_SIZE; i++) {
+			switch (i % 4) {
+				case 0: builder.append(" + a * ").append(i); break;
+				case 1: builder.append(" - b * ").append(i).append(".5"); break;
+				case 2: builder.append(" + (c + ").append(i).append(") / 3"); break;
+				case 3: builder.append(" - c % ").append(i); break;
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Creates {@code a > 1 ? (c < 1 ? ... : 1) : 0}.
+	 */
+	private static String createConditionalExpression() {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < SYNTHETIC_SIZE; i++) {
+			builder.append(i % 2 == 0 ? "a > " : "c < ").append(i).append(" && s != 'x' ? (");
+		}
+		builder.append("a + c");
+		for (int i = 0; i < SYNTHETIC_SIZE; i++) {
+			builder.append(") : ").append(i);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Creates {@code c = a + 0; c = c * 2 - 1; ...}.
+	 */
+	private static String createScript() {
+		StringBuilder builder = new StringBuilder("c = a + 0;");
+		for (int i = 1; i < SYNTHETIC_SIZE; i++) {
+			builder.append(" c = c % 1000 * 2 - ").append(i).append(';');
+		}
+		builder.append(" c");
+		return builder.toString();
+	}
+
+	/**
+	 * Determines whether the expression can be compiled and evaluated.
+	 */
+	private static boolean canEvaluate(BenchmarkExpression expression) {
+		NodeFactory nodeFactory = new AbacusNodeFactory();
+		try {
+			Node node = new Parser(new AbacusLexer(expression.getExpression()), nodeFactory).parse();
+			new SemanticsChecker(expression.getSymbolTable()).check(node);
+			node = new Simplifier(expression.getAbacusContext(), nodeFactory).simplify(node);
+			new Evaluator(expression.getAbacusContext()).evaluate(node);
+		} catch (AbacusException | RuntimeException e) {
+			return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,168 @@
+package org.gertje.abacus.benchmarks;
+
+import org.gertje.abacus.closures.Closure;
+import org.gertje.abacus.closures.ClosureCompiler;
+import org.gertje.abacus.exception.AbacusException;
+import org.gertje.abacus.lexer.AbacusLexer;
+import org.gertje.abacus.nodes.AbacusNodeFactory;
+import org.gertje.abacus.nodes.Node;
+import org.gertje.abacus.nodes.NodeFactory;
+import org.gertje.abacus.nodevisitors.SemanticsChecker;
+import org.gertje.abacus.nodevisitors.Simplifier;
+import org.gertje.abacus.parser.Parser;
+import org.gertje.abacus.translator.java.nodevisitors.ClassTranslator;
+import org.gertje.abacus.translator.java.nodevisitors.TranslationException;
+import org.gertje.abacus.translator.java.runtime.AbacusWrapper;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.security.SecureClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The expressions of a source, together with the result of every stage of the pipeline, so a benchmark can start at
+ * any stage. The expressions whose class can not be translated or loaded are left out; they are counted in
+ * {@link #skippedCount} and reported on the standard error stream, so a benchmark result shows what it did not measure.
+ */
+@State(Scope.Thread)
+public class ExpressionState {
+
+	/**
+	 * The name of the class that is generated by the {@link ClassTranslator}.
+	 */
+	public static final String CLASS_NAME = "org.gertje.abacus.benchmarks.GeneratedExpression";
+
+	@Param({
+			"test-array.json",
+			"test-add.json",
+			"test-subtract.json",
+			"test-multiplication.json",
+			"test-division.json",
+			"test-modulo.json",
+			"test-power.json",
+			"test-positive.json",
+			"test-negative.json",
+			"test-not.json",
+			"test-smaller.json",
+			"test-smaller-equals.json",
+			"test-equals.json",
+			"test-not-equals.json",
+			"test-greater-equals.json",
+			"test-greater.json",
+			"test-and.json",
+			"test-or.json",
+			"test-if.json",
+			"test-assignment.json",
+			"test-general.json",
+			ExpressionSources.SYNTHETIC_ARITHMETIC,
+			ExpressionSources.SYNTHETIC_CONDITIONAL,
+			ExpressionSources.SYNTHETIC_SCRIPT
+	})
+	public String source;
+
+	public final NodeFactory nodeFactory = new AbacusNodeFactory();
+
+	public BenchmarkExpression[] expressions;
+
+	/**
+	 * The parsed and checked trees.
+	 */
+	public Node[] checkedNodes;
+
+	/**
+	 * The parsed, checked and simplified trees.
+	 */
+	public Node[] simplifiedNodes;
+
+	public Closure[] closures;
+
+	public byte[][] byteCodes;
+
+	/**
+	 * Instances of the generated classes, with the context of their expression.
+	 */
+	public AbacusWrapper<?>[] wrappers;
+
+	/**
+	 * The number of expressions of the source that are left out.
+	 */
+	public int skippedCount;
+
+	@Setup
+	public void setUp() throws Exception {
+		List<BenchmarkExpression> expressionList = new ArrayList<>();
+		List<Node> checkedNodeList = new ArrayList<>();
+		List<Node> simplifiedNodeList = new ArrayList<>();
+		List<byte[]> byteCodeList = new ArrayList<>();
+		List<AbacusWrapper<?>> wrapperList = new ArrayList<>();
+		skippedCount = 0;
+
+		for (BenchmarkExpression expression : ExpressionSources.load(source)) {
+			Node simplifiedNode = new Simplifier(expression.getAbacusContext(), nodeFactory)
+					.simplify(parseAndCheck(expression));
+
+			// Leave out the expressions that the class translator can not handle, so every benchmark measures the
+			// same expressions.
+			byte[] byteCode;
+			AbacusWrapper<?> wrapper;
+			try {
+				byteCode = new ClassTranslator(expression.getAbacusContext())
+						.translate(simplifiedNode, BenchmarkExpressionWrapper.class, CLASS_NAME);
+				wrapper = (AbacusWrapper<?>) loadClass(CLASS_NAME, byteCode).newInstance();
+			} catch (TranslationException | LinkageError e) {
+				skippedCount++;
+				System.err.println("Skipped expression '" + expression.getExpression() + "' of " + source + ": " + e);
+				continue;
+			}
+			wrapper.setAbacusContext(expression.getAbacusContext());
+
+			expressionList.add(expression);
+			checkedNodeList.add(parseAndCheck(expression));
+			simplifiedNodeList.add(simplifiedNode);
+			byteCodeList.add(byteCode);
+			wrapperList.add(wrapper);
+		}
+
+		if (skippedCount > 0) {
+			System.err.println("Skipped " + skippedCount + " expression(s) of " + source + ", measuring "
+					+ expressionList.size() + ".");
+		}
+
+		int size = expressionList.size();
+		expressions = expressionList.toArray(new BenchmarkExpression[size]);
+		checkedNodes = checkedNodeList.toArray(new Node[size]);
+		simplifiedNodes = simplifiedNodeList.toArray(new Node[size]);
+		byteCodes = byteCodeList.toArray(new byte[size][]);
+		wrappers = wrapperList.toArray(new AbacusWrapper<?>[size]);
+
+		closures = new Closure[size];
+		for (int i = 0; i < size; i++) {
+			closures[i] = new ClosureCompiler(expressions[i].getAbacusContext().getMathContext())
+					.compile(simplifiedNodes[i]);
+		}
+	}
+
+	/**
+	 * Parses and checks the expression.
+	 */
+	public Node parseAndCheck(BenchmarkExpression expression) throws AbacusException {
+		Node node = new Parser(new AbacusLexer(expression.getExpression()), nodeFactory).parse();
+		new SemanticsChecker(expression.getSymbolTable()).check(node);
+		return node;
+	}
+
+	/**
+	 * Loads the class in its own class loader.
+	 */
+	public static Class<?> loadClass(String className, final byte[] byteCode) throws ClassNotFoundException {
+		return new SecureClassLoader(ExpressionState.class.getClassLoader()) {
+			@Override
+			protected Class<?> findClass(String name) throws ClassNotFoundException {
+				return super.defineClass(name, byteCode, 0, byteCode.length);
+			}
+		}.loadClass(className);
+	}
+}
@@ -0,0 +1,110 @@
+package org.gertje.abacus.benchmarks;
+
+import org.gertje.abacus.exception.AbacusException;
+import org.gertje.abacus.lexer.AbacusLexer;
+import org.gertje.abacus.lexer.CharSequenceLexer;
+import org.gertje.abacus.lexer.Lexer;
+import org.gertje.abacus.nodes.Node;
+import org.gertje.abacus.nodevisitors.SemanticsChecker;
+import org.gertje.abacus.nodevisitors.Simplifier;
+import org.gertje.abacus.parser.Parser;
+import org.gertje.abacus.token.Token;
+import org.gertje.abacus.token.TokenType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the lexer, the parser, the semantics checker and the simplifier. Every operation processes all
+ * expressions of the source.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrontEndBenchmark {
+
+	/**
+	 * Freshly parsed and checked trees for the simplifier, which changes the trees it simplifies.
+	 */
+	@State(Scope.Thread)
+	public static class UnsimplifiedState {
+		public Node[] nodes;
+
+		@Setup(Level.Invocation)
+		public void setUp(ExpressionState expressionState) throws AbacusException {
+			nodes = new Node[expressionState.expressions.length];
+			for (int i = 0; i < nodes.length; i++) {
+				nodes[i] = expressionState.parseAndCheck(expressionState.expressions[i]);
+			}
+		}
+	}
+
+	@Benchmark
+	public void lex(ExpressionState state, Blackhole blackhole) throws AbacusException {
+		for (BenchmarkExpression expression : state.expressions) {
+			AbacusLexer lexer = new AbacusLexer(expression.getExpression());
+			Token token;
+			do {
+				token = lexer.getNextToken();
+				blackhole.consume(token);
+			} while (token.getType() != TokenType.END_OF_INPUT);
+		}
+	}
+
+	@Benchmark
+	public void lexCharSequence(ExpressionState state, Blackhole blackhole) throws AbacusException {
+		for (BenchmarkExpression expression : state.expressions) {
+			Lexer lexer = new CharSequenceLexer(expression.getExpression());
+			Token token;
+			do {
+				token = lexer.getNextToken();
+				blackhole.consume(token);
+			} while (token.getType() != TokenType.END_OF_INPUT);
+		}
+	}
+
+	@Benchmark
+	public void parse(ExpressionState state, Blackhole blackhole) throws AbacusException {
+		for (BenchmarkExpression expression : state.expressions) {
+			blackhole.consume(new Parser(new AbacusLexer(expression.getExpression()), state.nodeFactory).parse());
+		}
+	}
+
+	@Benchmark
+	public void parseCharSequence(ExpressionState state, Blackhole blackhole) throws AbacusException {
+		for (BenchmarkExpression expression : state.expressions) {
+			CharSequenceLexer lexer = new CharSequenceLexer(expression.getExpression());
+			lexer.setSkipTrivia(true);
+			blackhole.consume(new Parser(lexer, state.nodeFactory).parse());
+		}
+	}
+
+	@Benchmark
+	public void check(ExpressionState state) throws AbacusException {
+		for (int i = 0; i < state.expressions.length; i++) {
+			new SemanticsChecker(state.expressions[i].getSymbolTable()).check(state.checkedNodes[i]);
+		}
+	}
+
+	@Benchmark
+	public void simplify(ExpressionState state, UnsimplifiedState unsimplifiedState, Blackhole blackhole)
+			throws AbacusException {
+		for (int i = 0; i < state.expressions.length; i++) {
+			Simplifier simplifier = new Simplifier(state.expressions[i].getAbacusContext(), state.nodeFactory);
+			blackhole.consume(simplifier.simplify(unsimplifiedState.nodes[i]));
+		}
+	}
+}
@@ -0,0 +1,896 @@
+package org.gertje.abacus.batch;
+
+import org.gertje.abacus.context.AbacusContext;
+import org.gertje.abacus.functions.Function;
+import org.gertje.abacus.functions.FunctionResultCache;
+import org.gertje.abacus.nodes.AddNode;
+import org.gertje.abacus.nodes.AndNode;
+import org.gertje.abacus.nodes.ArrayNode;
+import org.gertje.abacus.nodes.AssignmentNode;
+import org.gertje.abacus.nodes.BinaryOperationNode;
+import org.gertje.abacus.nodes.BooleanNode;
+import org.gertje.abacus.nodes.CommonSubexpressionNode;
+import org.gertje.abacus.nodes.ConcatStringNode;
+import org.gertje.abacus.nodes.DateNode;
+import org.gertje.abacus.nodes.DecimalNode;
+import org.gertje.abacus.nodes.DivideNode;
+import org.gertje.abacus.nodes.EqNode;
+import org.gertje.abacus.nodes.ExpressionNode;
+import org.gertje.abacus.nodes.FactorNode;
+import org.gertje.abacus.nodes.FunctionNode;
+import org.gertje.abacus.nodes.GeqNode;
+import org.gertje.abacus.nodes.GtNode;
+import org.gertje.abacus.nodes.IfNode;
+import org.gertje.abacus.nodes.IntegerNode;
+import org.gertje.abacus.nodes.LeqNode;
+import org.gertje.abacus.nodes.LtNode;
+import org.gertje.abacus.nodes.ModuloNode;
+import org.gertje.abacus.nodes.MultiplyNode;
+import org.gertje.abacus.nodes.NegativeNode;
+import org.gertje.abacus.nodes.NeqNode;
+import org.gertje.abacus.nodes.NotNode;
+import org.gertje.abacus.nodes.NullNode;
+import org.gertje.abacus.nodes.OrNode;
+import org.gertje.abacus.nodes.PositiveNode;
+import org.gertje.abacus.nodes.PowerNode;
+import org.gertje.abacus.nodes.StringNode;
+import org.gertje.abacus.nodes.SubtractNode;
+import org.gertje.abacus.nodes.SumNode;
+import org.gertje.abacus.nodes.VariableNode;
+import org.gertje.abacus.nodevisitors.AbstractExpressionNodeVisitor;
+import org.gertje.abacus.nodevisitors.EvaluationException;
+import org.gertje.abacus.runtime.expression.StringOperation;
+import org.gertje.abacus.symboltable.NoSuchFunctionException;
+import org.gertje.abacus.symboltable.NoSuchVariableException;
+import org.gertje.abacus.symboltable.SymbolTable;
+import org.gertje.abacus.types.Type;
+import org.gertje.abacus.util.EvaluationHelper;
+import org.gertje.abacus.util.FunctionHelper;
+import org.gertje.abacus.util.IntrinsicHelper;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates an expression for all rows of a {@link ColumnBatch} at once. Every node is evaluated to a {@link Column}:
+ * integer arithmetic, integer comparisons and logical operations run in loops over primitive arrays, the other
+ * operations are evaluated row by row with the same helpers as the {@link org.gertje.abacus.nodevisitors.ExpressionEvaluator}.
+ *
+ * Variables are read from the column with the same identifier in the batch; variables without a column are read once
+ * from the symbol table of the context and have the same value in every row. Functions are evaluated per row through
+ * the symbol table. The bodies of an if-statement and the right hand side of {@code &&} and {@code ||} are only
+ * evaluated for the rows that need them, so the result (including exceptions such as a division by zero) is the same as
+ * when the rows are evaluated one by one. Assignments are not supported.
+ *
+ * An instance is not thread-safe; use one evaluator per thread.
+ */
+public class BatchEvaluator extends AbstractExpressionNodeVisitor<Column, EvaluationException> {
+
+	/**
+	 * A binary operation on the values of a single row.
+	 */
+	private interface RowOperation {
+		Object apply(Object left, Object right) throws EvaluationException;
+	}
+
+	/**
+	 * The symbol table with the functions and the values of the variables that are not bound to a column.
+	 */
+	private final SymbolTable symbolTable;
+
+	/**
+	 * The {@link MathContext} for the decimal operations.
+	 */
+	private final MathContext mathContext;
+
+	/**
+	 * The batch that is evaluated.
+	 */
+	private ColumnBatch batch;
+
+	/**
+	 * The number of rows in the batch.
+	 */
+	private int size;
+
+	/**
+	 * The rows that need to be evaluated, or {@code null} when all rows need to be evaluated. The values of the rows
+	 * that are not selected are undefined.
+	 */
+	private BitSet selection;
+
+	/**
+	 * The memoized results of the calls to pure functions in the batch that is evaluated.
+	 */
+	private FunctionResultCache functionResultCache;
+
+	/**
+	 * The columns of the common subexpressions that have been computed for all rows of the batch that is evaluated.
+	 */
+	private Map<CommonSubexpressionNode, Column> subexpressionColumns;
+
+	/**
+	 * Constructor.
+	 * @param abacusContext The context with the symbol table and the {@link MathContext}.
+	 */
+	public BatchEvaluator(AbacusContext abacusContext) {
+		symbolTable = abacusContext.getSymbolTable();
+		mathContext = abacusContext.getMathContext();
+	}
+
+	/**
+	 * Evaluates the checked and simplified expression for all rows in the batch.
+	 * @param node The expression.
+	 * @param batch The batch.
+	 * @return A column with the value of the expression for every row.
+	 * @throws EvaluationException When the expression could not be evaluated.
+	 */
+	public Column evaluate(ExpressionNode node, ColumnBatch batch) throws EvaluationException {
+		this.batch = batch;
+		size = batch.size();
+		functionResultCache = new FunctionResultCache();
+		subexpressionColumns = new IdentityHashMap<>();
+		selection = null;
+		try {
+			return node.accept(this);
+		} finally {
+			this.batch = null;
+		}
+	}
+
+	@Override
+	public Column visit(AddNode node) throws EvaluationException {
+		if (Type.equals(node.getType(), Type.STRING)) {
+			return evaluateConcat(node);
+		}
+		return evaluateSum(node);
+	}
+
+	@Override
+	public Column visit(AndNode node) throws EvaluationException {
+		BooleanColumn left = evaluateBoolean(node.getLhs());
+
+		// Only evaluate the right hand side for the rows where the left hand side is not false.
+		BitSet rightRows = new BitSet(size);
+		for (int i = firstRow(); i >= 0; i = nextRow(i)) {
+			if (left.nulls.get(i) || left.values[i]) {
+				rightRows.set(i);
+			}
+		}
+		BooleanColumn right = evaluateBoolean(node.getRhs(), rightRows);
+
+		boolean[] values = new boolean[size];
+		BitSet nulls = new BitSet(size);
+		for (int i = firstRow(); i >= 0; i = nextRow(i)) {
+			if (!rightRows.get(i) || !right.nulls.get(i) && !right.values[i]) {
+				values[i] = false;
+			} else if (left.nulls.get(i) || right.nulls.get(i)) {
+				nulls.set(i);
+			} else {
+				values[i] = true;
+			}
+		}
+		return new BooleanColumn(values, nulls);
+	}
+
+	@Override
+	public Column visit(ArrayNode node) throws EvaluationException {
+		Column array = node.getArray().accept(this);
+		Column index = node.getIndex().accept(this);
+
+		Object[] values = new Object[size];
+		for (int i = firstRow(); i >= 0; i = nextRow(i)) {
+			Object[] arrayValue = (Object[]) array.get(i);
+			Long indexValue = (Long) index.get(i);
+
+			if (arrayValue != null && indexValue != null && indexValue < arrayValue.length && indexValue >= 0) {
+				values[i] = arrayValue[indexValue.intValue()];
+			}
+		}
+		return new ObjectColumn(node.getType(), values);
+	}
+
+	@Override
+	public Column visit(AssignmentNode node) throws EvaluationException {
+		throw new EvaluationException("Assignments are not supported by the batch evaluator.", node);
+	}
+
+	@Override
+	public Column visit(BooleanNode node) throws EvaluationException {
+		return createConstantColumn(node.getValue(), Type.BOOLEAN);
+	}
+
+	@Override
+	public Column visit(CommonSubexpressionNode node) throws EvaluationException {
+		Column column = subexpressionColumns.get(node);
+		if (column != null) {
+			return column;
+		}
+
+		// Only a column that is computed for all rows can be reused, the values of the rows that are not selected are
+		// undefined.
+		column = node.getExpression().accept(this);
+		if (selection == null) {
+			subexpressionColumns.put(node, column);
+		}
+		return column;
+	}
+
+	@Override
+	public Column visit(ConcatStringNode node) throws EvaluationException {
+		return evaluateConcat(node);
+	}
+
+	@Override
+	public Column visit(DateNode node) throws EvaluationException {
+		return createConstantColumn(node.getValue(), Type.DATE);
+	}
+
+	@Override
+	public Column visit(DecimalNode node) throws EvaluationException {
+		return createConstantColumn(node.getValue(), Type.DECIMAL);
+	}
+
+	@Override
+	public Column visit(DivideNode node) throws EvaluationException {
+		if (isIntegerOperation(node)) {
+			IntegerColumn left = evaluateInteger(node.getLhs());
+			IntegerColumn right = evaluateInteger(node.getRhs());
+
+			long[] values = new long[size];
+			BitSet nulls = or(left.nulls, right.nulls);
+			// Only divide the selected rows, an unselected row might divide by zero.
+			for (int i = firstRow(); i >= 0; i = nextRow(i)) {
+				if (!nulls.get(i)) {
+					values[i] = left.values[i] / right.values[i];
+				}
+			}
+			return new IntegerColumn(values, nulls);
+		}
+
+		final Type leftType = node.getLhs().getType();
+		final Type rightType = node.getRhs().getType();
+		return evaluateRowWise(node, new RowOperation() {
+			@Override
+			public Object apply(Object left, Object right) {
+				return EvaluationHelper.divide((Number) left, leftType, (Number) right, rightType, mathContext);
+			}
+		});
+	}
+
+	@Override
+	public Column visit(EqNode node) throws EvaluationException {
+		if (isIntegerComparison(node)) {
+			return evaluateIntegerEquality(node, true);
+		}
+
+		final Type leftType = node.getLhs().getType();
+		final Type rightType = node.getRhs().getType();
+		return evaluateRowWise(node, new RowOperation() {
+			@Override
+			public Object apply(Object left, Object right) {
+				return EvaluationHelper.eq(left, leftType, right, rightType);
+			}
+		});
+	}
+
+	@Override
+	public Column visit(FactorNode node) throws EvaluationException {
+		return node.getArgument().accept(this);
+	}
+
+	@Override
+	public Column visit(FunctionNode node) throws EvaluationException {
+		List<ExpressionNode> parameters = node.getParameters();
+
+		Column[] parameterColumns = new Column[parameters.size()];
+		List<Type> parameterTypes = new ArrayList<>(parameters.size());
+		for (int i = 0; i < parameterColumns.length; i++) {
+			parameterColumns[i] = parameters.get(i).accept(this);
+			parameterTypes.add(parameters.get(i).getType());
+		}
+
+		Object[] values = new Object[size];
+
+		// Call an intrinsic function directly.
+		if (node.getIntrinsicHandle() != null) {
+			for (int i = firstRow(); i >= 0; i = nextRow(i)) {
+				Object[] arguments = new Object[parameterColumns.length];
+				for (int j = 0; j < arguments.length; j++) {
+					arguments[j] = parameterColumns[j].get(i);
+				}
+				values[i] = IntrinsicHelper.invoke(node.getIntrinsicHandle(), arguments, node);
+			}
+			return new ObjectColumn(node.getType(), values);
+		}
+
+		// Call the function directly when the symbol table provides it; the results of pure functions are memoized, so
+		// rows with the same parameters call the function once.
+		Function function = FunctionHelper.determineFunction(symbolTable, node.getIdentifier(), parameterTypes);
+
+		for (int i = firstRow(); i >= 0; i = nextRow(i)) {
+			List<Object> parameterValues = new ArrayList<>(parameterColumns.length);
+			for (Column parameterColumn : parameterColumns) {
+				parameterValues.add(parameterColumn.get(i));
+			}
+
+			if (function != null) {
+				values[i] = functionResultCache.evaluate(function, parameterValues);
+				continue;
+			}
+
+			try {
+				values[i] = symbolTable.getFunctionReturnValue(node.getIdentifier(), parameterValues, parameterTypes);
+			} catch (NoSuchFunctionException e) {
+				throw new EvaluationException(e.getMessage(), node);
+			}
+		}
+		return new ObjectColumn(node.getType(), values);
+	}
+
+	@Override
+	public Column visit(GeqNode node) throws EvaluationException {
+		if (isIntegerComparison(node)) {
+			IntegerColumn left = evaluateInteger(node.getLhs());
+			IntegerColumn right = evaluateInteger(node.getRhs());
+
+			boolean[] values = new boolean[size];
+			for (int i = 0; i < size; i++) {
+				values[i] = left.values[i] >= right.values[i];
+			}
+			return new BooleanColumn(values, or(left.nulls, right.nulls));
+		}
+
+		final Type leftType = node.getLhs().getType();
+		final Type rightType = node.getRhs().getType();
+		return evaluateRowWise(node, new RowOperation() {
+			@Override
+			public Object apply(Object left, Object right) {
+				return EvaluationHelper.geq(left, leftType, right, rightType);
+			}
+		});
+	}
+
+	@Override
+	public Column visit(GtNode node) throws EvaluationException {
+		if (isIntegerComparison(node)) {
+			IntegerColumn left = evaluateInteger(node.getLhs());
+			IntegerColumn right = evaluateInteger(node.getRhs());
+
+			boolean[] values = new boolean[size];
+			for (int i = 0; i < size; i++) {
+				values[i] = left.values[i] > right.values[i];
+			}
+			return new BooleanColumn(values, or(left.nulls, right.nulls));
+		}
+
+		final Type leftType = node.getLhs().getType();
+		final Type rightType = node.getRhs().getType();
+		return evaluateRowWise(node, new RowOperation() {
+			@Override
+			public Object apply(Object left, Object right) {
+				return EvaluationHelper.gt(left, leftType, right, rightType);
+			}
+		});
+	}
+
+	@Override
+	public Column visit(IfNode node) throws EvaluationException {
+		BooleanColumn condition = evaluateBoolean(node.getCondition());
+
+		// Split the selected rows over both bodies, rows where the condition is null evaluate to null.
+		BitSet ifRows = new BitSet(size);
+		BitSet elseRows = new BitSet(size);
+		for (int i = firstRow(); i >= 0; i = nextRow(i)) {
+			if (!condition.nulls.get(i)) {
+				(condition.values[i] ? ifRows : elseRows).set(i);
+			}
+		}
+
+		Column ifBody = evaluate(node.getIfBody(), ifRows);
+		Column elseBody = evaluate(node.getElseBody(), elseRows);
+
+		if (Type.equals(node.getType(), Type.INTEGER)) {
+			IntegerColumn ifColumn = toIntegerColumn(ifBody);
+			IntegerColumn elseColumn = toIntegerColumn(elseBody);
+
+			long[] values = new long[size];
+			BitSet nulls = new BitSet(size);
+			nulls.set(0, size);
+			for (int i = ifRows.nextSetBit(0); i >= 0; i = ifRows.nextSetBit(i + 1)) {
+				values[i] = ifColumn.values[i];
+				nulls.set(i, ifColumn.nulls.get(i));
+			}
+			for (int i = elseRows.nextSetBit(0); i >= 0; i = elseRows.nextSetBit(i + 1)) {
+				values[i] = elseColumn.values[i];
+				nulls.set(i, elseColumn.nulls.get(i));
+			}
+			return new IntegerColumn(values, nulls);
+		}
+
+		boolean castIfBody = isIntegerToDecimal(node.getIfBody().getType(), node.getType());
+		boolean castElseBody = isIntegerToDecimal(node.getElseBody().getType(), node.getType());
+
+		Object[] values = new Object[size];
+		for (int i = ifRows.nextSetBit(0); i >= 0; i = ifRows.nextSetBit(i + 1)) {
+			values[i] = castIfBody ? toDecimal(ifBody.get(i)) : ifBody.get(i);
+		}
+		for (int i = elseRows.nextSetBit(0); i >= 0; i = elseRows.nextSetBit(i + 1)) {
+			values[i] = castElseBody ? toDecimal(elseBody.get(i)) : elseBody.get(i);
+		}
+		return toTypedColumn(new ObjectColumn(node.getType(), values));
+	}
+
+	@Override
+	public Column visit(IntegerNode node) throws EvaluationException {
+		return createConstantColumn(node.getValue(), Type.INTEGER);
+	}
+
+	@Override
+	public Column visit(LeqNode node) throws EvaluationException {
+		if (isIntegerComparison(node)) {
+			IntegerColumn left = evaluateInteger(node.getLhs());
+			IntegerColumn right = evaluateInteger(node.getRhs());
+
+			boolean[] values = new boolean[size];
+			for (int i = 0; i < size; i++) {
+				values[i] = left.values[i] <= right.values[i];
+			}
+			return new BooleanColumn(values, or(left.nulls, right.nulls));
+		}
+
+		final Type leftType = node.getLhs().getType();
+		final Type rightType = node.getRhs().getType();
+		return evaluateRowWise(node, new RowOperation() {
+			@Override
+			public Object apply(Object left, Object right) {
+				return EvaluationHelper.leq(left, leftType, right, rightType);
+			}
+		});
+	}
+
+	@Override
+	public Column visit(LtNode node) throws EvaluationException {
+		if (isIntegerComparison(node)) {
+			IntegerColumn left = evaluateInteger(node.getLhs());
+			IntegerColumn right = evaluateInteger(node.getRhs());
+
+			boolean[] values = new boolean[size];
+			for (int i = 0; i < size; i++) {
+				values[i] = left.values[i] < right.values[i];
+			}
+			return new BooleanColumn(values, or(left.nulls, right.nulls));
+		}
+
+		final Type leftType = node.getLhs().getType();
+		final Type rightType = node.getRhs().getType();
+		return evaluateRowWise(node, new RowOperation() {
+			@Override
+			public Object apply(Object left, Object right) {
+				return EvaluationHelper.lt(left, leftType, right, rightType);
+			}
+		});
+	}
+
+	@Override
+	public Column visit(ModuloNode node) throws EvaluationException {
+		if (isIntegerOperation(node)) {
+			IntegerColumn left = evaluateInteger(node.getLhs());
+			IntegerColumn right = evaluateInteger(node.getRhs());
+
+			long[] values = new long[size];
+			BitSet nulls = or(left.nulls, right.nulls);
+			// Only calculate the selected rows, an unselected row might divide by zero.
+			for (int i = firstRow(); i >= 0; i = nextRow(i)) {
+				if (!nulls.get(i)) {
+					values[i] = left.values[i] % right.values[i];
+				}
+			}
+			return new IntegerColumn(values, nulls);
+		}
+
+		final Type leftType = node.getLhs().getType();
+		final Type rightType = node.getRhs().getType();
+		return evaluateRowWise(node, new RowOperation() {
+			@Override
+			public Object apply(Object left, Object right) {
+				return EvaluationHelper.modulo((Number) left, leftType, (Number) right, rightType);
+			}
+		});
+	}
+
+	@Override
+	public Column visit(MultiplyNode node) throws EvaluationException {
+		if (isIntegerOperation(node)) {
+			IntegerColumn left = evaluateInteger(node.getLhs());
+			IntegerColumn right = evaluateInteger(node.getRhs());
+
+			long[] values = new long[size];
+			for (int i = 0; i < size; i++) {
+				values[i] = left.values[i] * right.values[i];
+			}
+			return new IntegerColumn(values, or(left.nulls, right.nulls));
+		}
+
+		final Type leftType = node.getLhs().getType();
+		final Type rightType = node.getRhs().getType();
+		return evaluateRowWise(node, new RowOperation() {
+			@Override
+			public Object apply(Object left, Object right) {
+				return EvaluationHelper.multiply((Number) left, leftType, (Number) right, rightType, mathContext);
+			}
+		});
+	}
+
+	@Override
+	public Column visit(NegativeNode node) throws EvaluationException {
+		ExpressionNode argument = node.getArgument();
+
+		if (isIntegerOrNull(argument)) {
+			IntegerColumn column = evaluateInteger(argument);
+
+			long[] values = new long[size];
+			for (int i = 0; i < size; i++) {
+				values[i] = -column.values[i];
+			}
+			return new IntegerColumn(values, column.nulls);
+		}
+
+		Column column = argument.accept(this);
+		Object[] values = new Object[size];
+		for (int i = firstRow(); i >= 0; i = nextRow(i)) {
+			values[i] = EvaluationHelper.negate((Number) column.get(i), argument.getType());
+		}
+		return new ObjectColumn(node.getType(), values);
+	}
+
+	@Override
+	public Column visit(NeqNode node) throws EvaluationException {
+		if (isIntegerComparison(node)) {
+			return evaluateIntegerEquality(node, false);
+		}
+
+		final Type leftType = node.getLhs().getType();
+		final Type rightType = node.getRhs().getType();
+		return evaluateRowWise(node, new RowOperation() {
+			@Override
+			public Object apply(Object left, Object right) {
+				return EvaluationHelper.neq(left, leftType, right, rightType);
+			}
+		});
+	}
+
+	@Override
+	public Column visit(NotNode node) throws EvaluationException {
+		BooleanColumn column = evaluateBoolean(node.getArgument());
+
+		boolean[] values = new boolean[size];
+		for (int i = 0; i < size; i++) {
+			values[i] = !column.values[i];
+		}
+		return new BooleanColumn(values, column.nulls);
+	}
+
+	@Override
+	public Column visit(NullNode node) throws EvaluationException {
+		return new ObjectColumn(null, new Object[size]);
+	}
+
+	@Override
+	public Column visit(OrNode node) throws EvaluationException {
+		BooleanColumn left = evaluateBoolean(node.getLhs());
+
+		// Only evaluate the right hand side for the rows where the left hand side is not true.
+		BitSet rightRows = new BitSet(size);
+		for (int i = firstRow(); i >= 0; i = nextRow(i)) {
+			if (left.nulls.get(i) || !left.values[i]) {
+				rightRows.set(i);
+			}
+		}
+		BooleanColumn right = evaluateBoolean(node.getRhs(), rightRows);
+
+		boolean[] values = new boolean[size];
+		BitSet nulls = new BitSet(size);
+		for (int i = firstRow(); i >= 0; i = nextRow(i)) {
+			if (!rightRows.get(i) || !right.nulls.get(i) && right.values[i]) {
+				values[i] = true;
+			} else if (left.nulls.get(i) || right.nulls.get(i)) {
+				nulls.set(i);
+			} else {
+				values[i] = false;
+			}
+		}
+		return new BooleanColumn(values, nulls);
+	}
+
+	@Override
+	public Column visit(PositiveNode node) throws EvaluationException {
+		return node.getArgument().accept(this);
+	}
+
+	@Override
+	public Column visit(PowerNode node) throws EvaluationException {
+		final Type baseType = node.getBase().getType();
+		final Type powerType = node.getPower().getType();
+		return evaluateRowWise(node, new RowOperation() {
+			@Override
+			public Object apply(Object base, Object power) {
+				return EvaluationHelper.power((Number) base, baseType, (Number) power, powerType, mathContext);
+			}
+		});
+	}
+
+	@Override
+	public Column visit(StringNode node) throws EvaluationException {
+		return createConstantColumn(node.getValue(), Type.STRING);
+	}
+
+	@Override
+	public Column visit(SubtractNode node) throws EvaluationException {
+		if (isIntegerOperation(node)) {
+			IntegerColumn left = evaluateInteger(node.getLhs());
+			IntegerColumn right = evaluateInteger(node.getRhs());
+
+			long[] values = new long[size];
+			for (int i = 0; i < size; i++) {
+				values[i] = left.values[i] - right.values[i];
+			}
+			return new IntegerColumn(values, or(left.nulls, right.nulls));
+		}
+
+		final Type leftType = node.getLhs().getType();
+		final Type rightType = node.getRhs().getType();
+		return evaluateRowWise(node, new RowOperation() {
+			@Override
+			public Object apply(Object left, Object right) {
+				return EvaluationHelper.subtract((Number) left, leftType, (Number) right, rightType, mathContext);
+			}
+		});
+	}
+
+	@Override
+	public Column visit(SumNode node) throws EvaluationException {
+		return evaluateSum(node);
+	}
+
+	@Override
+	public Column visit(VariableNode node) throws EvaluationException {
+		Column column = batch.getColumn(node.getIdentifier());
+		if (column != null) {
+			return column;
+		}
+
+		// The variable is not bound to a column, use the value from the symbol table for every row.
+		try {
+			return createConstantColumn(symbolTable.getVariableValue(node.getIdentifier()), node.getType());
+		} catch (NoSuchVariableException e) {
+			throw new EvaluationException(e.getMessage(), node);
+		}
+	}
+
+	/**
+	 * Evaluates the numeric sum of an {@link AddNode} or a {@link SumNode}.
+	 */
+	private Column evaluateSum(BinaryOperationNode node) throws EvaluationException {
+		if (isIntegerOperation(node)) {
+			IntegerColumn left = evaluateInteger(node.getLhs());
+			IntegerColumn right = evaluateInteger(node.getRhs());
+
+			long[] values = new long[size];
+			for (int i = 0; i < size; i++) {
+				values[i] = left.values[i] + right.values[i];
+			}
+			return new IntegerColumn(values, or(left.nulls, right.nulls));
+		}
+
+		final Type leftType = node.getLhs().getType();
+		final Type rightType = node.getRhs().getType();
+		return evaluateRowWise(node, new RowOperation() {
+			@Override
+			public Object apply(Object left, Object right) {
+				return EvaluationHelper.sum(left, leftType, right, rightType, mathContext);
+			}
+		});
+	}
+
+	/**
+	 * Evaluates the string concatenation of an {@link AddNode} or a {@link ConcatStringNode}.
+	 */
+	private Column evaluateConcat(BinaryOperationNode node) throws EvaluationException {
+		return evaluateRowWise(node, new RowOperation() {
+			@Override
+			public Object apply(Object left, Object right) {
+				return StringOperation.concat((String) left, (String) right);
+			}
+		});
+	}
+
+	/**
+	 * Evaluates the equality of two integer columns.
+	 * @param equals {@code true} for {@code ==}, {@code false} for {@code !=}.
+	 */
+	private Column evaluateIntegerEquality(BinaryOperationNode node, boolean equals) throws EvaluationException {
+		IntegerColumn left = evaluateInteger(node.getLhs());
+		IntegerColumn right = evaluateInteger(node.getRhs());
+
+		boolean[] values = new boolean[size];
+		for (int i = 0; i < size; i++) {
+			values[i] = (left.values[i] == right.values[i]) == equals;
+		}
+
+		// Two null values are equal, a null value is not equal to a non-null value.
+		BitSet nulls = or(left.nulls, right.nulls);
+		for (int i = nulls.nextSetBit(0); i >= 0; i = nulls.nextSetBit(i + 1)) {
+			values[i] = (left.nulls.get(i) && right.nulls.get(i)) == equals;
+		}
+		return new BooleanColumn(values);
+	}
+
+	/**
+	 * Evaluates both operands and applies the operation to every selected row.
+	 */
+	private Column evaluateRowWise(BinaryOperationNode node, RowOperation operation) throws EvaluationException {
+		Column left = node.getLhs().accept(this);
+		Column right = node.getRhs().accept(this);
+
+		Object[] values = new Object[size];
+		for (int i = firstRow(); i >= 0; i = nextRow(i)) {
+			values[i] = operation.apply(left.get(i), right.get(i));
+		}
+		return toTypedColumn(new ObjectColumn(node.getType(), values));
+	}
+
+	/**
+	 * Evaluates the node for the given rows only.
+	 */
+	private Column evaluate(ExpressionNode node, BitSet rows) throws EvaluationException {
+		BitSet previousSelection = selection;
+		selection = rows;
+		try {
+			return node.accept(this);
+		} finally {
+			selection = previousSelection;
+		}
+	}
+
+	private IntegerColumn evaluateInteger(ExpressionNode node) throws EvaluationException {
+		return toIntegerColumn(node.accept(this));
+	}
+
+	private BooleanColumn evaluateBoolean(ExpressionNode node) throws EvaluationException {
+		return toBooleanColumn(node.accept(this));
+	}
+
+	private BooleanColumn evaluateBoolean(ExpressionNode node, BitSet rows) throws EvaluationException {
+		return toBooleanColumn(evaluate(node, rows));
+	}
+
+	/**
+	 * Returns the first selected row, or {@code -1} when no row is selected.
+	 */
+	private int firstRow() {
+		if (selection == null) {
+			return size > 0 ? 0 : -1;
+		}
+		return selection.nextSetBit(0);
+	}
+
+	/**
+	 * Returns the next selected row after the given row, or {@code -1} when there is none.
+	 */
+	private int nextRow(int row) {
+		if (selection == null) {
+			return row + 1 < size ? row + 1 : -1;
+		}
+		return selection.nextSetBit(row + 1);
+	}
+
+	/**
+	 * Creates a column with the same value in every row.
+	 */
+	private Column createConstantColumn(Object value, Type type) {
+		if (value != null && Type.equals(type, Type.INTEGER)) {
+			long[] values = new long[size];
+			Arrays.fill(values, (Long) value);
+			return new IntegerColumn(values);
+		}
+		if (value != null && Type.equals(type, Type.BOOLEAN)) {
+			boolean[] values = new boolean[size];
+			Arrays.fill(values, (Boolean) value);
+			return new BooleanColumn(values);
+		}
+
+		Object[] values = new Object[size];
+		Arrays.fill(values, value);
+		return toTypedColumn(new ObjectColumn(type, values));
+	}
+
+	/**
+	 * Converts a column of integers or booleans to its primitive representation.
+	 */
+	private Column toTypedColumn(ObjectColumn column) {
+		if (Type.equals(column.getType(), Type.INTEGER)) {
+			return toIntegerColumn(column);
+		}
+		if (Type.equals(column.getType(), Type.BOOLEAN)) {
+			return toBooleanColumn(column);
+		}
+		return column;
+	}
+
+	private IntegerColumn toIntegerColumn(Column column) {
+		if (column instanceof IntegerColumn) {
+			return (IntegerColumn) column;
+		}
+
+		long[] values = new long[size];
+		BitSet nulls = new BitSet(size);
+		for (int i = 0; i < size; i++) {
+			Long value = (Long) column.get(i);
+			if (value == null) {
+				nulls.set(i);
+			} else {
+				values[i] = value;
+			}
+		}
+		return new IntegerColumn(values, nulls);
+	}
+
+	private BooleanColumn toBooleanColumn(Column column) {
+		if (column instanceof BooleanColumn) {
+			return (BooleanColumn) column;
+		}
+
+		boolean[] values = new boolean[size];
+		BitSet nulls = new BitSet(size);
+		for (int i = 0; i < size; i++) {
+			Boolean value = (Boolean) column.get(i);
+			if (value == null) {
+				nulls.set(i);
+			} else {
+				values[i] = value;
+			}
+		}
+		return new BooleanColumn(values, nulls);
+	}
+
+	private BigDecimal toDecimal(Object value) {
+		return value == null ? null : new BigDecimal(value.toString(), mathContext);
+	}
+
+	private static BitSet or(BitSet left, BitSet right) {
+		BitSet result = (BitSet) left.clone();
+		result.or(right);
+		return result;
+	}
+
+	/**
+	 * Determines whether the node is an arithmetic operation on integers.
+	 */
+	private static boolean isIntegerOperation(BinaryOperationNode node) {
+		return Type.equals(node.getType(), Type.INTEGER) && isIntegerOrNull(node.getLhs())
+				&& isIntegerOrNull(node.getRhs());
+	}
+
+	/**
+	 * Determines whether the node is a comparison of integers.
+	 */
+	private static boolean isIntegerComparison(BinaryOperationNode node) {
+		return isIntegerOrNull(node.getLhs()) && isIntegerOrNull(node.getRhs())
+				&& (node.getLhs().getType() != null || node.getRhs().getType() != null);
+	}
+
+	private static boolean isIntegerOrNull(ExpressionNode node) {
+		return node.getType() == null || Type.equals(node.getType(), Type.INTEGER);
+	}
+
+	private static boolean isIntegerToDecimal(Type fromType, Type toType) {
+		return Type.equals(fromType, Type.INTEGER) && Type.equals(toType, Type.DECIMAL);
+	}
+}
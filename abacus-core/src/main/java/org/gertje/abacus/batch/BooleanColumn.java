@@ -0,0 +1,59 @@
+package org.gertje.abacus.batch;
+
+import org.gertje.abacus.types.Type;
+
+import java.util.BitSet;
+
+/**
+ * A column of booleans, stored as primitive {@code boolean}s with a bitmap of the rows that are {@code null}.
+ */
+public class BooleanColumn extends Column {
+
+	/**
+	 * The values, the value of a row that is {@code null} is undefined.
+	 */
+	final boolean[] values;
+
+	/**
+	 * The rows that are {@code null}.
+	 */
+	final BitSet nulls;
+
+	/**
+	 * Constructor.
+	 * @param values The values.
+	 * @param nulls The rows that are {@code null}.
+	 */
+	public BooleanColumn(boolean[] values, BitSet nulls) {
+		super(Type.BOOLEAN, values.length);
+		this.values = values;
+		this.nulls = nulls;
+	}
+
+	/**
+	 * Constructor for a column without {@code null}s.
+	 * @param values The values.
+	 */
+	public BooleanColumn(boolean[] values) {
+		this(values, new BitSet());
+	}
+
+	/**
+	 * Returns the value in the given row as a primitive, check {@link #isNull(int)} first.
+	 * @param row The row.
+	 * @return The value.
+	 */
+	public boolean getBoolean(int row) {
+		return values[row];
+	}
+
+	@Override
+	public boolean isNull(int row) {
+		return nulls.get(row);
+	}
+
+	@Override
+	public Object get(int row) {
+		return nulls.get(row) ? null : Boolean.valueOf(values[row]);
+	}
+}
@@ -0,0 +1,51 @@
+package org.gertje.abacus.batch;
+
+import org.gertje.abacus.types.Type;
+
+/**
+ * A column of values of one type, one value per row of a {@link ColumnBatch}.
+ */
+public abstract class Column {
+
+	/**
+	 * The type of the values in the column.
+	 */
+	protected final Type type;
+
+	/**
+	 * The number of rows in the column.
+	 */
+	protected final int size;
+
+	/**
+	 * Constructor.
+	 * @param type The type of the values in the column.
+	 * @param size The number of rows in the column.
+	 */
+	protected Column(Type type, int size) {
+		this.type = type;
+		this.size = size;
+	}
+
+	/**
+	 * Returns whether the value in the given row is {@code null}.
+	 * @param row The row.
+	 * @return {@code true} when the value is {@code null}, otherwise {@code false}.
+	 */
+	public abstract boolean isNull(int row);
+
+	/**
+	 * Returns the value in the given row as an object.
+	 * @param row The row.
+	 * @return The value, or {@code null}.
+	 */
+	public abstract Object get(int row);
+
+	public Type getType() {
+		return type;
+	}
+
+	public int size() {
+		return size;
+	}
+}
@@ -0,0 +1,54 @@
+package org.gertje.abacus.batch;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A batch of rows, stored per column. Every column is bound to the variable with the same identifier.
+ */
+public class ColumnBatch {
+
+	/**
+	 * The number of rows in the batch.
+	 */
+	private final int size;
+
+	/**
+	 * The columns by the identifier of their variable.
+	 */
+	private final Map<String, Column> columns = new HashMap<>();
+
+	/**
+	 * Constructor.
+	 * @param size The number of rows in the batch.
+	 */
+	public ColumnBatch(int size) {
+		this.size = size;
+	}
+
+	/**
+	 * Binds the column to the variable with the given identifier.
+	 * @param identifier The identifier of the variable.
+	 * @param column The column, must have as many rows as the batch.
+	 */
+	public void setColumn(String identifier, Column column) {
+		if (column.size() != size) {
+			throw new IllegalArgumentException("The column for '" + identifier + "' has " + column.size()
+					+ " rows, expected " + size + ".");
+		}
+		columns.put(identifier, column);
+	}
+
+	/**
+	 * Returns the column that is bound to the variable with the given identifier.
+	 * @param identifier The identifier of the variable.
+	 * @return The column, or {@code null} when no column is bound to the variable.
+	 */
+	public Column getColumn(String identifier) {
+		return columns.get(identifier);
+	}
+
+	public int size() {
+		return size;
+	}
+}
@@ -0,0 +1,35 @@
+package org.gertje.abacus.batch;
+
+import org.gertje.abacus.types.Type;
+
+/**
+ * A column of objects, for instance {@link java.math.BigDecimal}s, {@link String}s, {@link java.sql.Date}s or arrays.
+ * A row is {@code null} when its value is {@code null}.
+ */
+public class ObjectColumn extends Column {
+
+	/**
+	 * The values.
+	 */
+	final Object[] values;
+
+	/**
+	 * Constructor.
+	 * @param type The type of the values.
+	 * @param values The values.
+	 */
+	public ObjectColumn(Type type, Object[] values) {
+		super(type, values.length);
+		this.values = values;
+	}
+
+	@Override
+	public boolean isNull(int row) {
+		return values[row] == null;
+	}
+
+	@Override
+	public Object get(int row) {
+		return values[row];
+	}
+}
@@ -0,0 +1,166 @@
+package org.gertje.abacus.batch;
+
+import org.gertje.abacus.closures.Closure;
+import org.gertje.abacus.nodevisitors.EvaluationException;
+import org.gertje.abacus.symboltable.SlotSymbolTable;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Evaluates a compiled expression for many rows in parallel on a {@link ForkJoinPool}.
+ *
+ * The rows are split into chunks of at most {@code chunkSize} rows. Every chunk is evaluated by a single worker against
+ * its own frame of the schema (see {@link SlotSymbolTable#createFrame()}), so the workers only share the compiled
+ * {@link Closure}, which is immutable, and the functions of the schema, which must be thread-safe. The results are
+ * written to the position of their row, so they are returned in the order of the rows.
+ *
+ * A row holds the values of the variables in slot order, so its length must equal the number of slots of the schema.
+ * The rows are copied to an array first, so any list gives every worker constant-time access to its rows. The
+ * closure must be compiled from an AST that is resolved against the schema with the
+ * {@link org.gertje.abacus.nodevisitors.SlotResolver}. Assignments only change the frame of the worker; they do not
+ * change the rows or the schema.
+ *
+ * An instance can be used by several threads at the same time.
+ */
+public class ParallelEvaluator {
+
+	/**
+	 * The default maximum number of rows that are evaluated by a worker in one go.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+	/**
+	 * The compiled expression.
+	 */
+	private final Closure closure;
+
+	/**
+	 * The symbol table that determines the slots of the variables and holds the functions.
+	 */
+	private final SlotSymbolTable schema;
+
+	/**
+	 * The pool that runs the workers.
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * The maximum number of rows that are evaluated by a worker in one go.
+	 */
+	private final int chunkSize;
+
+	/**
+	 * Constructor.
+	 * @param closure The compiled expression.
+	 * @param schema The symbol table the expression is resolved against.
+	 * @param pool The pool that runs the workers.
+	 * @param chunkSize The maximum number of rows that are evaluated by a worker in one go.
+	 */
+	public ParallelEvaluator(Closure closure, SlotSymbolTable schema, ForkJoinPool pool, int chunkSize) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("The chunk size must be at least 1.");
+		}
+
+		this.closure = closure;
+		this.schema = schema;
+		this.pool = pool;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Constructor, uses the {@link #DEFAULT_CHUNK_SIZE}.
+	 * @param closure The compiled expression.
+	 * @param schema The symbol table the expression is resolved against.
+	 * @param pool The pool that runs the workers.
+	 */
+	public ParallelEvaluator(Closure closure, SlotSymbolTable schema, ForkJoinPool pool) {
+		this(closure, schema, pool, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Evaluates the expression for every row.
+	 * @param rows The rows, every row holds the values of the variables in slot order.
+	 * @return The results, in the order of the rows.
+	 * @throws EvaluationException When the expression could not be evaluated for one of the rows. When this happens for
+	 * more than one row, it is undefined which exception is thrown.
+	 * @throws IllegalArgumentException When the length of a row differs from the number of slots of the schema.
+	 */
+	public Object[] evaluate(List<Object[]> rows) throws EvaluationException {
+		Object[][] rowArray = rows.toArray(new Object[rows.size()][]);
+
+		int slotCount = schema.getSlotCount();
+		for (int i = 0; i < rowArray.length; i++) {
+			if (rowArray[i].length != slotCount) {
+				throw new IllegalArgumentException("Row " + i + " has " + rowArray[i].length
+						+ " values, but the schema has " + slotCount + " slots.");
+			}
+		}
+
+		Object[] results = new Object[rowArray.length];
+		AtomicReference<EvaluationException> failure = new AtomicReference<>();
+
+		pool.invoke(new EvaluateTask(rowArray, results, failure, 0, rowArray.length));
+
+		if (failure.get() != null) {
+			throw failure.get();
+		}
+		return results;
+	}
+
+	/**
+	 * Evaluates the rows in a range, splits the range in two when it is larger than the chunk size.
+	 */
+	private class EvaluateTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Object[][] rows;
+		private final Object[] results;
+		private final AtomicReference<EvaluationException> failure;
+		private final int from;
+		private final int to;
+
+		public EvaluateTask(Object[][] rows, Object[] results, AtomicReference<EvaluationException> failure,
+				int from, int to) {
+			this.rows = rows;
+			this.results = results;
+			this.failure = failure;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > chunkSize) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new EvaluateTask(rows, results, failure, from, middle),
+						new EvaluateTask(rows, results, failure, middle, to));
+				return;
+			}
+
+			SlotSymbolTable frame = schema.createFrame();
+			int slotCount = frame.getSlotCount();
+
+			for (int i = from; i < to; i++) {
+				// Stop as soon as one of the workers failed.
+				if (failure.get() != null) {
+					return;
+				}
+
+				Object[] row = rows[i];
+				for (int slot = 0; slot < slotCount; slot++) {
+					frame.setVariableValue(slot, row[slot]);
+				}
+
+				try {
+					results[i] = closure.evaluate(frame);
+				} catch (EvaluationException e) {
+					failure.compareAndSet(null, e);
+					return;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,486 @@
+package org.gertje.abacus.cache;
+
+import org.gertje.abacus.context.AbacusContext;
+import org.gertje.abacus.exception.AbacusException;
+import org.gertje.abacus.functions.Function;
+import org.gertje.abacus.lexer.CharSequenceLexer;
+import org.gertje.abacus.nodes.ExpressionNode;
+import org.gertje.abacus.nodes.FunctionNode;
+import org.gertje.abacus.nodes.Node;
+import org.gertje.abacus.nodes.NodeFactory;
+import org.gertje.abacus.nodes.VariableNode;
+import org.gertje.abacus.nodevisitors.DefaultVisitor;
+import org.gertje.abacus.nodevisitors.NodeCopier;
+import org.gertje.abacus.nodevisitors.SemanticsChecker;
+import org.gertje.abacus.nodevisitors.Simplifier;
+import org.gertje.abacus.nodevisitors.VisitingException;
+import org.gertje.abacus.parser.Parser;
+import org.gertje.abacus.symboltable.NoSuchFunctionException;
+import org.gertje.abacus.symboltable.NoSuchVariableException;
+import org.gertje.abacus.symboltable.SymbolTable;
+import org.gertje.abacus.symboltable.Variable;
+import org.gertje.abacus.types.Type;
+import org.gertje.abacus.util.FunctionHelper;
+
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded cache of compiled expressions.
+ *
+ * An expression is lexed, parsed, checked and simplified only once; the result is passed through a {@link Translation}
+ * (for instance the identity, or a translation to a generated class). The result is stored under the expression text
+ * and the schema it was compiled against: the types of all variables and the signatures of all functions the
+ * expression refers to, together with the {@link MathContext} that was used to simplify it. Since the simplifier folds
+ * calls to pure functions and binds calls to intrinsic functions, the schema also holds the functions themselves: an
+ * entry is only reused for a symbol table that resolves every call to the same function instance. The same expression
+ * can therefore be cached for several schemas, and an entry is only reused when the symbol table of the requesting
+ * context agrees with its schema.
+ *
+ * When the cache is full the least recently used entry is evicted. All methods are thread-safe; the compilation of
+ * an expression that is not in the cache happens outside the lock.
+ *
+ * @param <T> The type of the cached values.
+ */
+public class ExpressionCache<T> {
+
+	/**
+	 * Translates a checked and simplified AST into the value that is cached.
+	 * @param <T> The type of the cached values.
+	 */
+	public interface Translation<T> {
+		/**
+		 * Translates the node.
+		 * @param node The checked and simplified node.
+		 * @param abacusContext The context the node was compiled in.
+		 * @return The value to cache.
+		 * @throws AbacusException When the node could not be translated.
+		 */
+		T translate(Node node, AbacusContext abacusContext) throws AbacusException;
+	}
+
+	/**
+	 * The maximum number of entries in the cache.
+	 */
+	private final int maximumSize;
+
+	/**
+	 * The node factory that is used to parse and simplify the expressions.
+	 */
+	private final NodeFactory nodeFactory;
+
+	/**
+	 * Translates the simplified AST into the cached value.
+	 */
+	private final Translation<T> translation;
+
+	/**
+	 * The compiled expressions, in access order.
+	 */
+	private final Map<CacheKey, T> entries = new EntryMap();
+
+	/**
+	 * The schemas for which each expression is in the cache.
+	 */
+	private final Map<String, List<Schema>> schemas = new HashMap<>();
+
+	private long hitCount;
+	private long missCount;
+	private long evictionCount;
+
+	/**
+	 * Constructor.
+	 * @param maximumSize The maximum number of entries in the cache.
+	 * @param nodeFactory The node factory that is used to parse and simplify the expressions.
+	 * @param translation Translates the simplified AST into the cached value.
+	 */
+	public ExpressionCache(int maximumSize, NodeFactory nodeFactory, Translation<T> translation) {
+		if (maximumSize < 1) {
+			throw new IllegalArgumentException("The maximum size of the cache must be at least 1.");
+		}
+
+		this.maximumSize = maximumSize;
+		this.nodeFactory = nodeFactory;
+		this.translation = translation;
+	}
+
+	/**
+	 * Creates a cache that holds the checked and simplified AST of the expressions. Since an AST can be changed, every
+	 * caller gets its own copy of the cached AST.
+	 * @param maximumSize The maximum number of entries in the cache.
+	 * @param nodeFactory The node factory that is used to parse and simplify the expressions.
+	 * @return The cache.
+	 */
+	public static ExpressionCache<Node> createNodeCache(int maximumSize, final NodeFactory nodeFactory) {
+		return new ExpressionCache<Node>(maximumSize, nodeFactory, new Translation<Node>() {
+			@Override
+			public Node translate(Node node, AbacusContext abacusContext) {
+				return node;
+			}
+		}) {
+			@Override
+			protected Node copy(Node value) {
+				return new NodeCopier(nodeFactory).copy(value);
+			}
+		};
+	}
+
+	/**
+	 * Returns the compiled form of the expression, compiles it first when it is not in the cache or when the cached
+	 * entry no longer matches the schema of the symbol table of the context.
+	 * @param expression The expression.
+	 * @param abacusContext The context to compile the expression in.
+	 * @return The compiled expression.
+	 * @throws AbacusException When the expression could not be compiled.
+	 */
+	public T get(String expression, AbacusContext abacusContext) throws AbacusException {
+		T cachedValue = null;
+		boolean isCached = false;
+		synchronized (this) {
+			List<Schema> expressionSchemas = schemas.get(expression);
+			if (expressionSchemas != null) {
+				for (Schema schema : expressionSchemas) {
+					if (schema.matches(abacusContext)) {
+						cachedValue = entries.get(new CacheKey(expression, schema));
+						isCached = true;
+						break;
+					}
+				}
+			}
+			if (isCached) {
+				hitCount++;
+			} else {
+				missCount++;
+			}
+		}
+
+		// The cached value itself is never changed, so it can be copied outside the lock.
+		if (isCached) {
+			return copy(cachedValue);
+		}
+
+		Schema schema = new Schema(abacusContext.getMathContext());
+		T value = compile(expression, abacusContext, schema);
+
+		synchronized (this) {
+			CacheKey key = new CacheKey(expression, schema);
+			if (entries.put(key, value) == null) {
+				addSchema(key);
+			}
+		}
+
+		return copy(value);
+	}
+
+	/**
+	 * Returns the value that is handed out for the cached value. By default this is the cached value itself, which is
+	 * shared by all callers and must therefore not be changed. A cache of values that can be changed returns a copy.
+	 * @param value The cached value.
+	 * @return The value that is handed out.
+	 */
+	protected T copy(T value) {
+		return value;
+	}
+
+	/**
+	 * Removes the expression from the cache, for all schemas.
+	 * @param expression The expression to remove.
+	 */
+	public synchronized void invalidate(String expression) {
+		List<Schema> expressionSchemas = schemas.remove(expression);
+		if (expressionSchemas == null) {
+			return;
+		}
+
+		for (Schema schema : expressionSchemas) {
+			entries.remove(new CacheKey(expression, schema));
+		}
+	}
+
+	/**
+	 * Removes all expressions from the cache.
+	 */
+	public synchronized void invalidateAll() {
+		entries.clear();
+		schemas.clear();
+	}
+
+	/**
+	 * Returns the number of entries in the cache.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns the number of times a compiled expression was found in the cache.
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Returns the number of times an expression had to be compiled.
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Returns the number of entries that were evicted because the cache was full.
+	 */
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * Adds the schema of the key to the schemas of its expression.
+	 */
+	private void addSchema(CacheKey key) {
+		List<Schema> expressionSchemas = schemas.get(key.expression);
+		if (expressionSchemas == null) {
+			expressionSchemas = new ArrayList<>(1);
+			schemas.put(key.expression, expressionSchemas);
+		}
+		expressionSchemas.add(key.schema);
+	}
+
+	/**
+	 * Removes the schema of the key from the schemas of its expression.
+	 */
+	private void removeSchema(CacheKey key) {
+		List<Schema> expressionSchemas = schemas.get(key.expression);
+		expressionSchemas.remove(key.schema);
+		if (expressionSchemas.isEmpty()) {
+			schemas.remove(key.expression);
+		}
+	}
+
+	/**
+	 * Lexes, parses, checks, simplifies and translates the expression, and collects the schema it depends on.
+	 */
+	private T compile(String expression, AbacusContext abacusContext, Schema schema) throws AbacusException {
+		SymbolTable symbolTable = abacusContext.getSymbolTable();
+
+		CharSequenceLexer lexer = new CharSequenceLexer(expression);
+		lexer.setSkipTrivia(true);
+		Parser parser = new Parser(lexer, nodeFactory);
+		Node node = parser.parse();
+
+		new SemanticsChecker(symbolTable).check(node);
+
+		// Collect the dependencies before simplifying; the simplifier may remove references to variables that are
+		// needed for the semantic check.
+		DependencyCollector dependencyCollector = new DependencyCollector();
+		node.accept(dependencyCollector);
+
+		node = new Simplifier(abacusContext, nodeFactory).simplify(node);
+
+		schema.variables.addAll(dependencyCollector.variables);
+		for (FunctionNode functionNode : dependencyCollector.functionNodes) {
+			FunctionSignature function = new FunctionSignature(functionNode, symbolTable);
+			if (!schema.functions.contains(function)) {
+				schema.functions.add(function);
+			}
+		}
+
+		return translation.translate(node, abacusContext);
+	}
+
+	/**
+	 * The compiled expressions in access order, evicts the least recently used entry when the cache is full.
+	 */
+	private class EntryMap extends LinkedHashMap<CacheKey, T> {
+
+		private static final long serialVersionUID = 1L;
+
+		public EntryMap() {
+			super(16, 0.75f, true);
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<CacheKey, T> eldest) {
+			if (size() <= maximumSize) {
+				return false;
+			}
+			removeSchema(eldest.getKey());
+			evictionCount++;
+			return true;
+		}
+	}
+
+	/**
+	 * The key of a compiled expression: the expression text and the schema it was compiled against.
+	 */
+	private static class CacheKey {
+		private final String expression;
+		private final Schema schema;
+
+		public CacheKey(String expression, Schema schema) {
+			this.expression = expression;
+			this.schema = schema;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (o == null || getClass() != o.getClass()) return false;
+
+			CacheKey cacheKey = (CacheKey) o;
+
+			return expression.equals(cacheKey.expression) && schema.equals(cacheKey.schema);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * expression.hashCode() + schema.hashCode();
+		}
+	}
+
+	/**
+	 * The part of the schema of a symbol table that an expression depends on.
+	 */
+	private static class Schema {
+		private final MathContext mathContext;
+		private final List<Variable> variables = new ArrayList<>();
+		private final List<FunctionSignature> functions = new ArrayList<>();
+
+		public Schema(MathContext mathContext) {
+			this.mathContext = mathContext;
+		}
+
+		/**
+		 * Determines whether the symbol table of the given context agrees with the schema.
+		 */
+		public boolean matches(AbacusContext abacusContext) {
+			if (!mathContext.equals(abacusContext.getMathContext())) {
+				return false;
+			}
+
+			SymbolTable symbolTable = abacusContext.getSymbolTable();
+			try {
+				for (Variable variable : variables) {
+					if (!symbolTable.getExistsVariable(variable.getIdentifier())
+							|| !Type.equals(symbolTable.getVariableType(variable.getIdentifier()), variable.getType())) {
+						return false;
+					}
+				}
+				for (FunctionSignature function : functions) {
+					if (!function.matches(symbolTable)) {
+						return false;
+					}
+				}
+			} catch (NoSuchVariableException | NoSuchFunctionException e) {
+				return false;
+			}
+			return true;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (o == null || getClass() != o.getClass()) return false;
+
+			Schema schema = (Schema) o;
+
+			return mathContext.equals(schema.mathContext) && variables.equals(schema.variables)
+					&& functions.equals(schema.functions);
+		}
+
+		@Override
+		public int hashCode() {
+			int result = mathContext.hashCode();
+			result = 31 * result + variables.hashCode();
+			result = 31 * result + functions.hashCode();
+			return result;
+		}
+	}
+
+	/**
+	 * The signature of a function call in an expression, together with the function the call was resolved to.
+	 */
+	private static class FunctionSignature {
+		private final String identifier;
+		private final List<ExpressionNode> parameters;
+		private final List<Type> parameterTypes;
+		private final Type returnType;
+
+		/**
+		 * The function the call was resolved to, or {@code null} when the symbol table does not provide its functions
+		 * (see {@link FunctionHelper#determineFunction(SymbolTable, String, List)}).
+		 */
+		private final Function function;
+
+		public FunctionSignature(FunctionNode node, SymbolTable symbolTable) {
+			identifier = node.getIdentifier();
+			// Copy the parameters, so the signature does not change when the node is changed.
+			parameters = Collections.unmodifiableList(new ArrayList<>(node.getParameters()));
+			parameterTypes = new ArrayList<>(parameters.size());
+			for (ExpressionNode parameter : parameters) {
+				parameterTypes.add(parameter.getType());
+			}
+			returnType = node.getReturnType();
+			function = FunctionHelper.determineFunction(symbolTable, identifier, parameterTypes);
+		}
+
+		/**
+		 * Determines whether the symbol table resolves the call to the same function. Comparing the signature is not
+		 * enough: the cached AST may contain the folded result of a pure function or a call that is bound to the
+		 * method of an intrinsic function.
+		 */
+		public boolean matches(SymbolTable symbolTable) throws NoSuchFunctionException {
+			return symbolTable.getExistsFunction(identifier, parameterTypes)
+					&& Type.equals(symbolTable.getFunctionReturnType(identifier, parameters), returnType)
+					&& FunctionHelper.determineFunction(symbolTable, identifier, parameterTypes) == function;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (o == null || getClass() != o.getClass()) return false;
+
+			FunctionSignature signature = (FunctionSignature) o;
+
+			return identifier.equals(signature.identifier) && parameterTypes.equals(signature.parameterTypes)
+					&& Objects.equals(returnType, signature.returnType) && function == signature.function;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = identifier.hashCode();
+			result = 31 * result + parameterTypes.hashCode();
+			result = 31 * result + Objects.hashCode(returnType);
+			result = 31 * result + System.identityHashCode(function);
+			return result;
+		}
+	}
+
+	/**
+	 * Collects the variables and the function calls in an AST.
+	 */
+	private static class DependencyCollector extends DefaultVisitor<Void, VisitingException> {
+		private final List<Variable> variables = new ArrayList<>();
+		private final List<FunctionNode> functionNodes = new ArrayList<>();
+
+		@Override
+		public Void visit(FunctionNode node) throws VisitingException {
+			functionNodes.add(node);
+			return super.visit(node);
+		}
+
+		@Override
+		public Void visit(VariableNode node) throws VisitingException {
+			Variable variable = new Variable(node.getIdentifier(), node.getType());
+			if (!variables.contains(variable)) {
+				variables.add(variable);
+			}
+			return null;
+		}
+	}
+}
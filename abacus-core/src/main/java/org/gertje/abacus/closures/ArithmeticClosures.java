@@ -0,0 +1,236 @@
+package org.gertje.abacus.closures;
+
+import org.gertje.abacus.nodevisitors.EvaluationException;
+import org.gertje.abacus.runtime.expression.ArithmeticOperation;
+import org.gertje.abacus.symboltable.SymbolTable;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * The closures for the arithmetic operations. Every operation has a variant per operand type; operations on an
+ * integer and a decimal are compiled to the decimal variant with the integer operand converted.
+ */
+final class ArithmeticClosures {
+
+	private ArithmeticClosures() {
+	}
+
+	/**
+	 * Super class for the closures of binary operations.
+	 */
+	abstract static class BinaryClosure implements Closure {
+		protected final Closure lhs;
+		protected final Closure rhs;
+
+		BinaryClosure(Closure lhs, Closure rhs) {
+			this.lhs = lhs;
+			this.rhs = rhs;
+		}
+	}
+
+	/**
+	 * Super class for the closures of binary operations on decimals.
+	 */
+	abstract static class DecimalBinaryClosure extends BinaryClosure {
+		protected final MathContext mathContext;
+
+		DecimalBinaryClosure(Closure lhs, Closure rhs, MathContext mathContext) {
+			super(lhs, rhs);
+			this.mathContext = mathContext;
+		}
+	}
+
+	static final class IntegerToDecimalClosure implements Closure {
+		private final Closure argument;
+
+		IntegerToDecimalClosure(Closure argument) {
+			this.argument = argument;
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			Long value = (Long) argument.evaluate(symbolTable);
+			return value == null ? null : BigDecimal.valueOf(value);
+		}
+	}
+
+	static final class IntegerSumClosure extends BinaryClosure {
+		IntegerSumClosure(Closure lhs, Closure rhs) {
+			super(lhs, rhs);
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			return ArithmeticOperation.sum((Long) lhs.evaluate(symbolTable), (Long) rhs.evaluate(symbolTable));
+		}
+	}
+
+	static final class DecimalSumClosure extends DecimalBinaryClosure {
+		DecimalSumClosure(Closure lhs, Closure rhs, MathContext mathContext) {
+			super(lhs, rhs, mathContext);
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			return ArithmeticOperation.sum((BigDecimal) lhs.evaluate(symbolTable),
+					(BigDecimal) rhs.evaluate(symbolTable), mathContext);
+		}
+	}
+
+	static final class IntegerSubtractClosure extends BinaryClosure {
+		IntegerSubtractClosure(Closure lhs, Closure rhs) {
+			super(lhs, rhs);
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			return ArithmeticOperation.subtract((Long) lhs.evaluate(symbolTable), (Long) rhs.evaluate(symbolTable));
+		}
+	}
+
+	static final class DecimalSubtractClosure extends DecimalBinaryClosure {
+		DecimalSubtractClosure(Closure lhs, Closure rhs, MathContext mathContext) {
+			super(lhs, rhs, mathContext);
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			return ArithmeticOperation.subtract((BigDecimal) lhs.evaluate(symbolTable),
+					(BigDecimal) rhs.evaluate(symbolTable), mathContext);
+		}
+	}
+
+	static final class IntegerMultiplyClosure extends BinaryClosure {
+		IntegerMultiplyClosure(Closure lhs, Closure rhs) {
+			super(lhs, rhs);
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			return ArithmeticOperation.multiply((Long) lhs.evaluate(symbolTable), (Long) rhs.evaluate(symbolTable));
+		}
+	}
+
+	static final class DecimalMultiplyClosure extends DecimalBinaryClosure {
+		DecimalMultiplyClosure(Closure lhs, Closure rhs, MathContext mathContext) {
+			super(lhs, rhs, mathContext);
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			return ArithmeticOperation.multiply((BigDecimal) lhs.evaluate(symbolTable),
+					(BigDecimal) rhs.evaluate(symbolTable), mathContext);
+		}
+	}
+
+	static final class IntegerDivideClosure extends BinaryClosure {
+		IntegerDivideClosure(Closure lhs, Closure rhs) {
+			super(lhs, rhs);
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			return ArithmeticOperation.divide((Long) lhs.evaluate(symbolTable), (Long) rhs.evaluate(symbolTable));
+		}
+	}
+
+	static final class DecimalDivideClosure extends DecimalBinaryClosure {
+		DecimalDivideClosure(Closure lhs, Closure rhs, MathContext mathContext) {
+			super(lhs, rhs, mathContext);
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			return ArithmeticOperation.divide((BigDecimal) lhs.evaluate(symbolTable),
+					(BigDecimal) rhs.evaluate(symbolTable), mathContext);
+		}
+	}
+
+	static final class IntegerModuloClosure extends BinaryClosure {
+		IntegerModuloClosure(Closure lhs, Closure rhs) {
+			super(lhs, rhs);
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			return ArithmeticOperation.modulo((Long) lhs.evaluate(symbolTable), (Long) rhs.evaluate(symbolTable));
+		}
+	}
+
+	static final class DecimalModuloClosure extends BinaryClosure {
+		DecimalModuloClosure(Closure lhs, Closure rhs) {
+			super(lhs, rhs);
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			return ArithmeticOperation.modulo((BigDecimal) lhs.evaluate(symbolTable),
+					(BigDecimal) rhs.evaluate(symbolTable));
+		}
+	}
+
+	static final class IntegerPowerClosure extends BinaryClosure {
+		IntegerPowerClosure(Closure lhs, Closure rhs) {
+			super(lhs, rhs);
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			return ArithmeticOperation.power((Long) lhs.evaluate(symbolTable), (Long) rhs.evaluate(symbolTable));
+		}
+	}
+
+	/**
+	 * Raises a decimal to an integer power.
+	 */
+	static final class DecimalIntegerPowerClosure extends DecimalBinaryClosure {
+		DecimalIntegerPowerClosure(Closure lhs, Closure rhs, MathContext mathContext) {
+			super(lhs, rhs, mathContext);
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			return ArithmeticOperation.power((BigDecimal) lhs.evaluate(symbolTable), (Long) rhs.evaluate(symbolTable),
+					mathContext);
+		}
+	}
+
+	static final class DecimalPowerClosure extends DecimalBinaryClosure {
+		DecimalPowerClosure(Closure lhs, Closure rhs, MathContext mathContext) {
+			super(lhs, rhs, mathContext);
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			return ArithmeticOperation.power((BigDecimal) lhs.evaluate(symbolTable),
+					(BigDecimal) rhs.evaluate(symbolTable), mathContext);
+		}
+	}
+
+	static final class IntegerNegateClosure implements Closure {
+		private final Closure argument;
+
+		IntegerNegateClosure(Closure argument) {
+			this.argument = argument;
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			return ArithmeticOperation.negate((Long) argument.evaluate(symbolTable));
+		}
+	}
+
+	static final class DecimalNegateClosure implements Closure {
+		private final Closure argument;
+
+		DecimalNegateClosure(Closure argument) {
+			this.argument = argument;
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			return ArithmeticOperation.negate((BigDecimal) argument.evaluate(symbolTable));
+		}
+	}
+}
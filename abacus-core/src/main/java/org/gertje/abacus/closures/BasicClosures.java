@@ -0,0 +1,307 @@
+package org.gertje.abacus.closures;
+
+import org.gertje.abacus.closures.ArithmeticClosures.BinaryClosure;
+import org.gertje.abacus.nodes.Node;
+import org.gertje.abacus.nodevisitors.EvaluationException;
+import org.gertje.abacus.runtime.expression.StringOperation;
+import org.gertje.abacus.symboltable.NoSuchFunctionException;
+import org.gertje.abacus.symboltable.NoSuchVariableException;
+import org.gertje.abacus.symboltable.SlotSymbolTable;
+import org.gertje.abacus.symboltable.SymbolTable;
+import org.gertje.abacus.types.Type;
+import org.gertje.abacus.util.CastHelper;
+import org.gertje.abacus.util.IntrinsicHelper;
+
+import java.lang.invoke.MethodHandle;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The closures for constants, variables, functions, arrays, assignments, string concatenation, if-statements and
+ * statement lists.
+ */
+final class BasicClosures {
+
+	private BasicClosures() {
+	}
+
+	static final class ConstantClosure implements Closure {
+		private final Object value;
+
+		ConstantClosure(Object value) {
+			this.value = value;
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) {
+			return value;
+		}
+	}
+
+	static final class VariableClosure implements Closure {
+		private final Node node;
+		private final String identifier;
+
+		VariableClosure(Node node, String identifier) {
+			this.node = node;
+			this.identifier = identifier;
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			try {
+				return symbolTable.getVariableValue(identifier);
+			} catch (NoSuchVariableException e) {
+				throw new EvaluationException(e.getMessage(), node);
+			}
+		}
+	}
+
+	/**
+	 * Reads a variable that is bound to a slot, the symbol table must be a {@link SlotSymbolTable}.
+	 */
+	static final class SlotVariableClosure implements Closure {
+		private final int slot;
+
+		SlotVariableClosure(int slot) {
+			this.slot = slot;
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) {
+			return ((SlotSymbolTable) symbolTable).getVariableValue(slot);
+		}
+	}
+
+	static final class FunctionClosure implements Closure {
+		private final Node node;
+		private final String identifier;
+		private final Closure[] parameters;
+		private final List<Type> parameterTypes;
+
+		FunctionClosure(Node node, String identifier, Closure[] parameters, List<Type> parameterTypes) {
+			this.node = node;
+			this.identifier = identifier;
+			this.parameters = parameters;
+			this.parameterTypes = parameterTypes;
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			List<Object> values = new ArrayList<>(parameters.length);
+			for (Closure parameter : parameters) {
+				values.add(parameter.evaluate(symbolTable));
+			}
+
+			try {
+				return symbolTable.getFunctionReturnValue(identifier, values, parameterTypes);
+			} catch (NoSuchFunctionException e) {
+				throw new EvaluationException(e.getMessage(), node);
+			}
+		}
+	}
+
+	static final class IntrinsicClosure implements Closure {
+		private final Node node;
+		private final MethodHandle method;
+		private final Closure[] parameters;
+
+		IntrinsicClosure(Node node, MethodHandle method, Closure[] parameters) {
+			this.node = node;
+			this.method = method;
+			this.parameters = parameters;
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			Object[] arguments = new Object[parameters.length];
+			for (int i = 0; i < arguments.length; i++) {
+				arguments[i] = parameters[i].evaluate(symbolTable);
+			}
+			return IntrinsicHelper.invoke(method, arguments, node);
+		}
+	}
+
+	static final class ArrayClosure implements Closure {
+		private final Closure array;
+		private final Closure index;
+
+		ArrayClosure(Closure array, Closure index) {
+			this.array = array;
+			this.index = index;
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			Object[] arrayValue = (Object[]) array.evaluate(symbolTable);
+			Long indexValue = (Long) index.evaluate(symbolTable);
+
+			if (arrayValue == null || indexValue == null || indexValue >= arrayValue.length || indexValue < 0) {
+				return null;
+			}
+
+			return arrayValue[indexValue.intValue()];
+		}
+	}
+
+	/**
+	 * Super class for the assignments, evaluates and casts the value that is assigned.
+	 */
+	abstract static class AbstractAssignmentClosure implements Closure {
+		private final Closure value;
+		private final Type valueType;
+		private final Type variableType;
+
+		AbstractAssignmentClosure(Closure value, Type valueType, Type variableType) {
+			this.value = value;
+			this.valueType = valueType;
+			this.variableType = variableType;
+		}
+
+		protected Object evaluateValue(SymbolTable symbolTable) throws EvaluationException {
+			return CastHelper.castValue(value.evaluate(symbolTable), valueType, variableType);
+		}
+	}
+
+	static final class VariableAssignmentClosure extends AbstractAssignmentClosure {
+		private final Node node;
+		private final String identifier;
+
+		VariableAssignmentClosure(Node node, String identifier, Closure value, Type valueType, Type variableType) {
+			super(value, valueType, variableType);
+			this.node = node;
+			this.identifier = identifier;
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			Object value = evaluateValue(symbolTable);
+			try {
+				symbolTable.setVariableValue(identifier, value);
+			} catch (Exception e) {
+				throw new EvaluationException("Could not set the variable value.", node, e);
+			}
+			return value;
+		}
+	}
+
+	/**
+	 * Assigns a variable that is bound to a slot, the symbol table must be a {@link SlotSymbolTable}.
+	 */
+	static final class SlotVariableAssignmentClosure extends AbstractAssignmentClosure {
+		private final int slot;
+
+		SlotVariableAssignmentClosure(int slot, Closure value, Type valueType, Type variableType) {
+			super(value, valueType, variableType);
+			this.slot = slot;
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			Object value = evaluateValue(symbolTable);
+			((SlotSymbolTable) symbolTable).setVariableValue(slot, value);
+			return value;
+		}
+	}
+
+	static final class ArrayAssignmentClosure extends AbstractAssignmentClosure {
+		private final Closure array;
+		private final Closure index;
+
+		ArrayAssignmentClosure(Closure array, Closure index, Closure value, Type valueType, Type elementType) {
+			super(value, valueType, elementType);
+			this.array = array;
+			this.index = index;
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			// Evaluate the value before the array and the index, like the ExpressionEvaluator does.
+			Object value = evaluateValue(symbolTable);
+
+			Object[] arrayValue = (Object[]) array.evaluate(symbolTable);
+			Long indexValue = (Long) index.evaluate(symbolTable);
+
+			if (arrayValue == null || indexValue == null || indexValue >= arrayValue.length || indexValue < 0) {
+				return null;
+			}
+
+			return arrayValue[indexValue.intValue()] = value;
+		}
+	}
+
+	static final class ConcatClosure extends BinaryClosure {
+		ConcatClosure(Closure lhs, Closure rhs) {
+			super(lhs, rhs);
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			return StringOperation.concat((String) lhs.evaluate(symbolTable), (String) rhs.evaluate(symbolTable));
+		}
+	}
+
+	static final class IfClosure implements Closure {
+		private final Closure condition;
+		private final Closure ifBody;
+		private final Closure elseBody;
+
+		IfClosure(Closure condition, Closure ifBody, Closure elseBody) {
+			this.condition = condition;
+			this.ifBody = ifBody;
+			this.elseBody = elseBody;
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			Boolean value = (Boolean) condition.evaluate(symbolTable);
+
+			if (value == null) {
+				return null;
+			}
+
+			return value ? ifBody.evaluate(symbolTable) : elseBody.evaluate(symbolTable);
+		}
+	}
+
+	/**
+	 * Casts the integer body of an if-statement of type decimal.
+	 */
+	static final class IfBodyCastClosure implements Closure {
+		private final Closure body;
+		private final MathContext mathContext;
+
+		IfBodyCastClosure(Closure body, MathContext mathContext) {
+			this.body = body;
+			this.mathContext = mathContext;
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			Object value = body.evaluate(symbolTable);
+			return value == null ? null : new BigDecimal(value.toString(), mathContext);
+		}
+	}
+
+	/**
+	 * Evaluates all statements and returns the value of the last one.
+	 */
+	static final class StatementListClosure implements Closure {
+		private final Closure[] statements;
+
+		StatementListClosure(Closure[] statements) {
+			this.statements = statements;
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			Object result = null;
+			for (Closure statement : statements) {
+				result = statement.evaluate(symbolTable);
+			}
+			return result;
+		}
+	}
+}
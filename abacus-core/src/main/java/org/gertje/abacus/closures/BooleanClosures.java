@@ -0,0 +1,176 @@
+package org.gertje.abacus.closures;
+
+import org.gertje.abacus.closures.ArithmeticClosures.BinaryClosure;
+import org.gertje.abacus.nodevisitors.EvaluationException;
+import org.gertje.abacus.symboltable.SymbolTable;
+
+/**
+ * The closures for the logical operations and the comparisons. The comparisons work on {@link Comparable}s of the
+ * same type; comparisons of an integer and a decimal are compiled with the integer operand converted to a decimal.
+ */
+final class BooleanClosures {
+
+	private BooleanClosures() {
+	}
+
+	static final class AndClosure extends BinaryClosure {
+		AndClosure(Closure lhs, Closure rhs) {
+			super(lhs, rhs);
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			Boolean left = (Boolean) lhs.evaluate(symbolTable);
+			if (left != null && !left) {
+				return Boolean.FALSE;
+			}
+
+			Boolean right = (Boolean) rhs.evaluate(symbolTable);
+			if (right != null && !right) {
+				return Boolean.FALSE;
+			}
+
+			return left == null || right == null ? null : Boolean.TRUE;
+		}
+	}
+
+	static final class OrClosure extends BinaryClosure {
+		OrClosure(Closure lhs, Closure rhs) {
+			super(lhs, rhs);
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			Boolean left = (Boolean) lhs.evaluate(symbolTable);
+			if (left != null && left) {
+				return Boolean.TRUE;
+			}
+
+			Boolean right = (Boolean) rhs.evaluate(symbolTable);
+			if (right != null && right) {
+				return Boolean.TRUE;
+			}
+
+			return left == null || right == null ? null : Boolean.FALSE;
+		}
+	}
+
+	static final class NotClosure implements Closure {
+		private final Closure argument;
+
+		NotClosure(Closure argument) {
+			this.argument = argument;
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			Boolean value = (Boolean) argument.evaluate(symbolTable);
+			return value == null ? null : Boolean.valueOf(!value);
+		}
+	}
+
+	/**
+	 * Two null values are equal, a null value is not equal to a non-null value.
+	 */
+	@SuppressWarnings("unchecked")
+	static final class EqualsClosure extends BinaryClosure {
+		EqualsClosure(Closure lhs, Closure rhs) {
+			super(lhs, rhs);
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			Comparable<Object> left = (Comparable<Object>) lhs.evaluate(symbolTable);
+			Object right = rhs.evaluate(symbolTable);
+			if (left == null || right == null) {
+				return left == right;
+			}
+			return left.compareTo(right) == 0;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	static final class NotEqualsClosure extends BinaryClosure {
+		NotEqualsClosure(Closure lhs, Closure rhs) {
+			super(lhs, rhs);
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			Comparable<Object> left = (Comparable<Object>) lhs.evaluate(symbolTable);
+			Object right = rhs.evaluate(symbolTable);
+			if (left == null || right == null) {
+				return left != right;
+			}
+			return left.compareTo(right) != 0;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	static final class LessThanClosure extends BinaryClosure {
+		LessThanClosure(Closure lhs, Closure rhs) {
+			super(lhs, rhs);
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			Comparable<Object> left = (Comparable<Object>) lhs.evaluate(symbolTable);
+			Object right = rhs.evaluate(symbolTable);
+			if (left == null || right == null) {
+				return null;
+			}
+			return left.compareTo(right) < 0;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	static final class LessThanEqualsClosure extends BinaryClosure {
+		LessThanEqualsClosure(Closure lhs, Closure rhs) {
+			super(lhs, rhs);
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			Comparable<Object> left = (Comparable<Object>) lhs.evaluate(symbolTable);
+			Object right = rhs.evaluate(symbolTable);
+			if (left == null || right == null) {
+				return null;
+			}
+			return left.compareTo(right) <= 0;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	static final class GreaterThanClosure extends BinaryClosure {
+		GreaterThanClosure(Closure lhs, Closure rhs) {
+			super(lhs, rhs);
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			Comparable<Object> left = (Comparable<Object>) lhs.evaluate(symbolTable);
+			Object right = rhs.evaluate(symbolTable);
+			if (left == null || right == null) {
+				return null;
+			}
+			return left.compareTo(right) > 0;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	static final class GreaterThanEqualsClosure extends BinaryClosure {
+		GreaterThanEqualsClosure(Closure lhs, Closure rhs) {
+			super(lhs, rhs);
+		}
+
+		@Override
+		public Object evaluate(SymbolTable symbolTable) throws EvaluationException {
+			Comparable<Object> left = (Comparable<Object>) lhs.evaluate(symbolTable);
+			Object right = rhs.evaluate(symbolTable);
+			if (left == null || right == null) {
+				return null;
+			}
+			return left.compareTo(right) >= 0;
+		}
+	}
+}
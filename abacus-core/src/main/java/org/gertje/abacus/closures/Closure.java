@@ -0,0 +1,20 @@
+package org.gertje.abacus.closures;
+
+import org.gertje.abacus.nodevisitors.EvaluationException;
+import org.gertje.abacus.symboltable.SymbolTable;
+
+/**
+ * A compiled node of an AST, created by the {@link ClosureCompiler}. A closure holds no state besides its compiled
+ * sub nodes, so it can be evaluated by several threads at the same time, as long as each thread uses its own symbol
+ * table.
+ */
+public interface Closure {
+
+	/**
+	 * Evaluates the closure.
+	 * @param symbolTable The symbol table with the values of the variables and the functions.
+	 * @return The value of the closure.
+	 * @throws EvaluationException When the closure could not be evaluated.
+	 */
+	Object evaluate(SymbolTable symbolTable) throws EvaluationException;
+}
@@ -0,0 +1,445 @@
+package org.gertje.abacus.closures;
+
+import org.gertje.abacus.closures.ArithmeticClosures.DecimalDivideClosure;
+import org.gertje.abacus.closures.ArithmeticClosures.DecimalIntegerPowerClosure;
+import org.gertje.abacus.closures.ArithmeticClosures.DecimalModuloClosure;
+import org.gertje.abacus.closures.ArithmeticClosures.DecimalMultiplyClosure;
+import org.gertje.abacus.closures.ArithmeticClosures.DecimalNegateClosure;
+import org.gertje.abacus.closures.ArithmeticClosures.DecimalPowerClosure;
+import org.gertje.abacus.closures.ArithmeticClosures.DecimalSubtractClosure;
+import org.gertje.abacus.closures.ArithmeticClosures.DecimalSumClosure;
+import org.gertje.abacus.closures.ArithmeticClosures.IntegerDivideClosure;
+import org.gertje.abacus.closures.ArithmeticClosures.IntegerModuloClosure;
+import org.gertje.abacus.closures.ArithmeticClosures.IntegerMultiplyClosure;
+import org.gertje.abacus.closures.ArithmeticClosures.IntegerNegateClosure;
+import org.gertje.abacus.closures.ArithmeticClosures.IntegerPowerClosure;
+import org.gertje.abacus.closures.ArithmeticClosures.IntegerSubtractClosure;
+import org.gertje.abacus.closures.ArithmeticClosures.IntegerSumClosure;
+import org.gertje.abacus.closures.ArithmeticClosures.IntegerToDecimalClosure;
+import org.gertje.abacus.closures.BasicClosures.ArrayAssignmentClosure;
+import org.gertje.abacus.closures.BasicClosures.ArrayClosure;
+import org.gertje.abacus.closures.BasicClosures.ConcatClosure;
+import org.gertje.abacus.closures.BasicClosures.ConstantClosure;
+import org.gertje.abacus.closures.BasicClosures.FunctionClosure;
+import org.gertje.abacus.closures.BasicClosures.IfBodyCastClosure;
+import org.gertje.abacus.closures.BasicClosures.IfClosure;
+import org.gertje.abacus.closures.BasicClosures.IntrinsicClosure;
+import org.gertje.abacus.closures.BasicClosures.SlotVariableAssignmentClosure;
+import org.gertje.abacus.closures.BasicClosures.SlotVariableClosure;
+import org.gertje.abacus.closures.BasicClosures.StatementListClosure;
+import org.gertje.abacus.closures.BasicClosures.VariableAssignmentClosure;
+import org.gertje.abacus.closures.BasicClosures.VariableClosure;
+import org.gertje.abacus.closures.BooleanClosures.AndClosure;
+import org.gertje.abacus.closures.BooleanClosures.EqualsClosure;
+import org.gertje.abacus.closures.BooleanClosures.GreaterThanClosure;
+import org.gertje.abacus.closures.BooleanClosures.GreaterThanEqualsClosure;
+import org.gertje.abacus.closures.BooleanClosures.LessThanClosure;
+import org.gertje.abacus.closures.BooleanClosures.LessThanEqualsClosure;
+import org.gertje.abacus.closures.BooleanClosures.NotClosure;
+import org.gertje.abacus.closures.BooleanClosures.NotEqualsClosure;
+import org.gertje.abacus.closures.BooleanClosures.OrClosure;
+import org.gertje.abacus.nodes.AddNode;
+import org.gertje.abacus.nodes.AndNode;
+import org.gertje.abacus.nodes.ArrayNode;
+import org.gertje.abacus.nodes.AssignmentNode;
+import org.gertje.abacus.nodes.BinaryOperationNode;
+import org.gertje.abacus.nodes.BooleanNode;
+import org.gertje.abacus.nodes.CommonSubexpressionNode;
+import org.gertje.abacus.nodes.ConcatStringNode;
+import org.gertje.abacus.nodes.DateNode;
+import org.gertje.abacus.nodes.DecimalNode;
+import org.gertje.abacus.nodes.DivideNode;
+import org.gertje.abacus.nodes.EqNode;
+import org.gertje.abacus.nodes.ExpressionNode;
+import org.gertje.abacus.nodes.FactorNode;
+import org.gertje.abacus.nodes.FunctionNode;
+import org.gertje.abacus.nodes.GeqNode;
+import org.gertje.abacus.nodes.GtNode;
+import org.gertje.abacus.nodes.IfNode;
+import org.gertje.abacus.nodes.IntegerNode;
+import org.gertje.abacus.nodes.LeqNode;
+import org.gertje.abacus.nodes.LtNode;
+import org.gertje.abacus.nodes.ModuloNode;
+import org.gertje.abacus.nodes.MultiplyNode;
+import org.gertje.abacus.nodes.NegativeNode;
+import org.gertje.abacus.nodes.NeqNode;
+import org.gertje.abacus.nodes.Node;
+import org.gertje.abacus.nodes.NotNode;
+import org.gertje.abacus.nodes.NullNode;
+import org.gertje.abacus.nodes.OrNode;
+import org.gertje.abacus.nodes.PositiveNode;
+import org.gertje.abacus.nodes.PowerNode;
+import org.gertje.abacus.nodes.RootNode;
+import org.gertje.abacus.nodes.StatementListNode;
+import org.gertje.abacus.nodes.StringNode;
+import org.gertje.abacus.nodes.SubtractNode;
+import org.gertje.abacus.nodes.SumNode;
+import org.gertje.abacus.nodes.VariableNode;
+import org.gertje.abacus.nodevisitors.NodeVisitor;
+import org.gertje.abacus.nodevisitors.VisitingException;
+import org.gertje.abacus.types.Type;
+
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles a checked AST into a tree of {@link Closure}s. For every node a small closure is chosen at compile time,
+ * based on the kind of the node and the types of its operands, so evaluating the closure does no type dispatch and no
+ * visitor dispatch. Compiling does not define any classes.
+ *
+ * Variable nodes that are bound to a slot by the {@link org.gertje.abacus.nodevisitors.SlotResolver} are compiled to
+ * closures that read and write the slot directly; such closures must be evaluated against the
+ * {@link org.gertje.abacus.symboltable.SlotSymbolTable} they were resolved with, or one of its frames.
+ *
+ * The compiled closures are immutable, so they can be shared between threads.
+ */
+public class ClosureCompiler implements NodeVisitor<Closure, VisitingException> {
+
+	/**
+	 * The {@link MathContext} for the decimal operations.
+	 */
+	private final MathContext mathContext;
+
+	/**
+	 * The compiled closures of the common subexpressions.
+	 */
+	private final Map<CommonSubexpressionNode, Closure> subexpressionClosures = new IdentityHashMap<>();
+
+	/**
+	 * Constructor.
+	 * @param mathContext The {@link MathContext} for the decimal operations.
+	 */
+	public ClosureCompiler(MathContext mathContext) {
+		this.mathContext = mathContext;
+	}
+
+	/**
+	 * Compiles the checked (and preferably simplified) AST into a closure.
+	 * @param node The root of the AST.
+	 * @return The closure.
+	 * @throws VisitingException When the AST could not be compiled.
+	 */
+	public Closure compile(Node node) throws VisitingException {
+		return node.accept(this);
+	}
+
+	@Override
+	public Closure visit(AddNode node) throws VisitingException {
+		if (Type.equals(node.getType(), Type.STRING)) {
+			return new ConcatClosure(node.getLhs().accept(this), node.getRhs().accept(this));
+		}
+		return compileSum(node);
+	}
+
+	@Override
+	public Closure visit(AndNode node) throws VisitingException {
+		return new AndClosure(node.getLhs().accept(this), node.getRhs().accept(this));
+	}
+
+	@Override
+	public Closure visit(ArrayNode node) throws VisitingException {
+		return new ArrayClosure(node.getArray().accept(this), node.getIndex().accept(this));
+	}
+
+	@Override
+	public Closure visit(AssignmentNode node) throws VisitingException {
+		ExpressionNode lhs = node.getLhs();
+		ExpressionNode rhs = node.getRhs();
+
+		Closure value = rhs.accept(this);
+
+		if (lhs instanceof VariableNode) {
+			VariableNode variableNode = (VariableNode) lhs;
+			if (variableNode.getSlot() >= 0) {
+				return new SlotVariableAssignmentClosure(variableNode.getSlot(), value, rhs.getType(), lhs.getType());
+			}
+			return new VariableAssignmentClosure(variableNode, variableNode.getIdentifier(), value, rhs.getType(),
+					lhs.getType());
+		}
+
+		if (lhs instanceof ArrayNode) {
+			ArrayNode arrayNode = (ArrayNode) lhs;
+			return new ArrayAssignmentClosure(arrayNode.getArray().accept(this), arrayNode.getIndex().accept(this),
+					value, rhs.getType(), lhs.getType());
+		}
+
+		throw new IllegalStateException("Unexpected left hand side of an assignment.");
+	}
+
+	@Override
+	public Closure visit(BooleanNode node) throws VisitingException {
+		return new ConstantClosure(node.getValue());
+	}
+
+	@Override
+	public Closure visit(CommonSubexpressionNode node) throws VisitingException {
+		// A closure has no state for a single evaluation to keep the value in, so the subexpression is evaluated at
+		// every occurrence; the occurrences share the compiled closure.
+		Closure closure = subexpressionClosures.get(node);
+		if (closure == null) {
+			closure = node.getExpression().accept(this);
+			subexpressionClosures.put(node, closure);
+		}
+		return closure;
+	}
+
+	@Override
+	public Closure visit(ConcatStringNode node) throws VisitingException {
+		return new ConcatClosure(node.getLhs().accept(this), node.getRhs().accept(this));
+	}
+
+	@Override
+	public Closure visit(DateNode node) throws VisitingException {
+		return new ConstantClosure(node.getValue());
+	}
+
+	@Override
+	public Closure visit(DecimalNode node) throws VisitingException {
+		return new ConstantClosure(node.getValue());
+	}
+
+	@Override
+	public Closure visit(DivideNode node) throws VisitingException {
+		if (isDecimalOperation(node)) {
+			return new DecimalDivideClosure(compileDecimal(node.getLhs()), compileDecimal(node.getRhs()),
+					mathContext);
+		}
+		return new IntegerDivideClosure(node.getLhs().accept(this), node.getRhs().accept(this));
+	}
+
+	@Override
+	public Closure visit(EqNode node) throws VisitingException {
+		if (isDecimalOperation(node)) {
+			return new EqualsClosure(compileDecimal(node.getLhs()), compileDecimal(node.getRhs()));
+		}
+		return new EqualsClosure(node.getLhs().accept(this), node.getRhs().accept(this));
+	}
+
+	@Override
+	public Closure visit(FactorNode node) throws VisitingException {
+		return node.getArgument().accept(this);
+	}
+
+	@Override
+	public Closure visit(FunctionNode node) throws VisitingException {
+		List<ExpressionNode> parameters = node.getParameters();
+
+		Closure[] parameterClosures = new Closure[parameters.size()];
+		List<Type> parameterTypes = new ArrayList<>(parameters.size());
+		for (int i = 0; i < parameterClosures.length; i++) {
+			parameterClosures[i] = parameters.get(i).accept(this);
+			parameterTypes.add(parameters.get(i).getType());
+		}
+
+		if (node.getIntrinsicHandle() != null) {
+			return new IntrinsicClosure(node, node.getIntrinsicHandle(), parameterClosures);
+		}
+		return new FunctionClosure(node, node.getIdentifier(), parameterClosures,
+				Collections.unmodifiableList(parameterTypes));
+	}
+
+	@Override
+	public Closure visit(GeqNode node) throws VisitingException {
+		if (isDecimalOperation(node)) {
+			return new GreaterThanEqualsClosure(compileDecimal(node.getLhs()), compileDecimal(node.getRhs()));
+		}
+		return new GreaterThanEqualsClosure(node.getLhs().accept(this), node.getRhs().accept(this));
+	}
+
+	@Override
+	public Closure visit(GtNode node) throws VisitingException {
+		if (isDecimalOperation(node)) {
+			return new GreaterThanClosure(compileDecimal(node.getLhs()), compileDecimal(node.getRhs()));
+		}
+		return new GreaterThanClosure(node.getLhs().accept(this), node.getRhs().accept(this));
+	}
+
+	@Override
+	public Closure visit(IfNode node) throws VisitingException {
+		return new IfClosure(node.getCondition().accept(this), compileIfBody(node.getIfBody(), node.getType()),
+				compileIfBody(node.getElseBody(), node.getType()));
+	}
+
+	@Override
+	public Closure visit(IntegerNode node) throws VisitingException {
+		return new ConstantClosure(node.getValue());
+	}
+
+	@Override
+	public Closure visit(LeqNode node) throws VisitingException {
+		if (isDecimalOperation(node)) {
+			return new LessThanEqualsClosure(compileDecimal(node.getLhs()), compileDecimal(node.getRhs()));
+		}
+		return new LessThanEqualsClosure(node.getLhs().accept(this), node.getRhs().accept(this));
+	}
+
+	@Override
+	public Closure visit(LtNode node) throws VisitingException {
+		if (isDecimalOperation(node)) {
+			return new LessThanClosure(compileDecimal(node.getLhs()), compileDecimal(node.getRhs()));
+		}
+		return new LessThanClosure(node.getLhs().accept(this), node.getRhs().accept(this));
+	}
+
+	@Override
+	public Closure visit(ModuloNode node) throws VisitingException {
+		if (isDecimalOperation(node)) {
+			return new DecimalModuloClosure(compileDecimal(node.getLhs()), compileDecimal(node.getRhs()));
+		}
+		return new IntegerModuloClosure(node.getLhs().accept(this), node.getRhs().accept(this));
+	}
+
+	@Override
+	public Closure visit(MultiplyNode node) throws VisitingException {
+		if (isDecimalOperation(node)) {
+			return new DecimalMultiplyClosure(compileDecimal(node.getLhs()), compileDecimal(node.getRhs()),
+					mathContext);
+		}
+		return new IntegerMultiplyClosure(node.getLhs().accept(this), node.getRhs().accept(this));
+	}
+
+	@Override
+	public Closure visit(NegativeNode node) throws VisitingException {
+		if (isDecimal(node.getArgument())) {
+			return new DecimalNegateClosure(node.getArgument().accept(this));
+		}
+		return new IntegerNegateClosure(node.getArgument().accept(this));
+	}
+
+	@Override
+	public Closure visit(NeqNode node) throws VisitingException {
+		if (isDecimalOperation(node)) {
+			return new NotEqualsClosure(compileDecimal(node.getLhs()), compileDecimal(node.getRhs()));
+		}
+		return new NotEqualsClosure(node.getLhs().accept(this), node.getRhs().accept(this));
+	}
+
+	@Override
+	public Closure visit(NotNode node) throws VisitingException {
+		return new NotClosure(node.getArgument().accept(this));
+	}
+
+	@Override
+	public Closure visit(NullNode node) throws VisitingException {
+		return new ConstantClosure(null);
+	}
+
+	@Override
+	public Closure visit(OrNode node) throws VisitingException {
+		return new OrClosure(node.getLhs().accept(this), node.getRhs().accept(this));
+	}
+
+	@Override
+	public Closure visit(PositiveNode node) throws VisitingException {
+		return node.getArgument().accept(this);
+	}
+
+	@Override
+	public Closure visit(PowerNode node) throws VisitingException {
+		ExpressionNode base = node.getBase();
+		ExpressionNode power = node.getPower();
+
+		if (isDecimal(base) && !isDecimal(power)) {
+			return new DecimalIntegerPowerClosure(base.accept(this), power.accept(this), mathContext);
+		}
+		if (isDecimal(base) || isDecimal(power)) {
+			return new DecimalPowerClosure(compileDecimal(base), compileDecimal(power), mathContext);
+		}
+		return new IntegerPowerClosure(base.accept(this), power.accept(this));
+	}
+
+	@Override
+	public Closure visit(RootNode node) throws VisitingException {
+		return node.getStatementListNode().accept(this);
+	}
+
+	@Override
+	public Closure visit(StatementListNode node) throws VisitingException {
+		if (node.size() == 1) {
+			return node.get(0).accept(this);
+		}
+
+		Closure[] statements = new Closure[node.size()];
+		for (int i = 0; i < statements.length; i++) {
+			statements[i] = node.get(i).accept(this);
+		}
+		return new StatementListClosure(statements);
+	}
+
+	@Override
+	public Closure visit(StringNode node) throws VisitingException {
+		return new ConstantClosure(node.getValue());
+	}
+
+	@Override
+	public Closure visit(SubtractNode node) throws VisitingException {
+		if (isDecimalOperation(node)) {
+			return new DecimalSubtractClosure(compileDecimal(node.getLhs()), compileDecimal(node.getRhs()),
+					mathContext);
+		}
+		return new IntegerSubtractClosure(node.getLhs().accept(this), node.getRhs().accept(this));
+	}
+
+	@Override
+	public Closure visit(SumNode node) throws VisitingException {
+		return compileSum(node);
+	}
+
+	@Override
+	public Closure visit(VariableNode node) throws VisitingException {
+		if (node.getSlot() >= 0) {
+			return new SlotVariableClosure(node.getSlot());
+		}
+		return new VariableClosure(node, node.getIdentifier());
+	}
+
+	/**
+	 * Compiles the numeric sum of an {@link AddNode} or a {@link SumNode}.
+	 */
+	private Closure compileSum(BinaryOperationNode node) throws VisitingException {
+		if (isDecimalOperation(node)) {
+			return new DecimalSumClosure(compileDecimal(node.getLhs()), compileDecimal(node.getRhs()), mathContext);
+		}
+		return new IntegerSumClosure(node.getLhs().accept(this), node.getRhs().accept(this));
+	}
+
+	/**
+	 * Compiles a numeric operand of a decimal operation, an integer operand is converted to a decimal.
+	 */
+	private Closure compileDecimal(ExpressionNode node) throws VisitingException {
+		Closure closure = node.accept(this);
+		return isDecimal(node) ? closure : new IntegerToDecimalClosure(closure);
+	}
+
+	/**
+	 * Compiles the body of an if-statement, casts the body when it is an integer and the if-statement is a decimal.
+	 */
+	private Closure compileIfBody(ExpressionNode body, Type type) throws VisitingException {
+		Closure closure = body.accept(this);
+		if (Type.equals(body.getType(), Type.INTEGER) && Type.equals(type, Type.DECIMAL)) {
+			return new IfBodyCastClosure(closure, mathContext);
+		}
+		return closure;
+	}
+
+	/**
+	 * Determines whether the operation has a decimal and a numeric operand; the operation must then be compiled to
+	 * its decimal variant.
+	 */
+	private static boolean isDecimalOperation(BinaryOperationNode node) {
+		return (isDecimal(node.getLhs()) || isDecimal(node.getRhs()))
+				&& isNumberOrNull(node.getLhs()) && isNumberOrNull(node.getRhs());
+	}
+
+	private static boolean isDecimal(ExpressionNode node) {
+		return Type.equals(node.getType(), Type.DECIMAL);
+	}
+
+	private static boolean isNumberOrNull(ExpressionNode node) {
+		return node.getType() == null || Type.isNumber(node.getType());
+	}
+}
@@ -0,0 +1,143 @@
+package org.gertje.abacus.closures;
+
+import org.gertje.abacus.context.AbacusContext;
+import org.gertje.abacus.exception.AbacusException;
+import org.gertje.abacus.lexer.CharSequenceLexer;
+import org.gertje.abacus.nodes.AbacusNodeFactory;
+import org.gertje.abacus.nodes.Node;
+import org.gertje.abacus.nodes.NodeFactory;
+import org.gertje.abacus.nodes.RootNode;
+import org.gertje.abacus.nodevisitors.EvaluationException;
+import org.gertje.abacus.nodevisitors.SemanticsChecker;
+import org.gertje.abacus.nodevisitors.Simplifier;
+import org.gertje.abacus.nodevisitors.SlotResolver;
+import org.gertje.abacus.parser.Parser;
+import org.gertje.abacus.symboltable.SlotSymbolTable;
+import org.gertje.abacus.symboltable.SymbolTable;
+import org.gertje.abacus.types.Type;
+
+import java.math.MathContext;
+
+/**
+ * An expression that is lexed, parsed, checked, simplified and compiled once, and that can be evaluated many times.
+ *
+ * The compiled expression separates the immutable parts from the values of the variables. It holds the schema (the
+ * {@link SlotSymbolTable} with the variables and functions it was compiled against) and the compiled {@link Closure};
+ * the values are held by a binding, which is a frame of the schema that is created with {@link #newBinding()}.
+ *
+ * A compiled expression is immutable and thread-safe: it can be shared by any number of threads, as long as every
+ * thread evaluates it against its own binding and the functions of the schema are thread-safe. Compiling freezes the
+ * schema (see {@link SlotSymbolTable#freeze()}), so its variables and functions, which the compiled closures depend
+ * on, can not be added, replaced or registered afterwards. The schema itself is not a binding, since its values can
+ * be changed by whoever else holds it. A binding is not thread-safe.
+ */
+public final class CompiledExpression {
+
+	/**
+	 * The symbol table the expression was compiled against.
+	 */
+	private final SlotSymbolTable schema;
+
+	/**
+	 * The compiled expression.
+	 */
+	private final Closure closure;
+
+	/**
+	 * The type of the expression.
+	 */
+	private final Type type;
+
+	private CompiledExpression(SlotSymbolTable schema, Closure closure, Type type) {
+		this.schema = schema;
+		this.closure = closure;
+		this.type = type;
+	}
+
+	/**
+	 * Compiles the expression against the schema, using {@link MathContext#DECIMAL128} for the decimal calculations.
+	 * @param expression The expression.
+	 * @param schema The symbol table with the variables and the functions the expression may refer to.
+	 * @return The compiled expression.
+	 * @throws AbacusException When the expression could not be compiled.
+	 */
+	public static CompiledExpression compile(String expression, SlotSymbolTable schema) throws AbacusException {
+		return compile(expression, schema, MathContext.DECIMAL128);
+	}
+
+	/**
+	 * Compiles the expression against the schema.
+	 * @param expression The expression.
+	 * @param schema The symbol table with the variables and the functions the expression may refer to.
+	 * @param mathContext The {@link MathContext} for the decimal calculations.
+	 * @return The compiled expression.
+	 * @throws AbacusException When the expression could not be compiled.
+	 */
+	public static CompiledExpression compile(String expression, final SlotSymbolTable schema,
+			final MathContext mathContext) throws AbacusException {
+		// The slots and types of the variables and the functions must not change once the expression is compiled.
+		schema.freeze();
+
+		NodeFactory nodeFactory = new AbacusNodeFactory();
+		AbacusContext abacusContext = new AbacusContext() {
+			@Override
+			public SymbolTable getSymbolTable() {
+				return schema;
+			}
+
+			@Override
+			public MathContext getMathContext() {
+				return mathContext;
+			}
+		};
+
+		CharSequenceLexer lexer = new CharSequenceLexer(expression);
+		lexer.setSkipTrivia(true);
+		RootNode rootNode = new Parser(lexer, nodeFactory).parse();
+		new SemanticsChecker(schema).check(rootNode);
+
+		Node node = new Simplifier(abacusContext, nodeFactory).simplify(rootNode);
+		new SlotResolver(schema).resolve(node);
+
+		return new CompiledExpression(schema, new ClosureCompiler(mathContext).compile(node), rootNode.getType());
+	}
+
+	/**
+	 * Creates a new binding for the variables of the expression. All values of the new binding are {@code null}.
+	 * @return The binding.
+	 */
+	public SlotSymbolTable newBinding() {
+		return schema.createFrame();
+	}
+
+	/**
+	 * Evaluates the expression with the values of the binding.
+	 * @param binding The binding, must be created by {@link #newBinding()} or share the schema of the expression, and
+	 * must not be the schema itself.
+	 * @return The value of the expression.
+	 * @throws EvaluationException When the expression could not be evaluated.
+	 */
+	public Object evaluate(SlotSymbolTable binding) throws EvaluationException {
+		if (binding == schema) {
+			throw new IllegalArgumentException("The schema of the compiled expression is not a binding.");
+		}
+		if (!schema.sharesSchema(binding)) {
+			throw new IllegalArgumentException("The binding does not share the schema of the compiled expression.");
+		}
+		return closure.evaluate(binding);
+	}
+
+	/**
+	 * Returns the type of the expression.
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the compiled closure. The closure may only be evaluated against a binding of this expression.
+	 */
+	public Closure getClosure() {
+		return closure;
+	}
+}
@@ -0,0 +1,77 @@
+package org.gertje.abacus.functions;
+
+import org.gertje.abacus.types.Type;
+import org.gertje.abacus.util.JavaTypeHelper;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+/**
+ * Intrinsic function that is implemented by a public static method of a class. The method is found by its name and the
+ * Java types of the parameters, so the class may overload the method for different parameter types.
+ */
+abstract public class AbstractIntrinsicFunction extends AbstractFunction implements IntrinsicFunction {
+
+	private final Class<?> targetClass;
+	private final String targetMethodName;
+
+	/**
+	 * Constructor
+	 * @param allowedTypes The types of the parameters.
+	 * @param canLastTypeRepeat Whether the last type may repeat.
+	 * @param targetClass The class with the method.
+	 * @param targetMethodName The name of the method.
+	 */
+	public AbstractIntrinsicFunction(List<Type> allowedTypes, boolean canLastTypeRepeat, Class<?> targetClass,
+			String targetMethodName) {
+		super(allowedTypes, canLastTypeRepeat);
+		this.targetClass = targetClass;
+		this.targetMethodName = targetMethodName;
+	}
+
+	@Override
+	public Method getTarget(List<Type> types) {
+		Class<?>[] parameterClasses = new Class<?>[types.size()];
+		for (int i = 0; i < parameterClasses.length; i++) {
+			parameterClasses[i] = JavaTypeHelper.determineJavaType(types.get(i));
+		}
+
+		try {
+			return targetClass.getMethod(targetMethodName, parameterClasses);
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Evaluates the function by calling the method with the name and the number of parameters, for when the call is
+	 * not bound to the method. When the class overloads the method for the same number of parameters, subclasses must
+	 * override this method.
+	 */
+	@Override
+	public Object evaluate(List<Object> params) {
+		for (Method method : targetClass.getMethods()) {
+			if (method.getName().equals(targetMethodName) && method.getParameterTypes().length == params.size()
+					&& Modifier.isStatic(method.getModifiers())) {
+				return invoke(method, params.toArray());
+			}
+		}
+		throw new IllegalStateException("Class " + targetClass.getName() + " has no method " + targetMethodName
+				+ " with " + params.size() + " parameters.");
+	}
+
+	private static Object invoke(Method method, Object[] arguments) {
+		try {
+			return method.invoke(null, arguments);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		} catch (InvocationTargetException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package org.gertje.abacus.functions;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Memoizes the results of calls to pure functions (see {@link PureFunction}), keyed by the function and the
+ * values of the parameters. The cache holds at most a fixed number of results, when it is full the least recently used
+ * result is evicted. Calls to functions that are not pure are not memoized.
+ *
+ * Parameters are compared with {@link Object#equals(Object)}, so arrays only match when they are the same instance.
+ *
+ * An instance is not thread-safe.
+ */
+public class FunctionResultCache {
+
+	/**
+	 * The default maximum number of results in the cache.
+	 */
+	public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+	/**
+	 * Placeholder for a {@code null} result, to distinguish it from a result that is not cached.
+	 */
+	private static final Object NULL_RESULT = new Object();
+
+	/**
+	 * The results, in the order they were last used.
+	 */
+	private final ResultMap results;
+
+	/**
+	 * Constructor, the cache holds at most {@link #DEFAULT_MAXIMUM_SIZE} results.
+	 */
+	public FunctionResultCache() {
+		this(DEFAULT_MAXIMUM_SIZE);
+	}
+
+	/**
+	 * Constructor.
+	 * @param maximumSize The maximum number of results in the cache.
+	 */
+	public FunctionResultCache(int maximumSize) {
+		if (maximumSize < 1) {
+			throw new IllegalArgumentException("The maximum size must be at least 1.");
+		}
+
+		results = new ResultMap(maximumSize);
+	}
+
+	/**
+	 * Evaluates the function, returns the memoized result when the function is pure and was called with the same
+	 * parameters before.
+	 * @param function The function.
+	 * @param params The values of the parameters.
+	 * @return The result of the function.
+	 */
+	public Object evaluate(Function function, List<Object> params) {
+		if (!(function instanceof PureFunction)) {
+			return function.evaluate(params);
+		}
+
+		Call call = new Call(function, params.toArray());
+		Object result = results.get(call);
+		if (result == null) {
+			result = function.evaluate(params);
+			results.put(call, result == null ? NULL_RESULT : result);
+			return result;
+		}
+		return result == NULL_RESULT ? null : result;
+	}
+
+	/**
+	 * Returns the number of results in the cache.
+	 */
+	public int size() {
+		return results.size();
+	}
+
+	/**
+	 * Removes all results from the cache.
+	 */
+	public void clear() {
+		results.clear();
+	}
+
+	/**
+	 * The results in the order they were last used, evicts the least recently used result when it holds too many.
+	 */
+	private static class ResultMap extends LinkedHashMap<Call, Object> {
+
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The maximum number of results.
+		 */
+		private final int maximumSize;
+
+		public ResultMap(int maximumSize) {
+			super(16, 0.75f, true);
+			this.maximumSize = maximumSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Call, Object> eldest) {
+			return size() > maximumSize;
+		}
+	}
+
+	/**
+	 * A call to a function, functions are compared by identity.
+	 */
+	private static class Call {
+		private final Function function;
+		private final Object[] params;
+		private final int hashCode;
+
+		public Call(Function function, Object[] params) {
+			this.function = function;
+			this.params = params;
+			hashCode = 31 * System.identityHashCode(function) + Arrays.hashCode(params);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Call)) {
+				return false;
+			}
+			Call other = (Call) o;
+			return function == other.function && Arrays.equals(params, other.params);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+}
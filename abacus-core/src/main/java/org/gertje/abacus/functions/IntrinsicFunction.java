@@ -0,0 +1,27 @@
+package org.gertje.abacus.functions;
+
+import org.gertje.abacus.types.Type;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * A function that can be called directly. Instead of being evaluated through the symbol table, a call to an intrinsic
+ * function is bound to a public static method when the AST is checked; the evaluators and the generated byte code call
+ * that method with the values of the parameters as arguments.
+ *
+ * The method must accept the Java types of the parameters (see {@link org.gertje.abacus.util.JavaTypeHelper}) in the
+ * same order, and return the Java type of the return type. Since the method is called directly, it must not depend on
+ * the symbol table it is registered in. The class of the method must be visible to the class loader of the generated
+ * classes.
+ */
+public interface IntrinsicFunction extends Function {
+
+	/**
+	 * Returns the method that implements the function for parameters of the given types.
+	 * @param types The types of the parameters.
+	 * @return The public static method, or {@code null} when the function must be evaluated through the symbol table
+	 * for these types.
+	 */
+	Method getTarget(List<Type> types);
+}
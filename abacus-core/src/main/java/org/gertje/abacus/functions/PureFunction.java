@@ -0,0 +1,12 @@
+package org.gertje.abacus.functions;
+
+/**
+ * A function that is pure: it has no side effects and always returns the same value for the same parameters. The
+ * results of calls to a pure function may be memoized (see {@link FunctionResultCache}), and calls with constant
+ * parameters may be folded when the AST is simplified.
+ *
+ * Functions are not pure unless they implement this interface, since memoizing the results of a function with side
+ * effects (like {@link RandFunction}) changes its behaviour.
+ */
+public interface PureFunction extends Function {
+}
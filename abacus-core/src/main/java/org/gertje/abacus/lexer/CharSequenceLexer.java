@@ -0,0 +1,463 @@
+package org.gertje.abacus.lexer;
+
+import org.gertje.abacus.token.Token;
+import org.gertje.abacus.token.TokenType;
+
+import java.nio.CharBuffer;
+import java.util.List;
+
+/**
+ * Lexer that scans an input that is already in memory, like a {@link String} or a {@code char[]}.
+ *
+ * It recognizes the same tokens as the {@link AbacusLexer}, but reads the characters directly from the input instead
+ * of through a {@link org.gertje.abacus.lexer.io.LexerReader}. Every token knows its offset and length in the input.
+ * The values of identifiers, numbers, dates and strings without escapes refer to a range of the input; they are only
+ * turned into strings when the parser asks for them. Therefore the input must not change while the tokens are used.
+ *
+ * The lexer can skip white space and new lines itself (see {@link #setSkipTrivia(boolean)}), so the parser only gets
+ * the significant tokens and no tokens are created for the trivia, unless they are collected with
+ * {@link #setTriviaTokens(List)}.
+ */
+public class CharSequenceLexer implements Lexer {
+
+	/**
+	 * The input.
+	 */
+	protected final CharSequence input;
+
+	/**
+	 * The offset of the end of the input.
+	 */
+	protected final int end;
+
+	/**
+	 * The offset of the next character that is read.
+	 */
+	protected int index;
+
+	/**
+	 * The number of the current line.
+	 */
+	protected int lineNumber = 1;
+
+	/**
+	 * The offset of the first character of the current line.
+	 */
+	protected int lineStart;
+
+	/**
+	 * The token that was peeked, but not yet returned by {@link #getNextToken()}.
+	 */
+	private Token peekedToken;
+
+	/**
+	 * Whether white space and new lines are skipped.
+	 */
+	private boolean skipTrivia;
+
+	/**
+	 * The list to which the skipped white space and new lines are added, or {@code null}.
+	 */
+	private List<Token> triviaTokens;
+
+	public CharSequenceLexer(CharSequence input) {
+		this.input = input;
+		this.end = input.length();
+	}
+
+	public CharSequenceLexer(char[] input) {
+		this(CharBuffer.wrap(input));
+	}
+
+	public CharSequenceLexer(char[] input, int offset, int length) {
+		this(CharBuffer.wrap(input, offset, length).slice());
+	}
+
+	/**
+	 * Creates a lexer that starts scanning in the middle of the input, for instance to lex a part of the input again.
+	 * @param input The input.
+	 * @param offset The offset of the first character that is scanned.
+	 * @param lineNumber The number of the line of the first character.
+	 * @param columnNumber The number of the column of the first character.
+	 */
+	public CharSequenceLexer(CharSequence input, int offset, int lineNumber, int columnNumber) {
+		this(input);
+		this.index = offset;
+		this.lineNumber = lineNumber;
+		this.lineStart = offset - columnNumber + 1;
+	}
+
+	@Override
+	public Token peekToken() throws LexerException {
+		if (peekedToken == null) {
+			peekedToken = scanToken();
+		}
+		return peekedToken;
+	}
+
+	@Override
+	public Token getNextToken() throws LexerException {
+		if (peekedToken != null) {
+			Token token = peekedToken;
+			peekedToken = null;
+			return token;
+		}
+		return scanToken();
+	}
+
+	/**
+	 * Sets whether the lexer skips white space and new lines, instead of returning them as tokens.
+	 */
+	public void setSkipTrivia(boolean skipTrivia) {
+		this.skipTrivia = skipTrivia;
+	}
+
+	public boolean isSkipTrivia() {
+		return skipTrivia;
+	}
+
+	/**
+	 * Sets the list to which the skipped white space and new lines are added, in the order of the input, for tools
+	 * that need the layout of the input. A run of white space results in a single token. When the list is
+	 * {@code null}, which is the default, no tokens are created for the skipped characters.
+	 */
+	public void setTriviaTokens(List<Token> triviaTokens) {
+		this.triviaTokens = triviaTokens;
+	}
+
+	public List<Token> getTriviaTokens() {
+		return triviaTokens;
+	}
+
+	/**
+	 * Returns the offset of the next character that is scanned.
+	 */
+	public int getOffset() {
+		return index;
+	}
+
+	/**
+	 * Returns the number of the line of the next character that is scanned.
+	 */
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * Returns the number of the column of the next character that is scanned.
+	 */
+	public int getColumnNumber() {
+		return determineColumnNumber();
+	}
+
+	/**
+	 * Scans the next token from the input.
+	 */
+	protected Token scanToken() throws LexerException {
+		if (skipTrivia) {
+			skipTrivia();
+		}
+
+		int start = index;
+		Token token = new Token(lineNumber, determineColumnNumber(), start);
+
+		if (index >= end) {
+			token.setType(TokenType.END_OF_INPUT);
+			return token;
+		}
+
+		fillNextToken(input.charAt(index++), token);
+
+		token.setLength(index - start);
+		return token;
+	}
+
+	/**
+	 * Determines the type and the value of the token that starts with the given character, which is already read.
+	 * @param c The first character of the token.
+	 * @param token The token.
+	 * @throws LexerException
+	 */
+	protected void fillNextToken(char c, Token token) throws LexerException {
+		switch (c) {
+			case ' ':
+			case '\t':
+				token.setType(TokenType.WHITE_SPACE);
+				break;
+			case ';':
+				token.setType(TokenType.END_OF_EXPRESSION);
+				break;
+			case '\r':
+				if (index < end && input.charAt(index) == '\n') {
+					index++;
+				}
+				startNewLine();
+				token.setType(TokenType.NEW_LINE);
+				break;
+			case '\n':
+				startNewLine();
+				token.setType(TokenType.NEW_LINE);
+				break;
+			case '(':
+				token.setType(TokenType.LEFT_PARENTHESIS);
+				break;
+			case ')':
+				token.setType(TokenType.RIGHT_PARENTHESIS);
+				break;
+			case '[':
+				token.setType(TokenType.LEFT_BRACKET);
+				break;
+			case ']':
+				token.setType(TokenType.RIGHT_BRACKET);
+				break;
+			case '\'':
+				token.setType(TokenType.STRING);
+				scanString(token);
+				break;
+			case '&':
+				token.setType(TokenType.BOOLEAN_AND);
+				scanBoolean(c, token);
+				break;
+			case '|':
+				token.setType(TokenType.BOOLEAN_OR);
+				scanBoolean(c, token);
+				break;
+			case '+':
+				token.setType(TokenType.PLUS);
+				break;
+			case '-':
+				token.setType(TokenType.MINUS);
+				break;
+			case '^':
+				token.setType(TokenType.POWER);
+				break;
+			case '*':
+				token.setType(TokenType.MULTIPLY);
+				break;
+			case '/':
+				token.setType(TokenType.DIVIDE);
+				break;
+			case '%':
+				token.setType(TokenType.PERCENT);
+				break;
+			case '!':
+				token.setType(scanIfNextIs('=') ? TokenType.NEQ : TokenType.NOT);
+				break;
+			case '<':
+				token.setType(scanIfNextIs('=') ? TokenType.LEQ : TokenType.LT);
+				break;
+			case '>':
+				token.setType(scanIfNextIs('=') ? TokenType.GEQ : TokenType.GT);
+				break;
+			case '=':
+				token.setType(scanIfNextIs('=') ? TokenType.EQ : TokenType.ASSIGNMENT);
+				break;
+			case '?':
+				token.setType(TokenType.IF);
+				break;
+			case ':':
+				token.setType(TokenType.COLON);
+				break;
+			case ',':
+				token.setType(TokenType.COMMA);
+				break;
+			default:
+				if (c == 'D' && index < end && input.charAt(index) == '\'') {
+					index++;
+					token.setType(TokenType.DATE);
+					scanString(token);
+				} else if (isAlphaOrUnderscore(c)) {
+					token.setType(TokenType.IDENTIFIER);
+					scanIdentifier(token);
+				} else if (isNumeric(c)) {
+					scanNumber(token);
+				} else {
+					throw new LexerException("Non expected character found: '" + c + "'", lineNumber,
+							determineColumnNumber());
+				}
+		}
+	}
+
+	/**
+	 * Skips the white space and new lines before the next token.
+	 */
+	private void skipTrivia() {
+		while (index < end) {
+			int start = index;
+			int startLineNumber = lineNumber;
+			int startColumnNumber = determineColumnNumber();
+
+			char c = input.charAt(index);
+			TokenType type;
+			if (c == ' ' || c == '\t') {
+				do {
+					index++;
+				} while (index < end && (input.charAt(index) == ' ' || input.charAt(index) == '\t'));
+				type = TokenType.WHITE_SPACE;
+			} else if (c == '\r' || c == '\n') {
+				index++;
+				if (c == '\r' && index < end && input.charAt(index) == '\n') {
+					index++;
+				}
+				startNewLine();
+				type = TokenType.NEW_LINE;
+			} else {
+				return;
+			}
+
+			if (triviaTokens != null) {
+				Token token = new Token(startLineNumber, startColumnNumber, start);
+				token.setType(type);
+				token.setLength(index - start);
+				triviaTokens.add(token);
+			}
+		}
+	}
+
+	/**
+	 * Reads the next character when it is equal to the given character.
+	 * @return {@code true} when the character is read, otherwise {@code false}.
+	 */
+	private boolean scanIfNextIs(char c) {
+		if (index < end && input.charAt(index) == c) {
+			index++;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Scans the rest of an identifier.
+	 */
+	private void scanIdentifier(Token token) {
+		int start = index - 1;
+		while (index < end && isAlphaNumericOrUnderscore(input.charAt(index))) {
+			index++;
+		}
+		token.setValue(input, start, index - start);
+	}
+
+	/**
+	 * Scans the rest of a number; a number with a dot is a decimal, otherwise it is an integer.
+	 * @throws LexerException
+	 */
+	private void scanNumber(Token token) throws LexerException {
+		int start = index - 1;
+		boolean hasDot = false;
+
+		while (index < end) {
+			char c = input.charAt(index);
+			if (c == '.') {
+				if (hasDot) {
+					throw new LexerException("Illegal number format; unexpected '.'.", lineNumber,
+							determineColumnNumber());
+				}
+				hasDot = true;
+			} else if (!isNumeric(c)) {
+				break;
+			}
+			index++;
+		}
+
+		// The first character of the number is not taken into account when looking for a dot, like the AbacusLexer.
+		token.setType(hasDot || input.charAt(start) == '.' ? TokenType.DECIMAL : TokenType.INTEGER);
+		token.setValue(input, start, index - start);
+	}
+
+	/**
+	 * Scans the rest of a string after the opening quote. As long as the string contains no escapes, the value of the
+	 * token refers to the input; otherwise the unescaped value is built.
+	 * @throws LexerException
+	 */
+	private void scanString(Token token) throws LexerException {
+		int start = index;
+		StringBuilder unescaped = null;
+
+		while (true) {
+			if (index >= end) {
+				throw new LexerException("Unexpected end of expression.", lineNumber, determineColumnNumber());
+			}
+
+			char c = input.charAt(index++);
+			if (c == '\\') {
+				if (index >= end) {
+					throw new LexerException("Unexpected end of expression.", lineNumber, determineColumnNumber());
+				}
+				if (unescaped == null) {
+					unescaped = new StringBuilder(index - start + 16);
+					unescaped.append(input, start, index - 1);
+				}
+				c = input.charAt(index++);
+				countNewLine(c);
+				unescaped.append(c);
+			} else if (c == '\'') {
+				break;
+			} else {
+				countNewLine(c);
+				if (unescaped != null) {
+					unescaped.append(c);
+				}
+			}
+		}
+
+		if (unescaped != null) {
+			token.setValue(unescaped.toString());
+		} else {
+			token.setValue(input, start, index - 1 - start);
+		}
+	}
+
+	/**
+	 * Scans the second character of a boolean operator, which must be equal to the first.
+	 * @throws LexerException
+	 */
+	private void scanBoolean(char c, Token token) throws LexerException {
+		if (index >= end) {
+			throw new LexerException("Unexpected end of expression.", lineNumber, determineColumnNumber());
+		}
+		if (input.charAt(index) != c) {
+			throw new LexerException("Expected '" + c + "'.", lineNumber, determineColumnNumber());
+		}
+		index++;
+		token.setValue(input, index - 2, 2);
+	}
+
+	/**
+	 * Keeps track of the line number for a character in a string literal that was just read.
+	 */
+	private void countNewLine(char c) {
+		if (c == '\r' || c == '\n' && (index < 2 || input.charAt(index - 2) != '\r')) {
+			startNewLine();
+		} else if (c == '\n') {
+			// The \n of a \r\n; the line was already started at the \r.
+			lineStart = index;
+		}
+	}
+
+	/**
+	 * Starts a new line after the character that was just read.
+	 */
+	private void startNewLine() {
+		lineNumber++;
+		lineStart = index;
+	}
+
+	/**
+	 * Determines the number of the column of the next character that is read.
+	 */
+	protected int determineColumnNumber() {
+		return index - lineStart + 1;
+	}
+
+	private static boolean isNumeric(char c) {
+		return (c == '.' || c >= '0' && c <= '9');
+	}
+
+	private static boolean isAlphaOrUnderscore(char c) {
+		return (c == '_' || c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z');
+	}
+
+	private static boolean isAlphaNumericOrUnderscore(char c) {
+		return (isNumeric(c) || isAlphaOrUnderscore(c));
+	}
+}
@@ -36,6 +36,11 @@ public class AbacusNodeFactory implements NodeFactory {
 		return new BooleanNode(value, token);
 	}
 
+	@Override
+	public CommonSubexpressionNode createCommonSubexpressionNode(ExpressionNode expression, Token token) {
+		return new CommonSubexpressionNode(expression, token);
+	}
+
 	@Override
 	public ConcatStringNode createConcatStringNode(ExpressionNode lhs, ExpressionNode rhs, Token token) {
 		return new ConcatStringNode(lhs, rhs, token);
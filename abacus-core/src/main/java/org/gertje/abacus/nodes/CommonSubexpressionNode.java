@@ -0,0 +1,54 @@
+package org.gertje.abacus.nodes;
+
+import org.gertje.abacus.nodevisitors.NodeVisitor;
+import org.gertje.abacus.nodevisitors.VisitingException;
+import org.gertje.abacus.token.Token;
+import org.gertje.abacus.types.Type;
+
+/**
+ * Node that represents a subexpression that occurs more than once in an expression, see
+ * {@link org.gertje.abacus.nodevisitors.CommonSubexpressionEliminator}. Every occurrence refers to the same instance of
+ * this node, so the AST is no longer a tree. Since the subexpression has no side effects, an evaluator may compute its
+ * value the first time the node is visited and reuse that value for the other occurrences in the same evaluation.
+ */
+public class CommonSubexpressionNode extends AbstractExpressionNode {
+
+	private ExpressionNode expression;
+
+	/**
+	 * Constructor
+	 */
+	public CommonSubexpressionNode(ExpressionNode expression, Token token) {
+		super(expression.getPrecedence(), token);
+
+		this.expression = expression;
+	}
+
+	@Override
+	public int getPrecedence() {
+		return expression.getPrecedence();
+	}
+
+	@Override
+	public boolean getIsConstant() {
+		return expression.getIsConstant();
+	}
+
+	@Override
+	public Type getType() {
+		return expression.getType();
+	}
+
+	@Override
+	public <R, X extends VisitingException> R accept(NodeVisitor<R, X> visitor) throws X {
+		return visitor.visit(this);
+	}
+
+	public ExpressionNode getExpression() {
+		return expression;
+	}
+
+	public void setExpression(ExpressionNode expression) {
+		this.expression = expression;
+	}
+}
@@ -5,6 +5,8 @@ import org.gertje.abacus.nodevisitors.VisitingException;
 import org.gertje.abacus.token.Token;
 import org.gertje.abacus.types.Type;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
 import java.util.List;
 
 /**
@@ -16,6 +18,17 @@ public class FunctionNode extends AbstractExpressionNode {
 	private List<ExpressionNode> parameters;
 	private Type returnType;
 
+	/**
+	 * The method the call is bound to when the function is an intrinsic function, otherwise {@code null}.
+	 */
+	private Method intrinsic;
+
+	/**
+	 * The method handle that calls the method of the intrinsic function with the arguments in an array, otherwise
+	 * {@code null}.
+	 */
+	private MethodHandle intrinsicHandle;
+
 	/**
 	 * Constructor
 	 */
@@ -64,4 +77,22 @@ public class FunctionNode extends AbstractExpressionNode {
 	public void setReturnType(Type returnType) {
 		this.returnType = returnType;
 	}
+
+	public Method getIntrinsic() {
+		return intrinsic;
+	}
+
+	public MethodHandle getIntrinsicHandle() {
+		return intrinsicHandle;
+	}
+
+	/**
+	 * Binds the call to the method of an intrinsic function.
+	 * @param intrinsic The method, or {@code null} to remove the binding.
+	 * @param intrinsicHandle The method handle that calls the method with the arguments in an array.
+	 */
+	public void setIntrinsic(Method intrinsic, MethodHandle intrinsicHandle) {
+		this.intrinsic = intrinsic;
+		this.intrinsicHandle = intrinsicHandle;
+	}
 }
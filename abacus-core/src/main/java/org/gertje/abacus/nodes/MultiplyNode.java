@@ -19,19 +19,22 @@ public class MultiplyNode extends AbstractTermNode {
 
 	@Override
 	public Type getType() {
-		if (lhs.getType() == rhs.getType()) {
-			return lhs.getType();
+		Type lhsType = lhs.getType();
+		Type rhsType = rhs.getType();
+
+		if (lhsType == rhsType) {
+			return lhsType;
 		}
 
-		if (Type.isNumber(lhs.getType()) && Type.isNumber(rhs.getType())) {
+		if (Type.isNumber(lhsType) && Type.isNumber(rhsType)) {
 			return Type.DECIMAL;
 		}
 
-		if (lhs.getType() == null) {
-			return rhs.getType();
+		if (lhsType == null) {
+			return rhsType;
 		}
 
-		return lhs.getType();
+		return lhsType;
 	}
 
 	@Override
@@ -16,6 +16,7 @@ public interface NodeFactory {
 	ArrayNode createArrayNode(ExpressionNode lhs, ExpressionNode index, Token arrayToken);
 	AssignmentNode createAssignmentNode(ExpressionNode lhs, ExpressionNode rhs, Token token);
 	BooleanNode createBooleanNode(Boolean value, Token token);
+	CommonSubexpressionNode createCommonSubexpressionNode(ExpressionNode expression, Token token);
 	ConcatStringNode createConcatStringNode(ExpressionNode lhs, ExpressionNode rhs, Token token);
 	DateNode createDateNode(Date value, Token token);
 	DecimalNode createDecimalNode(BigDecimal value, Token token);
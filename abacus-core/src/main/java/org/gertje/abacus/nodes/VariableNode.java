@@ -2,6 +2,7 @@ package org.gertje.abacus.nodes;
 
 import org.gertje.abacus.nodevisitors.NodeVisitor;
 import org.gertje.abacus.nodevisitors.VisitingException;
+import org.gertje.abacus.symboltable.SlotSymbolTable;
 import org.gertje.abacus.token.Token;
 import org.gertje.abacus.types.Type;
 
@@ -13,6 +14,17 @@ public class VariableNode extends AbstractExpressionNode {
 	private String identifier;
 	private Type type;
 
+	/**
+	 * The slot of the variable in a {@link SlotSymbolTable}, or {@code -1} when the variable is not bound to a slot.
+	 */
+	private int slot = -1;
+
+	/**
+	 * The symbol table that determines the slot, the slot is only valid for symbol tables that share its schema (see
+	 * {@link SlotSymbolTable#sharesSchema(SlotSymbolTable)}).
+	 */
+	private SlotSymbolTable slotSymbolTable;
+
 	/**
 	 * Constructor
 	 */
@@ -48,4 +60,22 @@ public class VariableNode extends AbstractExpressionNode {
 	public void setIdentifier(String identifier) {
 		this.identifier = identifier;
 	}
+
+	public int getSlot() {
+		return slot;
+	}
+
+	public SlotSymbolTable getSlotSymbolTable() {
+		return slotSymbolTable;
+	}
+
+	/**
+	 * Binds the variable to a slot.
+	 * @param slot The slot of the variable.
+	 * @param slotSymbolTable The symbol table that determines the slot.
+	 */
+	public void setSlot(int slot, SlotSymbolTable slotSymbolTable) {
+		this.slot = slot;
+		this.slotSymbolTable = slotSymbolTable;
+	}
 }
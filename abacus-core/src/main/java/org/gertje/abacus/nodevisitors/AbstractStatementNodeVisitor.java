@@ -5,6 +5,7 @@ import org.gertje.abacus.nodes.AndNode;
 import org.gertje.abacus.nodes.ArrayNode;
 import org.gertje.abacus.nodes.AssignmentNode;
 import org.gertje.abacus.nodes.BooleanNode;
+import org.gertje.abacus.nodes.CommonSubexpressionNode;
 import org.gertje.abacus.nodes.ConcatStringNode;
 import org.gertje.abacus.nodes.DateNode;
 import org.gertje.abacus.nodes.DecimalNode;
@@ -60,6 +61,11 @@ public abstract class AbstractStatementNodeVisitor<R, X extends VisitingExceptio
 		throw createIllegalStateException(node);
 	}
 
+	@Override
+	public R visit(CommonSubexpressionNode node) throws X {
+		throw createIllegalStateException(node);
+	}
+
 	@Override
 	public R visit(ConcatStringNode node) throws X {
 		throw createIllegalStateException(node);
@@ -0,0 +1,367 @@
+package org.gertje.abacus.nodevisitors;
+
+import org.gertje.abacus.context.AbacusContext;
+import org.gertje.abacus.nodes.AndNode;
+import org.gertje.abacus.nodes.BinaryOperationNode;
+import org.gertje.abacus.nodes.BooleanNode;
+import org.gertje.abacus.nodes.DivideNode;
+import org.gertje.abacus.nodes.ExpressionNode;
+import org.gertje.abacus.nodes.IfNode;
+import org.gertje.abacus.nodes.IntegerNode;
+import org.gertje.abacus.nodes.ModuloNode;
+import org.gertje.abacus.nodes.MultiplyNode;
+import org.gertje.abacus.nodes.NodeFactory;
+import org.gertje.abacus.nodes.NotNode;
+import org.gertje.abacus.nodes.OrNode;
+import org.gertje.abacus.nodes.PowerNode;
+import org.gertje.abacus.nodes.SubtractNode;
+import org.gertje.abacus.nodes.SumNode;
+import org.gertje.abacus.nodes.VariableNode;
+import org.gertje.abacus.symboltable.SymbolTable;
+import org.gertje.abacus.types.Type;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The algebraic {@link RewriteRule}s that are applied by the {@link ExpressionSimplifier} by default.
+ *
+ * Since every operation on {@code null} results in {@code null}, rules that drop an operand (like {@code x * 0 -> 0}
+ * or {@code x and not x -> false}) do not hold and are left out. The identities on decimals are left out as well,
+ * because every decimal operation rounds its result to the {@link java.math.MathContext}.
+ */
+public final class AlgebraicRewriteRules {
+
+	/**
+	 * The largest exponent of a power that is rewritten into multiplications.
+	 */
+	private static final long MAX_STRENGTH_REDUCED_EXPONENT = 3L;
+
+	private AlgebraicRewriteRules() {
+	}
+
+	/**
+	 * Creates the algebraic rewrite rules.
+	 * @param abacusContext The context with the symbol table.
+	 * @param nodeFactory The node factory that creates the new nodes.
+	 * @return The rules.
+	 */
+	public static List<RewriteRule> createRules(AbacusContext abacusContext, NodeFactory nodeFactory) {
+		SymbolTable symbolTable = abacusContext.getSymbolTable();
+
+		List<RewriteRule> rules = new ArrayList<>();
+		rules.add(new IntegerIdentityRule());
+		rules.add(new PowerStrengthReductionRule(nodeFactory));
+		rules.add(new DoubleNegationRule());
+		rules.add(new BooleanIdempotenceRule(symbolTable));
+		rules.add(new BooleanAbsorptionRule(symbolTable));
+		rules.add(new IfRule(symbolTable, nodeFactory));
+		return rules;
+	}
+
+	/**
+	 * Determines whether both expressions always have the same value.
+	 */
+	private static boolean areEquivalent(SymbolTable symbolTable, ExpressionNode node1, ExpressionNode node2)
+			throws SimplificationException {
+		return new ValueNumberer(symbolTable, Collections.<String>emptySet()).areEquivalent(node1, node2);
+	}
+
+	/**
+	 * Determines whether the node is an integer literal with the given value.
+	 */
+	private static boolean isIntegerLiteral(ExpressionNode node, long value) {
+		return node instanceof IntegerNode && Long.valueOf(value).equals(((IntegerNode) node).getValue());
+	}
+
+	/**
+	 * Removes the identity element from an integer operation: {@code x + 0}, {@code 0 + x}, {@code x - 0},
+	 * {@code x * 1}, {@code 1 * x}, {@code x / 1} and {@code x ^ 1} are rewritten to {@code x}.
+	 */
+	private static class IntegerIdentityRule implements RewriteRule {
+
+		@Override
+		public ExpressionNode rewrite(ExpressionNode node) throws SimplificationException {
+			if (!(node instanceof BinaryOperationNode) || !Type.equals(node.getType(), Type.INTEGER)) {
+				return null;
+			}
+
+			ExpressionNode lhs = ((BinaryOperationNode) node).getLhs();
+			ExpressionNode rhs = ((BinaryOperationNode) node).getRhs();
+
+			if (node instanceof SumNode) {
+				if (isIntegerLiteral(rhs, 0L)) {
+					return lhs;
+				}
+				if (isIntegerLiteral(lhs, 0L)) {
+					return rhs;
+				}
+			} else if (node instanceof SubtractNode) {
+				if (isIntegerLiteral(rhs, 0L)) {
+					return lhs;
+				}
+			} else if (node instanceof MultiplyNode) {
+				if (isIntegerLiteral(rhs, 1L)) {
+					return lhs;
+				}
+				if (isIntegerLiteral(lhs, 1L)) {
+					return rhs;
+				}
+			} else if (node instanceof DivideNode || node instanceof PowerNode) {
+				if (isIntegerLiteral(rhs, 1L)) {
+					return lhs;
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Rewrites a power of an integer variable with a small exponent into multiplications, for instance {@code x ^ 2}
+	 * into {@code x * x}. The power of integers is calculated on {@link java.math.BigInteger}s and truncated to a
+	 * {@code long}, which gives the same result as multiplying the {@code long}s.
+	 */
+	private static class PowerStrengthReductionRule implements RewriteRule {
+
+		private final NodeFactory nodeFactory;
+
+		public PowerStrengthReductionRule(NodeFactory nodeFactory) {
+			this.nodeFactory = nodeFactory;
+		}
+
+		@Override
+		public ExpressionNode rewrite(ExpressionNode node) throws SimplificationException {
+			if (!(node instanceof PowerNode) || !Type.equals(node.getType(), Type.INTEGER)) {
+				return null;
+			}
+
+			PowerNode powerNode = (PowerNode) node;
+			// Only a variable is cheap enough to evaluate more than once.
+			if (!(powerNode.getLhs() instanceof VariableNode) || !(powerNode.getRhs() instanceof IntegerNode)) {
+				return null;
+			}
+
+			VariableNode base = (VariableNode) powerNode.getLhs();
+			Long exponent = ((IntegerNode) powerNode.getRhs()).getValue();
+			if (exponent == null || exponent < 2L || exponent > MAX_STRENGTH_REDUCED_EXPONENT) {
+				return null;
+			}
+
+			ExpressionNode product = base;
+			for (long i = 1; i < exponent; i++) {
+				product = nodeFactory.createMultiplyNode(product, copyVariableNode(base), node.getToken());
+			}
+			return product;
+		}
+
+		/**
+		 * Creates a copy of the variable node, so every node occurs only once in the AST.
+		 */
+		private VariableNode copyVariableNode(VariableNode node) {
+			VariableNode copy = nodeFactory.createVariableNode(node.getIdentifier(), node.getToken());
+			copy.setType(node.getType());
+			copy.setSlot(node.getSlot(), node.getSlotSymbolTable());
+			return copy;
+		}
+	}
+
+	/**
+	 * Rewrites {@code not not x} into {@code x}; {@code not null} is {@code null}, so this also holds when {@code x}
+	 * is {@code null}.
+	 */
+	private static class DoubleNegationRule implements RewriteRule {
+
+		@Override
+		public ExpressionNode rewrite(ExpressionNode node) throws SimplificationException {
+			if (!(node instanceof NotNode) || !(((NotNode) node).getArgument() instanceof NotNode)) {
+				return null;
+			}
+
+			ExpressionNode argument = ((NotNode) ((NotNode) node).getArgument()).getArgument();
+			if (!Type.equals(argument.getType(), Type.BOOLEAN)) {
+				return null;
+			}
+			return argument;
+		}
+	}
+
+	/**
+	 * Rewrites {@code x and x} and {@code x or x} into {@code x}.
+	 */
+	private static class BooleanIdempotenceRule implements RewriteRule {
+
+		private final SymbolTable symbolTable;
+
+		public BooleanIdempotenceRule(SymbolTable symbolTable) {
+			this.symbolTable = symbolTable;
+		}
+
+		@Override
+		public ExpressionNode rewrite(ExpressionNode node) throws SimplificationException {
+			if (!(node instanceof AndNode) && !(node instanceof OrNode)) {
+				return null;
+			}
+
+			BinaryOperationNode operation = (BinaryOperationNode) node;
+			if (!areEquivalent(symbolTable, operation.getLhs(), operation.getRhs())) {
+				return null;
+			}
+			return operation.getLhs();
+		}
+	}
+
+	/**
+	 * Rewrites {@code x and (x or y)} and {@code x or (x and y)} into {@code x}, also when the operands are swapped.
+	 * The absorption laws also hold for the three-valued logic of Abacus. However, when {@code x} is {@code null} the
+	 * evaluator still evaluates {@code y}, so the rule is only applied when {@code y} has no side effects and can not
+	 * throw an exception: it contains no assignment, no call to a function that is not pure and no division, modulo
+	 * or power (which throw on a zero divisor or a negative exponent).
+	 */
+	private static class BooleanAbsorptionRule implements RewriteRule {
+
+		private final SymbolTable symbolTable;
+
+		public BooleanAbsorptionRule(SymbolTable symbolTable) {
+			this.symbolTable = symbolTable;
+		}
+
+		@Override
+		public ExpressionNode rewrite(ExpressionNode node) throws SimplificationException {
+			Class<? extends ExpressionNode> absorbedClass;
+			if (node instanceof AndNode) {
+				absorbedClass = OrNode.class;
+			} else if (node instanceof OrNode) {
+				absorbedClass = AndNode.class;
+			} else {
+				return null;
+			}
+
+			BinaryOperationNode operation = (BinaryOperationNode) node;
+			if (absorbs(operation.getLhs(), operation.getRhs(), absorbedClass)) {
+				return operation.getLhs();
+			}
+			if (absorbs(operation.getRhs(), operation.getLhs(), absorbedClass)) {
+				return operation.getRhs();
+			}
+			return null;
+		}
+
+		/**
+		 * Determines whether the operand absorbs the other operand: the other operand is an operation of the absorbed
+		 * class with an operand that is equivalent to the operand.
+		 */
+		private boolean absorbs(ExpressionNode operand, ExpressionNode other,
+				Class<? extends ExpressionNode> absorbedClass) throws SimplificationException {
+			if (!absorbedClass.isInstance(other)) {
+				return false;
+			}
+
+			BinaryOperationNode operation = (BinaryOperationNode) other;
+			return areEquivalent(symbolTable, operand, operation.getLhs()) && canBeDropped(operation.getRhs())
+					|| areEquivalent(symbolTable, operand, operation.getRhs()) && canBeDropped(operation.getLhs());
+		}
+
+		/**
+		 * Determines whether the expression can be dropped: it has no side effects and can not throw an exception.
+		 */
+		private boolean canBeDropped(ExpressionNode node) throws SimplificationException {
+			if (node.accept(new ValueNumberer(symbolTable, Collections.<String>emptySet())) == null) {
+				return false;
+			}
+
+			ThrowingOperationFinder finder = new ThrowingOperationFinder();
+			node.accept(finder);
+			return !finder.found;
+		}
+	}
+
+	/**
+	 * Finds the operations that can throw an exception: a division or modulo by zero and a power with a negative
+	 * exponent.
+	 */
+	private static class ThrowingOperationFinder extends DefaultVisitor<Void, SimplificationException> {
+
+		private boolean found;
+
+		@Override
+		public Void visit(DivideNode node) throws SimplificationException {
+			found = true;
+			return null;
+		}
+
+		@Override
+		public Void visit(ModuloNode node) throws SimplificationException {
+			found = true;
+			return null;
+		}
+
+		@Override
+		public Void visit(PowerNode node) throws SimplificationException {
+			found = true;
+			return null;
+		}
+	}
+
+	/**
+	 * Simplifies ifs:
+	 * <ul>
+	 *     <li>{@code c ? true : false} is rewritten into {@code c} and {@code c ? false : true} into {@code not c};</li>
+	 *     <li>an if in a body of an if with the same condition is replaced by the body that is evaluated, for instance
+	 *     {@code c ? (c ? a : b) : d} is rewritten into {@code c ? a : d}.</li>
+	 * </ul>
+	 * When the condition is {@code null}, the results are {@code null} as well.
+	 */
+	private static class IfRule implements RewriteRule {
+
+		private final SymbolTable symbolTable;
+
+		private final NodeFactory nodeFactory;
+
+		public IfRule(SymbolTable symbolTable, NodeFactory nodeFactory) {
+			this.symbolTable = symbolTable;
+			this.nodeFactory = nodeFactory;
+		}
+
+		@Override
+		public ExpressionNode rewrite(ExpressionNode node) throws SimplificationException {
+			if (!(node instanceof IfNode)) {
+				return null;
+			}
+
+			IfNode ifNode = (IfNode) node;
+			ExpressionNode condition = ifNode.getCondition();
+
+			Boolean ifValue = determineBooleanLiteralValue(ifNode.getIfBody());
+			Boolean elseValue = determineBooleanLiteralValue(ifNode.getElseBody());
+			if (ifValue != null && elseValue != null && !ifValue.equals(elseValue)) {
+				return ifValue ? condition : nodeFactory.createNotNode(condition, node.getToken());
+			}
+
+			boolean rewritten = false;
+			if (ifNode.getIfBody() instanceof IfNode) {
+				IfNode ifBody = (IfNode) ifNode.getIfBody();
+				if (areEquivalent(symbolTable, condition, ifBody.getCondition())) {
+					ifNode.setIfBody(ifBody.getIfBody());
+					rewritten = true;
+				}
+			}
+			if (ifNode.getElseBody() instanceof IfNode) {
+				IfNode elseBody = (IfNode) ifNode.getElseBody();
+				if (areEquivalent(symbolTable, condition, elseBody.getCondition())) {
+					ifNode.setElseBody(elseBody.getElseBody());
+					rewritten = true;
+				}
+			}
+
+			return rewritten ? ifNode : null;
+		}
+
+		/**
+		 * Returns the value of the node when it is a boolean literal that is not {@code null}, otherwise {@code null}.
+		 */
+		private static Boolean determineBooleanLiteralValue(ExpressionNode node) {
+			return node instanceof BooleanNode ? ((BooleanNode) node).getValue() : null;
+		}
+	}
+}
@@ -0,0 +1,434 @@
+package org.gertje.abacus.nodevisitors;
+
+import org.gertje.abacus.context.AbacusContext;
+import org.gertje.abacus.functions.PureFunction;
+import org.gertje.abacus.nodes.AddNode;
+import org.gertje.abacus.nodes.AndNode;
+import org.gertje.abacus.nodes.ArrayNode;
+import org.gertje.abacus.nodes.AssignmentNode;
+import org.gertje.abacus.nodes.BinaryOperationNode;
+import org.gertje.abacus.nodes.BooleanNode;
+import org.gertje.abacus.nodes.CommonSubexpressionNode;
+import org.gertje.abacus.nodes.ConcatStringNode;
+import org.gertje.abacus.nodes.DateNode;
+import org.gertje.abacus.nodes.DecimalNode;
+import org.gertje.abacus.nodes.DivideNode;
+import org.gertje.abacus.nodes.EqNode;
+import org.gertje.abacus.nodes.ExpressionNode;
+import org.gertje.abacus.nodes.FactorNode;
+import org.gertje.abacus.nodes.FunctionNode;
+import org.gertje.abacus.nodes.GeqNode;
+import org.gertje.abacus.nodes.GtNode;
+import org.gertje.abacus.nodes.IfNode;
+import org.gertje.abacus.nodes.IntegerNode;
+import org.gertje.abacus.nodes.LeqNode;
+import org.gertje.abacus.nodes.LtNode;
+import org.gertje.abacus.nodes.ModuloNode;
+import org.gertje.abacus.nodes.MultiplyNode;
+import org.gertje.abacus.nodes.NegativeNode;
+import org.gertje.abacus.nodes.NeqNode;
+import org.gertje.abacus.nodes.Node;
+import org.gertje.abacus.nodes.NodeFactory;
+import org.gertje.abacus.nodes.NodeType;
+import org.gertje.abacus.nodes.NotNode;
+import org.gertje.abacus.nodes.NullNode;
+import org.gertje.abacus.nodes.OrNode;
+import org.gertje.abacus.nodes.PositiveNode;
+import org.gertje.abacus.nodes.PowerNode;
+import org.gertje.abacus.nodes.RootNode;
+import org.gertje.abacus.nodes.StatementListNode;
+import org.gertje.abacus.nodes.StringNode;
+import org.gertje.abacus.nodes.SubtractNode;
+import org.gertje.abacus.nodes.SumNode;
+import org.gertje.abacus.nodes.VariableNode;
+import org.gertje.abacus.symboltable.SymbolTable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Eliminates common subexpressions from an AST. Structurally identical subtrees that have no side effects are replaced
+ * by one shared {@link CommonSubexpressionNode}, so the evaluators and translators compute their value only once per
+ * evaluation.
+ *
+ * Subtrees are not shared when they contain an assignment, a call to a function that is not pure (see
+ * {@link PureFunction}) or a variable that is assigned somewhere in the same expression, since their value may
+ * differ between the occurrences. Every expression of a statement list is handled separately.
+ *
+ * The eliminator should be run after the {@link Simplifier}, the AST it returns is no longer a tree.
+ */
+public class CommonSubexpressionEliminator extends AbstractStatementNodeVisitor<Node, SimplificationException> {
+
+	/**
+	 * The symbol table with the functions.
+	 */
+	private final SymbolTable symbolTable;
+
+	/**
+	 * The node factory that creates the {@link CommonSubexpressionNode}s.
+	 */
+	private final NodeFactory nodeFactory;
+
+	/**
+	 * Constructor.
+	 * @param abacusContext The context with the symbol table.
+	 * @param nodeFactory The node factory that creates the {@link CommonSubexpressionNode}s.
+	 */
+	public CommonSubexpressionEliminator(AbacusContext abacusContext, NodeFactory nodeFactory) {
+		this.symbolTable = abacusContext.getSymbolTable();
+		this.nodeFactory = nodeFactory;
+	}
+
+	/**
+	 * Eliminates the common subexpressions from the AST.
+	 * @param node The root of the AST.
+	 * @return The root of the rewritten AST.
+	 * @throws SimplificationException
+	 */
+	public Node eliminate(Node node) throws SimplificationException {
+		if (node.getNodeType() == NodeType.EXPRESSION) {
+			return eliminate((ExpressionNode) node);
+		}
+
+		return node.accept(this);
+	}
+
+	@Override
+	public Node visit(RootNode node) throws SimplificationException {
+		node.getStatementListNode().accept(this);
+		return node;
+	}
+
+	@Override
+	public Node visit(StatementListNode node) throws SimplificationException {
+		for (int i = 0; i < node.size(); i++) {
+			Node subNode = node.get(i);
+			// The variables may change between the statements, so every expression is handled separately.
+			if (subNode.getNodeType() == NodeType.EXPRESSION) {
+				subNode = eliminate((ExpressionNode) subNode);
+			} else {
+				subNode = subNode.accept(this);
+			}
+			node.set(i, subNode);
+		}
+
+		return node;
+	}
+
+	/**
+	 * Eliminates the common subexpressions from the expression.
+	 * @param node The expression.
+	 * @return The rewritten expression.
+	 * @throws SimplificationException
+	 */
+	private ExpressionNode eliminate(ExpressionNode node) throws SimplificationException {
+		ValueNumberer valueNumberer = new ValueNumberer(symbolTable, determineAssignedIdentifiers(node));
+		node.accept(valueNumberer);
+
+		Map<Integer, Integer> occurrences = new HashMap<>();
+		countOccurrences(node, valueNumberer, occurrences);
+
+		return new Rewriter(valueNumberer, occurrences).rewrite(node);
+	}
+
+	/**
+	 * Counts the occurrences of every value number in the expression as it will be after the rewrite: the subtrees of
+	 * a repeated occurrence are not counted, since the occurrence is replaced by the shared node.
+	 * @param node The expression.
+	 * @param valueNumberer The value numberer that numbered the expression.
+	 * @param occurrences The map value number --> number of occurrences to fill.
+	 */
+	private static void countOccurrences(ExpressionNode node, ValueNumberer valueNumberer,
+			Map<Integer, Integer> occurrences) {
+		Integer number = valueNumberer.numbers.get(node);
+		if (number != null) {
+			Integer count = occurrences.get(number);
+			occurrences.put(number, count == null ? 1 : count + 1);
+			if (count != null) {
+				return;
+			}
+		}
+
+		for (ExpressionNode child : valueNumberer.children.get(node)) {
+			countOccurrences(child, valueNumberer, occurrences);
+		}
+	}
+
+	/**
+	 * Determines the identifiers of the variables that are assigned in the expression.
+	 * @param node The expression.
+	 * @return The identifiers.
+	 * @throws SimplificationException
+	 */
+	private static Set<String> determineAssignedIdentifiers(ExpressionNode node) throws SimplificationException {
+		final Set<String> identifiers = new HashSet<>();
+		try {
+			node.accept(new DefaultVisitor<Void, VisitingException>() {
+				@Override
+				public Void visit(AssignmentNode node) throws VisitingException {
+					// When an element of an array is assigned, the variable with the array is assigned.
+					ExpressionNode lhs = node.getLhs();
+					while (lhs instanceof ArrayNode) {
+						lhs = ((ArrayNode) lhs).getArray();
+					}
+					if (lhs instanceof VariableNode) {
+						identifiers.add(((VariableNode) lhs).getIdentifier());
+					}
+					return super.visit(node);
+				}
+			});
+		} catch (VisitingException e) {
+			throw new SimplificationException(e.getMessage(), node);
+		}
+		return identifiers;
+	}
+
+	/**
+	 * Replaces the subtrees whose value number occurs more than once by a shared {@link CommonSubexpressionNode}.
+	 */
+	private class Rewriter extends AbstractExpressionNodeVisitor<Void, SimplificationException> {
+
+		/**
+		 * The value numberer that numbered the expression.
+		 */
+		private final ValueNumberer valueNumberer;
+
+		/**
+		 * A map value number --> number of occurrences.
+		 */
+		private final Map<Integer, Integer> occurrences;
+
+		/**
+		 * A map value number --> shared node.
+		 */
+		private final Map<Integer, CommonSubexpressionNode> sharedNodes = new HashMap<>();
+
+		/**
+		 * The {@link CommonSubexpressionNode}s that were already in the expression and have been rewritten.
+		 */
+		private final Set<CommonSubexpressionNode> rewrittenNodes =
+				Collections.newSetFromMap(new IdentityHashMap<CommonSubexpressionNode, Boolean>());
+
+		public Rewriter(ValueNumberer valueNumberer, Map<Integer, Integer> occurrences) {
+			this.valueNumberer = valueNumberer;
+			this.occurrences = occurrences;
+		}
+
+		/**
+		 * Rewrites the subtree.
+		 * @param node The root of the subtree.
+		 * @return The node that replaces the subtree.
+		 */
+		public ExpressionNode rewrite(ExpressionNode node) throws SimplificationException {
+			Integer number = valueNumberer.numbers.get(node);
+			if (number == null || occurrences.get(number) < 2 || !valueNumberer.shareableNodes.contains(node)) {
+				node.accept(this);
+				return node;
+			}
+
+			// All occurrences refer to the node that is created for the first occurrence.
+			CommonSubexpressionNode sharedNode = sharedNodes.get(number);
+			if (sharedNode == null) {
+				node.accept(this);
+				sharedNode = nodeFactory.createCommonSubexpressionNode(node, node.getToken());
+				sharedNodes.put(number, sharedNode);
+			}
+			return sharedNode;
+		}
+
+		@Override
+		public Void visit(AddNode node) throws SimplificationException {
+			return rewriteBinaryOperation(node);
+		}
+
+		@Override
+		public Void visit(AndNode node) throws SimplificationException {
+			return rewriteBinaryOperation(node);
+		}
+
+		@Override
+		public Void visit(ArrayNode node) throws SimplificationException {
+			node.setArray(rewrite(node.getArray()));
+			node.setIndex(rewrite(node.getIndex()));
+			return null;
+		}
+
+		@Override
+		public Void visit(AssignmentNode node) throws SimplificationException {
+			// The left hand side is a variable or an array element that is assigned, it is never shared.
+			node.setRhs(rewrite(node.getRhs()));
+			return null;
+		}
+
+		@Override
+		public Void visit(BooleanNode node) throws SimplificationException {
+			return null;
+		}
+
+		@Override
+		public Void visit(CommonSubexpressionNode node) throws SimplificationException {
+			if (rewrittenNodes.add(node)) {
+				node.setExpression(rewrite(node.getExpression()));
+			}
+			return null;
+		}
+
+		@Override
+		public Void visit(ConcatStringNode node) throws SimplificationException {
+			return rewriteBinaryOperation(node);
+		}
+
+		@Override
+		public Void visit(DateNode node) throws SimplificationException {
+			return null;
+		}
+
+		@Override
+		public Void visit(DecimalNode node) throws SimplificationException {
+			return null;
+		}
+
+		@Override
+		public Void visit(DivideNode node) throws SimplificationException {
+			return rewriteBinaryOperation(node);
+		}
+
+		@Override
+		public Void visit(EqNode node) throws SimplificationException {
+			return rewriteBinaryOperation(node);
+		}
+
+		@Override
+		public Void visit(FactorNode node) throws SimplificationException {
+			node.setArgument(rewrite(node.getArgument()));
+			return null;
+		}
+
+		@Override
+		public Void visit(FunctionNode node) throws SimplificationException {
+			List<ExpressionNode> parameters = new ArrayList<>(node.getParameters().size());
+			for (ExpressionNode parameter : node.getParameters()) {
+				parameters.add(rewrite(parameter));
+			}
+			node.setParameters(parameters);
+			return null;
+		}
+
+		@Override
+		public Void visit(GeqNode node) throws SimplificationException {
+			return rewriteBinaryOperation(node);
+		}
+
+		@Override
+		public Void visit(GtNode node) throws SimplificationException {
+			return rewriteBinaryOperation(node);
+		}
+
+		@Override
+		public Void visit(IfNode node) throws SimplificationException {
+			node.setCondition(rewrite(node.getCondition()));
+			node.setIfBody(rewrite(node.getIfBody()));
+			node.setElseBody(rewrite(node.getElseBody()));
+			return null;
+		}
+
+		@Override
+		public Void visit(IntegerNode node) throws SimplificationException {
+			return null;
+		}
+
+		@Override
+		public Void visit(LeqNode node) throws SimplificationException {
+			return rewriteBinaryOperation(node);
+		}
+
+		@Override
+		public Void visit(LtNode node) throws SimplificationException {
+			return rewriteBinaryOperation(node);
+		}
+
+		@Override
+		public Void visit(ModuloNode node) throws SimplificationException {
+			return rewriteBinaryOperation(node);
+		}
+
+		@Override
+		public Void visit(MultiplyNode node) throws SimplificationException {
+			return rewriteBinaryOperation(node);
+		}
+
+		@Override
+		public Void visit(NegativeNode node) throws SimplificationException {
+			node.setArgument(rewrite(node.getArgument()));
+			return null;
+		}
+
+		@Override
+		public Void visit(NeqNode node) throws SimplificationException {
+			return rewriteBinaryOperation(node);
+		}
+
+		@Override
+		public Void visit(NotNode node) throws SimplificationException {
+			node.setArgument(rewrite(node.getArgument()));
+			return null;
+		}
+
+		@Override
+		public Void visit(NullNode node) throws SimplificationException {
+			return null;
+		}
+
+		@Override
+		public Void visit(OrNode node) throws SimplificationException {
+			return rewriteBinaryOperation(node);
+		}
+
+		@Override
+		public Void visit(PositiveNode node) throws SimplificationException {
+			node.setArgument(rewrite(node.getArgument()));
+			return null;
+		}
+
+		@Override
+		public Void visit(PowerNode node) throws SimplificationException {
+			return rewriteBinaryOperation(node);
+		}
+
+		@Override
+		public Void visit(StringNode node) throws SimplificationException {
+			return null;
+		}
+
+		@Override
+		public Void visit(SubtractNode node) throws SimplificationException {
+			return rewriteBinaryOperation(node);
+		}
+
+		@Override
+		public Void visit(SumNode node) throws SimplificationException {
+			return rewriteBinaryOperation(node);
+		}
+
+		@Override
+		public Void visit(VariableNode node) throws SimplificationException {
+			return null;
+		}
+
+		/**
+		 * Rewrites both sides of the binary operation.
+		 * @param node The binary operation.
+		 */
+		private Void rewriteBinaryOperation(BinaryOperationNode node) throws SimplificationException {
+			node.setLhs(rewrite(node.getLhs()));
+			node.setRhs(rewrite(node.getRhs()));
+			return null;
+		}
+	}
+}
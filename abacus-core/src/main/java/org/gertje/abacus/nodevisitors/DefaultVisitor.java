@@ -5,6 +5,7 @@ import org.gertje.abacus.nodes.AndNode;
 import org.gertje.abacus.nodes.ArrayNode;
 import org.gertje.abacus.nodes.AssignmentNode;
 import org.gertje.abacus.nodes.BooleanNode;
+import org.gertje.abacus.nodes.CommonSubexpressionNode;
 import org.gertje.abacus.nodes.ConcatStringNode;
 import org.gertje.abacus.nodes.DateNode;
 import org.gertje.abacus.nodes.DecimalNode;
@@ -81,6 +82,14 @@ public abstract class DefaultVisitor<R, X extends VisitingException> implements
 		return visitDefault(node);
 	}
 
+	@Override
+	public R visit(CommonSubexpressionNode node) throws X {
+		if (visitChildNodes) {
+			node.getExpression().accept(this);
+		}
+		return visitDefault(node);
+	}
+
 	@Override
 	public R visit(ConcatStringNode node) throws X {
 		if (visitChildNodes) {
@@ -1,11 +1,15 @@
 package org.gertje.abacus.nodevisitors;
 
 import org.gertje.abacus.context.AbacusContext;
+import org.gertje.abacus.functions.Function;
+import org.gertje.abacus.functions.FunctionResultCache;
 import org.gertje.abacus.nodes.AddNode;
 import org.gertje.abacus.nodes.AndNode;
 import org.gertje.abacus.nodes.ArrayNode;
 import org.gertje.abacus.nodes.AssignmentNode;
+import org.gertje.abacus.nodes.BinaryOperationNode;
 import org.gertje.abacus.nodes.BooleanNode;
+import org.gertje.abacus.nodes.CommonSubexpressionNode;
 import org.gertje.abacus.nodes.ConcatStringNode;
 import org.gertje.abacus.nodes.DateNode;
 import org.gertje.abacus.nodes.DecimalNode;
@@ -38,13 +42,18 @@ import org.gertje.abacus.runtime.expression.BooleanOperation;
 import org.gertje.abacus.runtime.expression.StringOperation;
 import org.gertje.abacus.symboltable.NoSuchFunctionException;
 import org.gertje.abacus.symboltable.NoSuchVariableException;
+import org.gertje.abacus.symboltable.SlotSymbolTable;
 import org.gertje.abacus.symboltable.SymbolTable;
 import org.gertje.abacus.types.Type;
 import org.gertje.abacus.util.CastHelper;
 import org.gertje.abacus.util.EvaluationHelper;
+import org.gertje.abacus.util.FunctionHelper;
+import org.gertje.abacus.util.IntrinsicHelper;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Evaluator for an AST of {@link ExpressionNode}s.
@@ -61,56 +70,273 @@ public class ExpressionEvaluator extends AbstractExpressionNodeVisitor<Object, E
 	 */
 	private SymbolTable symbolTable;
 
+	/**
+	 * The symbol table when it stores the values in slots, otherwise {@code null}. Variable nodes that are bound to a
+	 * slot by the {@link SlotResolver} are read and written by index.
+	 */
+	private SlotSymbolTable slotSymbolTable;
+
+	/**
+	 * Whether the last value evaluated by {@link #evaluateLong(ExpressionNode)} or
+	 * {@link #evaluateBoolean(ExpressionNode)} was {@code null}.
+	 */
+	private boolean wasNull;
+
+	/**
+	 * The memoized results of the calls to pure functions. Since the results only depend on the function and the
+	 * values of the parameters, they are kept for the lifetime of the evaluator.
+	 */
+	private final FunctionResultCache functionResultCache = new FunctionResultCache();
+
+	/**
+	 * The values of the common subexpressions that have been computed in the current evaluation.
+	 */
+	private final Map<CommonSubexpressionNode, Object> subexpressionValues = new IdentityHashMap<>();
+
 	/**
 	 * Constructor.
 	 */
 	public ExpressionEvaluator(AbacusContext abacusContext) {
 		this.abacusContext = abacusContext;
 		this.symbolTable = abacusContext.getSymbolTable();
+		if (symbolTable instanceof SlotSymbolTable) {
+			slotSymbolTable = (SlotSymbolTable) symbolTable;
+		}
 	}
 
 	public Object evaluate(ExpressionNode node) throws EvaluationException {
+		startEvaluation();
 		return node.accept(this);
 	}
 
-	@Override
-	public Object visit(AddNode node) throws EvaluationException {
-		ExpressionNode lhs = node.getLhs();
-		ExpressionNode rhs = node.getRhs();
+	/**
+	 * Evaluates a node of type {@link Type#INTEGER} to a primitive {@code long}. Integer arithmetic in the subtree is
+	 * done on primitives, only the values of the nodes that have no primitive implementation (variables, functions,
+	 * array elements, etc.) are unboxed. When the value is {@code null} the method returns {@code 0} and
+	 * {@link #wasNull()} returns {@code true}.
+	 * @param node The node to evaluate.
+	 * @return The value of the node.
+	 * @throws EvaluationException
+	 */
+	public long evaluateLong(ExpressionNode node) throws EvaluationException {
+		startEvaluation();
+		return computeLong(node);
+	}
 
-		Object left = lhs.accept(this);
-		Object right = rhs.accept(this);
+	/**
+	 * Evaluates a node of type {@link Type#BOOLEAN} to a primitive {@code boolean}. Logical operations and comparisons
+	 * of integers in the subtree are done on primitives. When the value is {@code null} the method returns
+	 * {@code false} and {@link #wasNull()} returns {@code true}.
+	 * @param node The node to evaluate.
+	 * @return The value of the node.
+	 * @throws EvaluationException
+	 */
+	public boolean evaluateBoolean(ExpressionNode node) throws EvaluationException {
+		startEvaluation();
+		return computeBoolean(node);
+	}
 
-		return EvaluationHelper.sum(left, lhs.getType(), right, rhs.getType(), abacusContext.getMathContext());
+	/**
+	 * Forgets the values of the common subexpressions of the previous evaluation, since the values of the variables
+	 * may have changed.
+	 */
+	private void startEvaluation() {
+		if (!subexpressionValues.isEmpty()) {
+			subexpressionValues.clear();
+		}
 	}
 
-	@Override
-	public Object visit(AndNode node) throws EvaluationException {
-		ExpressionNode lhs = node.getLhs();
-		ExpressionNode rhs = node.getRhs();
+	/**
+	 * Evaluates a node of type {@link Type#INTEGER} to a primitive {@code long}, within the current evaluation.
+	 */
+	private long computeLong(ExpressionNode node) throws EvaluationException {
+		if (node instanceof IntegerNode) {
+			return unboxLong(((IntegerNode) node).getValue());
+		}
 
-		Boolean left = (Boolean) lhs.accept(this);
+		if (node instanceof BinaryOperationNode && isIntegerOperation((BinaryOperationNode) node)) {
+			BinaryOperationNode binaryOperationNode = (BinaryOperationNode) node;
 
-		// Wanneer links false is, is het resultaat van de operatie false.
-		if (left != null && !left.booleanValue()) {
-			return Boolean.FALSE;
+			// Always evaluate both sides, like the boxed evaluation does.
+			long left = computeLong(binaryOperationNode.getLhs());
+			boolean leftNull = wasNull;
+			long right = computeLong(binaryOperationNode.getRhs());
+			if (leftNull || wasNull) {
+				wasNull = true;
+				return 0L;
+			}
+
+			if (node instanceof SumNode) {
+				return left + right;
+			}
+			if (node instanceof SubtractNode) {
+				return left - right;
+			}
+			if (node instanceof MultiplyNode) {
+				return left * right;
+			}
+			if (node instanceof DivideNode) {
+				return left / right;
+			}
+			if (node instanceof ModuloNode) {
+				return left % right;
+			}
+			// Not reachable, see isIntegerOperation.
+			throw new IllegalStateException("Unexpected integer operation.");
 		}
 
-		Boolean right = (Boolean) rhs.accept(this);
+		if (node instanceof NegativeNode && isIntegerOrNull(node)) {
+			return -computeLong(((NegativeNode) node).getArgument());
+		}
 
-		// Wanneer rechts false is, is het resultaat van de operatie false.
-		if (right != null && !right.booleanValue()) {
-			return Boolean.FALSE;
+		if (node instanceof PositiveNode && isIntegerOrNull(node)) {
+			return computeLong(((PositiveNode) node).getArgument());
 		}
 
-		// Geen van beide zijden is false, wanneer tenminste 1 van beide zijden null is, is het resultaat van de
-		// operatie null.
-		if (left == null || right == null) {
-			return null;
+		if (node instanceof FactorNode && isIntegerOrNull(node)) {
+			return computeLong(((FactorNode) node).getArgument());
+		}
+
+		if (node instanceof IfNode && isIntegerIf((IfNode) node)) {
+			IfNode ifNode = (IfNode) node;
+			boolean condition = computeBoolean(ifNode.getCondition());
+			if (wasNull) {
+				return 0L;
+			}
+			return computeLong(condition ? ifNode.getIfBody() : ifNode.getElseBody());
 		}
 
-		// Geen van beide zijden is false of null, dus het resultaat van de operatie is true.
-		return Boolean.TRUE;
+		return unboxLong((Long) node.accept(this));
+	}
+
+	/**
+	 * Evaluates a node of type {@link Type#BOOLEAN} to a primitive {@code boolean}, within the current evaluation.
+	 */
+	private boolean computeBoolean(ExpressionNode node) throws EvaluationException {
+		if (node instanceof BooleanNode) {
+			return unboxBoolean(((BooleanNode) node).getValue());
+		}
+
+		if (node instanceof AndNode) {
+			AndNode andNode = (AndNode) node;
+
+			// Wanneer links false is, is het resultaat van de operatie false.
+			boolean left = computeBoolean(andNode.getLhs());
+			if (!wasNull && !left) {
+				return false;
+			}
+			boolean leftNull = wasNull;
+
+			// Wanneer rechts false is, is het resultaat van de operatie false.
+			boolean right = computeBoolean(andNode.getRhs());
+			if (!wasNull && !right) {
+				return false;
+			}
+
+			// Wanneer tenminste 1 van beide zijden null is, is het resultaat van de operatie null.
+			wasNull |= leftNull;
+			return !wasNull;
+		}
+
+		if (node instanceof OrNode) {
+			OrNode orNode = (OrNode) node;
+
+			// Wanneer links true is, is het resultaat van de operatie true.
+			boolean left = computeBoolean(orNode.getLhs());
+			if (!wasNull && left) {
+				return true;
+			}
+			boolean leftNull = wasNull;
+
+			// Wanneer rechts true is, is het resultaat van de operatie true.
+			boolean right = computeBoolean(orNode.getRhs());
+			if (!wasNull && right) {
+				return true;
+			}
+
+			// Wanneer tenminste 1 van beide zijden null is, is het resultaat van de operatie null.
+			wasNull |= leftNull;
+			return false;
+		}
+
+		if (node instanceof NotNode) {
+			return !computeBoolean(((NotNode) node).getArgument());
+		}
+
+		if (node instanceof EqNode || node instanceof NeqNode) {
+			BinaryOperationNode comparisonNode = (BinaryOperationNode) node;
+			boolean equals;
+			boolean leftNull;
+			if (isIntegerComparison(comparisonNode)) {
+				long left = computeLong(comparisonNode.getLhs());
+				leftNull = wasNull;
+				equals = left == computeLong(comparisonNode.getRhs());
+			} else if (isBooleanComparison(comparisonNode)) {
+				boolean left = computeBoolean(comparisonNode.getLhs());
+				leftNull = wasNull;
+				equals = left == computeBoolean(comparisonNode.getRhs());
+			} else {
+				return unboxBoolean((Boolean) node.accept(this));
+			}
+
+			// Two null values are equal, a null value is not equal to a non-null value.
+			if (leftNull || wasNull) {
+				equals = leftNull && wasNull;
+				wasNull = false;
+			}
+			return node instanceof EqNode ? equals : !equals;
+		}
+
+		if ((node instanceof LtNode || node instanceof LeqNode || node instanceof GtNode || node instanceof GeqNode)
+				&& isIntegerComparison((BinaryOperationNode) node)) {
+			BinaryOperationNode comparisonNode = (BinaryOperationNode) node;
+
+			long left = computeLong(comparisonNode.getLhs());
+			boolean leftNull = wasNull;
+			long right = computeLong(comparisonNode.getRhs());
+			if (leftNull || wasNull) {
+				wasNull = true;
+				return false;
+			}
+
+			if (node instanceof LtNode) {
+				return left < right;
+			}
+			if (node instanceof LeqNode) {
+				return left <= right;
+			}
+			if (node instanceof GtNode) {
+				return left > right;
+			}
+			return left >= right;
+		}
+
+		return unboxBoolean((Boolean) node.accept(this));
+	}
+
+	/**
+	 * Returns whether the last value that was evaluated by {@link #evaluateLong(ExpressionNode)} or
+	 * {@link #evaluateBoolean(ExpressionNode)} was {@code null}.
+	 * @return {@code true} when the value was {@code null}, otherwise {@code false}.
+	 */
+	public boolean wasNull() {
+		return wasNull;
+	}
+
+	@Override
+	public Object visit(AddNode node) throws EvaluationException {
+		ExpressionNode lhs = node.getLhs();
+		ExpressionNode rhs = node.getRhs();
+
+		Object left = lhs.accept(this);
+		Object right = rhs.accept(this);
+
+		return EvaluationHelper.sum(left, lhs.getType(), right, rhs.getType(), abacusContext.getMathContext());
+	}
+
+	@Override
+	public Object visit(AndNode node) throws EvaluationException {
+		return boxBoolean(computeBoolean(node));
 	}
 
 	@Override
@@ -147,6 +373,18 @@ public class ExpressionEvaluator extends AbstractExpressionNodeVisitor<Object, E
 		return node.getValue();
 	}
 
+	@Override
+	public Object visit(CommonSubexpressionNode node) throws EvaluationException {
+		// Compute the value of the subexpression the first time, after that return the computed value.
+		if (subexpressionValues.containsKey(node)) {
+			return subexpressionValues.get(node);
+		}
+
+		Object value = node.getExpression().accept(this);
+		subexpressionValues.put(node, value);
+		return value;
+	}
+
 	@Override
 	public Object visit(ConcatStringNode node) throws EvaluationException {
 		ExpressionNode lhs = node.getLhs();
@@ -165,6 +403,10 @@ public class ExpressionEvaluator extends AbstractExpressionNodeVisitor<Object, E
 
 	@Override
 	public Object visit(DivideNode node) throws EvaluationException {
+		if (isIntegerOperation(node)) {
+			return boxLong(computeLong(node));
+		}
+
 		ExpressionNode lhs = node.getLhs();
 		ExpressionNode rhs = node.getRhs();
 
@@ -176,6 +418,10 @@ public class ExpressionEvaluator extends AbstractExpressionNodeVisitor<Object, E
 
 	@Override
 	public Object visit(EqNode node) throws EvaluationException {
+		if (isIntegerComparison(node) || isBooleanComparison(node)) {
+			return boxBoolean(computeBoolean(node));
+		}
+
 		ExpressionNode lhs = node.getLhs();
 		ExpressionNode rhs = node.getRhs();
 
@@ -200,6 +446,15 @@ public class ExpressionEvaluator extends AbstractExpressionNodeVisitor<Object, E
 		List<ExpressionNode> parameters = node.getParameters();
 		String identifier = node.getIdentifier();
 
+		// Call an intrinsic function directly.
+		if (node.getIntrinsicHandle() != null) {
+			Object[] arguments = new Object[parameters.size()];
+			for (int i = 0; i < arguments.length; i++) {
+				arguments[i] = parameters.get(i).accept(this);
+			}
+			return IntrinsicHelper.invoke(node.getIntrinsicHandle(), arguments, node);
+		}
+
 		// Maak een lijst met alle resultaten van de evaluatie van de parameters.
 		List<Object> paramResults = new ArrayList<>();
 
@@ -212,6 +467,12 @@ public class ExpressionEvaluator extends AbstractExpressionNodeVisitor<Object, E
 			paramTypes.add(parameter.getType());
 		}
 		
+		// Call the function directly when the symbol table provides it; the results of pure functions are memoized.
+		Function function = FunctionHelper.determineFunction(symbolTable, identifier, paramTypes);
+		if (function != null) {
+			return functionResultCache.evaluate(function, paramResults);
+		}
+
 		try {
 			return symbolTable.getFunctionReturnValue(identifier, paramResults, paramTypes);
 		} catch (NoSuchFunctionException e) {
@@ -221,6 +482,10 @@ public class ExpressionEvaluator extends AbstractExpressionNodeVisitor<Object, E
 
 	@Override
 	public Object visit(GeqNode node) throws EvaluationException {
+		if (isIntegerComparison(node)) {
+			return boxBoolean(computeBoolean(node));
+		}
+
 		ExpressionNode lhs = node.getLhs();
 		ExpressionNode rhs = node.getRhs();
 
@@ -232,6 +497,10 @@ public class ExpressionEvaluator extends AbstractExpressionNodeVisitor<Object, E
 
 	@Override
 	public Object visit(GtNode node) throws EvaluationException {
+		if (isIntegerComparison(node)) {
+			return boxBoolean(computeBoolean(node));
+		}
+
 		ExpressionNode lhs = node.getLhs();
  		ExpressionNode rhs = node.getRhs();
 
@@ -243,6 +512,10 @@ public class ExpressionEvaluator extends AbstractExpressionNodeVisitor<Object, E
 
 	@Override
 	public Object visit(IfNode node) throws EvaluationException {
+		if (isIntegerIf(node)) {
+			return boxLong(computeLong(node));
+		}
+
 		ExpressionNode condition = node.getCondition();
 		ExpressionNode ifBody = node.getIfBody();
 		ExpressionNode elseBody = node.getElseBody();
@@ -271,6 +544,10 @@ public class ExpressionEvaluator extends AbstractExpressionNodeVisitor<Object, E
 
 	@Override
 	public Object visit(LeqNode node) throws EvaluationException {
+		if (isIntegerComparison(node)) {
+			return boxBoolean(computeBoolean(node));
+		}
+
 		ExpressionNode lhs = node.getLhs();
  		ExpressionNode rhs = node.getRhs();
 
@@ -282,6 +559,10 @@ public class ExpressionEvaluator extends AbstractExpressionNodeVisitor<Object, E
 
 	@Override
 	public Object visit(LtNode node) throws EvaluationException {
+		if (isIntegerComparison(node)) {
+			return boxBoolean(computeBoolean(node));
+		}
+
 		ExpressionNode lhs = node.getLhs();
 		ExpressionNode rhs = node.getRhs();
 
@@ -293,6 +574,10 @@ public class ExpressionEvaluator extends AbstractExpressionNodeVisitor<Object, E
 
 	@Override
 	public Object visit(ModuloNode node) throws EvaluationException {
+		if (isIntegerOperation(node)) {
+			return boxLong(computeLong(node));
+		}
+
 		ExpressionNode lhs = node.getLhs();
 		ExpressionNode rhs = node.getRhs();
 
@@ -304,6 +589,10 @@ public class ExpressionEvaluator extends AbstractExpressionNodeVisitor<Object, E
 
 	@Override
 	public Object visit(MultiplyNode node) throws EvaluationException {
+		if (isIntegerOperation(node)) {
+			return boxLong(computeLong(node));
+		}
+
 		ExpressionNode lhs = node.getLhs();
 		ExpressionNode rhs = node.getRhs();
 
@@ -315,6 +604,10 @@ public class ExpressionEvaluator extends AbstractExpressionNodeVisitor<Object, E
 
 	@Override
 	public Object visit(NegativeNode node) throws EvaluationException {
+		if (isIntegerOrNull(node)) {
+			return boxLong(computeLong(node));
+		}
+
 		ExpressionNode argument = node.getArgument();
 
 		// Bepaal het getal dat we negatief gaan maken.
@@ -325,6 +618,10 @@ public class ExpressionEvaluator extends AbstractExpressionNodeVisitor<Object, E
 
 	@Override
 	public Object visit(NeqNode node) throws EvaluationException {
+		if (isIntegerComparison(node) || isBooleanComparison(node)) {
+			return boxBoolean(computeBoolean(node));
+		}
+
 		ExpressionNode lhs = node.getLhs();
 		ExpressionNode rhs = node.getRhs();
 
@@ -336,12 +633,7 @@ public class ExpressionEvaluator extends AbstractExpressionNodeVisitor<Object, E
 
 	@Override
 	public Object visit(NotNode node) throws EvaluationException {
-		ExpressionNode argument = node.getArgument();
-
-		// Bepaal de waarde van de boolean.
-		Boolean bool = (Boolean)argument.accept(this);
-
-		return BooleanOperation.not(bool);
+		return boxBoolean(computeBoolean(node));
 	}
 
 	@Override
@@ -351,31 +643,7 @@ public class ExpressionEvaluator extends AbstractExpressionNodeVisitor<Object, E
 
 	@Override
 	public Object visit(OrNode node) throws EvaluationException {
-		ExpressionNode lhs = node.getLhs();
-		ExpressionNode rhs = node.getRhs();
-
-		Boolean left = (Boolean) lhs.accept(this);
-
-		// Wanneer links true is, is het resultaat van de operatie true.
-		if (left != null && left.booleanValue()) {
-			return Boolean.TRUE;
-		}
-
-		Boolean right = (Boolean) rhs.accept(this);
-
-		// Wanneer rechts true is, is het resultaat van de operatie true.
-		if (right != null && right.booleanValue()) {
-			return Boolean.TRUE;
-		}
-
-		// Geen van beide zijden is true, wanneer tenminste 1 van beide zijden null is, is het resultaat van de
-		// operatie null.
-		if (left == null || right == null) {
-			return null;
-		}
-
-		// Geen van beide zijden is true of null, dus het resultaat van de operatie is false.
-		return Boolean.FALSE;
+		return boxBoolean(computeBoolean(node));
 	}
 
 	@Override
@@ -402,6 +670,10 @@ public class ExpressionEvaluator extends AbstractExpressionNodeVisitor<Object, E
 
 	@Override
 	public Object visit(SubtractNode node) throws EvaluationException {
+		if (isIntegerOperation(node)) {
+			return boxLong(computeLong(node));
+		}
+
 		ExpressionNode lhs = node.getLhs();
 		ExpressionNode rhs = node.getRhs();
 
@@ -413,6 +685,10 @@ public class ExpressionEvaluator extends AbstractExpressionNodeVisitor<Object, E
 
 	@Override
 	public Object visit(SumNode node) throws EvaluationException {
+		if (isIntegerOperation(node)) {
+			return boxLong(computeLong(node));
+		}
+
 		ExpressionNode lhs = node.getLhs();
 		ExpressionNode rhs = node.getRhs();
 
@@ -424,6 +700,10 @@ public class ExpressionEvaluator extends AbstractExpressionNodeVisitor<Object, E
 
 	@Override
 	public Object visit(VariableNode node) throws EvaluationException {
+		if (isBoundToSlot(node)) {
+			return slotSymbolTable.getVariableValue(node.getSlot());
+		}
+
 		String identifier = node.getIdentifier();
 		try {
 			return symbolTable.getVariableValue(identifier);
@@ -432,6 +712,15 @@ public class ExpressionEvaluator extends AbstractExpressionNodeVisitor<Object, E
 		}
 	}
 
+	/**
+	 * Determines whether the variable can be accessed by its slot: it must be bound to a slot of a symbol table that
+	 * shares the schema of the symbol table of the evaluator. Otherwise the variable is accessed by its identifier.
+	 */
+	private boolean isBoundToSlot(VariableNode node) {
+		return node.getSlot() >= 0 && slotSymbolTable != null
+				&& slotSymbolTable.sharesSchema(node.getSlotSymbolTable());
+	}
+
 	/**
 	 * Assigns a value to a variable or to an index.
 	 */
@@ -476,6 +765,11 @@ public class ExpressionEvaluator extends AbstractExpressionNodeVisitor<Object, E
 
 		@Override
 		public Object visit(VariableNode node) throws EvaluationException {
+			if (isBoundToSlot(node)) {
+				slotSymbolTable.setVariableValue(node.getSlot(), value);
+				return value;
+			}
+
 			try {
 				symbolTable.setVariableValue(node.getIdentifier(), value);
 			} catch (Exception e) {
@@ -486,6 +780,68 @@ public class ExpressionEvaluator extends AbstractExpressionNodeVisitor<Object, E
 		}
 	}
 
+	/**
+	 * Determines whether the node is an arithmetic operation on integers that {@link #evaluateLong(ExpressionNode)}
+	 * can evaluate on primitives.
+	 */
+	private static boolean isIntegerOperation(BinaryOperationNode node) {
+		return (node instanceof SumNode || node instanceof SubtractNode || node instanceof MultiplyNode
+				|| node instanceof DivideNode || node instanceof ModuloNode)
+				&& Type.equals(node.getType(), Type.INTEGER)
+				&& isIntegerOrNull(node.getLhs()) && isIntegerOrNull(node.getRhs());
+	}
+
+	/**
+	 * Determines whether the node is an if of type integer, so no cast of the bodies is needed.
+	 */
+	private static boolean isIntegerIf(IfNode node) {
+		return Type.equals(node.getType(), Type.INTEGER);
+	}
+
+	/**
+	 * Determines whether the node is a comparison of integers.
+	 */
+	private static boolean isIntegerComparison(BinaryOperationNode node) {
+		return isIntegerOrNull(node.getLhs()) && isIntegerOrNull(node.getRhs())
+				&& (node.getLhs().getType() != null || node.getRhs().getType() != null);
+	}
+
+	/**
+	 * Determines whether the node is a comparison of booleans.
+	 */
+	private static boolean isBooleanComparison(BinaryOperationNode node) {
+		Type leftType = node.getLhs().getType();
+		Type rightType = node.getRhs().getType();
+		return (leftType == null || Type.equals(leftType, Type.BOOLEAN))
+				&& (rightType == null || Type.equals(rightType, Type.BOOLEAN))
+				&& (leftType != null || rightType != null);
+	}
+
+	/**
+	 * Determines whether the node is of type integer, or of an unknown type (only null).
+	 */
+	private static boolean isIntegerOrNull(ExpressionNode node) {
+		return node.getType() == null || Type.equals(node.getType(), Type.INTEGER);
+	}
+
+	private long unboxLong(Long value) {
+		wasNull = value == null;
+		return wasNull ? 0L : value;
+	}
+
+	private Long boxLong(long value) {
+		return wasNull ? null : Long.valueOf(value);
+	}
+
+	private boolean unboxBoolean(Boolean value) {
+		wasNull = value == null;
+		return !wasNull && value;
+	}
+
+	private Boolean boxBoolean(boolean value) {
+		return wasNull ? null : Boolean.valueOf(value);
+	}
+
 	/**
 	 * Casts the given object from one type to another.
 	 * @param object The object to cast.
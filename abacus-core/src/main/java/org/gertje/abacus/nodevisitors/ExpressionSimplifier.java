@@ -1,12 +1,15 @@
 package org.gertje.abacus.nodevisitors;
 
 import org.gertje.abacus.context.AbacusContext;
+import org.gertje.abacus.functions.Function;
+import org.gertje.abacus.functions.PureFunction;
 import org.gertje.abacus.nodes.AddNode;
 import org.gertje.abacus.nodes.AndNode;
 import org.gertje.abacus.nodes.ArrayNode;
 import org.gertje.abacus.nodes.AssignmentNode;
 import org.gertje.abacus.nodes.BinaryOperationNode;
 import org.gertje.abacus.nodes.BooleanNode;
+import org.gertje.abacus.nodes.CommonSubexpressionNode;
 import org.gertje.abacus.nodes.ConcatStringNode;
 import org.gertje.abacus.nodes.DateNode;
 import org.gertje.abacus.nodes.DecimalNode;
@@ -37,9 +40,14 @@ import org.gertje.abacus.nodes.SumNode;
 import org.gertje.abacus.nodes.VariableNode;
 import org.gertje.abacus.token.Token;
 import org.gertje.abacus.types.Type;
+import org.gertje.abacus.util.FunctionHelper;
 
 import java.math.BigDecimal;
 import java.sql.Date;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Simplifier for an AST of {@link ExpressionNode}s.
@@ -61,18 +69,41 @@ public class ExpressionSimplifier extends AbstractExpressionNodeVisitor<Expressi
 	 */
 	private ExpressionEvaluator evaluator;
 
+	/**
+	 * The rules that rewrite the nodes that cannot be folded to a constant.
+	 */
+	private final List<RewriteRule> rewriteRules;
+
+	/**
+	 * The simplified nodes of the common subexpressions that have been simplified, since a common subexpression
+	 * occurs more than once in the tree but must be simplified only once.
+	 */
+	private final Map<CommonSubexpressionNode, ExpressionNode> simplifiedSubexpressions = new IdentityHashMap<>();
+
 	/**
 	 * Constructor.
 	 */
 	public ExpressionSimplifier(AbacusContext abacusContext, NodeFactory nodeFactory) {
+		this(abacusContext, nodeFactory, AlgebraicRewriteRules.createRules(abacusContext, nodeFactory));
+	}
+
+	/**
+	 * Constructor.
+	 * @param abacusContext The context.
+	 * @param nodeFactory The node factory that creates the new nodes.
+	 * @param rewriteRules The rules that rewrite the nodes that cannot be folded to a constant.
+	 */
+	public ExpressionSimplifier(AbacusContext abacusContext, NodeFactory nodeFactory, List<RewriteRule> rewriteRules) {
 		this.nodeFactory = nodeFactory;
 		this.abacusContext = abacusContext;
+		this.rewriteRules = rewriteRules;
 
 		// Maak een evaluator aan om de nodes te vereenvoudigen.
 		evaluator = new ExpressionEvaluator(abacusContext);
 	}
 
 	public ExpressionNode simplify(ExpressionNode node) throws SimplificationException {
+		simplifiedSubexpressions.clear();
 		return node.accept(this);
 	}
 
@@ -139,8 +170,7 @@ public class ExpressionSimplifier extends AbstractExpressionNodeVisitor<Expressi
 			return lhs;
 		}
 
-
-		return node;
+		return applyRewriteRules(node);
 	}
 
 	@Override
@@ -173,6 +203,24 @@ public class ExpressionSimplifier extends AbstractExpressionNodeVisitor<Expressi
 		return node;
 	}
 
+	@Override
+	public ExpressionNode visit(CommonSubexpressionNode node) throws SimplificationException {
+		// Return the simplified node when the subexpression has been simplified at another occurrence.
+		ExpressionNode simplified = simplifiedSubexpressions.get(node);
+		if (simplified != null) {
+			return simplified;
+		}
+
+		// Vereenvoudig de nodes indien mogelijk.
+		ExpressionNode expression = node.getExpression().accept(this);
+		node.setExpression(expression);
+
+		// A constant subexpression does not need to be shared.
+		simplified = expression.getIsConstant() ? expression : node;
+		simplifiedSubexpressions.put(node, simplified);
+		return simplified;
+	}
+
 	@Override
 	public ExpressionNode visit(ConcatStringNode node) throws SimplificationException {
 		return simplifyBinaryOperation(node, true);
@@ -210,7 +258,32 @@ public class ExpressionSimplifier extends AbstractExpressionNodeVisitor<Expressi
 
 	@Override
 	public ExpressionNode visit(FunctionNode node) throws SimplificationException {
-		return node;
+		List<ExpressionNode> parameters = new ArrayList<>(node.getParameters().size());
+		List<Type> types = new ArrayList<>(node.getParameters().size());
+		boolean parametersConstant = true;
+
+		// Vereenvoudig de parameters indien mogelijk.
+		for (ExpressionNode parameter : node.getParameters()) {
+			parameter = parameter.accept(this);
+			parameters.add(parameter);
+			types.add(parameter.getType());
+			parametersConstant = parametersConstant && parameter.getIsConstant();
+		}
+		node.setParameters(parameters);
+
+		// A call to a pure function with constant parameters always returns the same value, so it can be replaced by
+		// the value. Arrays have no literal node, calls that return an array are not simplified.
+		if (!parametersConstant || (node.getType() != null && node.getType().isArray())) {
+			return node;
+		}
+
+		Function function = FunctionHelper.determineFunction(abacusContext.getSymbolTable(), node.getIdentifier(),
+				types);
+		if (!(function instanceof PureFunction)) {
+			return node;
+		}
+
+		return createNodeForTypeAndValue(node.getType(), evaluateConstantNode(node), node.getToken());
 	}
 
 	@Override
@@ -234,9 +307,9 @@ public class ExpressionSimplifier extends AbstractExpressionNodeVisitor<Expressi
 		ifBody = ifBody.accept(this); node.setIfBody(ifBody);
 		elseBody = elseBody.accept(this); node.setElseBody(elseBody);
 
-		// Wanneer we conditie niet constant is kunnen we niets vereenvoudigen. Geef de node terug.
+		// Wanneer we conditie niet constant is kunnen we de node alleen herschrijven.
 		if (!condition.getIsConstant()) {
-			return node;
+			return applyRewriteRules(node);
 		}
 
 		Boolean conditionValue = (Boolean)evaluateConstantNode(condition);
@@ -306,9 +379,9 @@ public class ExpressionSimplifier extends AbstractExpressionNodeVisitor<Expressi
 		// Vereenvoudig de nodes indien mogelijk.
 		argument = argument.accept(this); node.setArgument(argument);
 
-		// Wanneer het argument niet constant is kunnen we de node niet vereenvoudigen.
+		// Wanneer het argument niet constant is kunnen we de node alleen herschrijven.
 		if (!argument.getIsConstant()) {
-			return node;
+			return applyRewriteRules(node);
 		}
 
 		// Het argument is constant, evalueer het en geef een BooleanNode terug.
@@ -374,8 +447,8 @@ public class ExpressionSimplifier extends AbstractExpressionNodeVisitor<Expressi
 			return lhs;
 		}
 
-		// Geef de huidige instantie terug.
-		return node;
+		// Geef de huidige instantie terug, herschreven waar mogelijk.
+		return applyRewriteRules(node);
 	}
 
 	@Override
@@ -440,9 +513,9 @@ public class ExpressionSimplifier extends AbstractExpressionNodeVisitor<Expressi
 
 		// Wanneer we hier komen is tenminste een van beide zijden niet constant.
 
-		// If we shan't simplify to null we're done.
+		// If we shan't simplify to null we can only rewrite the node.
 		if (!simplifyToNullNode) {
-			return node;
+			return applyRewriteRules(node);
 		}
 
 		// Wanneer een van de zijden constant is EN null, geven we een node met de waarde null terug.
@@ -452,7 +525,29 @@ public class ExpressionSimplifier extends AbstractExpressionNodeVisitor<Expressi
 			return createNodeForTypeAndValue(node.getType(), null, node.getToken());
 		}
 
-		// Wanneer we hier komen kunnen we de node niet verder vereenvoudigen. Geef de node terug.
+		// Wanneer we hier komen kunnen we de node niet verder vereenvoudigen. Herschrijf de node waar mogelijk.
+		return applyRewriteRules(node);
+	}
+
+	/**
+	 * Applies the rewrite rules to the node until none of the rules applies.
+	 * @param node The node, its children are already simplified.
+	 * @return The rewritten node.
+	 * @throws SimplificationException
+	 */
+	protected ExpressionNode applyRewriteRules(ExpressionNode node) throws SimplificationException {
+		boolean rewritten = true;
+		while (rewritten) {
+			rewritten = false;
+			for (RewriteRule rewriteRule : rewriteRules) {
+				ExpressionNode rewrittenNode = rewriteRule.rewrite(node);
+				if (rewrittenNode != null) {
+					node = rewrittenNode;
+					rewritten = true;
+					break;
+				}
+			}
+		}
 		return node;
 	}
 
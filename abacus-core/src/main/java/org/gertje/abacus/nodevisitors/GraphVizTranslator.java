@@ -6,6 +6,7 @@ import org.gertje.abacus.nodes.ArrayNode;
 import org.gertje.abacus.nodes.AssignmentNode;
 import org.gertje.abacus.nodes.BinaryOperationNode;
 import org.gertje.abacus.nodes.BooleanNode;
+import org.gertje.abacus.nodes.CommonSubexpressionNode;
 import org.gertje.abacus.nodes.ConcatStringNode;
 import org.gertje.abacus.nodes.DateNode;
 import org.gertje.abacus.nodes.DecimalNode;
@@ -97,6 +98,13 @@ public class GraphVizTranslator implements NodeVisitor<Void, VisitingException>
 		return null;
 	}
 
+	@Override
+	public Void visit(CommonSubexpressionNode node) throws VisitingException {
+		addNodeDefinition(node, "cse");
+		addReference(node, node.getExpression());
+		return null;
+	}
+
 	@Override
 	public Void visit(ConcatStringNode node) throws VisitingException {
 		addBinaryOperationNode(node, "+");
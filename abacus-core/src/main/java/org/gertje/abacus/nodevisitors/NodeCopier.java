@@ -0,0 +1,294 @@
+package org.gertje.abacus.nodevisitors;
+
+import org.gertje.abacus.nodes.AddNode;
+import org.gertje.abacus.nodes.AndNode;
+import org.gertje.abacus.nodes.ArrayNode;
+import org.gertje.abacus.nodes.AssignmentNode;
+import org.gertje.abacus.nodes.BooleanNode;
+import org.gertje.abacus.nodes.CommonSubexpressionNode;
+import org.gertje.abacus.nodes.ConcatStringNode;
+import org.gertje.abacus.nodes.DateNode;
+import org.gertje.abacus.nodes.DecimalNode;
+import org.gertje.abacus.nodes.DivideNode;
+import org.gertje.abacus.nodes.EqNode;
+import org.gertje.abacus.nodes.ExpressionNode;
+import org.gertje.abacus.nodes.FactorNode;
+import org.gertje.abacus.nodes.FunctionNode;
+import org.gertje.abacus.nodes.GeqNode;
+import org.gertje.abacus.nodes.GtNode;
+import org.gertje.abacus.nodes.IfNode;
+import org.gertje.abacus.nodes.IntegerNode;
+import org.gertje.abacus.nodes.LeqNode;
+import org.gertje.abacus.nodes.LtNode;
+import org.gertje.abacus.nodes.ModuloNode;
+import org.gertje.abacus.nodes.MultiplyNode;
+import org.gertje.abacus.nodes.NegativeNode;
+import org.gertje.abacus.nodes.NeqNode;
+import org.gertje.abacus.nodes.Node;
+import org.gertje.abacus.nodes.NodeFactory;
+import org.gertje.abacus.nodes.NotNode;
+import org.gertje.abacus.nodes.NullNode;
+import org.gertje.abacus.nodes.OrNode;
+import org.gertje.abacus.nodes.PositiveNode;
+import org.gertje.abacus.nodes.PowerNode;
+import org.gertje.abacus.nodes.RootNode;
+import org.gertje.abacus.nodes.StatementListNode;
+import org.gertje.abacus.nodes.StringNode;
+import org.gertje.abacus.nodes.SubtractNode;
+import org.gertje.abacus.nodes.SumNode;
+import org.gertje.abacus.nodes.VariableNode;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates a deep copy of an AST. The copy keeps everything the {@link SemanticsChecker}, the {@link Simplifier} and
+ * the {@link SlotResolver} added to the nodes (the types, the intrinsic methods of function calls and the slots of
+ * variables), so it can be evaluated or translated without checking it again. A
+ * {@link CommonSubexpressionNode} that occurs more than once is copied once, so the copy shares its subexpressions in
+ * the same way as the original.
+ */
+public class NodeCopier implements NodeVisitor<Node, VisitingException> {
+
+	/**
+	 * The node factory that creates the copies.
+	 */
+	private final NodeFactory nodeFactory;
+
+	/**
+	 * The copies of the common subexpressions that were already copied.
+	 */
+	private final Map<CommonSubexpressionNode, CommonSubexpressionNode> commonSubexpressions =
+			new IdentityHashMap<>();
+
+	/**
+	 * Constructor.
+	 * @param nodeFactory The node factory that creates the copies.
+	 */
+	public NodeCopier(NodeFactory nodeFactory) {
+		this.nodeFactory = nodeFactory;
+	}
+
+	/**
+	 * Copies the AST.
+	 * @param node The root of the AST.
+	 * @return The root of the copy.
+	 */
+	public Node copy(Node node) {
+		commonSubexpressions.clear();
+		try {
+			return node.accept(this);
+		} catch (VisitingException e) {
+			// Copying never throws a VisitingException.
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Override
+	public Node visit(AddNode node) throws VisitingException {
+		return nodeFactory.createAddNode(copyOf(node.getLhs()), copyOf(node.getRhs()), node.getToken());
+	}
+
+	@Override
+	public Node visit(AndNode node) throws VisitingException {
+		return nodeFactory.createAndNode(copyOf(node.getLhs()), copyOf(node.getRhs()), node.getToken());
+	}
+
+	@Override
+	public Node visit(ArrayNode node) throws VisitingException {
+		ArrayNode copy = nodeFactory.createArrayNode(copyOf(node.getArray()), copyOf(node.getIndex()), node.getToken());
+		copy.setType(node.getType());
+		return copy;
+	}
+
+	@Override
+	public Node visit(AssignmentNode node) throws VisitingException {
+		return nodeFactory.createAssignmentNode(copyOf(node.getLhs()), copyOf(node.getRhs()), node.getToken());
+	}
+
+	@Override
+	public Node visit(BooleanNode node) throws VisitingException {
+		return nodeFactory.createBooleanNode(node.getValue(), node.getToken());
+	}
+
+	@Override
+	public Node visit(CommonSubexpressionNode node) throws VisitingException {
+		CommonSubexpressionNode copy = commonSubexpressions.get(node);
+		if (copy == null) {
+			copy = nodeFactory.createCommonSubexpressionNode(copyOf(node.getExpression()), node.getToken());
+			commonSubexpressions.put(node, copy);
+		}
+		return copy;
+	}
+
+	@Override
+	public Node visit(ConcatStringNode node) throws VisitingException {
+		return nodeFactory.createConcatStringNode(copyOf(node.getLhs()), copyOf(node.getRhs()), node.getToken());
+	}
+
+	@Override
+	public Node visit(DateNode node) throws VisitingException {
+		// A date is mutable, so the copy gets its own date.
+		Date value = node.getValue() == null ? null : new Date(node.getValue().getTime());
+		return nodeFactory.createDateNode(value, node.getToken());
+	}
+
+	@Override
+	public Node visit(DecimalNode node) throws VisitingException {
+		return nodeFactory.createDecimalNode(node.getValue(), node.getToken());
+	}
+
+	@Override
+	public Node visit(DivideNode node) throws VisitingException {
+		return nodeFactory.createDivideNode(copyOf(node.getLhs()), copyOf(node.getRhs()), node.getToken());
+	}
+
+	@Override
+	public Node visit(EqNode node) throws VisitingException {
+		return nodeFactory.createEqNode(copyOf(node.getLhs()), copyOf(node.getRhs()), node.getToken());
+	}
+
+	@Override
+	public Node visit(FactorNode node) throws VisitingException {
+		return nodeFactory.createFactorNode(copyOf(node.getArgument()), node.getToken());
+	}
+
+	@Override
+	public Node visit(FunctionNode node) throws VisitingException {
+		List<ExpressionNode> parameters = new ArrayList<>(node.getParameters().size());
+		for (ExpressionNode parameter : node.getParameters()) {
+			parameters.add(copyOf(parameter));
+		}
+
+		FunctionNode copy = nodeFactory.createFunctionNode(node.getIdentifier(), parameters, node.getToken());
+		copy.setReturnType(node.getReturnType());
+		copy.setIntrinsic(node.getIntrinsic(), node.getIntrinsicHandle());
+		return copy;
+	}
+
+	@Override
+	public Node visit(GeqNode node) throws VisitingException {
+		return nodeFactory.createGeqNode(copyOf(node.getLhs()), copyOf(node.getRhs()), node.getToken());
+	}
+
+	@Override
+	public Node visit(GtNode node) throws VisitingException {
+		return nodeFactory.createGtNode(copyOf(node.getLhs()), copyOf(node.getRhs()), node.getToken());
+	}
+
+	@Override
+	public Node visit(IfNode node) throws VisitingException {
+		IfNode copy = nodeFactory.createIfNode(copyOf(node.getCondition()), copyOf(node.getIfBody()),
+				copyOf(node.getElseBody()), node.getToken());
+		copy.setType(node.getType());
+		return copy;
+	}
+
+	@Override
+	public Node visit(IntegerNode node) throws VisitingException {
+		return nodeFactory.createIntegerNode(node.getValue(), node.getToken());
+	}
+
+	@Override
+	public Node visit(LeqNode node) throws VisitingException {
+		return nodeFactory.createLeqNode(copyOf(node.getLhs()), copyOf(node.getRhs()), node.getToken());
+	}
+
+	@Override
+	public Node visit(LtNode node) throws VisitingException {
+		return nodeFactory.createLtNode(copyOf(node.getLhs()), copyOf(node.getRhs()), node.getToken());
+	}
+
+	@Override
+	public Node visit(ModuloNode node) throws VisitingException {
+		return nodeFactory.createModuloNode(copyOf(node.getLhs()), copyOf(node.getRhs()), node.getToken());
+	}
+
+	@Override
+	public Node visit(MultiplyNode node) throws VisitingException {
+		return nodeFactory.createMultiplyNode(copyOf(node.getLhs()), copyOf(node.getRhs()), node.getToken());
+	}
+
+	@Override
+	public Node visit(NegativeNode node) throws VisitingException {
+		return nodeFactory.createNegativeNode(copyOf(node.getArgument()), node.getToken());
+	}
+
+	@Override
+	public Node visit(NeqNode node) throws VisitingException {
+		return nodeFactory.createNeqNode(copyOf(node.getLhs()), copyOf(node.getRhs()), node.getToken());
+	}
+
+	@Override
+	public Node visit(NotNode node) throws VisitingException {
+		return nodeFactory.createNotNode(copyOf(node.getArgument()), node.getToken());
+	}
+
+	@Override
+	public Node visit(NullNode node) throws VisitingException {
+		return nodeFactory.createNullNode(node.getToken());
+	}
+
+	@Override
+	public Node visit(OrNode node) throws VisitingException {
+		return nodeFactory.createOrNode(copyOf(node.getLhs()), copyOf(node.getRhs()), node.getToken());
+	}
+
+	@Override
+	public Node visit(PositiveNode node) throws VisitingException {
+		return nodeFactory.createPositiveNode(copyOf(node.getArgument()), node.getToken());
+	}
+
+	@Override
+	public Node visit(PowerNode node) throws VisitingException {
+		return nodeFactory.createPowerNode(copyOf(node.getBase()), copyOf(node.getPower()), node.getToken());
+	}
+
+	@Override
+	public Node visit(RootNode node) throws VisitingException {
+		return nodeFactory.createRootNode((StatementListNode) node.getStatementListNode().accept(this),
+				node.getToken());
+	}
+
+	@Override
+	public Node visit(StatementListNode node) throws VisitingException {
+		StatementListNode copy = nodeFactory.createStatementListNode(node.getToken());
+		for (Node statement : node) {
+			copy.add(statement.accept(this));
+		}
+		return copy;
+	}
+
+	@Override
+	public Node visit(StringNode node) throws VisitingException {
+		return nodeFactory.createStringNode(node.getValue(), node.getToken());
+	}
+
+	@Override
+	public Node visit(SubtractNode node) throws VisitingException {
+		return nodeFactory.createSubtractNode(copyOf(node.getLhs()), copyOf(node.getRhs()), node.getToken());
+	}
+
+	@Override
+	public Node visit(SumNode node) throws VisitingException {
+		return nodeFactory.createSumNode(copyOf(node.getLhs()), copyOf(node.getRhs()), node.getToken());
+	}
+
+	@Override
+	public Node visit(VariableNode node) throws VisitingException {
+		VariableNode copy = nodeFactory.createVariableNode(node.getIdentifier(), node.getToken());
+		copy.setType(node.getType());
+		copy.setSlot(node.getSlot(), node.getSlotSymbolTable());
+		return copy;
+	}
+
+	/**
+	 * Copies the expression.
+	 */
+	private ExpressionNode copyOf(ExpressionNode node) throws VisitingException {
+		return (ExpressionNode) node.accept(this);
+	}
+}
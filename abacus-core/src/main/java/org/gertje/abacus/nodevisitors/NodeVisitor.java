@@ -5,6 +5,7 @@ import org.gertje.abacus.nodes.AndNode;
 import org.gertje.abacus.nodes.ArrayNode;
 import org.gertje.abacus.nodes.AssignmentNode;
 import org.gertje.abacus.nodes.BooleanNode;
+import org.gertje.abacus.nodes.CommonSubexpressionNode;
 import org.gertje.abacus.nodes.ConcatStringNode;
 import org.gertje.abacus.nodes.DateNode;
 import org.gertje.abacus.nodes.DivideNode;
@@ -40,6 +41,7 @@ public interface NodeVisitor<R, X extends VisitingException> {
 	R visit(ArrayNode node) throws X;
 	R visit(AssignmentNode node) throws X;
 	R visit(BooleanNode node) throws X;
+	R visit(CommonSubexpressionNode node) throws X;
 	R visit(ConcatStringNode node) throws X;
 	R visit(DateNode node) throws X;
 	R visit(DecimalNode node) throws X;
@@ -6,6 +6,7 @@ import org.gertje.abacus.nodes.ArrayNode;
 import org.gertje.abacus.nodes.AssignmentNode;
 import org.gertje.abacus.nodes.BinaryOperationNode;
 import org.gertje.abacus.nodes.BooleanNode;
+import org.gertje.abacus.nodes.CommonSubexpressionNode;
 import org.gertje.abacus.nodes.ConcatStringNode;
 import org.gertje.abacus.nodes.DateNode;
 import org.gertje.abacus.nodes.DecimalNode;
@@ -87,6 +88,11 @@ public class PrettyPrinter implements NodeVisitor<String, VisitingException> {
 		return node.getValue().toString();
 	}
 
+	@Override
+	public String visit(CommonSubexpressionNode node) throws VisitingException {
+		return node.getExpression().accept(this);
+	}
+
 	@Override
 	public String visit(ConcatStringNode node) throws VisitingException {
 		return createScriptForBinaryOperationNode(node, "+");
@@ -0,0 +1,23 @@
+package org.gertje.abacus.nodevisitors;
+
+import org.gertje.abacus.nodes.ExpressionNode;
+
+/**
+ * A rule that rewrites an expression into an equivalent expression that is cheaper to evaluate. The rules are applied
+ * by the {@link ExpressionSimplifier} to every node that could not be folded to a constant, after its children have
+ * been simplified.
+ *
+ * A rule must respect the three-valued semantics of Abacus: when an operand is {@code null}, the rewritten expression
+ * must evaluate to the same value as the original expression. A rule must make the expression smaller or cheaper, so
+ * that the rules can be applied until none of them applies.
+ */
+public interface RewriteRule {
+
+	/**
+	 * Rewrites the node.
+	 * @param node The node, its children are already simplified.
+	 * @return The rewritten node, or {@code null} when the rule does not apply.
+	 * @throws SimplificationException
+	 */
+	ExpressionNode rewrite(ExpressionNode node) throws SimplificationException;
+}
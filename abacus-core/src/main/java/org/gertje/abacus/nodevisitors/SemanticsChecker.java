@@ -1,10 +1,13 @@
 package org.gertje.abacus.nodevisitors;
 
+import org.gertje.abacus.functions.Function;
+import org.gertje.abacus.functions.IntrinsicFunction;
 import org.gertje.abacus.nodes.AddNode;
 import org.gertje.abacus.nodes.AndNode;
 import org.gertje.abacus.nodes.ArrayNode;
 import org.gertje.abacus.nodes.AssignmentNode;
 import org.gertje.abacus.nodes.BooleanNode;
+import org.gertje.abacus.nodes.CommonSubexpressionNode;
 import org.gertje.abacus.nodes.ConcatStringNode;
 import org.gertje.abacus.nodes.DateNode;
 import org.gertje.abacus.nodes.DecimalNode;
@@ -39,8 +42,11 @@ import org.gertje.abacus.symboltable.NoSuchFunctionException;
 import org.gertje.abacus.symboltable.NoSuchVariableException;
 import org.gertje.abacus.symboltable.SymbolTable;
 import org.gertje.abacus.types.Type;
+import org.gertje.abacus.util.FunctionHelper;
+import org.gertje.abacus.util.IntrinsicHelper;
 import org.gertje.abacus.util.SemanticsHelper;
 
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -148,6 +154,12 @@ public class SemanticsChecker implements NodeVisitor<Void, SemanticsCheckExcepti
 		return null;
 	}
 
+	@Override
+	public Void visit(CommonSubexpressionNode node) throws SemanticsCheckException {
+		node.getExpression().accept(this);
+		return null;
+	}
+
 	@Override
 	public Void visit(ConcatStringNode node) throws SemanticsCheckException {
 		return null;
@@ -234,6 +246,25 @@ public class SemanticsChecker implements NodeVisitor<Void, SemanticsCheckExcepti
 			throw new SemanticsCheckException(e.getMessage(), node);
 		}
 
+		// Bind the call to the method of an intrinsic function, so it can be called directly.
+		node.setIntrinsic(null, null);
+		Function function = FunctionHelper.determineFunction(symbolTable, identifier, types);
+		if (function instanceof IntrinsicFunction) {
+			Method target = ((IntrinsicFunction) function).getTarget(types);
+			if (target != null) {
+				if (!IntrinsicHelper.isValidTarget(target, types, node.getReturnType())) {
+					throw new SemanticsCheckException("The method of function '" + identifier
+							+ "' does not match its parameters or return type.", node);
+				}
+				try {
+					node.setIntrinsic(target, IntrinsicHelper.bind(target));
+				} catch (IllegalAccessException e) {
+					throw new SemanticsCheckException("The method of function '" + identifier
+							+ "' is not accessible.", node);
+				}
+			}
+		}
+
 		return null;
 	}
 
@@ -0,0 +1,56 @@
+package org.gertje.abacus.nodevisitors;
+
+import org.gertje.abacus.nodes.Node;
+import org.gertje.abacus.nodes.VariableNode;
+import org.gertje.abacus.symboltable.SlotSymbolTable;
+
+/**
+ * Binds the variable nodes in an AST to the slots of their variables in a {@link SlotSymbolTable}, so the evaluator
+ * can access the values by index. The resolver should be run after the {@link SemanticsChecker}.
+ *
+ * The slots are only used with the symbol table the AST was resolved with, or with one of its frames. The
+ * {@link ExpressionEvaluator} accesses the variables of other symbol tables by their identifiers. An AST is bound to
+ * the slots of one schema: resolving it again with a symbol table that does not share the schema throws an exception,
+ * use a copy of the AST instead (see {@link NodeCopier}).
+ */
+public class SlotResolver extends DefaultVisitor<Void, VisitingException> {
+
+	/**
+	 * The symbol table that determines the slots.
+	 */
+	private final SlotSymbolTable symbolTable;
+
+	/**
+	 * Constructor.
+	 * @param symbolTable The symbol table that determines the slots.
+	 */
+	public SlotResolver(SlotSymbolTable symbolTable) {
+		this.symbolTable = symbolTable;
+	}
+
+	/**
+	 * Binds all variable nodes in the AST to their slots.
+	 * @param node The root of the AST.
+	 * @throws VisitingException When a variable does not exist in the symbol table, or when the AST is already bound
+	 * to the slots of a symbol table that does not share the schema of the symbol table.
+	 */
+	public void resolve(Node node) throws VisitingException {
+		node.accept(this);
+	}
+
+	@Override
+	public Void visit(VariableNode node) throws VisitingException {
+		// Rebinding the node would silently change the slots for the callers that use the other schema.
+		if (node.getSlotSymbolTable() != null && !symbolTable.sharesSchema(node.getSlotSymbolTable())) {
+			throw new VisitingException("Variable '" + node.getIdentifier()
+					+ "' is already bound to the slots of another symbol table.", node);
+		}
+
+		int slot = symbolTable.getSlot(node.getIdentifier());
+		if (slot < 0) {
+			throw new VisitingException("Variable '" + node.getIdentifier() + "' does not exist.", node);
+		}
+		node.setSlot(slot, symbolTable);
+		return null;
+	}
+}
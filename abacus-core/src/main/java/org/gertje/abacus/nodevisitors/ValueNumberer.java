@@ -0,0 +1,352 @@
+package org.gertje.abacus.nodevisitors;
+
+import org.gertje.abacus.functions.Function;
+import org.gertje.abacus.functions.PureFunction;
+import org.gertje.abacus.nodes.AddNode;
+import org.gertje.abacus.nodes.AndNode;
+import org.gertje.abacus.nodes.ArrayNode;
+import org.gertje.abacus.nodes.AssignmentNode;
+import org.gertje.abacus.nodes.BooleanNode;
+import org.gertje.abacus.nodes.CommonSubexpressionNode;
+import org.gertje.abacus.nodes.ConcatStringNode;
+import org.gertje.abacus.nodes.DateNode;
+import org.gertje.abacus.nodes.DecimalNode;
+import org.gertje.abacus.nodes.DivideNode;
+import org.gertje.abacus.nodes.EqNode;
+import org.gertje.abacus.nodes.ExpressionNode;
+import org.gertje.abacus.nodes.FactorNode;
+import org.gertje.abacus.nodes.FunctionNode;
+import org.gertje.abacus.nodes.GeqNode;
+import org.gertje.abacus.nodes.GtNode;
+import org.gertje.abacus.nodes.IfNode;
+import org.gertje.abacus.nodes.IntegerNode;
+import org.gertje.abacus.nodes.LeqNode;
+import org.gertje.abacus.nodes.LtNode;
+import org.gertje.abacus.nodes.ModuloNode;
+import org.gertje.abacus.nodes.MultiplyNode;
+import org.gertje.abacus.nodes.NegativeNode;
+import org.gertje.abacus.nodes.NeqNode;
+import org.gertje.abacus.nodes.NotNode;
+import org.gertje.abacus.nodes.NullNode;
+import org.gertje.abacus.nodes.OrNode;
+import org.gertje.abacus.nodes.PositiveNode;
+import org.gertje.abacus.nodes.PowerNode;
+import org.gertje.abacus.nodes.StringNode;
+import org.gertje.abacus.nodes.SubtractNode;
+import org.gertje.abacus.nodes.SumNode;
+import org.gertje.abacus.nodes.VariableNode;
+import org.gertje.abacus.symboltable.SymbolTable;
+import org.gertje.abacus.types.Type;
+import org.gertje.abacus.util.FunctionHelper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Gives every subtree without side effects a value number; structurally identical subtrees get the same number.
+ * The number is determined by the class, the type and the value or identifier of the node and the numbers of its
+ * children. Subtrees with side effects (assignments, calls to functions that are not pure and variables that are
+ * assigned in the expression) get no number.
+ */
+class ValueNumberer extends AbstractExpressionNodeVisitor<Integer, SimplificationException> {
+
+	/**
+	 * The symbol table with the functions.
+	 */
+	private final SymbolTable symbolTable;
+
+	/**
+	 * The identifiers of the variables that are assigned in the expression.
+	 */
+	private final Set<String> assignedIdentifiers;
+
+	/**
+	 * A map key --> value number.
+	 */
+	private final Map<List<Object>, Integer> valueNumbers = new HashMap<>();
+
+	/**
+	 * A map node --> value number, the nodes with side effects are not in the map.
+	 */
+	final Map<ExpressionNode, Integer> numbers = new IdentityHashMap<>();
+
+	/**
+	 * A map node --> children of the node.
+	 */
+	final Map<ExpressionNode, List<ExpressionNode>> children = new IdentityHashMap<>();
+
+	/**
+	 * The nodes that are worth sharing: nodes that compute something and are not constant.
+	 */
+	final Set<ExpressionNode> shareableNodes =
+			Collections.newSetFromMap(new IdentityHashMap<ExpressionNode, Boolean>());
+
+	/**
+	 * Constructor.
+	 * @param symbolTable The symbol table with the functions.
+	 * @param assignedIdentifiers The identifiers of the variables that are assigned in the expression.
+	 */
+	public ValueNumberer(SymbolTable symbolTable, Set<String> assignedIdentifiers) {
+		this.symbolTable = symbolTable;
+		this.assignedIdentifiers = assignedIdentifiers;
+	}
+
+	/**
+	 * Determines whether both expressions are structurally identical and have no side effects, which means that they
+	 * always have the same value.
+	 * @param node1 The first expression.
+	 * @param node2 The second expression.
+	 * @return {@code true} when the expressions are equivalent, otherwise {@code false}.
+	 * @throws SimplificationException
+	 */
+	public boolean areEquivalent(ExpressionNode node1, ExpressionNode node2) throws SimplificationException {
+		Integer number1 = node1.accept(this);
+		Integer number2 = node2.accept(this);
+		return number1 != null && number1.equals(number2);
+	}
+
+	@Override
+	public Integer visit(AddNode node) throws SimplificationException {
+		return number(node, true, null, node.getLhs(), node.getRhs());
+	}
+
+	@Override
+	public Integer visit(AndNode node) throws SimplificationException {
+		return number(node, true, null, node.getLhs(), node.getRhs());
+	}
+
+	@Override
+	public Integer visit(ArrayNode node) throws SimplificationException {
+		return number(node, true, null, node.getArray(), node.getIndex());
+	}
+
+	@Override
+	public Integer visit(AssignmentNode node) throws SimplificationException {
+		// The left hand side is assigned, it is never shared.
+		number(node, false, null, node.getRhs());
+		return discard(node);
+	}
+
+	@Override
+	public Integer visit(BooleanNode node) throws SimplificationException {
+		return number(node, false, node.getValue());
+	}
+
+	@Override
+	public Integer visit(CommonSubexpressionNode node) throws SimplificationException {
+		// An already shared subexpression is numbered only once and is not shared again.
+		if (!children.containsKey(node)) {
+			number(node, false, null, node.getExpression());
+			discard(node.getExpression());
+		}
+		return discard(node);
+	}
+
+	@Override
+	public Integer visit(ConcatStringNode node) throws SimplificationException {
+		return number(node, true, null, node.getLhs(), node.getRhs());
+	}
+
+	@Override
+	public Integer visit(DateNode node) throws SimplificationException {
+		return number(node, false, node.getValue());
+	}
+
+	@Override
+	public Integer visit(DecimalNode node) throws SimplificationException {
+		return number(node, false, node.getValue());
+	}
+
+	@Override
+	public Integer visit(DivideNode node) throws SimplificationException {
+		return number(node, true, null, node.getLhs(), node.getRhs());
+	}
+
+	@Override
+	public Integer visit(EqNode node) throws SimplificationException {
+		return number(node, true, null, node.getLhs(), node.getRhs());
+	}
+
+	@Override
+	public Integer visit(FactorNode node) throws SimplificationException {
+		return number(node, false, null, node.getArgument());
+	}
+
+	@Override
+	public Integer visit(FunctionNode node) throws SimplificationException {
+		List<ExpressionNode> parameters = node.getParameters();
+		Integer number = number(node, true, node.getIdentifier(),
+				parameters.toArray(new ExpressionNode[parameters.size()]));
+
+		// The value of a call to a function that is not pure may differ between the calls.
+		List<Type> types = new ArrayList<>(parameters.size());
+		for (ExpressionNode parameter : parameters) {
+			types.add(parameter.getType());
+		}
+		Function function = FunctionHelper.determineFunction(symbolTable, node.getIdentifier(), types);
+		if (!(function instanceof PureFunction)) {
+			return discard(node);
+		}
+		return number;
+	}
+
+	@Override
+	public Integer visit(GeqNode node) throws SimplificationException {
+		return number(node, true, null, node.getLhs(), node.getRhs());
+	}
+
+	@Override
+	public Integer visit(GtNode node) throws SimplificationException {
+		return number(node, true, null, node.getLhs(), node.getRhs());
+	}
+
+	@Override
+	public Integer visit(IfNode node) throws SimplificationException {
+		return number(node, true, null, node.getCondition(), node.getIfBody(), node.getElseBody());
+	}
+
+	@Override
+	public Integer visit(IntegerNode node) throws SimplificationException {
+		return number(node, false, node.getValue());
+	}
+
+	@Override
+	public Integer visit(LeqNode node) throws SimplificationException {
+		return number(node, true, null, node.getLhs(), node.getRhs());
+	}
+
+	@Override
+	public Integer visit(LtNode node) throws SimplificationException {
+		return number(node, true, null, node.getLhs(), node.getRhs());
+	}
+
+	@Override
+	public Integer visit(ModuloNode node) throws SimplificationException {
+		return number(node, true, null, node.getLhs(), node.getRhs());
+	}
+
+	@Override
+	public Integer visit(MultiplyNode node) throws SimplificationException {
+		return number(node, true, null, node.getLhs(), node.getRhs());
+	}
+
+	@Override
+	public Integer visit(NegativeNode node) throws SimplificationException {
+		return number(node, true, null, node.getArgument());
+	}
+
+	@Override
+	public Integer visit(NeqNode node) throws SimplificationException {
+		return number(node, true, null, node.getLhs(), node.getRhs());
+	}
+
+	@Override
+	public Integer visit(NotNode node) throws SimplificationException {
+		return number(node, true, null, node.getArgument());
+	}
+
+	@Override
+	public Integer visit(NullNode node) throws SimplificationException {
+		return number(node, false, null);
+	}
+
+	@Override
+	public Integer visit(OrNode node) throws SimplificationException {
+		return number(node, true, null, node.getLhs(), node.getRhs());
+	}
+
+	@Override
+	public Integer visit(PositiveNode node) throws SimplificationException {
+		return number(node, true, null, node.getArgument());
+	}
+
+	@Override
+	public Integer visit(PowerNode node) throws SimplificationException {
+		return number(node, true, null, node.getLhs(), node.getRhs());
+	}
+
+	@Override
+	public Integer visit(StringNode node) throws SimplificationException {
+		return number(node, false, node.getValue());
+	}
+
+	@Override
+	public Integer visit(SubtractNode node) throws SimplificationException {
+		return number(node, true, null, node.getLhs(), node.getRhs());
+	}
+
+	@Override
+	public Integer visit(SumNode node) throws SimplificationException {
+		return number(node, true, null, node.getLhs(), node.getRhs());
+	}
+
+	@Override
+	public Integer visit(VariableNode node) throws SimplificationException {
+		Integer number = number(node, false, node.getIdentifier());
+
+		// The value of a variable that is assigned in the expression may differ between the occurrences.
+		if (assignedIdentifiers.contains(node.getIdentifier())) {
+			return discard(node);
+		}
+		return number;
+	}
+
+	/**
+	 * Numbers the children of the node and determines the value number of the node.
+	 * @param node The node.
+	 * @param shareable Whether the node is worth sharing.
+	 * @param attribute The value or identifier of the node.
+	 * @param childNodes The children of the node.
+	 * @return The value number, or {@code null} when a child has side effects.
+	 */
+	private Integer number(ExpressionNode node, boolean shareable, Object attribute, ExpressionNode... childNodes)
+			throws SimplificationException {
+		children.put(node, Arrays.asList(childNodes));
+
+		List<Object> key = new ArrayList<>(childNodes.length + 3);
+		key.add(node.getClass());
+		key.add(node.getType());
+		key.add(attribute);
+
+		boolean sideEffectFree = true;
+		for (ExpressionNode child : childNodes) {
+			// Number all children, also when an earlier child has side effects.
+			Integer childNumber = child.accept(this);
+			sideEffectFree = sideEffectFree && childNumber != null;
+			key.add(childNumber);
+		}
+
+		if (!sideEffectFree) {
+			return null;
+		}
+
+		Integer number = valueNumbers.get(key);
+		if (number == null) {
+			number = valueNumbers.size();
+			valueNumbers.put(key, number);
+		}
+
+		numbers.put(node, number);
+		if (shareable && !node.getIsConstant()) {
+			shareableNodes.add(node);
+		}
+		return number;
+	}
+
+	/**
+	 * Removes the value number of the node, because the node has side effects.
+	 * @param node The node.
+	 * @return {@code null}.
+	 */
+	private Integer discard(ExpressionNode node) {
+		numbers.remove(node);
+		shareableNodes.remove(node);
+		return null;
+	}
+}
@@ -0,0 +1,313 @@
+package org.gertje.abacus.parser;
+
+import org.gertje.abacus.lexer.CharSequenceLexer;
+import org.gertje.abacus.lexer.Lexer;
+import org.gertje.abacus.lexer.LexerException;
+import org.gertje.abacus.nodes.ExpressionNode;
+import org.gertje.abacus.nodes.NodeFactory;
+import org.gertje.abacus.nodes.RootNode;
+import org.gertje.abacus.nodes.StatementListNode;
+import org.gertje.abacus.token.Token;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parser for an input that is edited, like the text in an editor. After an edit only the statements that are touched
+ * by the edit are lexed and parsed again; the other statements of the previous AST are reused.
+ *
+ * Statements are separated by semicolons, which can not occur in a statement other than in a string. The statements
+ * from the first statement that contains the edit onwards are parsed again, until the end of a statement coincides
+ * with the start of an untouched statement whose tokens keep their columns. The tokens of the untouched statements
+ * after the edit are moved to their new offset and line.
+ *
+ * The nodes of the statements are reused, so they must not be changed by for instance a simplifier; checking them is
+ * fine. The statements that were parsed again are returned by {@link #getReparsedStatements()}, so only those need
+ * to be checked again.
+ */
+public class IncrementalParser {
+
+	/**
+	 * The factory for the nodes.
+	 */
+	private final NodeFactory nodeFactory;
+
+	/**
+	 * The current input.
+	 */
+	private String input;
+
+	/**
+	 * The statements of the current input, in the order of the input.
+	 */
+	private List<Statement> statements = new ArrayList<>();
+
+	/**
+	 * The statements that were parsed by the last call to {@link #parse(String)} or {@link #reparse(int, int, String)}.
+	 */
+	private List<ExpressionNode> reparsedStatements = new ArrayList<>();
+
+	/**
+	 * Whether the statements belong to the current input; this is not the case after a parse error.
+	 */
+	private boolean valid;
+
+	public IncrementalParser(NodeFactory nodeFactory) {
+		this.nodeFactory = nodeFactory;
+	}
+
+	/**
+	 * Parses the whole input.
+	 * @param input The input.
+	 * @return The AST.
+	 * @throws ParserException
+	 */
+	public RootNode parse(String input) throws ParserException {
+		this.input = input;
+		valid = false;
+
+		List<Statement> newStatements = new ArrayList<>();
+		reparsedStatements = new ArrayList<>();
+		parseStatements(new CharSequenceLexer(input), newStatements, Integer.MAX_VALUE, 0);
+
+		return finishParse(newStatements);
+	}
+
+	/**
+	 * Applies an edit to the input and parses the statements that are touched by the edit.
+	 * @param offset The offset of the edit in the current input.
+	 * @param removedLength The number of characters that are removed at the offset.
+	 * @param insertedText The text that is inserted at the offset.
+	 * @return The AST of the edited input.
+	 * @throws ParserException
+	 */
+	public RootNode reparse(int offset, int removedLength, String insertedText) throws ParserException {
+		if (input == null || offset < 0 || removedLength < 0 || offset + removedLength > input.length()) {
+			throw new IllegalArgumentException("The edit is not within the input.");
+		}
+
+		input = new StringBuilder(input.length() - removedLength + insertedText.length())
+				.append(input, 0, offset)
+				.append(insertedText)
+				.append(input, offset + removedLength, input.length())
+				.toString();
+
+		// After a parse error there are no statements to reuse.
+		if (!valid) {
+			return parse(input);
+		}
+		valid = false;
+
+		// Find the statement that contains the edit; the statements before it are not touched by the edit.
+		int first = findStatement(offset);
+		List<Statement> newStatements = new ArrayList<>(statements.subList(0, first));
+		reparsedStatements = new ArrayList<>();
+
+		int start = first < statements.size() ? statements.get(first).start : 0;
+		int lineNumber = first < statements.size() ? statements.get(first).lineNumber : 1;
+		int columnNumber = first < statements.size() ? statements.get(first).columnNumber : 1;
+		CharSequenceLexer lexer = new CharSequenceLexer(input, start, lineNumber, columnNumber);
+
+		parseStatements(lexer, newStatements, offset + insertedText.length(), insertedText.length() - removedLength);
+
+		return finishParse(newStatements);
+	}
+
+	/**
+	 * Returns the statements that were parsed by the last call to {@link #parse(String)} or
+	 * {@link #reparse(int, int, String)}; the other statements are reused from the previous AST.
+	 */
+	public List<ExpressionNode> getReparsedStatements() {
+		return reparsedStatements;
+	}
+
+	/**
+	 * Returns the current input.
+	 */
+	public String getInput() {
+		return input;
+	}
+
+	/**
+	 * Parses statements until the end of the input, or until the end of a statement after the edit coincides with the
+	 * start of an untouched statement; the untouched statements are then moved and added to the new statements.
+	 * @param lexer The lexer, which starts at the first statement that is parsed.
+	 * @param newStatements The list to which the statements are added.
+	 * @param editEnd The offset of the end of the edit in the new input.
+	 * @param offsetDelta The number of characters the input after the edit moved.
+	 * @throws ParserException
+	 */
+	private void parseStatements(CharSequenceLexer lexer, List<Statement> newStatements, int editEnd,
+			int offsetDelta) throws ParserException {
+		lexer.setSkipTrivia(true);
+		RecordingLexer recordingLexer = new RecordingLexer(lexer);
+		Parser parser = new Parser(recordingLexer, nodeFactory);
+
+		while (true) {
+			int start = lexer.getOffset();
+			int lineNumber = lexer.getLineNumber();
+			int columnNumber = lexer.getColumnNumber();
+
+			if (start >= editEnd) {
+				int untouched = findUntouchedStatement(start - offsetDelta, columnNumber, editEnd - offsetDelta);
+				if (untouched != -1) {
+					int lineDelta = lineNumber - statements.get(untouched).lineNumber;
+					// Only the column of the first statement can change: when it changed, the tokens of the statement
+					// start on a later line.
+					statements.get(untouched).columnNumber = columnNumber;
+					for (Statement statement : statements.subList(untouched, statements.size())) {
+						statement.relocate(offsetDelta, lineDelta);
+						newStatements.add(statement);
+					}
+					return;
+				}
+			}
+
+			recordingLexer.tokens = new ArrayList<>();
+			ExpressionNode node = parser.parseNextStatement();
+			if (node == null) {
+				return;
+			}
+
+			newStatements.add(new Statement(node, recordingLexer.tokens, start, lineNumber, columnNumber));
+			reparsedStatements.add(node);
+		}
+	}
+
+	/**
+	 * Creates the AST of the statements and makes them the statements of the current input.
+	 */
+	private RootNode finishParse(List<Statement> newStatements) {
+		Token token = newStatements.isEmpty() ? new Token(1, 1, 0) : newStatements.get(0).tokens.get(0);
+
+		StatementListNode statementListNode = nodeFactory.createStatementListNode(token);
+		for (Statement statement : newStatements) {
+			statementListNode.add(statement.node);
+		}
+
+		statements = newStatements;
+		valid = true;
+
+		return nodeFactory.createRootNode(statementListNode, token);
+	}
+
+	/**
+	 * Finds the index of the last statement that starts at or before the offset, or 0 when there are no statements.
+	 */
+	private int findStatement(int offset) {
+		int low = 0;
+		int high = statements.size() - 1;
+		int found = 0;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (statements.get(middle).start <= offset) {
+				found = middle;
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Finds the index of the previous statement that starts at the offset in the previous input, after the edit. When
+	 * the first token of the statement is on the line on which the statement starts, the statement must start at the
+	 * given column as well, otherwise the columns of its tokens changed.
+	 * @return The index of the statement, or -1 when there is no such statement.
+	 */
+	private int findUntouchedStatement(int previousOffset, int columnNumber, int previousEditEnd) {
+		if (previousOffset < previousEditEnd || statements.isEmpty()) {
+			return -1;
+		}
+
+		int index = findStatement(previousOffset);
+		Statement statement = statements.get(index);
+		if (statement.start != previousOffset
+				|| statement.columnNumber != columnNumber && !statement.startsWithNewLine()) {
+			return -1;
+		}
+		return index;
+	}
+
+	/**
+	 * A statement with its position in the input.
+	 */
+	private static class Statement {
+
+		private final ExpressionNode node;
+
+		/**
+		 * The tokens of the statement, including the semicolon after it.
+		 */
+		private final List<Token> tokens;
+
+		/**
+		 * The offset of the start of the statement, including the white space before it.
+		 */
+		private int start;
+
+		private int lineNumber;
+
+		private int columnNumber;
+
+		public Statement(ExpressionNode node, List<Token> tokens, int start, int lineNumber, int columnNumber) {
+			this.node = node;
+			this.tokens = tokens;
+			this.start = start;
+			this.lineNumber = lineNumber;
+			this.columnNumber = columnNumber;
+		}
+
+		/**
+		 * Determines whether the first token of the statement is on a later line than the start of the statement.
+		 */
+		public boolean startsWithNewLine() {
+			return tokens.get(0).getLineNumber() > lineNumber;
+		}
+
+		/**
+		 * Moves the statement and its tokens.
+		 */
+		public void relocate(int offsetDelta, int lineDelta) {
+			if (offsetDelta == 0 && lineDelta == 0) {
+				return;
+			}
+
+			start += offsetDelta;
+			lineNumber += lineDelta;
+			for (Token token : tokens) {
+				token.relocate(offsetDelta, lineDelta);
+			}
+		}
+	}
+
+	/**
+	 * Lexer that records the tokens that are returned by the lexer it wraps.
+	 */
+	private static class RecordingLexer implements Lexer {
+
+		private final Lexer lexer;
+
+		/**
+		 * The list to which the returned tokens are added.
+		 */
+		private List<Token> tokens;
+
+		public RecordingLexer(Lexer lexer) {
+			this.lexer = lexer;
+		}
+
+		@Override
+		public Token peekToken() throws LexerException {
+			return lexer.peekToken();
+		}
+
+		@Override
+		public Token getNextToken() throws LexerException {
+			Token token = lexer.getNextToken();
+			tokens.add(token);
+			return token;
+		}
+	}
+}
@@ -13,7 +13,9 @@ import org.gertje.abacus.token.TokenType;
 import java.math.BigDecimal;
 import java.sql.Date;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class Parser {
 
@@ -23,6 +25,121 @@ public class Parser {
 	// Constante voor de NULL waarde.
 	private static final String NULL = "null";
 
+	/**
+	 * The precedence of the operators that bind the least, the boolean operators.
+	 */
+	protected static final int LOWEST_PRECEDENCE = 1;
+	private static final int COMPARISON_PRECEDENCE = 2;
+	private static final int ADDITION_PRECEDENCE = 3;
+	private static final int TERM_PRECEDENCE = 4;
+	private static final int POWER_PRECEDENCE = 5;
+
+	/**
+	 * The operator table with the binary operators, by the type of their token.
+	 */
+	private static final Map<TokenType, BinaryOperator> BINARY_OPERATORS = new HashMap<>();
+
+	static {
+		BINARY_OPERATORS.put(TokenType.BOOLEAN_AND, new BinaryOperator(LOWEST_PRECEDENCE, false) {
+			@Override
+			public AbstractExpressionNode createNode(NodeFactory nodeFactory, ExpressionNode lhs, ExpressionNode rhs,
+					Token token) {
+				return nodeFactory.createAndNode(lhs, rhs, token);
+			}
+		});
+		BINARY_OPERATORS.put(TokenType.BOOLEAN_OR, new BinaryOperator(LOWEST_PRECEDENCE, false) {
+			@Override
+			public AbstractExpressionNode createNode(NodeFactory nodeFactory, ExpressionNode lhs, ExpressionNode rhs,
+					Token token) {
+				return nodeFactory.createOrNode(lhs, rhs, token);
+			}
+		});
+		BINARY_OPERATORS.put(TokenType.LT, new BinaryOperator(COMPARISON_PRECEDENCE, false) {
+			@Override
+			public AbstractExpressionNode createNode(NodeFactory nodeFactory, ExpressionNode lhs, ExpressionNode rhs,
+					Token token) {
+				return nodeFactory.createLtNode(lhs, rhs, token);
+			}
+		});
+		BINARY_OPERATORS.put(TokenType.LEQ, new BinaryOperator(COMPARISON_PRECEDENCE, false) {
+			@Override
+			public AbstractExpressionNode createNode(NodeFactory nodeFactory, ExpressionNode lhs, ExpressionNode rhs,
+					Token token) {
+				return nodeFactory.createLeqNode(lhs, rhs, token);
+			}
+		});
+		BINARY_OPERATORS.put(TokenType.EQ, new BinaryOperator(COMPARISON_PRECEDENCE, false) {
+			@Override
+			public AbstractExpressionNode createNode(NodeFactory nodeFactory, ExpressionNode lhs, ExpressionNode rhs,
+					Token token) {
+				return nodeFactory.createEqNode(lhs, rhs, token);
+			}
+		});
+		BINARY_OPERATORS.put(TokenType.GEQ, new BinaryOperator(COMPARISON_PRECEDENCE, false) {
+			@Override
+			public AbstractExpressionNode createNode(NodeFactory nodeFactory, ExpressionNode lhs, ExpressionNode rhs,
+					Token token) {
+				return nodeFactory.createGeqNode(lhs, rhs, token);
+			}
+		});
+		BINARY_OPERATORS.put(TokenType.GT, new BinaryOperator(COMPARISON_PRECEDENCE, false) {
+			@Override
+			public AbstractExpressionNode createNode(NodeFactory nodeFactory, ExpressionNode lhs, ExpressionNode rhs,
+					Token token) {
+				return nodeFactory.createGtNode(lhs, rhs, token);
+			}
+		});
+		BINARY_OPERATORS.put(TokenType.NEQ, new BinaryOperator(COMPARISON_PRECEDENCE, false) {
+			@Override
+			public AbstractExpressionNode createNode(NodeFactory nodeFactory, ExpressionNode lhs, ExpressionNode rhs,
+					Token token) {
+				return nodeFactory.createNeqNode(lhs, rhs, token);
+			}
+		});
+		BINARY_OPERATORS.put(TokenType.PLUS, new BinaryOperator(ADDITION_PRECEDENCE, false) {
+			@Override
+			public AbstractExpressionNode createNode(NodeFactory nodeFactory, ExpressionNode lhs, ExpressionNode rhs,
+					Token token) {
+				return nodeFactory.createAddNode(lhs, rhs, token);
+			}
+		});
+		BINARY_OPERATORS.put(TokenType.MINUS, new BinaryOperator(ADDITION_PRECEDENCE, false) {
+			@Override
+			public AbstractExpressionNode createNode(NodeFactory nodeFactory, ExpressionNode lhs, ExpressionNode rhs,
+					Token token) {
+				return nodeFactory.createSubtractNode(lhs, rhs, token);
+			}
+		});
+		BINARY_OPERATORS.put(TokenType.MULTIPLY, new BinaryOperator(TERM_PRECEDENCE, false) {
+			@Override
+			public AbstractExpressionNode createNode(NodeFactory nodeFactory, ExpressionNode lhs, ExpressionNode rhs,
+					Token token) {
+				return nodeFactory.createMultiplyNode(lhs, rhs, token);
+			}
+		});
+		BINARY_OPERATORS.put(TokenType.DIVIDE, new BinaryOperator(TERM_PRECEDENCE, false) {
+			@Override
+			public AbstractExpressionNode createNode(NodeFactory nodeFactory, ExpressionNode lhs, ExpressionNode rhs,
+					Token token) {
+				return nodeFactory.createDivideNode(lhs, rhs, token);
+			}
+		});
+		BINARY_OPERATORS.put(TokenType.PERCENT, new BinaryOperator(TERM_PRECEDENCE, false) {
+			@Override
+			public AbstractExpressionNode createNode(NodeFactory nodeFactory, ExpressionNode lhs, ExpressionNode rhs,
+					Token token) {
+				return nodeFactory.createModuloNode(lhs, rhs, token);
+			}
+		});
+		BINARY_OPERATORS.put(TokenType.POWER, new BinaryOperator(POWER_PRECEDENCE, true) {
+			@Override
+			public AbstractExpressionNode createNode(NodeFactory nodeFactory, ExpressionNode lhs, ExpressionNode rhs,
+					Token token) {
+				return nodeFactory.createPowerNode(lhs, rhs, token);
+			}
+		});
+	}
+
 	/**
 	 * De lexer.
 	 */
@@ -77,6 +194,21 @@ public class Parser {
 		return nodeFactory.createRootNode(statementList(token), token);
 	}
 
+	/**
+	 * Parses the next statement of the input. With this method the statements of a large script can be checked and
+	 * evaluated one at a time, without building the AST of the whole script; together with a lexer that reads from a
+	 * {@link org.gertje.abacus.lexer.io.LexerReader} the script does not have to be in memory at all.
+	 * @return The statement, or {@code null} when the end of the input is reached.
+	 * @throws ParserException
+	 */
+	public AbstractExpressionNode parseNextStatement() throws ParserException {
+		Token token = determineNextToken();
+		if (token.getType() == TokenType.END_OF_INPUT) {
+			return null;
+		}
+		return statement(token);
+	}
+
 	private StatementListNode statementList(Token nextToken) throws ParserException {
 		StatementListNode list = nodeFactory.createStatementListNode(nextToken);
 		// Zolang het token niet het einde van de input aangeeft maken we expressies aan.
@@ -131,191 +263,83 @@ public class Parser {
 		return conditional(nextToken);
 	}
 
+	/**
+	 * Parses a conditional. The else body of a conditional can be a conditional again; such a chain is parsed in a loop,
+	 * so a long chain of else-ifs does not use a stack frame per condition.
+	 */
 	private AbstractExpressionNode conditional(Token nextToken) throws ParserException {
-		// Geef de 
-		AbstractExpressionNode condition = booleanOp(nextToken);
+		AbstractExpressionNode condition = binaryOperation(nextToken, LOWEST_PRECEDENCE);
 
-		// Spiek wat het volgende token is.
-		nextToken = peekNextToken();
+		// Wanneer het volgende token geen IF token is, is er geen conditional.
+		if (peekNextToken().getType() != TokenType.IF) {
+			return condition;
+		}
 
-		// Wanneer het volgende token een IF token is bepalen we ook de if tak.
-		if (nextToken.getType() == TokenType.IF) {
-			// Haal het gespiekte token van de stack.
-			Token ifToken = determineNextToken();
-			// Het volgende token kan ook een if-else zijn.
-			AbstractExpressionNode ifbody = expression(determineNextToken());
+		List<AbstractExpressionNode> conditions = new ArrayList<>();
+		List<AbstractExpressionNode> ifBodies = new ArrayList<>();
+		List<Token> ifTokens = new ArrayList<>();
+		AbstractExpressionNode elseBody;
 
-			// Haal het volgende token op.
+		do {
+			conditions.add(condition);
+			ifTokens.add(determineNextToken());
+			ifBodies.add(expression(determineNextToken()));
+
+			// Het token na de if-body moet een else token zijn.
 			nextToken = determineNextToken();
-			// Het token moet een else token zijn.
 			if (nextToken.getType() != TokenType.COLON) {
 				throw new ParserException("Expected COLON token (:).", nextToken);
 			}
-			// De else-body kan ook een if-else zijn.
-			AbstractExpressionNode elsebody = expression(determineNextToken());
-
-			// Maak een nieuwe ASTNode aan met het juiste type en de juiste operanden.
-			condition = nodeFactory.createIfNode(condition, ifbody, elsebody, ifToken);
-		}
-		// Geef het uiteindelijke resultaat terug.
-		return condition;
-	}
-
-	/**
-	 * Voert de operatie uit voor boolean operators of geef hem door aan sterkere operators.
-	 */
-	private AbstractExpressionNode booleanOp(Token nextToken) throws ParserException {
-		AbstractExpressionNode lhs = comparison(nextToken);
-
-		// Spiek wat het volgende token is.
-		nextToken = peekNextToken();
-
-		// Zolang het volgende token een OR of een AND operatie is voeren we deze uit.
-		while (nextToken.getType() == TokenType.BOOLEAN_OR || nextToken.getType() == TokenType.BOOLEAN_AND) {
-			// Haal het gespiekte token van de stack.
-			Token orOrAndToken = determineNextToken();
-			// Bepaal de rechter AST van de operatie.
-			AbstractExpressionNode rhs = comparison(determineNextToken());
-
-			// Maak voor elke mogelijke boolean operatie een andere ASTNode aan.
-			if(nextToken.getType() == TokenType.BOOLEAN_AND) {
-				lhs = nodeFactory.createAndNode(lhs, rhs, orOrAndToken);
-			} else {
-				lhs = nodeFactory.createOrNode(lhs, rhs, orOrAndToken);
-			}
-
-			// Spiek naar het volgende token.
-			nextToken = peekNextToken();
-		}
-		// Geef het resultaat (de lhs) terug.
-		return lhs;
-	}
-
-	/**
-	 * Voert de operatie uit voor conditie operators of geef hem door aan sterkere operators.
-	 */
-	private AbstractExpressionNode comparison(Token nextToken) throws ParserException {
-		AbstractExpressionNode lhs = addition(nextToken);
-
-		// Spiek wat het volgende token is.
-		nextToken = peekNextToken();
 
-		// Zolang het volgende token een vergelijking is < <= == => > of != voeren we die operatie uit.
-		while (nextToken.getType() == TokenType.LT || nextToken.getType() == TokenType.LEQ 
-				|| nextToken.getType() == TokenType.EQ
-				|| nextToken.getType() == TokenType.GEQ || nextToken.getType() == TokenType.GT
-				|| nextToken.getType() == TokenType.NEQ
-				) {
-			// Haal het gespiekte token van de stack.
-			Token comparisonToken = determineNextToken();
-			// Bepaal de rechter AST van de operatie.
-			AbstractExpressionNode rhs = addition(determineNextToken());
-
-			// Maak afhankelijk van de vergelijking de juiste soort ASTNode aan.
-			if (nextToken.getType() == TokenType.LT) {
-				lhs = nodeFactory.createLtNode(lhs, rhs, comparisonToken);
-			} else if (nextToken.getType() == TokenType.LEQ) {
-				lhs = nodeFactory.createLeqNode(lhs, rhs, comparisonToken);
-			} else if (nextToken.getType() == TokenType.EQ) {
-				lhs = nodeFactory.createEqNode(lhs, rhs, comparisonToken);
-			} else if (nextToken.getType() == TokenType.GEQ) {
-				lhs = nodeFactory.createGeqNode(lhs, rhs, comparisonToken);
-			} else if (nextToken.getType() == TokenType.GT) {
-				lhs = nodeFactory.createGtNode(lhs, rhs, comparisonToken);
-			} else {
-				lhs = nodeFactory.createNeqNode(lhs, rhs, comparisonToken);
-			}
+			// De else-body is een conditie van een volgende conditional, of de laatste else-body.
+			elseBody = binaryOperation(determineNextToken(), LOWEST_PRECEDENCE);
+			condition = elseBody;
+		} while (peekNextToken().getType() == TokenType.IF);
 
-			// Spiek naar het volgende token.
-			nextToken = peekNextToken();
+		// Bouw de if nodes van binnen naar buiten op.
+		for (int i = conditions.size() - 1; i >= 0; i--) {
+			elseBody = nodeFactory.createIfNode(conditions.get(i), ifBodies.get(i), elseBody, ifTokens.get(i));
 		}
-		
-		// Geef de lhs terug.
-		return lhs;
+		return elseBody;
 	}
 
 	/**
-	 * Voert de operatie uit voor de plus en min operators of geef hem door aan sterkere operators.
+	 * Parses a binary operation with the precedence climbing method: the operands are parsed by
+	 * {@link #unary(Token)} and combined with the operators from the operator table that have at least the given
+	 * precedence. A left associative chain of operators is parsed in a loop; only an operator with a higher precedence
+	 * on the right hand side, or a right associative operator, leads to a recursive call.
+	 * @param nextToken The first token of the operation.
+	 * @param minimumPrecedence The lowest precedence of the operators that are part of the operation.
+	 * @return The operation.
+	 * @throws ParserException
 	 */
-	private AbstractExpressionNode addition(Token nextToken) throws ParserException {
-		AbstractExpressionNode lhs = term(nextToken);
-
-		// Spiek wat het volgende token is.
-		nextToken = peekNextToken();
-
-		// Zolang het volgende token een sommatie is voeren we die operatie uit.
-		while (nextToken.getType() == TokenType.PLUS || nextToken.getType() == TokenType.MINUS) {
-			// Haal het gespiekte token van de stack.
-			Token additionToken = determineNextToken();
-			// Bepaal de rechter AST van de operatie.
-			AbstractExpressionNode rhs = term(determineNextToken());
+	private AbstractExpressionNode binaryOperation(Token nextToken, int minimumPrecedence) throws ParserException {
+		AbstractExpressionNode lhs = unary(nextToken);
 
-			// Maak afhankelijk van de operatie de juiste soort ASTNode aan.
-			if (nextToken.getType() == TokenType.PLUS) {
-				lhs = nodeFactory.createAddNode(lhs, rhs, additionToken);
-			} else {
-				lhs = nodeFactory.createSubtractNode(lhs, rhs, additionToken);
+		while (true) {
+			BinaryOperator operator = determineBinaryOperator(peekNextToken().getType());
+			if (operator == null || operator.getPrecedence() < minimumPrecedence) {
+				return lhs;
 			}
 
-			// Spiek naar het volgende token.
-			nextToken = peekNextToken();
-		}
-		// Geef de lhs terug.
-		return lhs;
-	}
-
-	/**
-	 * Voert de operatie uit voor de vermenigvuldig operators of geef hem door aan sterkere operators.
-	 */
-	private AbstractExpressionNode term(Token nextToken) throws ParserException {
-		AbstractExpressionNode lhs = power(nextToken);
-
-		// Spiek wat het volgende token is.
-		nextToken = peekNextToken();
-
-		// Zolang het volgende token een sommatie is voeren we die operatie uit.
-		while (nextToken.getType() == TokenType.MULTIPLY || nextToken.getType() == TokenType.DIVIDE 
-				|| nextToken.getType() == TokenType.PERCENT) {
 			// Haal het gespiekte token van de stack.
-			Token termToken = determineNextToken();
-			// Bepaal de rechter AST van de operatie.
-			AbstractExpressionNode rhs = power(determineNextToken());
+			Token operatorToken = determineNextToken();
+			// Bepaal de rechter AST van de operatie; deze bevat alleen operators die sterker binden, of bij een
+			// rechts associatieve operator ook operators die even sterk binden.
+			int rhsPrecedence = operator.isRightAssociative() ? operator.getPrecedence() : operator.getPrecedence() + 1;
+			AbstractExpressionNode rhs = binaryOperation(determineNextToken(), rhsPrecedence);
 
-			// Maak afhankelijk van de operatie de juiste soort ASTNode aan.
-			if (nextToken.getType() == TokenType.MULTIPLY) {
-				lhs = nodeFactory.createMultiplyNode(lhs, rhs, termToken);
-			} else if (nextToken.getType() == TokenType.DIVIDE) {
-				lhs = nodeFactory.createDivideNode(lhs, rhs, termToken);
-			} else {
-				lhs = nodeFactory.createModuloNode(lhs, rhs, termToken);
-			}
-			
-			// Spiek naar het volgende token.
-			nextToken = peekNextToken();
+			lhs = operator.createNode(nodeFactory, lhs, rhs, operatorToken);
 		}
-		// Geef de lhs terug.
-		return lhs;
 	}
 
 	/**
-	 * Voert de operatie uit voor de macht operator of geef hem door aan sterkere operators.
+	 * Determines the binary operator for the token type.
+	 * @param tokenType The type of the token.
+	 * @return The operator, or {@code null} when the token is not a binary operator.
 	 */
-	private AbstractExpressionNode power(Token nextToken) throws ParserException {
-		AbstractExpressionNode lhs = unary(nextToken);
-
-		// Spiek wat het volgende token is.
-		nextToken = peekNextToken();
-
-		// Als de volgende token een macht operator is voeren we die operatie uit.
-		if (nextToken.getType() == TokenType.POWER) {
-			// Haal het gespiekte token van de stack.
-			Token powerToken = determineNextToken();
-			// Bepaal de rechter AST van de operatie.
-			AbstractExpressionNode rhs = power(determineNextToken());
-			lhs = nodeFactory.createPowerNode(lhs, rhs, powerToken);
-		}
-		// Geef de lhs terug.
-		return lhs;
+	protected BinaryOperator determineBinaryOperator(TokenType tokenType) {
+		return BINARY_OPERATORS.get(tokenType);
 	}
 
 	/**
@@ -525,6 +549,39 @@ public class Parser {
 				&& !determineIsBoolean(token)
 				&& !determineIsFunction(token);
 	}
-}
 
+	/**
+	 * A binary operator in the operator table of the parser.
+	 */
+	protected abstract static class BinaryOperator {
+
+		/**
+		 * The precedence of the operator; an operator with a higher precedence binds stronger.
+		 */
+		private final int precedence;
 
+		/**
+		 * Whether a chain of the operator is grouped from the right, like {@code a ^ b ^ c}.
+		 */
+		private final boolean rightAssociative;
+
+		protected BinaryOperator(int precedence, boolean rightAssociative) {
+			this.precedence = precedence;
+			this.rightAssociative = rightAssociative;
+		}
+
+		/**
+		 * Creates the node for the operation with the node factory.
+		 */
+		public abstract AbstractExpressionNode createNode(NodeFactory nodeFactory, ExpressionNode lhs,
+				ExpressionNode rhs, Token token);
+
+		public int getPrecedence() {
+			return precedence;
+		}
+
+		public boolean isRightAssociative() {
+			return rightAssociative;
+		}
+	}
+}
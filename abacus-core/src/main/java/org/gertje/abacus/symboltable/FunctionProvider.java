@@ -0,0 +1,23 @@
+package org.gertje.abacus.symboltable;
+
+import org.gertje.abacus.functions.Function;
+import org.gertje.abacus.types.Type;
+
+import java.util.List;
+
+/**
+ * A symbol table that can return its functions. Code that calls a function itself, for instance to memoize the results
+ * of a pure function or to bind the call to the method of an intrinsic function, checks whether the symbol table
+ * implements this interface. Calls to the functions of other symbol tables go through
+ * {@link SymbolTable#getFunctionReturnValue(String, List, List)}.
+ */
+public interface FunctionProvider {
+
+	/**
+	 * Returns the function with the given identifier that accepts parameters of the given types.
+	 * @param identifier The identifier of the function.
+	 * @param types The types of the parameters.
+	 * @return The function, or {@code null} when the function does not exist.
+	 */
+	Function getFunction(String identifier, List<Type> types);
+}
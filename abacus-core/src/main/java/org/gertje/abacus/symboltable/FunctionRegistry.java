@@ -0,0 +1,126 @@
+package org.gertje.abacus.symboltable;
+
+import org.gertje.abacus.functions.Function;
+import org.gertje.abacus.nodes.ExpressionNode;
+import org.gertje.abacus.types.Type;
+
+import java.lang.invoke.SwitchPoint;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The functions of a symbol table. A function can be overloaded: several functions with the same name can be
+ * registered, as long as they accept different parameters. A call is resolved to the first registered function that
+ * accepts the types of its parameters.
+ *
+ * Every change of the registered functions invalidates the {@link SwitchPoint} of the registry, so code that caches
+ * the resolution of a call (see {@link #getSwitchPoint()}) knows it has to resolve the call again.
+ *
+ * The registry can be read by any number of threads while functions are registered. Once the registry is frozen (see
+ * {@link #freeze()}) no functions can be registered anymore.
+ */
+public class FunctionRegistry {
+
+	/**
+	 * The functions by name, the map and the lists are never changed but replaced.
+	 */
+	private volatile Map<String, List<Function>> functions;
+
+	/**
+	 * The switch point that is invalidated when the registered functions change.
+	 */
+	private volatile SwitchPoint switchPoint;
+
+	/**
+	 * Whether functions can no longer be registered.
+	 */
+	private volatile boolean frozen;
+
+	public FunctionRegistry() {
+		functions = Collections.emptyMap();
+		switchPoint = new SwitchPoint();
+	}
+
+	/**
+	 * Registers the function. A function with the same name that accepts the same parameters (see
+	 * {@link Function#equals(Function)}) is replaced.
+	 * @param function The function.
+	 * @throws IllegalStateException When the registry is frozen.
+	 */
+	public synchronized void register(Function function) {
+		if (frozen) {
+			throw new IllegalStateException("Function '" + function.getName()
+					+ "' can not be registered, the function registry is frozen.");
+		}
+
+		List<Function> overloads = new ArrayList<>();
+		List<Function> current = functions.get(function.getName());
+		if (current != null) {
+			for (Function overload : current) {
+				if (!overload.equals(function)) {
+					overloads.add(overload);
+				}
+			}
+		}
+		overloads.add(function);
+
+		Map<String, List<Function>> newFunctions = new HashMap<>(functions);
+		newFunctions.put(function.getName(), Collections.unmodifiableList(overloads));
+		functions = newFunctions;
+
+		SwitchPoint oldSwitchPoint = switchPoint;
+		switchPoint = new SwitchPoint();
+		SwitchPoint.invalidateAll(new SwitchPoint[] {oldSwitchPoint});
+	}
+
+	/**
+	 * Freezes the registry: no functions can be registered anymore.
+	 */
+	public void freeze() {
+		frozen = true;
+	}
+
+	/**
+	 * Returns the function with the given name that accepts parameters of the given types.
+	 * @param name The name of the function.
+	 * @param types The types of the parameters.
+	 * @return The function, or {@code null} when no such function is registered.
+	 */
+	public Function getFunction(String name, List<Type> types) {
+		List<Function> overloads = functions.get(name);
+		if (overloads == null) {
+			return null;
+		}
+
+		for (Function overload : overloads) {
+			if (overload.acceptsParameters(types)) {
+				return overload;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Determines the types of the parameters of a call.
+	 * @param parameters The parameters.
+	 * @return The types of the parameters.
+	 */
+	static List<Type> determineTypes(List<ExpressionNode> parameters) {
+		List<Type> types = new ArrayList<>(parameters.size());
+		for (ExpressionNode parameter : parameters) {
+			types.add(parameter.getType());
+		}
+		return types;
+	}
+
+	/**
+	 * Returns the switch point that is invalidated as soon as the registered functions change. The switch point must
+	 * be retrieved before the function is, so a change in between is not missed.
+	 */
+	public SwitchPoint getSwitchPoint() {
+		return switchPoint;
+	}
+}
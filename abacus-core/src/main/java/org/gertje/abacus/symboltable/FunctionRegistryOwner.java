@@ -0,0 +1,14 @@
+package org.gertje.abacus.symboltable;
+
+/**
+ * A symbol table that keeps its functions in a {@link FunctionRegistry}. Code that resolves function calls once and
+ * caches the result, like the call sites of generated classes, uses the registry to detect that its resolution is
+ * outdated.
+ */
+public interface FunctionRegistryOwner {
+
+	/**
+	 * Returns the registry with the functions of the symbol table.
+	 */
+	FunctionRegistry getFunctionRegistry();
+}
@@ -19,19 +19,20 @@ import java.util.Map;
  *
  * - Alle variabelen 'leven' in dezelfde 'ruimte', d.w.z. er wordt geen stack bijgehouden.
  * - Ook alle functies 'leven' in dezelfde 'ruimte'.
- * - Functies kunnen niet overloaded worden, d.w.z. een functie met een bepaalde naam bestaat maar een keer.
+ * - Functies kunnen overloaded worden: functies met dezelfde naam die verschillende parameters accepteren kunnen
+ *   naast elkaar bestaan, zie {@link FunctionRegistry}.
  */
-public class SimpleSymbolTable implements SymbolTable {
+public class SimpleSymbolTable implements SymbolTable, FunctionRegistryOwner, FunctionProvider {
 
 	private Map<String, Variable> variables;
 	private Map<String, Object> values;
 
-	private Map<String, Function> functions;
+	private FunctionRegistry functions;
 
 	public SimpleSymbolTable() {
 		variables = new HashMap<>();
 		values = new HashMap<>();
-		functions = new HashMap<>();
+		functions = new FunctionRegistry();
 	}
 
 	/**
@@ -93,34 +94,47 @@ public class SimpleSymbolTable implements SymbolTable {
 	 * Voegt een functie toe aan de symboltable.
 	 */
 	public void registerFunction(Function function) {
-		functions.put(function.getName(), function);
+		functions.register(function);
+	}
+
+	@Override
+	public FunctionRegistry getFunctionRegistry() {
+		return functions;
 	}
 
 	@Override
 	public boolean getExistsFunction(String identifier, List<Type> types) {
-		if (!functions.containsKey(identifier)) {
-			return false;
-		}
-		
-		// Controleer of de functie de types accepteerd.
-		return functions.get(identifier).acceptsParameters(types);
+		// Controleer of er een functie is die de types accepteerd.
+		return functions.getFunction(identifier, types) != null;
 	}
 
 	@Override
 	public Object getFunctionReturnValue(String identifier, List<Object> params, List<Type> types)
 			throws NoSuchFunctionException {
+		Function function = functions.getFunction(identifier, types);
+
 		// De functie moet bestaan, wanneer deze niet bestaat gooien we een exceptie.
-		if (!getExistsFunction(identifier, types)) {
+		if (function == null) {
 			throw new NoSuchFunctionException("Function '" + identifier + "' does not exsist.");
 		}
 
 		// De functie bestaat; evalueer de functie met de meegegeven parameters.
-		return functions.get(identifier).evaluate(params);
+		return function.evaluate(params);
 	}
 
 	@Override
-	public Type getFunctionReturnType(String identifier, List<ExpressionNode> params) {
+	public Type getFunctionReturnType(String identifier, List<ExpressionNode> params) throws NoSuchFunctionException {
+		Function function = functions.getFunction(identifier, FunctionRegistry.determineTypes(params));
+		if (function == null) {
+			throw new NoSuchFunctionException("Function '" + identifier + "' does not exsist.");
+		}
+
 		// Bepaal het return type.
-		return functions.get(identifier).getReturnType();
+		return function.getReturnType();
+	}
+
+	@Override
+	public Function getFunction(String identifier, List<Type> types) {
+		return functions.getFunction(identifier, types);
 	}
 }
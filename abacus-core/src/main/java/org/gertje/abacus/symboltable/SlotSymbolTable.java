@@ -0,0 +1,260 @@
+package org.gertje.abacus.symboltable;
+
+import org.gertje.abacus.functions.Function;
+import org.gertje.abacus.nodes.ExpressionNode;
+import org.gertje.abacus.types.Type;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Symbol table that stores the values of the variables in an array. Every variable gets a fixed slot (its index in
+ * the array) when it is added. The {@link org.gertje.abacus.nodevisitors.SlotResolver} binds the variable nodes of an
+ * AST to these slots, after which the evaluator reads and writes the values by index instead of by identifier.
+ *
+ * The schema (the variables with their slots, and the functions) can be shared by several frames, see
+ * {@link #createFrame()}. Every frame has its own array of values. The schema must be complete before frames are
+ * created: creating a frame freezes the schema (see {@link #freeze()}), after which adding or replacing a variable
+ * or registering a function throws an {@link IllegalStateException}. Since the schema can no longer change, frames
+ * can be used by different threads without synchronization.
+ *
+ * Like the {@link SimpleSymbolTable} functions can be overloaded, see {@link FunctionRegistry}. All frames share the
+ * functions of the schema.
+ */
+public class SlotSymbolTable implements SymbolTable, FunctionRegistryOwner, FunctionProvider {
+
+	/**
+	 * The schema, which is shared with the frames.
+	 */
+	private final Schema schema;
+
+	/**
+	 * The variables, the index of a variable is its slot.
+	 */
+	private final List<Variable> variables;
+
+	/**
+	 * Maps the identifier of every variable to its slot.
+	 */
+	private final Map<String, Integer> slots;
+
+	private final FunctionRegistry functions;
+
+	/**
+	 * The values of the variables, indexed by slot.
+	 */
+	private Object[] values;
+
+	public SlotSymbolTable() {
+		this(new Schema());
+	}
+
+	/**
+	 * Creates a new frame with the given schema.
+	 */
+	private SlotSymbolTable(Schema schema) {
+		this.schema = schema;
+		variables = schema.variables;
+		slots = schema.slots;
+		functions = schema.functions;
+		values = new Object[variables.size()];
+	}
+
+	/**
+	 * Creates a new symbol table with the same variables and functions as this symbol table, but with its own values.
+	 * All values of the new frame are {@code null}. Once a frame has been created no variables can be added to the
+	 * schema anymore.
+	 * @return The new frame.
+	 */
+	public SlotSymbolTable createFrame() {
+		freeze();
+		return new SlotSymbolTable(schema);
+	}
+
+	/**
+	 * Freezes the schema of this symbol table: no variables can be added to it or to its frames anymore, the existing
+	 * variables can not be replaced and no functions can be registered.
+	 */
+	public void freeze() {
+		schema.frozen = true;
+		functions.freeze();
+	}
+
+	/**
+	 * Determines whether this symbol table and the given symbol table share the same schema, i.e. whether one is a
+	 * frame of the other or both are frames of the same symbol table.
+	 * @param other The other symbol table, may be {@code null}.
+	 * @return {@code true} when both symbol tables share the same schema, otherwise {@code false}.
+	 */
+	public boolean sharesSchema(SlotSymbolTable other) {
+		return other != null && schema == other.schema;
+	}
+
+	@Override
+	public void addVariable(Variable variable) {
+		// The values of the existing frames have no slot for a new variable, and the frames may be used by other
+		// threads.
+		if (schema.frozen) {
+			throw new IllegalStateException("Variable '" + variable.getIdentifier()
+					+ "' can not be added, the schema of the symbol table is frozen.");
+		}
+
+		Integer slot = slots.get(variable.getIdentifier());
+		if (slot != null) {
+			variables.set(slot, variable);
+			return;
+		}
+
+		slots.put(variable.getIdentifier(), variables.size());
+		variables.add(variable);
+		values = Arrays.copyOf(values, variables.size());
+	}
+
+	/**
+	 * Returns the slot of the variable with the given identifier.
+	 * @param identifier The identifier of the variable.
+	 * @return The slot of the variable, or {@code -1} when the variable does not exist.
+	 */
+	public int getSlot(String identifier) {
+		Integer slot = slots.get(identifier);
+		return slot == null ? -1 : slot;
+	}
+
+	/**
+	 * Returns the number of slots.
+	 */
+	public int getSlotCount() {
+		return variables.size();
+	}
+
+	/**
+	 * Returns the variable in the given slot.
+	 * @param slot The slot.
+	 * @return The variable.
+	 */
+	public Variable getVariable(int slot) {
+		return variables.get(slot);
+	}
+
+	/**
+	 * Returns the value of the variable in the given slot.
+	 * @param slot The slot.
+	 * @return The value of the variable.
+	 */
+	public Object getVariableValue(int slot) {
+		return values[slot];
+	}
+
+	/**
+	 * Sets the value of the variable in the given slot.
+	 * @param slot The slot.
+	 * @param value The value of the variable.
+	 */
+	public void setVariableValue(int slot, Object value) {
+		values[slot] = value;
+	}
+
+	/**
+	 * Returns the values of the variables, indexed by slot. The array is not copied, changes to the array change the
+	 * values in this symbol table. This allows generated code to access the values without going through the symbol
+	 * table.
+	 * @return The values.
+	 */
+	public Object[] getValues() {
+		return values;
+	}
+
+	@Override
+	public boolean getExistsVariable(String identifier) {
+		return slots.containsKey(identifier);
+	}
+
+	@Override
+	public void setVariableValue(String identifier, Object value) throws IllegalTypeException, NoSuchVariableException {
+		values[determineSlot(identifier)] = value;
+	}
+
+	@Override
+	public Object getVariableValue(String identifier) throws NoSuchVariableException {
+		return values[determineSlot(identifier)];
+	}
+
+	@Override
+	public Type getVariableType(String identifier) throws NoSuchVariableException {
+		return variables.get(determineSlot(identifier)).getType();
+	}
+
+	/**
+	 * Registers the function in the symbol table.
+	 * @throws IllegalStateException When the schema of the symbol table is frozen.
+	 */
+	public void registerFunction(Function function) {
+		functions.register(function);
+	}
+
+	@Override
+	public FunctionRegistry getFunctionRegistry() {
+		return functions;
+	}
+
+	@Override
+	public boolean getExistsFunction(String identifier, List<Type> types) {
+		return functions.getFunction(identifier, types) != null;
+	}
+
+	@Override
+	public Object getFunctionReturnValue(String identifier, List<Object> params, List<Type> types)
+			throws NoSuchFunctionException {
+		Function function = functions.getFunction(identifier, types);
+		if (function == null) {
+			throw new NoSuchFunctionException("Function '" + identifier + "' does not exist.");
+		}
+
+		return function.evaluate(params);
+	}
+
+	@Override
+	public Type getFunctionReturnType(String identifier, List<ExpressionNode> params) throws NoSuchFunctionException {
+		Function function = functions.getFunction(identifier, FunctionRegistry.determineTypes(params));
+		if (function == null) {
+			throw new NoSuchFunctionException("Function '" + identifier + "' does not exist.");
+		}
+		return function.getReturnType();
+	}
+
+	@Override
+	public Function getFunction(String identifier, List<Type> types) {
+		return functions.getFunction(identifier, types);
+	}
+
+	/**
+	 * Determines the slot of the variable, throws an exception when the variable does not exist.
+	 */
+	private int determineSlot(String identifier) throws NoSuchVariableException {
+		Integer slot = slots.get(identifier);
+		if (slot == null) {
+			throw new NoSuchVariableException("Variable '" + identifier + "' does not exist.");
+		}
+		return slot;
+	}
+
+	/**
+	 * The variables and functions that are shared by a symbol table and its frames.
+	 */
+	private static class Schema {
+
+		private final List<Variable> variables = new ArrayList<>();
+
+		private final Map<String, Integer> slots = new HashMap<>();
+
+		private final FunctionRegistry functions = new FunctionRegistry();
+
+		/**
+		 * Whether variables can no longer be added or replaced, see {@link SlotSymbolTable#freeze()}.
+		 */
+		private volatile boolean frozen;
+	}
+}
@@ -7,11 +7,33 @@ public class Token {
 	private int lineNumber;
 	private int columnNumber;
 
+	/**
+	 * The offset of the token in the input, or -1 when the lexer does not keep track of offsets.
+	 */
+	private int offset = -1;
+
+	/**
+	 * The number of characters of the token in the input.
+	 */
+	private int length;
+
+	/**
+	 * The input that contains the value of the token, as long as the value is not materialized.
+	 */
+	private CharSequence source;
+	private int valueOffset;
+	private int valueLength;
+
 	public Token(int lineNumber, int columnNumber) {
 		this.lineNumber = lineNumber;
 		this.columnNumber = columnNumber;
 	}
 
+	public Token(int lineNumber, int columnNumber, int offset) {
+		this(lineNumber, columnNumber);
+		this.offset = offset;
+	}
+
 	public void setType(TokenType type) {
 		this.type = type;
 	}
@@ -22,9 +44,28 @@ public class Token {
 
 	public void setValue(String value) {
 		this.value = value;
+		this.source = null;
+	}
+
+	/**
+	 * Sets the value of the token to a range of the input. The value is only turned into a string when it is asked
+	 * for, so the input must not change as long as the token is used.
+	 * @param source The input.
+	 * @param valueOffset The offset of the value in the input.
+	 * @param valueLength The length of the value.
+	 */
+	public void setValue(CharSequence source, int valueOffset, int valueLength) {
+		this.value = null;
+		this.source = source;
+		this.valueOffset = valueOffset;
+		this.valueLength = valueLength;
 	}
 
 	public String getValue() {
+		if (source != null) {
+			value = source.subSequence(valueOffset, valueOffset + valueLength).toString();
+			source = null;
+		}
 		return value;
 	}
 
@@ -35,4 +76,26 @@ public class Token {
 	public int getColumnNumber() {
 		return columnNumber;
 	}
+
+	public int getOffset() {
+		return offset;
+	}
+
+	public void setLength(int length) {
+		this.length = length;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Moves the token, because the input before the token was edited.
+	 * @param offsetDelta The number of characters the token moved.
+	 * @param lineDelta The number of lines the token moved.
+	 */
+	public void relocate(int offsetDelta, int lineDelta) {
+		offset += offsetDelta;
+		lineNumber += lineDelta;
+	}
 }
@@ -0,0 +1,29 @@
+package org.gertje.abacus.util;
+
+import org.gertje.abacus.functions.Function;
+import org.gertje.abacus.symboltable.FunctionProvider;
+import org.gertje.abacus.symboltable.SymbolTable;
+import org.gertje.abacus.types.Type;
+
+import java.util.List;
+
+/**
+ * Class with utils for looking up functions, see {@link FunctionProvider}.
+ */
+public class FunctionHelper {
+
+	/**
+	 * Returns the function with the given identifier that accepts parameters of the given types.
+	 * @param symbolTable The symbol table.
+	 * @param identifier The identifier of the function.
+	 * @param types The types of the parameters.
+	 * @return The function, or {@code null} when the function does not exist or the symbol table is not a
+	 * {@link FunctionProvider}.
+	 */
+	public static Function determineFunction(SymbolTable symbolTable, String identifier, List<Type> types) {
+		if (!(symbolTable instanceof FunctionProvider)) {
+			return null;
+		}
+		return ((FunctionProvider) symbolTable).getFunction(identifier, types);
+	}
+}
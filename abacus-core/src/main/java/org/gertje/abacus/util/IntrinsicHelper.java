@@ -0,0 +1,79 @@
+package org.gertje.abacus.util;
+
+import org.gertje.abacus.nodes.Node;
+import org.gertje.abacus.nodevisitors.EvaluationException;
+import org.gertje.abacus.types.Type;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+/**
+ * Class with utils for calling intrinsic functions, see {@link org.gertje.abacus.functions.IntrinsicFunction}.
+ */
+public class IntrinsicHelper {
+
+	/**
+	 * Determines whether a call with parameters of the given types can be bound to the method.
+	 * @param method The method.
+	 * @param types The types of the parameters.
+	 * @param returnType The return type of the function.
+	 * @return {@code true} when the method is public and static, accepts the Java types of the parameters and returns
+	 * the Java type of the return type, otherwise {@code false}.
+	 */
+	public static boolean isValidTarget(Method method, List<Type> types, Type returnType) {
+		if (!Modifier.isStatic(method.getModifiers()) || !Modifier.isPublic(method.getModifiers())
+				|| !Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+			return false;
+		}
+
+		Class<?>[] parameterClasses = method.getParameterTypes();
+		if (parameterClasses.length != types.size()) {
+			return false;
+		}
+		for (int i = 0; i < parameterClasses.length; i++) {
+			if (!parameterClasses[i].isAssignableFrom(JavaTypeHelper.determineJavaType(types.get(i)))) {
+				return false;
+			}
+		}
+
+		return JavaTypeHelper.determineJavaType(returnType).isAssignableFrom(method.getReturnType());
+	}
+
+	/**
+	 * Binds a method handle to the method that accepts the arguments as an array and returns the return value as an
+	 * object, so the method can be called without reflection.
+	 * @param method The public static method.
+	 * @return The method handle.
+	 * @throws IllegalAccessException When the method is not accessible.
+	 */
+	public static MethodHandle bind(Method method) throws IllegalAccessException {
+		int parameterCount = method.getParameterTypes().length;
+		return MethodHandles.publicLookup().unreflect(method)
+				.asType(MethodType.genericMethodType(parameterCount))
+				.asSpreader(Object[].class, parameterCount);
+	}
+
+	/**
+	 * Calls the method.
+	 * @param method The method handle that is bound by {@link #bind(Method)}.
+	 * @param arguments The arguments.
+	 * @param node The node of the call, for the exception.
+	 * @return The return value of the method.
+	 * @throws EvaluationException When the method throws an exception.
+	 */
+	public static Object invoke(MethodHandle method, Object[] arguments, Node node) throws EvaluationException {
+		try {
+			return (Object) method.invokeExact(arguments);
+		} catch (Error e) {
+			throw e;
+		} catch (Exception e) {
+			throw new EvaluationException(e.getMessage(), node, e);
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
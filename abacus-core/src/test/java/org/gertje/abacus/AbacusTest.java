@@ -46,6 +46,24 @@ public class AbacusTest {
 		runTestCaseRunner(new EvaluatorTestCaseRunner());
 	}
 
+	@Test
+	public void testSlotEvaluator() throws Exception {
+		// Create a runner to test the evaluator with variables bound to slots and run the tests.
+		runTestCaseRunner(new SlotEvaluatorTestCaseRunner());
+	}
+
+	@Test
+	public void testClosureCompiler() throws Exception {
+		// Create a runner to test the closure compiler and run the tests.
+		runTestCaseRunner(new ClosureCompilerTestCaseRunner());
+	}
+
+	@Test
+	public void testBatchEvaluator() throws Exception {
+		// Create a runner to test the batch evaluator and run the tests.
+		runTestCaseRunner(new BatchEvaluatorTestCaseRunner());
+	}
+
 	/**
 	 * Runs the test case runner against all files.
 	 * @param testCaseRunner The test case runner to run the test with.
@@ -0,0 +1,88 @@
+package org.gertje.abacus;
+
+import org.gertje.abacus.functions.RandFunction;
+import org.gertje.abacus.symboltable.SimpleSymbolTable;
+import org.gertje.abacus.symboltable.Variable;
+import org.gertje.abacus.types.Type;
+import org.gertje.abacus.util.JavaTypeHelper;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the symbol table of an {@link AbacusTestCase}, for the test case runners and for everything else that needs
+ * the variables of a test case, like the benchmarks.
+ */
+public class AbacusTestSymbolTableFactory {
+
+	private AbacusTestSymbolTableFactory() {
+	}
+
+	/**
+	 * Creates the symbol table from the {@link AbacusTestCase#variableListBefore}.
+	 * @param abacusTestCase The test case.
+	 * @return the symbol table.
+	 */
+	public static SimpleSymbolTable createSymbolTable(AbacusTestCase abacusTestCase) {
+		SimpleSymbolTable symbolTable = new SimpleSymbolTable();
+		symbolTable.registerFunction(new RandFunction());
+
+		List<AbacusTestCase.Value> valueList = abacusTestCase.variableListBefore;
+
+		if (valueList == null) {
+			return symbolTable;
+		}
+
+		Map<String, Variable> variableMap = new HashMap<>(valueList.size());
+		Map<String, Object> valueMap = new HashMap<>(valueList.size());
+		for (AbacusTestCase.Value value : valueList) {
+			variableMap.put(value.name, new Variable(value.name, value.type));
+			valueMap.put(value.name, convertToType(value.value, value.type));
+		}
+
+		symbolTable.setVariables(variableMap, valueMap);
+
+		return symbolTable;
+	}
+
+	/**
+	 * Converts the given value to the given type.
+	 * @param value The value in String representation.
+	 * @param type The type to convert the value to.
+	 * @return The converted value.
+	 */
+	public static Object convertToType(Object value, Type type) {
+		if (value == null || "null".equals(value)) {
+			return null;
+		}
+
+		if (type.isArray()) {
+			List valueList = (List) value;
+
+			Type componentType = type.determineComponentType();
+
+			Object[] array = (Object[]) Array.newInstance(JavaTypeHelper.determineJavaType(componentType),
+					valueList.size());
+
+			for (int i = 0; i < array.length; i++) {
+				array[i] = convertToType(valueList.get(i), componentType);
+			}
+
+			return array;
+		}
+
+		switch (type.getBaseType()) {
+			case DECIMAL: return new BigDecimal(value.toString());
+			case INTEGER: return value instanceof Double ? (long) ((double) value) : Long.valueOf(value.toString());
+			case BOOLEAN: return Boolean.valueOf(value.toString());
+			case DATE: return Date.valueOf(value.toString());
+			case STRING: return value;
+		}
+
+		throw new IllegalArgumentException("Could not convert the string to the correct type.");
+	}
+}
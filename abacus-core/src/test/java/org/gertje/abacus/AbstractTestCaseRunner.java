@@ -3,20 +3,16 @@ package org.gertje.abacus;
 import org.gertje.abacus.functions.RandFunction;
 import org.gertje.abacus.symboltable.NoSuchVariableException;
 import org.gertje.abacus.symboltable.SimpleSymbolTable;
+import org.gertje.abacus.symboltable.SlotSymbolTable;
 import org.gertje.abacus.symboltable.SymbolTable;
 import org.gertje.abacus.symboltable.Variable;
 import org.gertje.abacus.types.Type;
-import org.gertje.abacus.util.JavaTypeHelper;
+import org.junit.Assert;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.lang.reflect.Array;
-import java.math.BigDecimal;
-import java.sql.Date;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Abstract class to run a test case.
@@ -38,24 +34,30 @@ public abstract class AbstractTestCaseRunner {
 	 * @return the symbol table.
 	 */
 	protected SimpleSymbolTable createSymbolTable() {
-		SimpleSymbolTable symbolTable = new SimpleSymbolTable();
-		symbolTable.registerFunction(new RandFunction());
+		return AbacusTestSymbolTableFactory.createSymbolTable(abacusTestCase);
+	}
 
-		List<AbacusTestCase.Value> valueList = abacusTestCase.variableListBefore;
+	/**
+	 * Creates a {@link SlotSymbolTable} with the same variables, values and functions as
+	 * {@link #createSymbolTable()}.
+	 * @return the symbol table.
+	 */
+	protected SlotSymbolTable createSlotSymbolTable() {
+		SimpleSymbolTable simpleSymbolTable = createSymbolTable();
 
-		if (valueList == null) {
-			return symbolTable;
-		}
+		SlotSymbolTable symbolTable = new SlotSymbolTable();
+		symbolTable.registerFunction(new RandFunction());
 
-		Map<String, Variable> variableMap = new HashMap<>(valueList.size());
-		Map<String, Object> valueMap = new HashMap<>(valueList.size());
-		for (AbacusTestCase.Value value : valueList) {
-			variableMap.put(value.name, new Variable(value.name, value.type));
-			valueMap.put(value.name, convertToType(value.value, value.type));
+		try {
+			for (Variable variable : simpleSymbolTable.getVariables().values()) {
+				symbolTable.addVariable(variable);
+				symbolTable.setVariableValue(variable.getIdentifier(),
+						simpleSymbolTable.getVariableValue(variable.getIdentifier()));
+			}
+		} catch (Exception e) {
+			Assert.fail(createMessage("Could not create the symbol table.", e));
 		}
 
-		symbolTable.setVariables(variableMap, valueMap);
-
 		return symbolTable;
 	}
 
@@ -66,34 +68,7 @@ public abstract class AbstractTestCaseRunner {
 	 * @return The converted value.
 	 */
 	protected Object convertToType(Object value, Type type) {
-		if (value == null || "null".equals(value)) {
-			return null;
-		}
-
-		if (type.isArray()) {
-			List valueList = (List) value;
-
-			Type componentType = type.determineComponentType();
-
-			Object[] array = (Object[]) Array.newInstance(JavaTypeHelper.determineJavaType(componentType),
-					valueList.size());
-
-			for (int i = 0; i < array.length; i++) {
-				array[i] = convertToType(valueList.get(i), componentType);
-			}
-
-			return array;
-		}
-
-		switch (type.getBaseType()) {
-			case DECIMAL: return new BigDecimal(value.toString());
-			case INTEGER: return value instanceof Double ? (long) ((double) value) : Long.valueOf(value.toString());
-			case BOOLEAN: return Boolean.valueOf(value.toString());
-			case DATE: return Date.valueOf(value.toString());
-			case STRING: return value;
-		}
-
-		throw new IllegalArgumentException("Could not convert the string to the correct type.");
+		return AbacusTestSymbolTableFactory.convertToType(value, type);
 	}
 
 	/**
@@ -0,0 +1,130 @@
+package org.gertje.abacus;
+
+import org.gertje.abacus.batch.BatchEvaluator;
+import org.gertje.abacus.batch.Column;
+import org.gertje.abacus.batch.ColumnBatch;
+import org.gertje.abacus.batch.ObjectColumn;
+import org.gertje.abacus.context.AbacusContext;
+import org.gertje.abacus.context.SimpleAbacusContext;
+import org.gertje.abacus.exception.CompilerException;
+import org.gertje.abacus.lexer.AbacusLexer;
+import org.gertje.abacus.lexer.Lexer;
+import org.gertje.abacus.nodes.AbacusNodeFactory;
+import org.gertje.abacus.nodes.AssignmentNode;
+import org.gertje.abacus.nodes.ExpressionNode;
+import org.gertje.abacus.nodes.Node;
+import org.gertje.abacus.nodes.NodeFactory;
+import org.gertje.abacus.nodes.RootNode;
+import org.gertje.abacus.nodevisitors.DefaultVisitor;
+import org.gertje.abacus.nodevisitors.SemanticsChecker;
+import org.gertje.abacus.nodevisitors.Simplifier;
+import org.gertje.abacus.nodevisitors.VisitingException;
+import org.gertje.abacus.parser.Parser;
+import org.gertje.abacus.symboltable.SymbolTable;
+import org.junit.Assert;
+
+import java.util.Arrays;
+
+/**
+ * Runs the test case with the batch evaluator. Every variable is bound to a column with the same value in every row,
+ * and every row must evaluate to the expected value. Test cases with assignments or with more than one statement are
+ * skipped, since the batch evaluator does not support them.
+ */
+public class BatchEvaluatorTestCaseRunner extends AbstractTestCaseRunner {
+
+	/**
+	 * The number of rows in the batch.
+	 */
+	private static final int BATCH_SIZE = 3;
+
+	@Override
+	public void runTestCase() {
+		SymbolTable sym = createSymbolTable();
+
+		NodeFactory nodeFactory = new AbacusNodeFactory();
+
+		Lexer lexer = new AbacusLexer(abacusTestCase.expression);
+		Parser parser = new Parser(lexer, nodeFactory);
+
+		RootNode rootNode;
+		Node node;
+		try {
+			rootNode = parser.parse();
+		} catch (CompilerException e) {
+			if (!abacusTestCase.failsWithException) {
+				Assert.fail(createMessage("Unexpected exception.", e));
+			}
+			return;
+		}
+
+		AbacusContext abacusContext = new SimpleAbacusContext(sym);
+		SemanticsChecker semanticsChecker = new SemanticsChecker(sym);
+		Simplifier simplifier = new Simplifier(abacusContext, nodeFactory);
+		BatchEvaluator batchEvaluator = new BatchEvaluator(abacusContext);
+
+		Column column;
+		try {
+			semanticsChecker.check(rootNode);
+
+			node = simplifier.simplify(rootNode);
+
+			if (!(node instanceof ExpressionNode) || containsAssignment(node)) {
+				return;
+			}
+
+			column = batchEvaluator.evaluate((ExpressionNode) node, createBatch());
+		} catch (VisitingException e) {
+			if (!abacusTestCase.failsWithException) {
+				Assert.fail(createMessage("Unexpected exception.", e));
+			}
+			return;
+		}
+
+		if (abacusTestCase.failsWithException) {
+			Assert.fail(createMessage("Expected exception, but none was thrown."));
+		}
+
+		if (!checkReturnType(rootNode.getType())) {
+			Assert.fail(createMessage("Incorrect return type."));
+		}
+
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			if (!checkReturnValue(column.get(i))) {
+				Assert.fail(createMessage("Incorrect return value in row " + i + ": " + column.get(i)));
+			}
+		}
+	}
+
+	/**
+	 * Creates a batch with a column for every variable of the test case.
+	 */
+	private ColumnBatch createBatch() {
+		ColumnBatch batch = new ColumnBatch(BATCH_SIZE);
+
+		if (abacusTestCase.variableListBefore == null) {
+			return batch;
+		}
+
+		for (AbacusTestCase.Value value : abacusTestCase.variableListBefore) {
+			Object[] values = new Object[BATCH_SIZE];
+			Arrays.fill(values, convertToType(value.value, value.type));
+			batch.setColumn(value.name, new ObjectColumn(value.type, values));
+		}
+		return batch;
+	}
+
+	/**
+	 * Determines whether the AST contains an assignment.
+	 */
+	private static boolean containsAssignment(Node node) throws VisitingException {
+		final boolean[] found = new boolean[1];
+		node.accept(new DefaultVisitor<Void, VisitingException>() {
+			@Override
+			public Void visit(AssignmentNode node) throws VisitingException {
+				found[0] = true;
+				return null;
+			}
+		});
+		return found[0];
+	}
+}
@@ -0,0 +1,102 @@
+package org.gertje.abacus.batch;
+
+import org.gertje.abacus.context.AbacusContext;
+import org.gertje.abacus.context.SimpleAbacusContext;
+import org.gertje.abacus.lexer.AbacusLexer;
+import org.gertje.abacus.nodes.AbacusNodeFactory;
+import org.gertje.abacus.nodes.ExpressionNode;
+import org.gertje.abacus.nodes.Node;
+import org.gertje.abacus.nodes.NodeFactory;
+import org.gertje.abacus.nodevisitors.EvaluationException;
+import org.gertje.abacus.nodevisitors.SemanticsChecker;
+import org.gertje.abacus.nodevisitors.Simplifier;
+import org.gertje.abacus.parser.Parser;
+import org.gertje.abacus.symboltable.SimpleSymbolTable;
+import org.gertje.abacus.symboltable.Variable;
+import org.gertje.abacus.types.Type;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.BitSet;
+
+/**
+ * Tests the {@link BatchEvaluator} with batches that have different values in every row.
+ */
+public class BatchEvaluatorTest {
+
+	@Test
+	public void testIntegerArithmetic() throws Exception {
+		Column column = evaluate("a * 2 - b", createBatch());
+
+		Assert.assertTrue(column instanceof IntegerColumn);
+		Assert.assertEquals(2L, column.get(0));
+		Assert.assertEquals(6L, column.get(1));
+		Assert.assertNull(column.get(2));
+		Assert.assertEquals(8L, column.get(3));
+	}
+
+	@Test
+	public void testIfOnlyEvaluatesSelectedRows() throws Exception {
+		// Row 2 has b = 0, but the division is only evaluated for the rows where b is not 0.
+		Column column = evaluate("b != 0 ? a / b : -1", createBatch());
+
+		Assert.assertEquals(1L, column.get(0));
+		Assert.assertEquals(2L, column.get(1));
+		Assert.assertNull(column.get(2));
+		Assert.assertEquals(-1L, column.get(3));
+	}
+
+	@Test(expected = ArithmeticException.class)
+	public void testDivisionByZero() throws Exception {
+		evaluate("a / b", createBatch());
+	}
+
+	@Test
+	public void testShortCircuit() throws Exception {
+		// The division is not evaluated for the row where b = 0.
+		Column column = evaluate("b != 0 && a / b > 1", createBatch());
+
+		Assert.assertEquals(Boolean.FALSE, column.get(0));
+		Assert.assertEquals(Boolean.TRUE, column.get(1));
+		Assert.assertNull(column.get(2));
+		Assert.assertEquals(Boolean.FALSE, column.get(3));
+	}
+
+	@Test
+	public void testDecimalIf() throws Exception {
+		Column column = evaluate("a > 2 ? a : 0.5", createBatch());
+
+		Assert.assertEquals(0, new BigDecimal("0.5").compareTo((BigDecimal) column.get(0)));
+		Assert.assertEquals(0, new BigDecimal("4").compareTo((BigDecimal) column.get(1)));
+		Assert.assertNull(column.get(2));
+		Assert.assertEquals(0, new BigDecimal("4").compareTo((BigDecimal) column.get(3)));
+	}
+
+	/**
+	 * Creates a batch with the rows (a, b): (2, 2), (4, 2), (null, 1), (4, 0).
+	 */
+	private ColumnBatch createBatch() {
+		BitSet nulls = new BitSet();
+		nulls.set(2);
+
+		ColumnBatch batch = new ColumnBatch(4);
+		batch.setColumn("a", new IntegerColumn(new long[] {2, 4, 0, 4}, nulls));
+		batch.setColumn("b", new IntegerColumn(new long[] {2, 2, 1, 0}));
+		return batch;
+	}
+
+	private Column evaluate(String expression, ColumnBatch batch) throws Exception {
+		SimpleSymbolTable symbolTable = new SimpleSymbolTable();
+		symbolTable.addVariable(new Variable("a", Type.INTEGER));
+		symbolTable.addVariable(new Variable("b", Type.INTEGER));
+		AbacusContext abacusContext = new SimpleAbacusContext(symbolTable);
+		NodeFactory nodeFactory = new AbacusNodeFactory();
+
+		Node node = new Parser(new AbacusLexer(expression), nodeFactory).parse();
+		new SemanticsChecker(symbolTable).check(node);
+		node = new Simplifier(abacusContext, nodeFactory).simplify(node);
+
+		return new BatchEvaluator(abacusContext).evaluate((ExpressionNode) node, batch);
+	}
+}
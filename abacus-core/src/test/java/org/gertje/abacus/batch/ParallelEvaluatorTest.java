@@ -0,0 +1,125 @@
+package org.gertje.abacus.batch;
+
+import org.gertje.abacus.closures.Closure;
+import org.gertje.abacus.closures.ClosureCompiler;
+import org.gertje.abacus.context.AbacusContext;
+import org.gertje.abacus.context.SimpleAbacusContext;
+import org.gertje.abacus.lexer.AbacusLexer;
+import org.gertje.abacus.nodes.AbacusNodeFactory;
+import org.gertje.abacus.nodes.Node;
+import org.gertje.abacus.nodes.NodeFactory;
+import org.gertje.abacus.nodevisitors.SemanticsChecker;
+import org.gertje.abacus.nodevisitors.Simplifier;
+import org.gertje.abacus.nodevisitors.SlotResolver;
+import org.gertje.abacus.parser.Parser;
+import org.gertje.abacus.symboltable.SlotSymbolTable;
+import org.gertje.abacus.symboltable.Variable;
+import org.gertje.abacus.types.Type;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tests the {@link ParallelEvaluator}.
+ */
+public class ParallelEvaluatorTest {
+
+	private final ForkJoinPool pool = new ForkJoinPool(4);
+
+	@After
+	public void shutdownPool() {
+		pool.shutdown();
+	}
+
+	@Test
+	public void testResultsInOrder() throws Exception {
+		SlotSymbolTable schema = createSchema();
+		ParallelEvaluator evaluator = new ParallelEvaluator(compile("c = a * 2 + b; c", schema), schema, pool, 100);
+
+		List<Object[]> rows = new ArrayList<>();
+		for (long i = 0; i < 10000; i++) {
+			rows.add(new Object[] {i, i % 7 == 0 ? null : i, null});
+		}
+
+		Object[] results = evaluator.evaluate(rows);
+
+		Assert.assertEquals(rows.size(), results.length);
+		for (int i = 0; i < results.length; i++) {
+			Assert.assertEquals(i % 7 == 0 ? null : Long.valueOf(i * 3L), results[i]);
+		}
+		// The assignments were done on the frames of the workers.
+		Assert.assertNull(schema.getVariableValue("c"));
+	}
+
+	@Test(expected = ArithmeticException.class)
+	public void testDivisionByZero() throws Exception {
+		SlotSymbolTable schema = createSchema();
+		ParallelEvaluator evaluator = new ParallelEvaluator(compile("a / b", schema), schema, pool, 10);
+
+		List<Object[]> rows = new ArrayList<>();
+		for (long i = 0; i < 100; i++) {
+			rows.add(new Object[] {i, 50 - i, null});
+		}
+
+		evaluator.evaluate(rows);
+	}
+
+	@Test
+	public void testLinkedListOfRows() throws Exception {
+		SlotSymbolTable schema = createSchema();
+		ParallelEvaluator evaluator = new ParallelEvaluator(compile("a + b", schema), schema, pool, 10);
+
+		List<Object[]> rows = new LinkedList<>();
+		for (long i = 0; i < 1000; i++) {
+			rows.add(new Object[] {i, 1L, null});
+		}
+
+		Object[] results = evaluator.evaluate(rows);
+
+		for (int i = 0; i < results.length; i++) {
+			Assert.assertEquals(Long.valueOf(i + 1L), results[i]);
+		}
+	}
+
+	@Test
+	public void testRowWithWrongLength() throws Exception {
+		SlotSymbolTable schema = createSchema();
+		ParallelEvaluator evaluator = new ParallelEvaluator(compile("a + b", schema), schema, pool, 10);
+
+		List<Object[]> rows = new ArrayList<>();
+		rows.add(new Object[] {1L, 2L, null});
+		rows.add(new Object[] {1L, 2L});
+
+		try {
+			evaluator.evaluate(rows);
+			Assert.fail("Expected an IllegalArgumentException.");
+		} catch (IllegalArgumentException e) {
+			Assert.assertEquals("Row 1 has 2 values, but the schema has 3 slots.", e.getMessage());
+		}
+	}
+
+	private SlotSymbolTable createSchema() {
+		SlotSymbolTable schema = new SlotSymbolTable();
+		schema.addVariable(new Variable("a", Type.INTEGER));
+		schema.addVariable(new Variable("b", Type.INTEGER));
+		schema.addVariable(new Variable("c", Type.INTEGER));
+		return schema;
+	}
+
+	private Closure compile(String expression, SlotSymbolTable schema) throws Exception {
+		AbacusContext abacusContext = new SimpleAbacusContext(schema);
+		NodeFactory nodeFactory = new AbacusNodeFactory();
+
+		Node node = new Parser(new AbacusLexer(expression), nodeFactory).parse();
+		new SemanticsChecker(schema).check(node);
+		node = new Simplifier(abacusContext, nodeFactory).simplify(node);
+		new SlotResolver(schema).resolve(node);
+
+		return new ClosureCompiler(abacusContext.getMathContext()).compile(node);
+	}
+}
@@ -0,0 +1,149 @@
+package org.gertje.abacus.cache;
+
+import org.gertje.abacus.context.AbacusContext;
+import org.gertje.abacus.context.SimpleAbacusContext;
+import org.gertje.abacus.functions.AbstractFunction;
+import org.gertje.abacus.functions.PureFunction;
+import org.gertje.abacus.nodes.AbacusNodeFactory;
+import org.gertje.abacus.nodes.ExpressionNode;
+import org.gertje.abacus.nodes.IntegerNode;
+import org.gertje.abacus.nodes.Node;
+import org.gertje.abacus.nodes.SumNode;
+import org.gertje.abacus.nodevisitors.Evaluator;
+import org.gertje.abacus.symboltable.SimpleSymbolTable;
+import org.gertje.abacus.symboltable.Variable;
+import org.gertje.abacus.types.Type;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests the {@link ExpressionCache}.
+ */
+public class ExpressionCacheTest {
+
+	@Test
+	public void testHitAndMiss() throws Exception {
+		ExpressionCache<Node> cache = ExpressionCache.createNodeCache(10, new AbacusNodeFactory());
+		AbacusContext abacusContext = createContext(Type.INTEGER, 3L);
+
+		Node first = cache.get("a * 2 + 1", abacusContext);
+		Node second = cache.get("a * 2 + 1", abacusContext);
+
+		// Every caller gets its own copy of the cached AST.
+		Assert.assertNotSame(first, second);
+		Assert.assertEquals(1, cache.getMissCount());
+		Assert.assertEquals(1, cache.getHitCount());
+		Assert.assertEquals(7L, new Evaluator(abacusContext).evaluate(first));
+		Assert.assertEquals(7L, new Evaluator(abacusContext).evaluate(second));
+	}
+
+	@Test
+	public void testChangedNodeDoesNotChangeTheCache() throws Exception {
+		ExpressionCache<Node> cache = ExpressionCache.createNodeCache(10, new AbacusNodeFactory());
+		AbacusContext abacusContext = createContext(Type.INTEGER, 3L);
+
+		SumNode node = (SumNode) cache.get("a * 2 + 1", abacusContext);
+		node.setRhs(new IntegerNode(5L, null));
+
+		Assert.assertEquals(11L, new Evaluator(abacusContext).evaluate(node));
+		Assert.assertEquals(7L, new Evaluator(abacusContext).evaluate(cache.get("a * 2 + 1", abacusContext)));
+	}
+
+	@Test
+	public void testOtherFunctionInstanceIsMiss() throws Exception {
+		ExpressionCache<Node> cache = ExpressionCache.createNodeCache(10, new AbacusNodeFactory());
+
+		// Both functions have the same signature; the simplifier folds the calls into their results.
+		AbacusContext oneContext = createContext(Type.INTEGER, 3L);
+		((SimpleSymbolTable) oneContext.getSymbolTable()).registerFunction(new ConstantFunction(1L));
+		AbacusContext twoContext = createContext(Type.INTEGER, 3L);
+		((SimpleSymbolTable) twoContext.getSymbolTable()).registerFunction(new ConstantFunction(2L));
+
+		Assert.assertEquals(1L, new Evaluator(oneContext).evaluate(cache.get("k() + 0", oneContext)));
+		Assert.assertEquals(2L, new Evaluator(twoContext).evaluate(cache.get("k() + 0", twoContext)));
+		Assert.assertEquals(2, cache.getMissCount());
+		Assert.assertEquals(2, cache.size());
+
+		Assert.assertEquals(1L, new Evaluator(oneContext).evaluate(cache.get("k() + 0", oneContext)));
+		Assert.assertEquals(1, cache.getHitCount());
+	}
+
+	@Test
+	public void testSchemaChange() throws Exception {
+		ExpressionCache<Node> cache = ExpressionCache.createNodeCache(10, new AbacusNodeFactory());
+
+		Node integerNode = cache.get("a * 2", createContext(Type.INTEGER, 3L));
+		Node decimalNode = cache.get("a * 2", createContext(Type.DECIMAL, null));
+
+		Assert.assertEquals(Type.INTEGER, ((ExpressionNode) integerNode).getType());
+		Assert.assertEquals(Type.DECIMAL, ((ExpressionNode) decimalNode).getType());
+		Assert.assertEquals(2, cache.getMissCount());
+		Assert.assertEquals(2, cache.size());
+
+		// The expression is cached for both schemas.
+		integerNode = cache.get("a * 2", createContext(Type.INTEGER, 4L));
+		decimalNode = cache.get("a * 2", createContext(Type.DECIMAL, null));
+		Assert.assertEquals(Type.INTEGER, ((ExpressionNode) integerNode).getType());
+		Assert.assertEquals(Type.DECIMAL, ((ExpressionNode) decimalNode).getType());
+		Assert.assertEquals(2, cache.getHitCount());
+
+		cache.invalidate("a * 2");
+		Assert.assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testEviction() throws Exception {
+		ExpressionCache<Node> cache = ExpressionCache.createNodeCache(2, new AbacusNodeFactory());
+		AbacusContext abacusContext = createContext(Type.INTEGER, 3L);
+
+		cache.get("a + 1", abacusContext);
+		cache.get("a + 2", abacusContext);
+		// Touch the first expression, so the second one is the least recently used.
+		cache.get("a + 1", abacusContext);
+		cache.get("a + 3", abacusContext);
+
+		Assert.assertEquals(2, cache.size());
+		Assert.assertEquals(1, cache.getEvictionCount());
+
+		cache.get("a + 1", abacusContext);
+		Assert.assertEquals(2, cache.getHitCount());
+	}
+
+	private AbacusContext createContext(Type type, Object value) throws Exception {
+		SimpleSymbolTable symbolTable = new SimpleSymbolTable();
+		symbolTable.addVariable(new Variable("a", type));
+		symbolTable.setVariableValue("a", value);
+		return new SimpleAbacusContext(symbolTable);
+	}
+
+	/**
+	 * Pure function {@code k} without parameters that returns a constant.
+	 */
+	private static class ConstantFunction extends AbstractFunction implements PureFunction {
+
+		private final Long value;
+
+		public ConstantFunction(Long value) {
+			super(Collections.<Type>emptyList(), false);
+			this.value = value;
+		}
+
+		@Override
+		public Type getReturnType() {
+			return Type.INTEGER;
+		}
+
+		@Override
+		public String getName() {
+			return "k";
+		}
+
+		@Override
+		public Object evaluate(List<Object> params) {
+			return value;
+		}
+	}
+}
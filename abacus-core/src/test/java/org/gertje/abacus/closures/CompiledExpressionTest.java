@@ -0,0 +1,122 @@
+package org.gertje.abacus.closures;
+
+import org.gertje.abacus.functions.RandFunction;
+import org.gertje.abacus.symboltable.SlotSymbolTable;
+import org.gertje.abacus.symboltable.Variable;
+import org.gertje.abacus.types.Type;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Tests the {@link CompiledExpression}.
+ */
+public class CompiledExpressionTest {
+
+	@Test
+	public void testBindings() throws Exception {
+		CompiledExpression expression = CompiledExpression.compile("b = a * 2; b + 1", createSchema());
+
+		SlotSymbolTable first = expression.newBinding();
+		first.setVariableValue("a", 3L);
+		SlotSymbolTable second = expression.newBinding();
+		second.setVariableValue("a", 5L);
+
+		Assert.assertEquals(Type.INTEGER, expression.getType());
+		Assert.assertEquals(7L, expression.evaluate(first));
+		Assert.assertEquals(11L, expression.evaluate(second));
+		Assert.assertEquals(6L, first.getVariableValue("b"));
+		Assert.assertEquals(10L, second.getVariableValue("b"));
+	}
+
+	@Test
+	public void testConcurrentEvaluation() throws Exception {
+		final CompiledExpression expression = CompiledExpression.compile("b = a * 2; b + 1", createSchema());
+
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Boolean>> futures = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				final long offset = i * 1000L;
+				futures.add(executorService.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() throws Exception {
+						SlotSymbolTable binding = expression.newBinding();
+						for (long a = offset; a < offset + 1000; a++) {
+							binding.setVariableValue("a", a);
+							if (!Long.valueOf(a * 2 + 1).equals(expression.evaluate(binding))) {
+								return false;
+							}
+						}
+						return true;
+					}
+				}));
+			}
+
+			for (Future<Boolean> future : futures) {
+				Assert.assertTrue(future.get());
+			}
+		} finally {
+			executorService.shutdown();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testForeignBinding() throws Exception {
+		CompiledExpression expression = CompiledExpression.compile("a + 1", createSchema());
+
+		expression.evaluate(createSchema());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSchemaIsNotABinding() throws Exception {
+		SlotSymbolTable schema = createSchema();
+		CompiledExpression expression = CompiledExpression.compile("a + 1", schema);
+
+		expression.evaluate(schema);
+	}
+
+	@Test
+	public void testSchemaIsFrozen() throws Exception {
+		SlotSymbolTable schema = createSchema();
+		CompiledExpression expression = CompiledExpression.compile("a + 1", schema);
+
+		try {
+			schema.addVariable(new Variable("c", Type.INTEGER));
+			Assert.fail("Expected an IllegalStateException.");
+		} catch (IllegalStateException e) {
+			// Expected.
+		}
+		// The compiled closures depend on the type of a.
+		try {
+			schema.addVariable(new Variable("a", Type.DECIMAL));
+			Assert.fail("Expected an IllegalStateException.");
+		} catch (IllegalStateException e) {
+			// Expected.
+		}
+		try {
+			schema.registerFunction(new RandFunction());
+			Assert.fail("Expected an IllegalStateException.");
+		} catch (IllegalStateException e) {
+			// Expected.
+		}
+		Assert.assertEquals(Type.INTEGER, schema.getVariableType("a"));
+
+		SlotSymbolTable binding = expression.newBinding();
+		binding.setVariableValue("a", 1L);
+		Assert.assertEquals(2L, expression.evaluate(binding));
+	}
+
+	private SlotSymbolTable createSchema() {
+		SlotSymbolTable schema = new SlotSymbolTable();
+		schema.addVariable(new Variable("a", Type.INTEGER));
+		schema.addVariable(new Variable("b", Type.INTEGER));
+		return schema;
+	}
+}
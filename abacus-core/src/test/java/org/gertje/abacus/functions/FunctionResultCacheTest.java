@@ -0,0 +1,94 @@
+package org.gertje.abacus.functions;
+
+import org.gertje.abacus.types.Type;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests the {@link FunctionResultCache}.
+ */
+public class FunctionResultCacheTest {
+
+	@Test
+	public void testPureFunctionIsMemoized() {
+		FunctionResultCache cache = new FunctionResultCache();
+		CountingFunction function = new PureCountingFunction();
+
+		Assert.assertEquals(2L, cache.evaluate(function, Collections.<Object>singletonList(1L)));
+		Assert.assertEquals(2L, cache.evaluate(function, Collections.<Object>singletonList(1L)));
+		Assert.assertEquals(3L, cache.evaluate(function, Collections.<Object>singletonList(2L)));
+		Assert.assertNull(cache.evaluate(function, Collections.singletonList(null)));
+		Assert.assertNull(cache.evaluate(function, Collections.singletonList(null)));
+
+		Assert.assertEquals(3, function.calls);
+		Assert.assertEquals(3, cache.size());
+	}
+
+	@Test
+	public void testImpureFunctionIsNotMemoized() {
+		FunctionResultCache cache = new FunctionResultCache();
+		CountingFunction function = new CountingFunction();
+
+		cache.evaluate(function, Collections.<Object>singletonList(1L));
+		cache.evaluate(function, Collections.<Object>singletonList(1L));
+
+		Assert.assertEquals(2, function.calls);
+		Assert.assertEquals(0, cache.size());
+		Assert.assertFalse(new RandFunction() instanceof PureFunction);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedResultIsEvicted() {
+		FunctionResultCache cache = new FunctionResultCache(2);
+		CountingFunction function = new PureCountingFunction();
+
+		cache.evaluate(function, Collections.<Object>singletonList(1L));
+		cache.evaluate(function, Collections.<Object>singletonList(2L));
+		cache.evaluate(function, Collections.<Object>singletonList(1L));
+		// Evicts the result for 2.
+		cache.evaluate(function, Collections.<Object>singletonList(3L));
+		cache.evaluate(function, Collections.<Object>singletonList(1L));
+		cache.evaluate(function, Collections.<Object>singletonList(2L));
+
+		Assert.assertEquals(4, function.calls);
+		Assert.assertEquals(2, cache.size());
+	}
+
+	/**
+	 * Function that adds one to an integer and counts the number of times it is called.
+	 */
+	private static class CountingFunction extends AbstractFunction {
+
+		protected int calls;
+
+		public CountingFunction() {
+			super(Collections.singletonList(Type.INTEGER), false);
+		}
+
+		@Override
+		public Object evaluate(List<Object> params) {
+			calls++;
+			Long value = (Long) params.get(0);
+			return value == null ? null : value + 1;
+		}
+
+		@Override
+		public Type getReturnType() {
+			return Type.INTEGER;
+		}
+
+		@Override
+		public String getName() {
+			return "increment";
+		}
+	}
+
+	/**
+	 * Pure variant of the {@link CountingFunction}.
+	 */
+	private static class PureCountingFunction extends CountingFunction implements PureFunction {
+	}
+}
@@ -0,0 +1,135 @@
+package org.gertje.abacus.functions;
+
+import org.gertje.abacus.closures.ClosureCompiler;
+import org.gertje.abacus.context.SimpleAbacusContext;
+import org.gertje.abacus.lexer.AbacusLexer;
+import org.gertje.abacus.nodes.AbacusNodeFactory;
+import org.gertje.abacus.nodes.FunctionNode;
+import org.gertje.abacus.nodes.RootNode;
+import org.gertje.abacus.nodevisitors.DefaultVisitor;
+import org.gertje.abacus.nodevisitors.EvaluationException;
+import org.gertje.abacus.nodevisitors.Evaluator;
+import org.gertje.abacus.nodevisitors.SemanticsCheckException;
+import org.gertje.abacus.nodevisitors.SemanticsChecker;
+import org.gertje.abacus.nodevisitors.VisitingException;
+import org.gertje.abacus.parser.Parser;
+import org.gertje.abacus.symboltable.SimpleSymbolTable;
+import org.gertje.abacus.symboltable.Variable;
+import org.gertje.abacus.types.Type;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.MathContext;
+import java.util.Collections;
+
+/**
+ * Tests the binding and evaluation of {@link IntrinsicFunction}s.
+ */
+public class IntrinsicFunctionTest {
+
+	@Test
+	public void testBindAndEvaluate() throws Exception {
+		SimpleSymbolTable symbolTable = createSymbolTable(new TwiceFunction("twice"));
+		RootNode rootNode = check("twice(a) + 1", symbolTable);
+
+		Assert.assertEquals(TwiceFunction.class.getMethod("twice", Long.class), findFunctionNode(rootNode).getIntrinsic());
+		Assert.assertNotNull(findFunctionNode(rootNode).getIntrinsicHandle());
+		Assert.assertEquals(7L, new Evaluator(new SimpleAbacusContext(symbolTable)).evaluate(rootNode));
+		Assert.assertEquals(7L, new ClosureCompiler(MathContext.DECIMAL128).compile(rootNode).evaluate(symbolTable));
+
+		symbolTable.setVariableValue("a", null);
+		Assert.assertNull(new Evaluator(new SimpleAbacusContext(symbolTable)).evaluate(rootNode));
+	}
+
+	@Test
+	public void testExceptionOfMethodIsWrapped() throws Exception {
+		SimpleSymbolTable symbolTable = createSymbolTable(new TwiceFunction("fail"));
+		RootNode rootNode = check("fail(a)", symbolTable);
+
+		try {
+			new Evaluator(new SimpleAbacusContext(symbolTable)).evaluate(rootNode);
+			Assert.fail("Expected an EvaluationException.");
+		} catch (EvaluationException e) {
+			Assert.assertTrue(e.getCause() instanceof ArithmeticException);
+		}
+
+		try {
+			new ClosureCompiler(MathContext.DECIMAL128).compile(rootNode).evaluate(symbolTable);
+			Assert.fail("Expected an EvaluationException.");
+		} catch (EvaluationException e) {
+			Assert.assertTrue(e.getCause() instanceof ArithmeticException);
+		}
+	}
+
+	@Test
+	public void testEvaluateWithoutBinding() {
+		Assert.assertEquals(8L, new TwiceFunction("twice").evaluate(Collections.<Object>singletonList(4L)));
+	}
+
+	@Test(expected = SemanticsCheckException.class)
+	public void testInvalidTarget() throws Exception {
+		// The method "invalid" returns a String while the function returns an integer.
+		check("invalid(a)", createSymbolTable(new TwiceFunction("invalid")));
+	}
+
+	private static SimpleSymbolTable createSymbolTable(Function function) throws Exception {
+		SimpleSymbolTable symbolTable = new SimpleSymbolTable();
+		symbolTable.addVariable(new Variable("a", Type.INTEGER));
+		symbolTable.setVariableValue("a", 3L);
+		symbolTable.registerFunction(function);
+		return symbolTable;
+	}
+
+	private static RootNode check(String expression, SimpleSymbolTable symbolTable) throws Exception {
+		RootNode rootNode = new Parser(new AbacusLexer(expression), new AbacusNodeFactory()).parse();
+		new SemanticsChecker(symbolTable).check(rootNode);
+		return rootNode;
+	}
+
+	private static FunctionNode findFunctionNode(RootNode rootNode) throws VisitingException {
+		final FunctionNode[] found = new FunctionNode[1];
+		rootNode.accept(new DefaultVisitor<Void, VisitingException>() {
+			@Override
+			public Void visit(FunctionNode node) throws VisitingException {
+				found[0] = node;
+				return null;
+			}
+		});
+		return found[0];
+	}
+
+	/**
+	 * Function that doubles an integer, implemented by a static method of this class.
+	 */
+	public static class TwiceFunction extends AbstractIntrinsicFunction {
+
+		private final String name;
+
+		public TwiceFunction(String name) {
+			super(Collections.singletonList(Type.INTEGER), false, TwiceFunction.class, name);
+			this.name = name;
+		}
+
+		public static Long twice(Long value) {
+			return value == null ? null : value * 2;
+		}
+
+		public static Long fail(Long value) {
+			throw new ArithmeticException("The function fails.");
+		}
+
+		public static String invalid(Long value) {
+			return String.valueOf(value);
+		}
+
+		@Override
+		public Type getReturnType() {
+			return Type.INTEGER;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+	}
+}
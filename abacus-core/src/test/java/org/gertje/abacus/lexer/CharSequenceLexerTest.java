@@ -0,0 +1,130 @@
+package org.gertje.abacus.lexer;
+
+import org.gertje.abacus.token.Token;
+import org.gertje.abacus.token.TokenType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests the {@link CharSequenceLexer}.
+ */
+public class CharSequenceLexerTest {
+
+	private static final String[] EXPRESSIONS = {
+			"a = 1 + 2.5 * (b - c) / d ^ 2 % 3",
+			"x >= 1 && y <= 2 || !z != true",
+			"x < 1 ? 'a string' : 'it\\'s'",
+			"f(a, b[1], D'2015-01-01');\ng = 'multi\nline'; h == i",
+			"\t_id3nt1f13r\t\t> .5"
+	};
+
+	@Test
+	public void testTokensAreEqualToTokensOfAbacusLexer() throws Exception {
+		for (String expression : EXPRESSIONS) {
+			Lexer expected = new AbacusLexer(expression);
+			Lexer actual = new CharSequenceLexer(expression);
+
+			Token expectedToken;
+			do {
+				expectedToken = nextSignificantToken(expected);
+				Token actualToken = nextSignificantToken(actual);
+
+				Assert.assertSame(expression, expectedToken.getType(), actualToken.getType());
+				Assert.assertEquals(expression, expectedToken.getValue(), actualToken.getValue());
+				Assert.assertEquals(expression, expectedToken.getLineNumber(), actualToken.getLineNumber());
+				Assert.assertEquals(expression, expectedToken.getColumnNumber(), actualToken.getColumnNumber());
+			} while (expectedToken.getType() != TokenType.END_OF_INPUT);
+		}
+	}
+
+	@Test
+	public void testTokensKnowTheirPositionInTheInput() throws Exception {
+		char[] input = "(  abc >= 'd\\'e'  )".toCharArray();
+		Lexer lexer = new CharSequenceLexer(input, 3, 13);
+
+		assertToken(lexer.getNextToken(), TokenType.IDENTIFIER, "abc", 0, 3);
+		assertToken(lexer.getNextToken(), TokenType.WHITE_SPACE, null, 3, 1);
+		Assert.assertSame(lexer.peekToken(), lexer.getNextToken());
+		assertToken(lexer.getNextToken(), TokenType.WHITE_SPACE, null, 6, 1);
+		assertToken(lexer.getNextToken(), TokenType.STRING, "d'e", 7, 6);
+		assertToken(lexer.getNextToken(), TokenType.END_OF_INPUT, null, 13, 0);
+	}
+
+	@Test
+	public void testTriviaIsSkipped() throws Exception {
+		for (String expression : EXPRESSIONS) {
+			Lexer expected = new CharSequenceLexer(expression);
+			CharSequenceLexer actual = new CharSequenceLexer(expression);
+			actual.setSkipTrivia(true);
+
+			Token expectedToken;
+			do {
+				expectedToken = nextSignificantToken(expected);
+				Token actualToken = actual.getNextToken();
+
+				Assert.assertSame(expression, expectedToken.getType(), actualToken.getType());
+				Assert.assertEquals(expression, expectedToken.getOffset(), actualToken.getOffset());
+				Assert.assertEquals(expression, expectedToken.getLineNumber(), actualToken.getLineNumber());
+				Assert.assertEquals(expression, expectedToken.getColumnNumber(), actualToken.getColumnNumber());
+			} while (expectedToken.getType() != TokenType.END_OF_INPUT);
+		}
+	}
+
+	@Test
+	public void testSkippedTriviaIsCollected() throws Exception {
+		CharSequenceLexer lexer = new CharSequenceLexer("a \t+\r\n  b");
+		List<Token> trivia = new ArrayList<>();
+		lexer.setSkipTrivia(true);
+		lexer.setTriviaTokens(trivia);
+
+		assertToken(lexer.getNextToken(), TokenType.IDENTIFIER, "a", 0, 1);
+		assertToken(lexer.peekToken(), TokenType.PLUS, null, 3, 1);
+		assertToken(lexer.getNextToken(), TokenType.PLUS, null, 3, 1);
+		Token b = lexer.getNextToken();
+		assertToken(b, TokenType.IDENTIFIER, "b", 8, 1);
+		Assert.assertEquals(2, b.getLineNumber());
+		Assert.assertEquals(3, b.getColumnNumber());
+		Assert.assertSame(TokenType.END_OF_INPUT, lexer.getNextToken().getType());
+
+		Assert.assertEquals(3, trivia.size());
+		assertToken(trivia.get(0), TokenType.WHITE_SPACE, null, 1, 2);
+		assertToken(trivia.get(1), TokenType.NEW_LINE, null, 4, 2);
+		assertToken(trivia.get(2), TokenType.WHITE_SPACE, null, 6, 2);
+		Assert.assertEquals(2, trivia.get(2).getLineNumber());
+	}
+
+	@Test
+	public void testUnexpectedCharacterIsReported() throws Exception {
+		Lexer lexer = new CharSequenceLexer("a\n  #");
+		try {
+			while (lexer.getNextToken().getType() != TokenType.END_OF_INPUT) {
+			}
+			Assert.fail("Expected a LexerException.");
+		} catch (LexerException e) {
+			Assert.assertEquals(2, e.getLineNumber());
+			Assert.assertEquals(4, e.getColumnNumber());
+		}
+	}
+
+	/**
+	 * Returns the next token that is not white space or a new line. The AbacusLexer swallows the character after an
+	 * assignment, so only the significant tokens can be compared.
+	 */
+	private static Token nextSignificantToken(Lexer lexer) throws LexerException {
+		Token token;
+		do {
+			token = lexer.getNextToken();
+		} while (token.getType() == TokenType.WHITE_SPACE || token.getType() == TokenType.NEW_LINE);
+		return token;
+	}
+
+	private static void assertToken(Token token, TokenType type, String value, int offset, int length) {
+		Assert.assertSame(type, token.getType());
+		Assert.assertEquals(value, token.getValue());
+		Assert.assertEquals(offset, token.getOffset());
+		Assert.assertEquals(length, token.getLength());
+	}
+}
@@ -0,0 +1,96 @@
+package org.gertje.abacus.nodes;
+
+import org.gertje.abacus.token.Token;
+import org.gertje.abacus.types.Type;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+/**
+ * Tests the types of the arithmetic nodes: {@link AddNode}, {@link DivideNode}, {@link MultiplyNode},
+ * {@link SubtractNode} and {@link SumNode}.
+ */
+public class ArithmeticNodeTypeTest {
+
+	private static final Token TOKEN = new Token(1, 1);
+
+	/**
+	 * Creates one of the arithmetic nodes.
+	 */
+	private interface Operation {
+		ExpressionNode create(ExpressionNode lhs, ExpressionNode rhs);
+	}
+
+	private static final Operation[] OPERATIONS = {
+			new Operation() {
+				@Override
+				public ExpressionNode create(ExpressionNode lhs, ExpressionNode rhs) {
+					return new AddNode(lhs, rhs, TOKEN);
+				}
+			},
+			new Operation() {
+				@Override
+				public ExpressionNode create(ExpressionNode lhs, ExpressionNode rhs) {
+					return new DivideNode(lhs, rhs, TOKEN);
+				}
+			},
+			new Operation() {
+				@Override
+				public ExpressionNode create(ExpressionNode lhs, ExpressionNode rhs) {
+					return new MultiplyNode(lhs, rhs, TOKEN);
+				}
+			},
+			new Operation() {
+				@Override
+				public ExpressionNode create(ExpressionNode lhs, ExpressionNode rhs) {
+					return new SubtractNode(lhs, rhs, TOKEN);
+				}
+			},
+			new Operation() {
+				@Override
+				public ExpressionNode create(ExpressionNode lhs, ExpressionNode rhs) {
+					return new SumNode(lhs, rhs, TOKEN);
+				}
+			}
+	};
+
+	@Test
+	public void testTypeIsDeterminedFromTheOperands() {
+		for (Operation operation : OPERATIONS) {
+			Assert.assertSame(Type.INTEGER, operation.create(integer(), integer()).getType());
+			Assert.assertSame(Type.DECIMAL, operation.create(decimal(), decimal()).getType());
+			Assert.assertSame(Type.DECIMAL, operation.create(integer(), decimal()).getType());
+			Assert.assertSame(Type.DECIMAL, operation.create(decimal(), integer()).getType());
+			Assert.assertSame(Type.INTEGER, operation.create(new NullNode(TOKEN), integer()).getType());
+			Assert.assertSame(Type.DECIMAL, operation.create(decimal(), new NullNode(TOKEN)).getType());
+			Assert.assertNull(operation.create(new NullNode(TOKEN), new NullNode(TOKEN)).getType());
+		}
+	}
+
+	/**
+	 * Every node determines the types of its operands once, so the type of a long chain is determined in linear time.
+	 */
+	@Test(timeout = 5000)
+	public void testTypeOfLongChainIsDeterminedOnce() {
+		for (Operation operation : OPERATIONS) {
+			ExpressionNode lhsChain = integer();
+			ExpressionNode rhsChain = integer();
+			for (int i = 0; i < 100; i++) {
+				lhsChain = operation.create(lhsChain, i % 2 == 0 ? integer() : decimal());
+				rhsChain = operation.create(integer(), rhsChain);
+			}
+
+			Assert.assertSame(Type.DECIMAL, lhsChain.getType());
+			Assert.assertSame(Type.INTEGER, rhsChain.getType());
+		}
+	}
+
+	private static ExpressionNode integer() {
+		return new IntegerNode(1L, TOKEN);
+	}
+
+	private static ExpressionNode decimal() {
+		return new DecimalNode(BigDecimal.ONE, TOKEN);
+	}
+}
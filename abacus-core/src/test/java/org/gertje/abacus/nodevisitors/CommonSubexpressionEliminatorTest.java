@@ -0,0 +1,117 @@
+package org.gertje.abacus.nodevisitors;
+
+import org.gertje.abacus.context.AbacusContext;
+import org.gertje.abacus.context.SimpleAbacusContext;
+import org.gertje.abacus.functions.RandFunction;
+import org.gertje.abacus.lexer.AbacusLexer;
+import org.gertje.abacus.nodes.AbacusNodeFactory;
+import org.gertje.abacus.nodes.AssignmentNode;
+import org.gertje.abacus.nodes.CommonSubexpressionNode;
+import org.gertje.abacus.nodes.ExpressionNode;
+import org.gertje.abacus.nodes.FunctionNode;
+import org.gertje.abacus.nodes.IfNode;
+import org.gertje.abacus.nodes.MultiplyNode;
+import org.gertje.abacus.nodes.Node;
+import org.gertje.abacus.nodes.NodeFactory;
+import org.gertje.abacus.nodes.StatementListNode;
+import org.gertje.abacus.nodes.SumNode;
+import org.gertje.abacus.parser.Parser;
+import org.gertje.abacus.symboltable.SimpleSymbolTable;
+import org.gertje.abacus.symboltable.Variable;
+import org.gertje.abacus.types.Type;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the {@link CommonSubexpressionEliminator}.
+ */
+public class CommonSubexpressionEliminatorTest {
+
+	@Test
+	public void testRepeatedSubexpressionIsShared() throws Exception {
+		SimpleSymbolTable sym = createSymbolTable();
+		IfNode node = (IfNode) eliminate("x > 0 ? x * rate + fee : (x * rate + fee) * (x * rate + fee)", sym);
+
+		CommonSubexpressionNode ifBody = (CommonSubexpressionNode) node.getIfBody();
+		MultiplyNode elseBody = (MultiplyNode) node.getElseBody();
+		Assert.assertSame(ifBody, elseBody.getLhs());
+		Assert.assertSame(ifBody, elseBody.getRhs());
+
+		// The subexpressions of the shared subexpression are not shared again.
+		SumNode sum = (SumNode) ifBody.getExpression();
+		Assert.assertTrue(sum.getLhs() instanceof MultiplyNode);
+
+		Assert.assertEquals(Long.valueOf(17L), new Evaluator(new SimpleAbacusContext(sym)).evaluate(node));
+	}
+
+	@Test
+	public void testImpureFunctionIsNotShared() throws Exception {
+		SumNode node = (SumNode) eliminate("rand() + rand()", createSymbolTable());
+
+		Assert.assertTrue(node.getLhs() instanceof FunctionNode);
+		Assert.assertTrue(node.getRhs() instanceof FunctionNode);
+		Assert.assertNotSame(node.getLhs(), node.getRhs());
+	}
+
+	@Test
+	public void testSubexpressionWithAssignedVariableIsNotShared() throws Exception {
+		AssignmentNode node = (AssignmentNode) eliminate("x = x * 2 + x * 2", createSymbolTable());
+
+		SumNode sum = (SumNode) node.getRhs();
+		Assert.assertTrue(sum.getLhs() instanceof MultiplyNode);
+		Assert.assertTrue(sum.getRhs() instanceof MultiplyNode);
+	}
+
+	@Test
+	public void testStatementsAreHandledSeparately() throws Exception {
+		StatementListNode node = (StatementListNode) eliminate("fee = x * rate; x * rate + fee", createSymbolTable());
+
+		Assert.assertTrue(((AssignmentNode) node.get(0)).getRhs() instanceof MultiplyNode);
+		Assert.assertTrue(((SumNode) node.get(1)).getLhs() instanceof MultiplyNode);
+	}
+
+	@Test
+	public void testReusedEvaluatorComputesSubexpressionsAgain() throws Exception {
+		SimpleSymbolTable sym = createSymbolTable();
+		ExpressionNode longNode = (ExpressionNode) eliminate("(x * x + 1) - (x * x + 1) + x * x", sym);
+		ExpressionNode booleanNode = (ExpressionNode) eliminate("(x * x + 1) - (x * x + 1) + x * x == 9", sym);
+		ExpressionEvaluator evaluator = new ExpressionEvaluator(new SimpleAbacusContext(sym));
+
+		Assert.assertEquals(9L, evaluator.evaluateLong(longNode));
+		Assert.assertTrue(evaluator.evaluateBoolean(booleanNode));
+		Assert.assertEquals(Long.valueOf(9L), evaluator.evaluate(longNode));
+
+		sym.setVariableValue("x", 4L);
+		Assert.assertEquals(16L, evaluator.evaluateLong(longNode));
+		Assert.assertFalse(evaluator.evaluateBoolean(booleanNode));
+		Assert.assertEquals(Long.valueOf(16L), evaluator.evaluate(longNode));
+	}
+
+	/**
+	 * Creates a symbol table with the variables x = 3, rate = 5 and fee = 2.
+	 */
+	private static SimpleSymbolTable createSymbolTable() throws Exception {
+		SimpleSymbolTable sym = new SimpleSymbolTable();
+		sym.addVariable(new Variable("x", Type.INTEGER));
+		sym.addVariable(new Variable("rate", Type.INTEGER));
+		sym.addVariable(new Variable("fee", Type.INTEGER));
+		sym.setVariableValue("x", 3L);
+		sym.setVariableValue("rate", 5L);
+		sym.setVariableValue("fee", 2L);
+		sym.registerFunction(new RandFunction());
+		return sym;
+	}
+
+	/**
+	 * Parses, checks and simplifies the expression and eliminates its common subexpressions.
+	 */
+	private static Node eliminate(String expression, SimpleSymbolTable sym) throws Exception {
+		NodeFactory nodeFactory = new AbacusNodeFactory();
+		AbacusContext abacusContext = new SimpleAbacusContext(sym);
+
+		Node node = new Parser(new AbacusLexer(expression), nodeFactory).parse();
+		new SemanticsChecker(sym).check(node);
+		node = new Simplifier(abacusContext, nodeFactory).simplify(node);
+		return new CommonSubexpressionEliminator(abacusContext, nodeFactory).eliminate(node);
+	}
+}
@@ -0,0 +1,203 @@
+package org.gertje.abacus.nodevisitors;
+
+import org.gertje.abacus.context.AbacusContext;
+import org.gertje.abacus.context.SimpleAbacusContext;
+import org.gertje.abacus.functions.AbstractFunction;
+import org.gertje.abacus.functions.PureFunction;
+import org.gertje.abacus.functions.RandFunction;
+import org.gertje.abacus.lexer.AbacusLexer;
+import org.gertje.abacus.nodes.AbacusNodeFactory;
+import org.gertje.abacus.nodes.AndNode;
+import org.gertje.abacus.nodes.ExpressionNode;
+import org.gertje.abacus.nodes.FunctionNode;
+import org.gertje.abacus.nodes.GtNode;
+import org.gertje.abacus.nodes.IfNode;
+import org.gertje.abacus.nodes.IntegerNode;
+import org.gertje.abacus.nodes.MultiplyNode;
+import org.gertje.abacus.nodes.Node;
+import org.gertje.abacus.nodes.NodeFactory;
+import org.gertje.abacus.nodes.NotNode;
+import org.gertje.abacus.nodes.OrNode;
+import org.gertje.abacus.nodes.PowerNode;
+import org.gertje.abacus.nodes.SumNode;
+import org.gertje.abacus.nodes.VariableNode;
+import org.gertje.abacus.parser.Parser;
+import org.gertje.abacus.symboltable.SimpleSymbolTable;
+import org.gertje.abacus.symboltable.Variable;
+import org.gertje.abacus.types.Type;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests the simplification of calls to functions and the rewrite rules of the {@link ExpressionSimplifier}.
+ */
+public class ExpressionSimplifierTest {
+
+	@Test
+	public void testPureFunctionWithConstantParametersIsFolded() throws Exception {
+		MultiplyNode node = (MultiplyNode) simplify("square(1 + 2) * x");
+
+		Assert.assertTrue(node.getLhs() instanceof IntegerNode);
+		Assert.assertEquals(Long.valueOf(9L), ((IntegerNode) node.getLhs()).getValue());
+	}
+
+	@Test
+	public void testPureFunctionWithVariableParameterIsNotFolded() throws Exception {
+		FunctionNode node = (FunctionNode) simplify("square(x * (1 + 2))");
+
+		// The constant part of the parameter is simplified.
+		MultiplyNode parameter = (MultiplyNode) node.getParameters().get(0);
+		Assert.assertEquals(Long.valueOf(3L), ((IntegerNode) parameter.getRhs()).getValue());
+	}
+
+	@Test
+	public void testImpureFunctionIsNotFolded() throws Exception {
+		Assert.assertTrue(simplify("rand()") instanceof FunctionNode);
+	}
+
+	@Test
+	public void testIntegerIdentitiesAreRemoved() throws Exception {
+		Assert.assertTrue(simplify("(x + 0) * 1 - 0") instanceof VariableNode);
+		Assert.assertTrue(simplify("0 + 1 * x") instanceof VariableNode);
+		Assert.assertTrue(simplify("(x / 1) ^ 1") instanceof VariableNode);
+	}
+
+	@Test
+	public void testDecimalIdentityIsNotRemoved() throws Exception {
+		Assert.assertTrue(simplify("d + 0.0") instanceof SumNode);
+	}
+
+	@Test
+	public void testSmallPowerIsRewrittenIntoMultiplications() throws Exception {
+		MultiplyNode node = (MultiplyNode) simplify("x ^ 3");
+
+		Assert.assertTrue(node.getLhs() instanceof MultiplyNode);
+		Assert.assertTrue(node.getRhs() instanceof VariableNode);
+
+		Assert.assertTrue(simplify("x ^ 4") instanceof PowerNode);
+		Assert.assertTrue(simplify("(x + 1) ^ 2") instanceof PowerNode);
+	}
+
+	@Test
+	public void testBooleanRulesAreApplied() throws Exception {
+		Assert.assertTrue(simplify("!(!b)") instanceof VariableNode);
+		Assert.assertTrue(simplify("b && b") instanceof VariableNode);
+		Assert.assertTrue(simplify("b || (x > 1 && b)") instanceof VariableNode);
+		Assert.assertTrue(simplify("(b || x > 1) && b") instanceof VariableNode);
+	}
+
+	@Test
+	public void testAbsorptionKeepsOperandThatCanThrow() throws Exception {
+		Assert.assertTrue(simplify("b && (b || (1 / x > 0))") instanceof AndNode);
+		Assert.assertTrue(simplify("b || (b && (x % 2 == 0))") instanceof OrNode);
+		Assert.assertTrue(simplify("b && (b || (x ^ x > 0))") instanceof AndNode);
+		Assert.assertTrue(simplify("b && (b || rand() > 1)") instanceof AndNode);
+
+		// When b is null the evaluator still evaluates the other operand, which throws.
+		SimpleSymbolTable sym = createSymbolTable();
+		sym.setVariableValue("x", 0L);
+		AbacusContext abacusContext = new SimpleAbacusContext(sym);
+		try {
+			new Evaluator(abacusContext).evaluate(simplify("b && (b || (1 / x > 0))"));
+			Assert.fail("Expected an ArithmeticException.");
+		} catch (ArithmeticException e) {
+			// Expected.
+		}
+	}
+
+	@Test
+	public void testIfsAreSimplified() throws Exception {
+		Assert.assertTrue(simplify("x > 1 ? true : false") instanceof GtNode);
+		Assert.assertTrue(simplify("x > 1 ? false : true") instanceof NotNode);
+
+		IfNode node = (IfNode) simplify("b ? (b ? x : x + 1) : (b ? x + 2 : x + 3)");
+		Assert.assertTrue(node.getIfBody() instanceof VariableNode);
+		Assert.assertTrue(node.getElseBody() instanceof SumNode);
+		Assert.assertEquals(Long.valueOf(3L), ((IntegerNode) ((SumNode) node.getElseBody()).getRhs()).getValue());
+	}
+
+	@Test
+	public void testCommonSubexpressionIsSimplifiedOnce() throws Exception {
+		SimpleSymbolTable sym = createSymbolTable();
+		NodeFactory nodeFactory = new AbacusNodeFactory();
+		AbacusContext abacusContext = new SimpleAbacusContext(sym);
+
+		Node node = new Parser(new AbacusLexer("x * 2 + x * 2"), nodeFactory).parse();
+		new SemanticsChecker(sym).check(node);
+		node = new Simplifier(abacusContext, nodeFactory).simplify(node);
+		SumNode sum = (SumNode) new CommonSubexpressionEliminator(abacusContext, nodeFactory).eliminate(node);
+
+		// Count the multiplications the rules are applied to.
+		final List<ExpressionNode> multiplications = new ArrayList<>();
+		RewriteRule countingRule = new RewriteRule() {
+			@Override
+			public ExpressionNode rewrite(ExpressionNode node) {
+				if (node instanceof MultiplyNode) {
+					multiplications.add(node);
+				}
+				return null;
+			}
+		};
+		sum = (SumNode) new ExpressionSimplifier(abacusContext, nodeFactory, Collections.singletonList(countingRule))
+				.simplify(sum);
+
+		Assert.assertSame(sum.getLhs(), sum.getRhs());
+		Assert.assertEquals(1, multiplications.size());
+	}
+
+	/**
+	 * Parses, checks and simplifies the expression.
+	 */
+	private static Node simplify(String expression) throws Exception {
+		SimpleSymbolTable sym = createSymbolTable();
+		NodeFactory nodeFactory = new AbacusNodeFactory();
+		AbacusContext abacusContext = new SimpleAbacusContext(sym);
+
+		Node node = new Parser(new AbacusLexer(expression), nodeFactory).parse();
+		new SemanticsChecker(sym).check(node);
+		return new Simplifier(abacusContext, nodeFactory).simplify(node);
+	}
+
+	/**
+	 * Creates a symbol table with the variables x, d and b, and the functions square and rand.
+	 */
+	private static SimpleSymbolTable createSymbolTable() {
+		SimpleSymbolTable sym = new SimpleSymbolTable();
+		sym.addVariable(new Variable("x", Type.INTEGER));
+		sym.addVariable(new Variable("d", Type.DECIMAL));
+		sym.addVariable(new Variable("b", Type.BOOLEAN));
+		sym.registerFunction(new SquareFunction());
+		sym.registerFunction(new RandFunction());
+		return sym;
+	}
+
+	/**
+	 * Pure function that squares an integer.
+	 */
+	private static class SquareFunction extends AbstractFunction implements PureFunction {
+
+		public SquareFunction() {
+			super(Collections.singletonList(Type.INTEGER), false);
+		}
+
+		@Override
+		public Object evaluate(List<Object> params) {
+			Long value = (Long) params.get(0);
+			return value == null ? null : value * value;
+		}
+
+		@Override
+		public Type getReturnType() {
+			return Type.INTEGER;
+		}
+
+		@Override
+		public String getName() {
+			return "square";
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package org.gertje.abacus.parser;
+
+import org.gertje.abacus.lexer.CharSequenceLexer;
+import org.gertje.abacus.nodes.AbacusNodeFactory;
+import org.gertje.abacus.nodes.AssignmentNode;
+import org.gertje.abacus.nodes.Node;
+import org.gertje.abacus.nodes.NodeFactory;
+import org.gertje.abacus.nodes.RootNode;
+import org.gertje.abacus.nodes.StatementListNode;
+import org.gertje.abacus.nodevisitors.PrettyPrinter;
+import org.gertje.abacus.token.Token;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the {@link IncrementalParser}.
+ */
+public class IncrementalParserTest {
+
+	private static final String INPUT = "a = 1;\nb = a + 2;\nc = b * 3; d = c";
+
+	@Test
+	public void testOnlyTouchedStatementIsParsed() throws Exception {
+		IncrementalParser parser = new IncrementalParser(new AbacusNodeFactory());
+		StatementListNode before = parser.parse(INPUT).getStatementListNode();
+
+		// Replace the 2 by 20.
+		RootNode rootNode = parser.reparse(15, 1, "20");
+		StatementListNode after = rootNode.getStatementListNode();
+
+		Assert.assertEquals(1, parser.getReparsedStatements().size());
+		Assert.assertSame(before.get(0), after.get(0));
+		Assert.assertNotSame(before.get(1), after.get(1));
+		Assert.assertSame(before.get(2), after.get(2));
+		Assert.assertSame(before.get(3), after.get(3));
+
+		// The tokens after the edit are moved.
+		Token token = ((AssignmentNode) after.get(2)).getToken();
+		Assert.assertEquals(21, token.getOffset());
+		Assert.assertEquals(3, token.getLineNumber());
+		Assert.assertEquals(3, token.getColumnNumber());
+		assertEqualToFullParse(parser, rootNode);
+	}
+
+	@Test
+	public void testStatementsOnTheLineOfTheEditAreParsed() throws Exception {
+		IncrementalParser parser = new IncrementalParser(new AbacusNodeFactory());
+		StatementListNode before = parser.parse(INPUT).getStatementListNode();
+
+		// Insert a new line in the third statement; the column of the fourth statement changes.
+		RootNode rootNode = parser.reparse(22, 0, "\n");
+		StatementListNode after = rootNode.getStatementListNode();
+
+		Assert.assertEquals(2, parser.getReparsedStatements().size());
+		Assert.assertSame(before.get(1), after.get(1));
+		assertEqualToFullParse(parser, rootNode);
+	}
+
+	@Test
+	public void testColumnOfReusedStatementIsMoved() throws Exception {
+		IncrementalParser parser = new IncrementalParser(new AbacusNodeFactory());
+		parser.parse("a = 1;\nf(1, 2);");
+
+		// The second statement is reused; it starts at a later column, but its tokens are on the next line.
+		RootNode rootNode = parser.reparse(2, 0, " ");
+		Assert.assertEquals(1, parser.getReparsedStatements().size());
+		assertEqualToFullParse(parser, rootNode);
+
+		// Join the lines; the lexer starts at the new column of the second statement.
+		assertEqualToFullParse(parser, parser.reparse(7, 2, "a"));
+		Assert.assertEquals("a  = 1;a(1, 2);", parser.getInput());
+	}
+
+	@Test
+	public void testEditsThatChangeStatements() throws Exception {
+		IncrementalParser parser = new IncrementalParser(new AbacusNodeFactory());
+		parser.parse(INPUT);
+
+		// Split the second statement.
+		RootNode rootNode = parser.reparse(13, 0, "; e = 5 +");
+		Assert.assertEquals(5, rootNode.getStatementListNode().size());
+		assertEqualToFullParse(parser, rootNode);
+
+		// Join the first two statements by removing the semicolon and the new line.
+		assertEqualToFullParse(parser, parser.reparse(5, 2, " + "));
+
+		// Add lines before all statements.
+		assertEqualToFullParse(parser, parser.reparse(0, 0, "\n\nx = 0;"));
+
+		// Append a statement.
+		assertEqualToFullParse(parser, parser.reparse(parser.getInput().length(), 0, ";\nf = 6"));
+	}
+
+	@Test
+	public void testInputIsParsedAgainAfterError() throws Exception {
+		IncrementalParser parser = new IncrementalParser(new AbacusNodeFactory());
+		parser.parse(INPUT);
+
+		try {
+			parser.reparse(15, 1, "*");
+			Assert.fail("Expected a ParserException.");
+		} catch (ParserException e) {
+			// The input is changed anyway.
+			Assert.assertEquals("a = 1;\nb = a + *;\nc = b * 3; d = c", parser.getInput());
+		}
+
+		RootNode rootNode = parser.reparse(15, 1, "4");
+		Assert.assertEquals(4, parser.getReparsedStatements().size());
+		assertEqualToFullParse(parser, rootNode);
+	}
+
+	/**
+	 * Asserts that the statements and the positions of their tokens are equal to the statements of a full parse.
+	 */
+	private static void assertEqualToFullParse(IncrementalParser parser, RootNode actual) throws Exception {
+		NodeFactory nodeFactory = new AbacusNodeFactory();
+		CharSequenceLexer lexer = new CharSequenceLexer(parser.getInput());
+		lexer.setSkipTrivia(true);
+		RootNode expected = new Parser(lexer, nodeFactory).parse();
+
+		StatementListNode expectedStatements = expected.getStatementListNode();
+		StatementListNode actualStatements = actual.getStatementListNode();
+		Assert.assertEquals(expectedStatements.size(), actualStatements.size());
+		for (int i = 0; i < expectedStatements.size(); i++) {
+			Node expectedStatement = expectedStatements.get(i);
+			Node actualStatement = actualStatements.get(i);
+			Assert.assertEquals(PrettyPrinter.print(expectedStatement), PrettyPrinter.print(actualStatement));
+			assertSamePosition(expectedStatement.getToken(), actualStatement.getToken());
+		}
+	}
+
+	private static void assertSamePosition(Token expected, Token actual) {
+		Assert.assertEquals(expected.getOffset(), actual.getOffset());
+		Assert.assertEquals(expected.getLineNumber(), actual.getLineNumber());
+		Assert.assertEquals(expected.getColumnNumber(), actual.getColumnNumber());
+	}
+}
@@ -0,0 +1,146 @@
+package org.gertje.abacus.parser;
+
+import org.gertje.abacus.context.SimpleAbacusContext;
+import org.gertje.abacus.lexer.AbacusLexer;
+import org.gertje.abacus.lexer.CharSequenceLexer;
+import org.gertje.abacus.lexer.io.LexerReader;
+import org.gertje.abacus.nodes.AbacusNodeFactory;
+import org.gertje.abacus.nodes.AddNode;
+import org.gertje.abacus.nodes.AndNode;
+import org.gertje.abacus.nodes.AssignmentNode;
+import org.gertje.abacus.nodes.ExpressionNode;
+import org.gertje.abacus.nodes.IfNode;
+import org.gertje.abacus.nodes.LtNode;
+import org.gertje.abacus.nodes.MultiplyNode;
+import org.gertje.abacus.nodes.NegativeNode;
+import org.gertje.abacus.nodes.OrNode;
+import org.gertje.abacus.nodes.PowerNode;
+import org.gertje.abacus.nodes.SubtractNode;
+import org.gertje.abacus.nodes.VariableNode;
+import org.gertje.abacus.nodevisitors.Evaluator;
+import org.gertje.abacus.nodevisitors.SemanticsChecker;
+import org.gertje.abacus.symboltable.SimpleSymbolTable;
+import org.gertje.abacus.symboltable.Variable;
+import org.gertje.abacus.types.Type;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.Reader;
+
+/**
+ * Tests the precedence and the associativity of the operators and the parsing of statements by the {@link Parser}.
+ */
+public class ParserTest {
+
+	@Test
+	public void testOperatorsArePrecedenceOrdered() throws Exception {
+		OrNode or = (OrNode) parse("a < b + c * d ^ e || f");
+		LtNode lt = (LtNode) or.getLhs();
+		AddNode add = (AddNode) lt.getRhs();
+		MultiplyNode multiply = (MultiplyNode) add.getRhs();
+		Assert.assertTrue(multiply.getRhs() instanceof PowerNode);
+	}
+
+	@Test
+	public void testOperatorsAreAssociative() throws Exception {
+		// Subtraction is left associative.
+		SubtractNode subtract = (SubtractNode) parse("a - b - c");
+		Assert.assertTrue(subtract.getLhs() instanceof SubtractNode);
+
+		// Boolean operators have the same precedence and are left associative.
+		AndNode and = (AndNode) parse("a || b && c");
+		Assert.assertTrue(and.getLhs() instanceof OrNode);
+
+		// Power is right associative and binds weaker than a unary operator.
+		PowerNode power = (PowerNode) parse("-a ^ b ^ c");
+		Assert.assertTrue(power.getLhs() instanceof NegativeNode);
+		Assert.assertTrue(power.getRhs() instanceof PowerNode);
+	}
+
+	@Test
+	public void testElseIfChainIsNestedInElseBody() throws Exception {
+		IfNode outer = (IfNode) parse("a ? b : c ? d : e");
+		IfNode inner = (IfNode) outer.getElseBody();
+		Assert.assertTrue(inner.getElseBody() instanceof VariableNode);
+	}
+
+	@Test
+	public void testLongChainsDoNotOverflowTheStack() throws Exception {
+		StringBuilder sum = new StringBuilder("a");
+		StringBuilder ifs = new StringBuilder();
+		for (int i = 0; i < 50000; i++) {
+			sum.append(" + a");
+			ifs.append("a > ").append(i).append(" ? ").append(i).append(" : ");
+		}
+		ifs.append("0");
+
+		Assert.assertTrue(parse(sum.toString()) instanceof AddNode);
+		Assert.assertTrue(parse(ifs.toString()) instanceof IfNode);
+	}
+
+	@Test
+	public void testStatementsAreParsedOneByOne() throws Exception {
+		final int statementCount = 100000;
+		SimpleSymbolTable sym = new SimpleSymbolTable();
+		sym.addVariable(new Variable("x", Type.INTEGER));
+		sym.setVariableValue("x", 0L);
+
+		Parser parser = new Parser(new AbacusLexer(new LexerReader(new ScriptReader("x = x + 2;\n", statementCount))),
+				new AbacusNodeFactory());
+		SemanticsChecker semanticsChecker = new SemanticsChecker(sym);
+		Evaluator evaluator = new Evaluator(new SimpleAbacusContext(sym));
+
+		int count = 0;
+		ExpressionNode statement;
+		while ((statement = parser.parseNextStatement()) != null) {
+			Assert.assertTrue(statement instanceof AssignmentNode);
+			semanticsChecker.check(statement);
+			evaluator.evaluate(statement);
+			count++;
+		}
+
+		Assert.assertEquals(statementCount, count);
+		Assert.assertEquals(Long.valueOf(2L * statementCount), sym.getVariableValue("x"));
+	}
+
+	private static ExpressionNode parse(String expression) throws Exception {
+		CharSequenceLexer lexer = new CharSequenceLexer(expression);
+		lexer.setSkipTrivia(true);
+		return (ExpressionNode) new Parser(lexer, new AbacusNodeFactory()).parse().getStatementListNode().get(0);
+	}
+
+	/**
+	 * Reader that repeats a statement a number of times, without holding the whole script in memory.
+	 */
+	private static class ScriptReader extends Reader {
+
+		private final String statement;
+		private int remaining;
+		private int index;
+
+		public ScriptReader(String statement, int count) {
+			this.statement = statement;
+			this.remaining = count;
+		}
+
+		@Override
+		public int read(char[] cbuf, int off, int len) {
+			if (remaining == 0) {
+				return -1;
+			}
+			int n = 0;
+			while (n < len && remaining > 0) {
+				cbuf[off + n++] = statement.charAt(index++);
+				if (index == statement.length()) {
+					index = 0;
+					remaining--;
+				}
+			}
+			return n;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package org.gertje.abacus.symboltable;
+
+import org.gertje.abacus.functions.AbstractFunction;
+import org.gertje.abacus.types.Type;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.invoke.SwitchPoint;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests the {@link FunctionRegistry}.
+ */
+public class FunctionRegistryTest {
+
+	@Test
+	public void testOverloads() {
+		FunctionRegistry registry = new FunctionRegistry();
+		ConstantFunction integerFunction = new ConstantFunction(Type.INTEGER, "integer");
+		ConstantFunction decimalFunction = new ConstantFunction(Type.DECIMAL, "decimal");
+		registry.register(integerFunction);
+		registry.register(decimalFunction);
+
+		Assert.assertSame(integerFunction, registry.getFunction("f", Collections.singletonList(Type.INTEGER)));
+		Assert.assertSame(decimalFunction, registry.getFunction("f", Collections.singletonList(Type.DECIMAL)));
+		Assert.assertNull(registry.getFunction("f", Collections.singletonList(Type.STRING)));
+		Assert.assertNull(registry.getFunction("g", Collections.singletonList(Type.INTEGER)));
+	}
+
+	@Test
+	public void testRegisterReplacesAndInvalidates() {
+		FunctionRegistry registry = new FunctionRegistry();
+		registry.register(new ConstantFunction(Type.INTEGER, "old"));
+
+		SwitchPoint switchPoint = registry.getSwitchPoint();
+		Assert.assertFalse(switchPoint.hasBeenInvalidated());
+
+		ConstantFunction replacement = new ConstantFunction(Type.INTEGER, "new");
+		registry.register(replacement);
+
+		Assert.assertTrue(switchPoint.hasBeenInvalidated());
+		Assert.assertFalse(registry.getSwitchPoint().hasBeenInvalidated());
+		Assert.assertSame(replacement, registry.getFunction("f", Collections.singletonList(Type.INTEGER)));
+	}
+
+	/**
+	 * Function {@code f} with a single parameter of the given type, that returns a constant.
+	 */
+	private static class ConstantFunction extends AbstractFunction {
+
+		private final String value;
+
+		public ConstantFunction(Type type, String value) {
+			super(Collections.singletonList(type), false);
+			this.value = value;
+		}
+
+		@Override
+		public Type getReturnType() {
+			return Type.STRING;
+		}
+
+		@Override
+		public String getName() {
+			return "f";
+		}
+
+		@Override
+		public Object evaluate(List<Object> params) {
+			return value;
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package org.gertje.abacus.symboltable;
+
+import org.gertje.abacus.context.SimpleAbacusContext;
+import org.gertje.abacus.lexer.AbacusLexer;
+import org.gertje.abacus.nodes.AbacusNodeFactory;
+import org.gertje.abacus.nodes.ExpressionNode;
+import org.gertje.abacus.nodes.RootNode;
+import org.gertje.abacus.nodevisitors.ExpressionEvaluator;
+import org.gertje.abacus.nodevisitors.SemanticsChecker;
+import org.gertje.abacus.nodevisitors.SlotResolver;
+import org.gertje.abacus.nodevisitors.VisitingException;
+import org.gertje.abacus.parser.Parser;
+import org.gertje.abacus.types.Type;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the {@link SlotSymbolTable}.
+ */
+public class SlotSymbolTableTest {
+
+	@Test
+	public void testFramesShareTheSchema() {
+		SlotSymbolTable sym = new SlotSymbolTable();
+		sym.addVariable(new Variable("x", Type.INTEGER));
+		sym.setVariableValue(0, 1L);
+
+		SlotSymbolTable frame = sym.createFrame();
+		frame.setVariableValue(0, 2L);
+
+		Assert.assertTrue(sym.sharesSchema(frame));
+		Assert.assertTrue(frame.sharesSchema(frame.createFrame()));
+		Assert.assertFalse(sym.sharesSchema(new SlotSymbolTable()));
+		Assert.assertFalse(sym.sharesSchema(null));
+		Assert.assertEquals(1L, sym.getVariableValue(0));
+		Assert.assertEquals(2L, frame.getVariableValue(0));
+	}
+
+	@Test
+	public void testVariableCanNotBeAddedAfterFrameIsCreated() throws Exception {
+		SlotSymbolTable sym = new SlotSymbolTable();
+		sym.addVariable(new Variable("x", Type.INTEGER));
+
+		// Before a frame is created, replacing a variable keeps its slot.
+		sym.addVariable(new Variable("x", Type.DECIMAL));
+		Assert.assertEquals(0, sym.getSlot("x"));
+		SlotSymbolTable frame = sym.createFrame();
+
+		try {
+			sym.addVariable(new Variable("x", Type.INTEGER));
+			Assert.fail("Expected an IllegalStateException.");
+		} catch (IllegalStateException e) {
+			// Expected.
+		}
+		try {
+			sym.addVariable(new Variable("y", Type.INTEGER));
+			Assert.fail("Expected an IllegalStateException.");
+		} catch (IllegalStateException e) {
+			// Expected.
+		}
+		try {
+			frame.addVariable(new Variable("y", Type.INTEGER));
+			Assert.fail("Expected an IllegalStateException.");
+		} catch (IllegalStateException e) {
+			// Expected.
+		}
+
+		Assert.assertEquals(1, sym.getSlotCount());
+		Assert.assertEquals(Type.DECIMAL, frame.getVariableType("x"));
+		Assert.assertFalse(frame.getExistsVariable("y"));
+	}
+
+	@Test
+	public void testExpressionIsBoundToOneSchema() throws Exception {
+		SlotSymbolTable sym = new SlotSymbolTable();
+		sym.addVariable(new Variable("x", Type.INTEGER));
+		ExpressionNode node = parse("x + 1", sym);
+
+		// Resolving again with a frame of the same schema is fine.
+		new SlotResolver(sym.createFrame()).resolve(node);
+
+		SlotSymbolTable other = new SlotSymbolTable();
+		other.addVariable(new Variable("x", Type.INTEGER));
+		try {
+			new SlotResolver(other).resolve(node);
+			Assert.fail("Expected a VisitingException.");
+		} catch (VisitingException e) {
+			// Expected.
+		}
+	}
+
+	@Test
+	public void testVariablesOfOtherSchemaAreAccessedByIdentifier() throws Exception {
+		SlotSymbolTable sym = new SlotSymbolTable();
+		sym.addVariable(new Variable("x", Type.INTEGER));
+		sym.addVariable(new Variable("y", Type.INTEGER));
+
+		ExpressionNode node = parse("y = x - y", sym);
+
+		// The other symbol table has the same variables in other slots.
+		SlotSymbolTable other = new SlotSymbolTable();
+		other.addVariable(new Variable("y", Type.INTEGER));
+		other.addVariable(new Variable("x", Type.INTEGER));
+		other.setVariableValue("x", 5L);
+		other.setVariableValue("y", 2L);
+
+		Assert.assertEquals(Long.valueOf(3L), new ExpressionEvaluator(new SimpleAbacusContext(other)).evaluate(node));
+		Assert.assertEquals(3L, other.getVariableValue("y"));
+		Assert.assertEquals(5L, other.getVariableValue("x"));
+
+		// A frame of the symbol table the expression was resolved with uses the slots.
+		SlotSymbolTable frame = sym.createFrame();
+		frame.setVariableValue("x", 7L);
+		frame.setVariableValue("y", 3L);
+		Assert.assertEquals(Long.valueOf(4L), new ExpressionEvaluator(new SimpleAbacusContext(frame)).evaluate(node));
+		Assert.assertEquals(4L, frame.getVariableValue(1));
+	}
+
+	/**
+	 * Parses and checks the expression and binds its variables to the slots of the symbol table.
+	 */
+	private static ExpressionNode parse(String expression, SlotSymbolTable sym) throws Exception {
+		RootNode rootNode = new Parser(new AbacusLexer(expression), new AbacusNodeFactory()).parse();
+		new SemanticsChecker(sym).check(rootNode);
+		new SlotResolver(sym).resolve(rootNode);
+		return (ExpressionNode) rootNode.getStatementListNode().get(0);
+	}
+}
@@ -0,0 +1,43 @@
+package org.gertje.abacus.maven;
+
+import org.gertje.abacus.functions.AbstractFunction;
+import org.gertje.abacus.types.Type;
+
+import java.util.List;
+
+/**
+ * A function of which only the signature is known. It is used to check the expressions at build time; the generated
+ * classes call the implementation of the function in their base class, so the function itself is never evaluated.
+ */
+public class DeclaredFunction extends AbstractFunction {
+
+	private final String name;
+	private final Type returnType;
+
+	/**
+	 * Constructor.
+	 * @param name The name of the function.
+	 * @param returnType The return type of the function.
+	 * @param parameterTypes The types of the parameters of the function.
+	 */
+	public DeclaredFunction(String name, Type returnType, List<Type> parameterTypes) {
+		super(parameterTypes, false);
+		this.name = name;
+		this.returnType = returnType;
+	}
+
+	@Override
+	public Object evaluate(List<Object> params) {
+		throw new UnsupportedOperationException("Function '" + name + "' is only declared, it can not be evaluated.");
+	}
+
+	@Override
+	public Type getReturnType() {
+		return returnType;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+}
@@ -0,0 +1,94 @@
+package org.gertje.abacus.maven;
+
+import org.gertje.abacus.context.AbacusContext;
+import org.gertje.abacus.context.SimpleAbacusContext;
+import org.gertje.abacus.exception.AbacusException;
+import org.gertje.abacus.lexer.CharSequenceLexer;
+import org.gertje.abacus.nodes.AbacusNodeFactory;
+import org.gertje.abacus.nodes.Node;
+import org.gertje.abacus.nodes.NodeFactory;
+import org.gertje.abacus.nodevisitors.CommonSubexpressionEliminator;
+import org.gertje.abacus.nodevisitors.SemanticsChecker;
+import org.gertje.abacus.nodevisitors.Simplifier;
+import org.gertje.abacus.parser.Parser;
+import org.gertje.abacus.symboltable.SymbolTable;
+import org.gertje.abacus.translator.java.nodevisitors.ClassTranslator;
+import org.gertje.abacus.types.Type;
+
+/**
+ * Runs the complete pipeline (lexing, parsing, checking, simplifying, eliminating common subexpressions and
+ * translating) for an expression and returns the byte code of the generated class. The expressions are checked against
+ * a symbol table that only has to declare the variables and the functions; the values are provided by the symbol table
+ * of the context at runtime.
+ *
+ * The generated classes extend the base class, which must provide a method {@code function_<name>} for every function
+ * that is used in the expressions, see {@link ClassTranslator}.
+ */
+public class ExpressionPrecompiler {
+
+	/**
+	 * The symbol table with the declared variables and functions.
+	 */
+	private final SymbolTable symbolTable;
+
+	/**
+	 * The class that is extended by the generated classes.
+	 */
+	private final Class<?> baseClass;
+
+	/**
+	 * Constructor.
+	 * @param symbolTable The symbol table with the declared variables and functions.
+	 * @param baseClass The class that is extended by the generated classes.
+	 */
+	public ExpressionPrecompiler(SymbolTable symbolTable, Class<?> baseClass) {
+		this.symbolTable = symbolTable;
+		this.baseClass = baseClass;
+	}
+
+	/**
+	 * Precompiles the expression.
+	 * @param expression The expression.
+	 * @param className The fully qualified name of the class that is generated.
+	 * @return The byte code of the generated class.
+	 * @throws AbacusException When the expression could not be compiled.
+	 */
+	public byte[] precompile(String expression, String className) throws AbacusException {
+		NodeFactory nodeFactory = new AbacusNodeFactory();
+		AbacusContext abacusContext = new SimpleAbacusContext(symbolTable);
+
+		CharSequenceLexer lexer = new CharSequenceLexer(expression);
+		lexer.setSkipTrivia(true);
+		Node node = new Parser(lexer, nodeFactory).parse();
+		new SemanticsChecker(symbolTable).check(node);
+		node = new Simplifier(abacusContext, nodeFactory).simplify(node);
+		node = new CommonSubexpressionEliminator(abacusContext, nodeFactory).eliminate(node);
+
+		return new ClassTranslator(abacusContext).translate(node, baseClass, className);
+	}
+
+	/**
+	 * Parses a type, which is the name of a {@link Type.BaseType} followed by a {@code []} for every dimension.
+	 * @param type The type, for instance {@code DECIMAL} or {@code INTEGER[]}.
+	 * @return The type.
+	 * @throws IllegalArgumentException When the type is not valid.
+	 */
+	public static Type parseType(String type) {
+		if (type == null) {
+			throw new IllegalArgumentException("The type is missing.");
+		}
+
+		String baseType = type.trim();
+		int dimensionality = 0;
+		while (baseType.endsWith("[]")) {
+			baseType = baseType.substring(0, baseType.length() - 2).trim();
+			dimensionality++;
+		}
+
+		try {
+			return Type.get(Type.BaseType.valueOf(baseType.toUpperCase()), dimensionality);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown type '" + type + "'.", e);
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package org.gertje.abacus.maven;
+
+import java.util.List;
+
+/**
+ * The declaration of a function in the configuration of the {@link PrecompileMojo}:
+ *
+ *     <function>
+ *         <name>round</name>
+ *         <returnType>DECIMAL</returnType>
+ *         <parameterTypes>
+ *             <parameterType>DECIMAL</parameterType>
+ *             <parameterType>INTEGER</parameterType>
+ *         </parameterTypes>
+ *     </function>
+ *
+ * The types have the same format as the type of a {@link VariableDeclaration}.
+ */
+public class FunctionDeclaration {
+
+	private String name;
+	private String returnType;
+	private List<String> parameterTypes;
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getReturnType() {
+		return returnType;
+	}
+
+	public void setReturnType(String returnType) {
+		this.returnType = returnType;
+	}
+
+	public List<String> getParameterTypes() {
+		return parameterTypes;
+	}
+
+	public void setParameterTypes(List<String> parameterTypes) {
+		this.parameterTypes = parameterTypes;
+	}
+}
@@ -0,0 +1,111 @@
+package org.gertje.abacus.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Records what the {@link PrecompileMojo} generated in the previous build: the fingerprint of the configuration the
+ * classes were generated with and the class files that were generated. When the fingerprint changes all expressions are
+ * precompiled again, and class files that are no longer generated (because their expression file was deleted or
+ * renamed) are deleted.
+ */
+class PrecompileMarker {
+
+	private static final String FINGERPRINT = "fingerprint";
+	private static final String CLASS_FILES = "classFiles";
+
+	/**
+	 * The separator between the class files.
+	 */
+	private static final String SEPARATOR = ",";
+
+	/**
+	 * The fingerprint of the configuration.
+	 */
+	private final String fingerprint;
+
+	/**
+	 * The paths of the class files, relative to the output directory.
+	 */
+	private final Set<String> classFiles;
+
+	/**
+	 * Constructor.
+	 * @param fingerprint The fingerprint of the configuration.
+	 * @param classFiles The paths of the class files, relative to the output directory.
+	 */
+	public PrecompileMarker(String fingerprint, Set<String> classFiles) {
+		this.fingerprint = fingerprint;
+		this.classFiles = Collections.unmodifiableSet(new TreeSet<>(classFiles));
+	}
+
+	/**
+	 * Reads the marker from the file.
+	 * @param file The file.
+	 * @return The marker, or {@code null} when the file does not exist or is not a marker.
+	 * @throws IOException When the file could not be read.
+	 */
+	public static PrecompileMarker read(File file) throws IOException {
+		if (!file.isFile()) {
+			return null;
+		}
+
+		Properties properties = new Properties();
+		try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+			properties.load(inputStream);
+		}
+
+		String fingerprint = properties.getProperty(FINGERPRINT);
+		String classFiles = properties.getProperty(CLASS_FILES);
+		if (fingerprint == null || classFiles == null) {
+			return null;
+		}
+
+		Set<String> paths = new TreeSet<>();
+		for (String path : classFiles.split(SEPARATOR)) {
+			if (!path.isEmpty()) {
+				paths.add(path);
+			}
+		}
+		return new PrecompileMarker(fingerprint, paths);
+	}
+
+	/**
+	 * Writes the marker to the file.
+	 * @param file The file.
+	 * @throws IOException When the file could not be written.
+	 */
+	public void write(File file) throws IOException {
+		StringBuilder paths = new StringBuilder();
+		for (String path : classFiles) {
+			if (paths.length() > 0) {
+				paths.append(SEPARATOR);
+			}
+			paths.append(path);
+		}
+
+		Properties properties = new Properties();
+		properties.setProperty(FINGERPRINT, fingerprint);
+		properties.setProperty(CLASS_FILES, paths.toString());
+
+		Files.createDirectories(file.getParentFile().toPath());
+		try (OutputStream outputStream = Files.newOutputStream(file.toPath())) {
+			properties.store(outputStream, "Generated by the abacus-maven-plugin, do not edit.");
+		}
+	}
+
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	public Set<String> getClassFiles() {
+		return classFiles;
+	}
+}
@@ -0,0 +1,376 @@
+package org.gertje.abacus.maven;
+
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+import org.gertje.abacus.exception.AbacusException;
+import org.gertje.abacus.symboltable.SimpleSymbolTable;
+import org.gertje.abacus.symboltable.Variable;
+import org.gertje.abacus.translator.java.cache.DiskClassCache;
+import org.gertje.abacus.types.Type;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Precompiles the expression files of the project into classes.
+ *
+ * Every file in the source directory with the given extension contains one expression (or a list of statements). The
+ * expression is checked against the declared variables and functions, simplified and translated by the
+ * {@link org.gertje.abacus.translator.java.nodevisitors.ClassTranslator}. The class is named after the file, in the
+ * configured package plus the sub directory of the file; {@code rules/risk-score.abacus} in package {@code com.example}
+ * becomes {@code com.example.rules.RiskScore}. The class files are written to the output directory, so they are
+ * packaged with the classes of the project.
+ *
+ * A file whose class file is newer than the file is not precompiled again, unless the configuration changed: the
+ * {@link PrecompileMarker} keeps a fingerprint of the declarations, the base class and the version of the plugin, and
+ * all files are precompiled again when it differs. The marker also lists the generated class files, so the class of
+ * an expression file that was deleted or renamed is deleted as well.
+ *
+ * At runtime the generated class is instantiated like any other class, after which its
+ * {@link org.gertje.abacus.translator.java.runtime.AbacusWrapper#setAbacusContext} must be called with a context
+ * whose symbol table holds the values of the declared variables.
+ */
+@Mojo(name = "precompile", defaultPhase = LifecyclePhase.PROCESS_CLASSES,
+		requiresDependencyResolution = ResolutionScope.COMPILE, threadSafe = true)
+public class PrecompileMojo extends AbstractMojo {
+
+	@Parameter(defaultValue = "${project}", readonly = true, required = true)
+	private MavenProject project;
+
+	/**
+	 * The directory with the expression files.
+	 */
+	@Parameter(defaultValue = "${project.basedir}/src/main/abacus", required = true)
+	private File sourceDirectory;
+
+	/**
+	 * The extension of the expression files.
+	 */
+	@Parameter(defaultValue = "abacus", required = true)
+	private String extension;
+
+	/**
+	 * The encoding of the expression files.
+	 */
+	@Parameter(defaultValue = "${project.build.sourceEncoding}")
+	private String encoding;
+
+	/**
+	 * The directory the class files are written to.
+	 */
+	@Parameter(defaultValue = "${project.build.outputDirectory}", required = true)
+	private File outputDirectory;
+
+	/**
+	 * The package of the generated classes.
+	 */
+	@Parameter(required = true)
+	private String packageName;
+
+	/**
+	 * The class that is extended by the generated classes. The class is loaded from the compile class path of the
+	 * project and must provide a method {@code function_<name>} for every declared function.
+	 */
+	@Parameter(defaultValue = "org.gertje.abacus.translator.java.runtime.AbacusWrapper", required = true)
+	private String baseClass;
+
+	/**
+	 * The variables the expressions may refer to.
+	 */
+	@Parameter
+	private List<VariableDeclaration> variables;
+
+	/**
+	 * The functions the expressions may call.
+	 */
+	@Parameter
+	private List<FunctionDeclaration> functions;
+
+	/**
+	 * The file that records the configuration and the class files of the previous build, see {@link PrecompileMarker}.
+	 */
+	@Parameter(defaultValue = "${project.build.directory}/abacus/precompile.properties", required = true)
+	private File markerFile;
+
+	@Parameter(defaultValue = "${plugin.version}", readonly = true)
+	private String pluginVersion;
+
+	@Override
+	public void execute() throws MojoExecutionException, MojoFailureException {
+		if (!sourceDirectory.isDirectory()) {
+			getLog().info("No expressions to precompile, " + sourceDirectory + " does not exist.");
+			return;
+		}
+
+		Charset charset = encoding != null ? Charset.forName(encoding) : Charset.defaultCharset();
+
+		PrecompileMarker previousMarker;
+		try {
+			previousMarker = PrecompileMarker.read(markerFile);
+		} catch (IOException e) {
+			throw new MojoExecutionException("Could not read " + markerFile + ".", e);
+		}
+
+		int count;
+		PrecompileMarker marker;
+		try (URLClassLoader classLoader = createProjectClassLoader()) {
+			Class<?> loadedBaseClass = loadBaseClass(classLoader);
+			String fingerprint = determineFingerprint(pluginVersion, packageName, charset, loadedBaseClass, variables,
+					functions);
+			boolean changed = previousMarker == null || !fingerprint.equals(previousMarker.getFingerprint());
+			if (changed) {
+				getLog().info("The configuration changed, precompiling all expressions.");
+			}
+
+			ExpressionPrecompiler precompiler = new ExpressionPrecompiler(createSymbolTable(), loadedBaseClass);
+			Set<String> classFiles = new TreeSet<>();
+			count = precompileDirectory(precompiler, charset, sourceDirectory, packageName, changed, classFiles);
+			marker = new PrecompileMarker(fingerprint, classFiles);
+		} catch (IOException e) {
+			throw new MojoExecutionException("Could not close the class loader of the project.", e);
+		}
+
+		if (previousMarker != null) {
+			deleteOrphans(previousMarker, marker);
+		}
+		try {
+			marker.write(markerFile);
+		} catch (IOException e) {
+			throw new MojoExecutionException("Could not write " + markerFile + ".", e);
+		}
+		getLog().info("Precompiled " + count + " expression(s) to " + outputDirectory + ".");
+	}
+
+	/**
+	 * Deletes the class files that were generated by the previous build but not by this one, because their expression
+	 * file was deleted or renamed.
+	 */
+	private void deleteOrphans(PrecompileMarker previousMarker, PrecompileMarker marker)
+			throws MojoExecutionException {
+		for (String classFile : previousMarker.getClassFiles()) {
+			if (marker.getClassFiles().contains(classFile)) {
+				continue;
+			}
+			try {
+				if (Files.deleteIfExists(new File(outputDirectory, classFile).toPath())) {
+					getLog().debug("Deleted " + classFile + ", its expression file no longer exists.");
+				}
+			} catch (IOException e) {
+				throw new MojoExecutionException("Could not delete " + classFile + ".", e);
+			}
+		}
+	}
+
+	/**
+	 * Determines the fingerprint of everything besides the expression files that determines the generated classes:
+	 * the version of the plugin, the package, the encoding, the public methods of the base class and the declared
+	 * variables and functions.
+	 * @return The SHA-256 hash of the configuration, in hexadecimal notation.
+	 */
+	static String determineFingerprint(String pluginVersion, String packageName, Charset charset, Class<?> baseClass,
+			List<VariableDeclaration> variables, List<FunctionDeclaration> functions) {
+		StringBuilder configuration = new StringBuilder();
+		configuration.append(pluginVersion).append('\n').append(packageName).append('\n').append(charset.name())
+				.append('\n').append(baseClass.getName()).append('\n');
+
+		// The translator calls the methods of the base class directly, sort them since their order is not defined.
+		Set<String> methods = new TreeSet<>();
+		for (Method method : baseClass.getMethods()) {
+			methods.add(method.toGenericString());
+		}
+		for (String method : methods) {
+			configuration.append(method).append('\n');
+		}
+
+		if (variables != null) {
+			for (VariableDeclaration variable : variables) {
+				configuration.append("variable ").append(variable.getName()).append(' ').append(variable.getType())
+						.append('\n');
+			}
+		}
+		if (functions != null) {
+			for (FunctionDeclaration function : functions) {
+				configuration.append("function ").append(function.getName()).append(' ')
+						.append(function.getReturnType()).append(' ').append(function.getParameterTypes())
+						.append('\n');
+			}
+		}
+		return DiskClassCache.hash(configuration.toString());
+	}
+
+	/**
+	 * Precompiles the expression files in the directory and its sub directories.
+	 * @param all {@code true} when the files must be precompiled even when their class files are up to date.
+	 * @param classFiles The set the paths of the class files are added to, relative to the output directory.
+	 * @return The number of precompiled files, without the files that are up to date.
+	 */
+	private int precompileDirectory(ExpressionPrecompiler precompiler, Charset charset, File directory,
+			String directoryPackageName, boolean all, Set<String> classFiles)
+			throws MojoExecutionException, MojoFailureException {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			throw new MojoExecutionException("Could not list the files in " + directory + ".");
+		}
+		// Sort the files, so the classes are generated in the same order on every platform.
+		Arrays.sort(files);
+
+		int count = 0;
+		for (File file : files) {
+			if (file.isDirectory()) {
+				count += precompileDirectory(precompiler, charset, file,
+						directoryPackageName + "." + determineIdentifier(file.getName(), false), all, classFiles);
+			} else if (file.getName().endsWith("." + extension)
+					&& precompileFile(precompiler, charset, file, directoryPackageName, all, classFiles)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Precompiles the expression file and writes the class file, unless the class file is up to date.
+	 * @param all {@code true} when the file must be precompiled even when its class file is up to date.
+	 * @param classFiles The set the path of the class file is added to, relative to the output directory.
+	 * @return {@code true} when the file was precompiled, {@code false} when the class file is up to date.
+	 */
+	private boolean precompileFile(ExpressionPrecompiler precompiler, Charset charset, File file,
+			String filePackageName, boolean all, Set<String> classFiles)
+			throws MojoExecutionException, MojoFailureException {
+		String fileName = file.getName();
+		String className = filePackageName + "."
+				+ determineIdentifier(fileName.substring(0, fileName.length() - extension.length() - 1), true);
+
+		String classFilePath = className.replace('.', '/') + ".class";
+		classFiles.add(classFilePath);
+
+		File classFile = new File(outputDirectory, classFilePath);
+		if (!all && isUpToDate(file, classFile)) {
+			getLog().debug(className + " is up to date.");
+			return false;
+		}
+
+		try {
+			String expression = new String(Files.readAllBytes(file.toPath()), charset);
+			byte[] byteCode = precompiler.precompile(expression, className);
+
+			Files.createDirectories(classFile.getParentFile().toPath());
+			Files.write(classFile.toPath(), byteCode);
+		} catch (AbacusException e) {
+			throw new MojoFailureException("Could not precompile " + file + ": " + e.getMessage(), e);
+		} catch (IOException e) {
+			throw new MojoExecutionException("Could not precompile " + file + ".", e);
+		}
+
+		getLog().debug("Precompiled " + file + " to " + className + ".");
+		return true;
+	}
+
+	/**
+	 * Determines whether the class file exists and is newer than the expression file.
+	 */
+	static boolean isUpToDate(File file, File classFile) {
+		return classFile.lastModified() > file.lastModified();
+	}
+
+	/**
+	 * Creates the symbol table with the declared variables and functions.
+	 */
+	private SimpleSymbolTable createSymbolTable() throws MojoFailureException {
+		SimpleSymbolTable symbolTable = new SimpleSymbolTable();
+
+		try {
+			if (variables != null) {
+				for (VariableDeclaration variable : variables) {
+					symbolTable.addVariable(new Variable(variable.getName(),
+							ExpressionPrecompiler.parseType(variable.getType())));
+				}
+			}
+
+			if (functions != null) {
+				for (FunctionDeclaration function : functions) {
+					List<Type> parameterTypes = new ArrayList<>();
+					if (function.getParameterTypes() != null) {
+						for (String parameterType : function.getParameterTypes()) {
+							parameterTypes.add(ExpressionPrecompiler.parseType(parameterType));
+						}
+					}
+					symbolTable.registerFunction(new DeclaredFunction(function.getName(),
+							ExpressionPrecompiler.parseType(function.getReturnType()), parameterTypes));
+				}
+			}
+		} catch (IllegalArgumentException e) {
+			throw new MojoFailureException(e.getMessage(), e);
+		}
+
+		return symbolTable;
+	}
+
+	/**
+	 * Creates a class loader for the compile class path of the project; the caller must close it.
+	 */
+	private URLClassLoader createProjectClassLoader() throws MojoExecutionException {
+		List<URL> urls = new ArrayList<>();
+		try {
+			for (String element : project.getCompileClasspathElements()) {
+				urls.add(new File(element).toURI().toURL());
+			}
+		} catch (DependencyResolutionRequiredException | MalformedURLException e) {
+			throw new MojoExecutionException("Could not determine the class path of the project.", e);
+		}
+
+		// The classes of abacus are loaded by the class loader of the plugin, so the base class extends the same
+		// AbacusWrapper as the translator knows.
+		return new URLClassLoader(urls.toArray(new URL[urls.size()]), getClass().getClassLoader());
+	}
+
+	/**
+	 * Loads the base class from the compile class path of the project.
+	 */
+	private Class<?> loadBaseClass(ClassLoader classLoader) throws MojoFailureException {
+		try {
+			return classLoader.loadClass(baseClass);
+		} catch (ClassNotFoundException e) {
+			throw new MojoFailureException("Could not find the base class " + baseClass + ".", e);
+		}
+	}
+
+	/**
+	 * Turns a file name into a Java identifier, for instance {@code risk-score} into {@code RiskScore} for a class or
+	 * {@code riskscore} for a package.
+	 */
+	static String determineIdentifier(String name, boolean isClass) {
+		StringBuilder identifier = new StringBuilder();
+		boolean capitalize = isClass;
+		for (char c : name.toCharArray()) {
+			if (!Character.isJavaIdentifierPart(c)) {
+				capitalize = isClass;
+				continue;
+			}
+			identifier.append(capitalize ? Character.toUpperCase(c) : isClass ? c : Character.toLowerCase(c));
+			capitalize = false;
+		}
+
+		if (identifier.length() == 0 || !Character.isJavaIdentifierStart(identifier.charAt(0))) {
+			identifier.insert(0, '_');
+		}
+		return identifier.toString();
+	}
+}
@@ -0,0 +1,34 @@
+package org.gertje.abacus.maven;
+
+/**
+ * The declaration of a variable in the configuration of the {@link PrecompileMojo}:
+ *
+ *     <variable>
+ *         <name>amount</name>
+ *         <type>DECIMAL</type>
+ *     </variable>
+ *
+ * The type is the name of a {@link org.gertje.abacus.types.Type.BaseType}, followed by a {@code []} for every
+ * dimension of an array.
+ */
+public class VariableDeclaration {
+
+	private String name;
+	private String type;
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public void setType(String type) {
+		this.type = type;
+	}
+}
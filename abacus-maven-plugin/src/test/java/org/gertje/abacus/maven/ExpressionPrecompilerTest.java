@@ -0,0 +1,147 @@
+package org.gertje.abacus.maven;
+
+import org.gertje.abacus.context.SimpleAbacusContext;
+import org.gertje.abacus.exception.AbacusException;
+import org.gertje.abacus.symboltable.SimpleSymbolTable;
+import org.gertje.abacus.symboltable.Variable;
+import org.gertje.abacus.translator.java.runtime.AbacusWrapper;
+import org.gertje.abacus.types.Type;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tests the {@link ExpressionPrecompiler}.
+ */
+public class ExpressionPrecompilerTest {
+
+	private static final String CLASS_NAME = "org.gertje.abacus.generated.RiskScore";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testPrecompile() throws Exception {
+		SimpleSymbolTable declarations = new SimpleSymbolTable();
+		declarations.addVariable(new Variable("amount", Type.DECIMAL));
+		declarations.addVariable(new Variable("count", Type.INTEGER));
+		declarations.registerFunction(new DeclaredFunction("bonus", Type.DECIMAL,
+				Collections.singletonList(Type.INTEGER)));
+
+		final byte[] byteCode = new ExpressionPrecompiler(declarations, BonusWrapper.class)
+				.precompile("amount * 2 + bonus(count)", CLASS_NAME);
+
+		Class<?> clazz = new SecureClassLoader(getClass().getClassLoader()) {
+			@Override
+			protected Class<?> findClass(String name) throws ClassNotFoundException {
+				return super.defineClass(name, byteCode, 0, byteCode.length);
+			}
+		}.loadClass(CLASS_NAME);
+
+		SimpleSymbolTable values = new SimpleSymbolTable();
+		values.addVariable(new Variable("amount", Type.DECIMAL));
+		values.addVariable(new Variable("count", Type.INTEGER));
+		values.setVariableValue("amount", new BigDecimal("1.5"));
+		values.setVariableValue("count", 4L);
+
+		AbacusWrapper<?> wrapper = (AbacusWrapper<?>) clazz.newInstance();
+		wrapper.setAbacusContext(new SimpleAbacusContext(values));
+
+		Assert.assertEquals(0, new BigDecimal("7").compareTo((BigDecimal) wrapper.f()));
+	}
+
+	@Test(expected = AbacusException.class)
+	public void testUndeclaredVariable() throws Exception {
+		new ExpressionPrecompiler(new SimpleSymbolTable(), AbacusWrapper.class).precompile("a + 1", CLASS_NAME);
+	}
+
+	@Test
+	public void testParseType() {
+		Assert.assertEquals(Type.DECIMAL, ExpressionPrecompiler.parseType("decimal"));
+		Assert.assertEquals(Type.get(Type.BaseType.INTEGER, 2), ExpressionPrecompiler.parseType("INTEGER[][]"));
+	}
+
+	@Test
+	public void testDetermineIdentifier() {
+		Assert.assertEquals("RiskScore", PrecompileMojo.determineIdentifier("risk-score", true));
+		Assert.assertEquals("riskscore", PrecompileMojo.determineIdentifier("Risk-Score", false));
+		Assert.assertEquals("_2020Rules", PrecompileMojo.determineIdentifier("2020 rules", true));
+	}
+
+	@Test
+	public void testIsUpToDate() throws Exception {
+		File file = temporaryFolder.newFile("risk-score.abacus");
+		File classFile = new File(temporaryFolder.getRoot(), "RiskScore.class");
+		Assert.assertFalse(PrecompileMojo.isUpToDate(file, classFile));
+
+		Assert.assertTrue(classFile.createNewFile());
+		Assert.assertTrue(file.setLastModified(1000000L));
+		Assert.assertTrue(classFile.setLastModified(2000000L));
+		Assert.assertTrue(PrecompileMojo.isUpToDate(file, classFile));
+
+		// The file is changed after it was precompiled.
+		Assert.assertTrue(file.setLastModified(3000000L));
+		Assert.assertFalse(PrecompileMojo.isUpToDate(file, classFile));
+	}
+
+	@Test
+	public void testFingerprintChangesWithConfiguration() {
+		Charset charset = StandardCharsets.UTF_8;
+		VariableDeclaration variable = new VariableDeclaration();
+		variable.setName("amount");
+		variable.setType("DECIMAL");
+		List<VariableDeclaration> variables = Collections.singletonList(variable);
+
+		String fingerprint = PrecompileMojo.determineFingerprint("0.3", "com.example", charset, AbacusWrapper.class,
+				variables, null);
+		Assert.assertEquals(fingerprint, PrecompileMojo.determineFingerprint("0.3", "com.example", charset,
+				AbacusWrapper.class, variables, null));
+
+		Assert.assertNotEquals(fingerprint, PrecompileMojo.determineFingerprint("0.4", "com.example", charset,
+				AbacusWrapper.class, variables, null));
+		Assert.assertNotEquals(fingerprint, PrecompileMojo.determineFingerprint("0.3", "com.example", charset,
+				BonusWrapper.class, variables, null));
+
+		variable.setType("INTEGER");
+		Assert.assertNotEquals(fingerprint, PrecompileMojo.determineFingerprint("0.3", "com.example", charset,
+				AbacusWrapper.class, variables, null));
+	}
+
+	@Test
+	public void testMarker() throws Exception {
+		File file = new File(temporaryFolder.getRoot(), "abacus/precompile.properties");
+		Assert.assertNull(PrecompileMarker.read(file));
+
+		Set<String> classFiles = new HashSet<>(Arrays.asList("com/example/RiskScore.class",
+				"com/example/rules/Bonus.class"));
+		new PrecompileMarker("abc", classFiles).write(file);
+
+		PrecompileMarker marker = PrecompileMarker.read(file);
+		Assert.assertEquals("abc", marker.getFingerprint());
+		Assert.assertEquals(classFiles, marker.getClassFiles());
+
+		new PrecompileMarker("def", Collections.<String>emptySet()).write(file);
+		Assert.assertTrue(PrecompileMarker.read(file).getClassFiles().isEmpty());
+	}
+
+	/**
+	 * Base class that implements the declared function.
+	 */
+	public static abstract class BonusWrapper extends AbacusWrapper<BigDecimal> {
+		public BigDecimal function_bonus(Long count) {
+			return BigDecimal.valueOf(count);
+		}
+	}
+}
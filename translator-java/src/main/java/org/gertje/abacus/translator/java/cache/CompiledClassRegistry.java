@@ -0,0 +1,466 @@
+package org.gertje.abacus.translator.java.cache;
+
+import org.gertje.abacus.context.AbacusContext;
+import org.gertje.abacus.nodes.ExpressionNode;
+import org.gertje.abacus.nodes.FunctionNode;
+import org.gertje.abacus.nodes.Node;
+import org.gertje.abacus.nodes.VariableNode;
+import org.gertje.abacus.nodevisitors.DefaultVisitor;
+import org.gertje.abacus.nodevisitors.PrettyPrinter;
+import org.gertje.abacus.nodevisitors.VisitingException;
+import org.gertje.abacus.translator.java.nodevisitors.ClassTranslator;
+import org.gertje.abacus.translator.java.nodevisitors.TranslationException;
+import org.gertje.abacus.translator.java.runtime.AbacusWrapper;
+import org.gertje.abacus.types.Type;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.SecureClassLoader;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Registry of the classes that are generated by the {@link ClassTranslator}.
+ *
+ * The registry translates a checked and simplified AST into a class that extends the given wrapper class, and defines
+ * the class in a pooled class loader; up to {@code classesPerLoader} classes share one loader. Identical expressions
+ * are translated and defined only once. Two ASTs are identical when they print the same, refer to variables and
+ * functions with the same types, and are translated for the same wrapper class.
+ *
+ * The registry holds at most {@code maximumSize} classes; when it is full the least recently used class is evicted.
+ * A class loader is released as soon as it is full and all its classes are evicted, after which the JVM can unload the
+ * loader and its classes once the caller no longer references them or their instances.
+ *
+ * Optionally the registry stores the byte code of the generated classes in a {@link DiskClassCache}, so the classes
+ * do not have to be translated again after a restart of the JVM. The key of a class also contains the wrapper class,
+ * the {@link java.math.MathContext} of the context and the version of abacus, so byte code is not reused for a
+ * different configuration or version. During development, where the version does not change, the disk cache must be
+ * cleared when the translator changes.
+ *
+ * All methods are thread-safe; the translation of a class that is not in the registry happens outside the lock.
+ */
+public class CompiledClassRegistry {
+
+	/**
+	 * The default number of classes that share a class loader.
+	 */
+	public static final int DEFAULT_CLASSES_PER_LOADER = 64;
+
+	/**
+	 * The prefix of the names of the generated classes.
+	 */
+	private static final String CLASS_NAME_PREFIX = "org.gertje.abacus.translator.java.generated.Expression";
+
+	/**
+	 * The version of abacus, part of the key of a class.
+	 */
+	private static final String VERSION = determineVersion();
+
+	/**
+	 * The class that is extended by the generated classes.
+	 */
+	private final Class<?> extendedClass;
+
+	/**
+	 * The maximum number of classes in the registry.
+	 */
+	private final int maximumSize;
+
+	/**
+	 * The maximum number of classes that are defined by one class loader.
+	 */
+	private final int classesPerLoader;
+
+	/**
+	 * The cache with the byte code of the generated classes, or {@code null} when the byte code is not cached on disk.
+	 */
+	private final DiskClassCache diskCache;
+
+	/**
+	 * The entries by their key, in access order.
+	 */
+	private final Map<String, ClassEntry> entries;
+
+	/**
+	 * The class loader new classes are defined in.
+	 */
+	private GenerationLoader currentLoader;
+
+	/**
+	 * The number of class loaders that are not released.
+	 */
+	private int loaderCount;
+
+	private long hitCount;
+	private long missCount;
+	private long evictionCount;
+
+	/**
+	 * Constructor. The type of the extended class is raw, because the class literal of a generic class like
+	 * {@link AbacusWrapper} has a raw type.
+	 * @param extendedClass The class that is extended by the generated classes.
+	 * @param maximumSize The maximum number of classes in the registry.
+	 * @param classesPerLoader The maximum number of classes that are defined by one class loader.
+	 * @param diskCache The cache with the byte code of the generated classes, or {@code null} to translate every class
+	 * that is not in the registry.
+	 */
+	@SuppressWarnings("rawtypes")
+	public CompiledClassRegistry(Class<? extends AbacusWrapper> extendedClass, int maximumSize, int classesPerLoader,
+			DiskClassCache diskCache) {
+		if (maximumSize < 1) {
+			throw new IllegalArgumentException("The maximum size of the registry must be at least 1.");
+		}
+		if (classesPerLoader < 1) {
+			throw new IllegalArgumentException("The number of classes per loader must be at least 1.");
+		}
+
+		this.extendedClass = extendedClass;
+		this.maximumSize = maximumSize;
+		this.classesPerLoader = classesPerLoader;
+		this.diskCache = diskCache;
+
+		entries = new LinkedHashMap<String, ClassEntry>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, ClassEntry> eldest) {
+				if (size() <= CompiledClassRegistry.this.maximumSize) {
+					return false;
+				}
+				evictionCount++;
+				release(eldest.getValue());
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Constructor, does not cache the byte code on disk.
+	 * @param extendedClass The class that is extended by the generated classes.
+	 * @param maximumSize The maximum number of classes in the registry.
+	 * @param classesPerLoader The maximum number of classes that are defined by one class loader.
+	 */
+	@SuppressWarnings("rawtypes")
+	public CompiledClassRegistry(Class<? extends AbacusWrapper> extendedClass, int maximumSize, int classesPerLoader) {
+		this(extendedClass, maximumSize, classesPerLoader, null);
+	}
+
+	/**
+	 * Constructor, uses {@link #DEFAULT_CLASSES_PER_LOADER} and does not cache the byte code on disk.
+	 * @param extendedClass The class that is extended by the generated classes.
+	 * @param maximumSize The maximum number of classes in the registry.
+	 */
+	@SuppressWarnings("rawtypes")
+	public CompiledClassRegistry(Class<? extends AbacusWrapper> extendedClass, int maximumSize) {
+		this(extendedClass, maximumSize, DEFAULT_CLASSES_PER_LOADER);
+	}
+
+	/**
+	 * Returns the generated class for the node, translates and defines the class when it is not in the registry.
+	 * @param node The checked and simplified node.
+	 * @param abacusContext The context the node was checked and simplified in.
+	 * @return The generated class.
+	 * @throws TranslationException When the node could not be translated.
+	 */
+	public Class<? extends AbacusWrapper<?>> getClass(Node node, AbacusContext abacusContext) throws TranslationException {
+		String key = createKey(node, abacusContext);
+
+		synchronized (this) {
+			ClassEntry entry = entries.get(key);
+			if (entry != null) {
+				hitCount++;
+				return entry.generatedClass;
+			}
+			missCount++;
+		}
+
+		// The name of the class is determined by its key, so byte code from the disk cache has the right name.
+		String className = CLASS_NAME_PREFIX + DiskClassCache.hash(key);
+
+		byte[] byteCode = diskCache != null ? diskCache.get(key) : null;
+		boolean isCached = byteCode != null;
+		if (!isCached) {
+			byteCode = translate(node, abacusContext, key, className);
+		}
+
+		synchronized (this) {
+			// Another thread might have defined the same class in the meantime.
+			ClassEntry entry = entries.get(key);
+			if (entry != null) {
+				return entry.generatedClass;
+			}
+
+			Class<? extends AbacusWrapper<?>> generatedClass;
+			try {
+				generatedClass = defineClass(className, byteCode);
+			} catch (LinkageError e) {
+				if (!isCached) {
+					throw e;
+				}
+				// The cached byte code is corrupt, translate the node and replace the byte code in the cache. When the
+				// class was defined before it failed to link, it is defined again by another loader.
+				generatedClass = defineClass(className, translate(node, abacusContext, key, className));
+			}
+
+			entry = new ClassEntry(generatedClass, currentLoader);
+			currentLoader.liveCount++;
+			entries.put(key, entry);
+			return entry.generatedClass;
+		}
+	}
+
+	/**
+	 * Defines the class in the current loader and links and initializes it, so byte code that can not be verified fails
+	 * here instead of when the class is used.
+	 * @throws LinkageError When the class could not be defined, linked or initialized.
+	 */
+	private Class<? extends AbacusWrapper<?>> defineClass(String className, byte[] byteCode) {
+		// A class that is generated again after it was evicted can not be defined by the same loader twice.
+		if (currentLoader != null && currentLoader.definedNames.contains(className)) {
+			currentLoader.closed = true;
+			if (currentLoader.liveCount == 0) {
+				loaderCount--;
+			}
+			currentLoader = null;
+		}
+
+		if (currentLoader == null || currentLoader.isFull(classesPerLoader)) {
+			currentLoader = new GenerationLoader(extendedClass.getClassLoader());
+			loaderCount++;
+		}
+
+		Class<? extends AbacusWrapper<?>> generatedClass = currentLoader.define(className, byteCode);
+		try {
+			Class.forName(className, true, currentLoader);
+		} catch (ClassNotFoundException e) {
+			// The loader has just defined the class.
+			throw new IllegalStateException(e);
+		}
+		return generatedClass;
+	}
+
+	/**
+	 * Translates the node and stores the byte code in the disk cache.
+	 */
+	private byte[] translate(Node node, AbacusContext abacusContext, String key, String className)
+			throws TranslationException {
+		byte[] byteCode = new ClassTranslator(abacusContext).translate(node, extendedClass, className);
+		if (diskCache != null) {
+			diskCache.put(key, byteCode);
+		}
+		return byteCode;
+	}
+
+	/**
+	 * Creates a new instance of the generated class for the node and sets the context of the instance.
+	 * @param node The checked and simplified node.
+	 * @param abacusContext The context the node was checked and simplified in, and the instance is evaluated in.
+	 * @return The new instance.
+	 * @throws TranslationException When the node could not be translated or the class could not be instantiated.
+	 */
+	public AbacusWrapper<?> newInstance(Node node, AbacusContext abacusContext) throws TranslationException {
+		AbacusWrapper<?> wrapper;
+		try {
+			wrapper = getClass(node, abacusContext).newInstance();
+		} catch (InstantiationException | IllegalAccessException e) {
+			throw new TranslationException("Could not instantiate the generated class.", node, e);
+		}
+		wrapper.setAbacusContext(abacusContext);
+		return wrapper;
+	}
+
+	/**
+	 * Removes all classes from the registry.
+	 */
+	public synchronized void invalidateAll() {
+		for (ClassEntry entry : entries.values()) {
+			release(entry);
+		}
+		entries.clear();
+	}
+
+	/**
+	 * Returns the number of classes in the registry.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns the number of class loaders that are not released.
+	 */
+	public synchronized int getLoaderCount() {
+		return loaderCount;
+	}
+
+	/**
+	 * Returns the number of times a generated class was found in the registry.
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Returns the number of times a class had to be generated.
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Returns the number of classes that were evicted because the registry was full.
+	 */
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * Releases the class of the entry; releases its class loader when the loader is full and none of its classes are
+	 * in the registry anymore.
+	 */
+	private void release(ClassEntry entry) {
+		GenerationLoader loader = entry.loader;
+		loader.liveCount--;
+
+		if (loader.liveCount > 0 || !loader.isFull(classesPerLoader)) {
+			return;
+		}
+
+		loaderCount--;
+		if (loader == currentLoader) {
+			currentLoader = null;
+		}
+	}
+
+	/**
+	 * Creates the key that identifies the class that is generated for the node.
+	 */
+	private String createKey(Node node, AbacusContext abacusContext) throws TranslationException {
+		try {
+			KeyCollector keyCollector = new KeyCollector();
+			node.accept(keyCollector);
+
+			StringBuilder key = new StringBuilder()
+					.append("abacus ").append(VERSION).append('\n')
+					.append(extendedClass.getName()).append('\n')
+					.append(abacusContext.getMathContext()).append('\n')
+					.append(PrettyPrinter.print(node));
+			for (String signature : keyCollector.signatures) {
+				key.append('\n').append(signature);
+			}
+			return key.toString();
+		} catch (VisitingException e) {
+			throw new TranslationException(e.getMessage(), node, e);
+		}
+	}
+
+	/**
+	 * Determines the version of abacus from the {@code version.properties} resource, which is filled in by the build.
+	 */
+	private static String determineVersion() {
+		Properties properties = new Properties();
+		try (InputStream inputStream = CompiledClassRegistry.class.getResourceAsStream("version.properties")) {
+			if (inputStream != null) {
+				properties.load(inputStream);
+			}
+		} catch (IOException e) {
+			// Treat the version as unknown.
+		}
+
+		String version = properties.getProperty("version");
+		// The resource is not filtered when the translator is not built by Maven.
+		return version != null && !version.startsWith("${") ? version : "development";
+	}
+
+	/**
+	 * A class in the registry.
+	 */
+	private static class ClassEntry {
+		private final Class<? extends AbacusWrapper<?>> generatedClass;
+		private final GenerationLoader loader;
+
+		public ClassEntry(Class<? extends AbacusWrapper<?>> generatedClass, GenerationLoader loader) {
+			this.generatedClass = generatedClass;
+			this.loader = loader;
+		}
+	}
+
+	/**
+	 * Class loader that defines a number of generated classes.
+	 */
+	private static class GenerationLoader extends SecureClassLoader {
+
+		/**
+		 * The number of classes defined by the loader.
+		 */
+		private int definedCount;
+
+		/**
+		 * The number of classes of the loader that are in the registry.
+		 */
+		private int liveCount;
+
+		/**
+		 * The names of the classes defined by the loader.
+		 */
+		private final Set<String> definedNames = new HashSet<>();
+
+		/**
+		 * Whether no more classes may be defined by the loader, although it is not full.
+		 */
+		private boolean closed;
+
+		public GenerationLoader(ClassLoader parent) {
+			super(parent);
+		}
+
+		@SuppressWarnings("unchecked")
+		public Class<? extends AbacusWrapper<?>> define(String className, byte[] byteCode) {
+			Class<? extends AbacusWrapper<?>> definedClass =
+					(Class<? extends AbacusWrapper<?>>) defineClass(className, byteCode, 0, byteCode.length);
+			definedNames.add(className);
+			definedCount++;
+			return definedClass;
+		}
+
+		/**
+		 * Determines whether no more classes may be defined by the loader.
+		 */
+		public boolean isFull(int classesPerLoader) {
+			return closed || definedCount >= classesPerLoader;
+		}
+	}
+
+	/**
+	 * Collects the signatures of the variables and the functions in an AST, in a fixed order.
+	 */
+	private static class KeyCollector extends DefaultVisitor<Void, VisitingException> {
+		private final Set<String> signatures = new TreeSet<>();
+
+		@Override
+		public Void visit(FunctionNode node) throws VisitingException {
+			StringBuilder signature = new StringBuilder("function ").append(node.getIdentifier()).append('(');
+			for (ExpressionNode parameter : node.getParameters()) {
+				signature.append(toString(parameter.getType())).append(',');
+			}
+			signature.append(')').append(toString(node.getReturnType()));
+			if (node.getIntrinsic() != null) {
+				signature.append(' ').append(node.getIntrinsic());
+			}
+			signatures.add(signature.toString());
+			return super.visit(node);
+		}
+
+		@Override
+		public Void visit(VariableNode node) throws VisitingException {
+			signatures.add("variable " + node.getIdentifier() + " " + toString(node.getType()));
+			return null;
+		}
+
+		private static String toString(Type type) {
+			return type == null ? "null" : type.getBaseType() + "/" + type.getDimensionality();
+		}
+	}
+}
@@ -0,0 +1,331 @@
+package org.gertje.abacus.translator.java.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * File backed cache of generated byte code, so classes that are generated by the
+ * {@link org.gertje.abacus.translator.java.nodevisitors.ClassTranslator} can be reused after a restart of the JVM.
+ *
+ * Every entry is stored in its own file, named after the SHA-256 hash of its key. An entry is written to a temporary
+ * file first and then moved to its place, so readers never see a partially written file; several JVMs can share the
+ * directory. The cache keeps track of the total size of the entries it writes; when the total size exceeds the maximum
+ * size, the directory is scanned and the least recently used entries are deleted until the entries take up at most
+ * 90% of the maximum size, so the directory is not scanned for every entry that is written. Entries written by other
+ * JVMs are taken into account by the next scan. Temporary files that are left behind by a JVM that stopped while
+ * writing an entry are deleted by the scan as well.
+ *
+ * Every file starts with the SHA-256 digest of the byte code, which is verified when the entry is read; an entry that
+ * is truncated or otherwise damaged is deleted and treated as missing. The digest does not protect against someone who
+ * deliberately changes an entry, since the byte code is loaded into the JVM the directory must only be writable by
+ * trusted users.
+ *
+ * The cache is best effort: when a file can not be read or written the entry is treated as missing.
+ */
+public class DiskClassCache {
+
+	/**
+	 * The extension of the files of the entries.
+	 */
+	private static final String EXTENSION = ".class";
+
+	/**
+	 * The extension of the temporary files an entry is written to.
+	 */
+	private static final String TEMPORARY_EXTENSION = ".tmp";
+
+	/**
+	 * The age in milliseconds after which a temporary file is considered to be left behind.
+	 */
+	private static final long TEMPORARY_FILE_MAXIMUM_AGE = 60L * 60L * 1000L;
+
+	/**
+	 * The percentage of the maximum size the entries take up at most after an eviction.
+	 */
+	private static final int EVICTION_TARGET_PERCENTAGE = 90;
+
+	/**
+	 * The length of the SHA-256 digest at the start of every file.
+	 */
+	private static final int DIGEST_LENGTH = 32;
+
+	/**
+	 * The directory with the entries.
+	 */
+	private final Path directory;
+
+	/**
+	 * The maximum total size of the entries in bytes.
+	 */
+	private final long maximumSize;
+
+	/**
+	 * The total size of the entries in bytes, as far as this cache knows. It is determined again by every scan of the
+	 * directory.
+	 */
+	private final AtomicLong size = new AtomicLong();
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+
+	/**
+	 * Constructor, creates the directory when it does not exist.
+	 * @param directory The directory with the entries.
+	 * @param maximumSize The maximum total size of the entries in bytes.
+	 * @throws IOException When the directory could not be created.
+	 */
+	public DiskClassCache(File directory, long maximumSize) throws IOException {
+		if (maximumSize < 1) {
+			throw new IllegalArgumentException("The maximum size of the cache must be at least 1.");
+		}
+
+		this.directory = directory.toPath();
+		this.maximumSize = maximumSize;
+
+		Files.createDirectories(this.directory);
+		evict();
+	}
+
+	/**
+	 * Returns the byte code that is stored for the key.
+	 * @param key The key.
+	 * @return The byte code, or {@code null} when no byte code is stored for the key or the stored byte code is
+	 * damaged.
+	 */
+	public byte[] get(String key) {
+		Path file = determineFile(key);
+		byte[] content;
+		try {
+			content = Files.readAllBytes(file);
+		} catch (IOException e) {
+			missCount.incrementAndGet();
+			return null;
+		}
+
+		if (!isIntact(content)) {
+			deleteQuietly(file);
+			size.addAndGet(-content.length);
+			missCount.incrementAndGet();
+			return null;
+		}
+
+		try {
+			// Mark the entry as recently used.
+			Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+		} catch (IOException e) {
+			// The entry was evicted by another JVM in the meantime, the byte code is still fine.
+		}
+		hitCount.incrementAndGet();
+		return Arrays.copyOfRange(content, DIGEST_LENGTH, content.length);
+	}
+
+	/**
+	 * Stores the byte code for the key, and evicts the least recently used entries when the cache is too large.
+	 * @param key The key.
+	 * @param byteCode The byte code.
+	 */
+	public void put(String key, byte[] byteCode) {
+		Path file = determineFile(key);
+		Path temporaryFile = null;
+		try {
+			temporaryFile = Files.createTempFile(directory, file.getFileName().toString(), TEMPORARY_EXTENSION);
+			Files.write(temporaryFile, createDigest().digest(byteCode));
+			Files.write(temporaryFile, byteCode, StandardOpenOption.APPEND);
+			try {
+				Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			deleteQuietly(temporaryFile);
+			return;
+		}
+
+		// Replacing an entry overestimates the size, the next scan corrects it.
+		if (size.addAndGet(DIGEST_LENGTH + byteCode.length) > maximumSize) {
+			evict();
+		}
+	}
+
+	/**
+	 * Deletes all entries.
+	 */
+	public void invalidateAll() {
+		for (Path file : listFiles("*" + EXTENSION)) {
+			deleteQuietly(file);
+		}
+		size.set(0);
+	}
+
+	/**
+	 * Returns the number of times byte code was found in the cache.
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Returns the number of times byte code was not found in the cache.
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Scans the directory, deletes the temporary files that are left behind and, when the total size of the entries
+	 * exceeds the maximum size, deletes the least recently used entries until the entries take up at most
+	 * {@value #EVICTION_TARGET_PERCENTAGE}% of the maximum size.
+	 */
+	private synchronized void evict() {
+		deleteLeftBehindTemporaryFiles();
+
+		final List<Path> files = listFiles("*" + EXTENSION);
+
+		long totalSize = 0;
+		final List<FileTime> times = new ArrayList<>();
+		for (Path file : files) {
+			try {
+				totalSize += Files.size(file);
+				times.add(Files.getLastModifiedTime(file));
+			} catch (IOException e) {
+				// The file was deleted by another JVM in the meantime.
+				times.add(FileTime.fromMillis(0));
+			}
+		}
+
+		if (totalSize <= maximumSize) {
+			size.set(totalSize);
+			return;
+		}
+
+		List<Integer> order = new ArrayList<>();
+		for (int i = 0; i < files.size(); i++) {
+			order.add(i);
+		}
+		Collections.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer left, Integer right) {
+				return times.get(left).compareTo(times.get(right));
+			}
+		});
+
+		long targetSize = maximumSize - maximumSize / 100 * (100 - EVICTION_TARGET_PERCENTAGE);
+		for (Integer i : order) {
+			if (totalSize <= targetSize) {
+				break;
+			}
+			try {
+				long fileSize = Files.size(files.get(i));
+				Files.deleteIfExists(files.get(i));
+				totalSize -= fileSize;
+			} catch (IOException e) {
+				// Another JVM evicts the same entry.
+			}
+		}
+		size.set(totalSize);
+	}
+
+	/**
+	 * Deletes the temporary files that are older than {@link #TEMPORARY_FILE_MAXIMUM_AGE}; they are left behind by a
+	 * JVM that stopped while writing an entry. Younger files may still be written by another JVM.
+	 */
+	private void deleteLeftBehindTemporaryFiles() {
+		long leftBehindTime = System.currentTimeMillis() - TEMPORARY_FILE_MAXIMUM_AGE;
+		for (Path file : listFiles("*" + TEMPORARY_EXTENSION)) {
+			try {
+				if (Files.getLastModifiedTime(file).toMillis() < leftBehindTime) {
+					Files.deleteIfExists(file);
+				}
+			} catch (IOException e) {
+				// The entry was moved to its place in the meantime.
+			}
+		}
+	}
+
+	/**
+	 * Returns the files in the directory that match the pattern.
+	 */
+	private List<Path> listFiles(String pattern) {
+		List<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, pattern)) {
+			for (Path file : stream) {
+				files.add(file);
+			}
+		} catch (IOException e) {
+			// Treat an unreadable directory as an empty cache.
+		}
+		return files;
+	}
+
+	/**
+	 * Determines the file of the entry with the key.
+	 */
+	private Path determineFile(String key) {
+		return directory.resolve(hash(key) + EXTENSION);
+	}
+
+	/**
+	 * Determines whether the digest at the start of the content of a file matches the byte code after it.
+	 */
+	private static boolean isIntact(byte[] content) {
+		if (content.length < DIGEST_LENGTH) {
+			return false;
+		}
+
+		MessageDigest digest = createDigest();
+		digest.update(content, DIGEST_LENGTH, content.length - DIGEST_LENGTH);
+		return MessageDigest.isEqual(Arrays.copyOf(content, DIGEST_LENGTH), digest.digest());
+	}
+
+	private static void deleteQuietly(Path file) {
+		if (file == null) {
+			return;
+		}
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			// Nothing we can do about it.
+		}
+	}
+
+	/**
+	 * Determines the SHA-256 hash of the key, in hexadecimal notation.
+	 * @param key The key.
+	 * @return The hash.
+	 */
+	public static String hash(String key) {
+		StringBuilder hash = new StringBuilder();
+		for (byte b : createDigest().digest(key.getBytes(StandardCharsets.UTF_8))) {
+			hash.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		}
+		return hash.toString();
+	}
+
+	/**
+	 * Creates a SHA-256 message digest.
+	 */
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform supports SHA-256.
+			throw new IllegalStateException(e);
+		}
+	}
+}
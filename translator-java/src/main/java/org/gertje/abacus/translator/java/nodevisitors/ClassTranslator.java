@@ -1,6 +1,7 @@
 package org.gertje.abacus.translator.java.nodevisitors;
 
 import org.gertje.abacus.context.AbacusContext;
+import org.gertje.abacus.functions.FunctionResultCache;
 import org.gertje.abacus.nodes.AbstractComparisonNode;
 import org.gertje.abacus.nodes.AddNode;
 import org.gertje.abacus.nodes.AndNode;
@@ -8,6 +9,7 @@ import org.gertje.abacus.nodes.ArrayNode;
 import org.gertje.abacus.nodes.AssignmentNode;
 import org.gertje.abacus.nodes.BinaryOperationNode;
 import org.gertje.abacus.nodes.BooleanNode;
+import org.gertje.abacus.nodes.CommonSubexpressionNode;
 import org.gertje.abacus.nodes.ConcatStringNode;
 import org.gertje.abacus.nodes.DateNode;
 import org.gertje.abacus.nodes.DecimalNode;
@@ -50,23 +52,34 @@ import org.gertje.abacus.runtime.expression.BooleanOperation;
 import org.gertje.abacus.runtime.expression.CastHelper;
 import org.gertje.abacus.runtime.expression.StringOperation;
 import org.gertje.abacus.symboltable.NoSuchVariableException;
+import org.gertje.abacus.symboltable.SlotSymbolTable;
 import org.gertje.abacus.symboltable.SymbolTable;
 import org.gertje.abacus.symboltable.Variable;
 import org.gertje.abacus.translator.java.runtime.AbacusRuntimeException;
+import org.gertje.abacus.translator.java.runtime.FrameAbacusWrapper;
+import org.gertje.abacus.translator.java.runtime.FunctionLinker;
+import org.gertje.abacus.translator.java.runtime.RulesetWrapper;
 import org.gertje.abacus.types.Type;
 
 import org.gertje.abacus.util.JavaTypeHelper;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.math.MathContext;
 import java.sql.Date;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -91,17 +104,34 @@ import static org.objectweb.asm.Opcodes.F_SAME1;
 import static org.objectweb.asm.Opcodes.GETFIELD;
 import static org.objectweb.asm.Opcodes.GETSTATIC;
 import static org.objectweb.asm.Opcodes.GOTO;
+import static org.objectweb.asm.Opcodes.H_INVOKESTATIC;
 import static org.objectweb.asm.Opcodes.ICONST_0;
 import static org.objectweb.asm.Opcodes.ICONST_1;
 import static org.objectweb.asm.Opcodes.IFEQ;
+import static org.objectweb.asm.Opcodes.IFGE;
+import static org.objectweb.asm.Opcodes.IFGT;
+import static org.objectweb.asm.Opcodes.IFLE;
 import static org.objectweb.asm.Opcodes.IFLT;
 import static org.objectweb.asm.Opcodes.IFNE;
 import static org.objectweb.asm.Opcodes.IFNULL;
+import static org.objectweb.asm.Opcodes.ILOAD;
+import static org.objectweb.asm.Opcodes.IF_ICMPEQ;
 import static org.objectweb.asm.Opcodes.IF_ICMPGE;
+import static org.objectweb.asm.Opcodes.IF_ICMPNE;
 import static org.objectweb.asm.Opcodes.INVOKEINTERFACE;
 import static org.objectweb.asm.Opcodes.INVOKESPECIAL;
 import static org.objectweb.asm.Opcodes.INVOKESTATIC;
 import static org.objectweb.asm.Opcodes.INVOKEVIRTUAL;
+import static org.objectweb.asm.Opcodes.IRETURN;
+import static org.objectweb.asm.Opcodes.ISTORE;
+import static org.objectweb.asm.Opcodes.IXOR;
+import static org.objectweb.asm.Opcodes.LADD;
+import static org.objectweb.asm.Opcodes.LCMP;
+import static org.objectweb.asm.Opcodes.LDIV;
+import static org.objectweb.asm.Opcodes.LMUL;
+import static org.objectweb.asm.Opcodes.LNEG;
+import static org.objectweb.asm.Opcodes.LREM;
+import static org.objectweb.asm.Opcodes.LSUB;
 import static org.objectweb.asm.Opcodes.NEW;
 import static org.objectweb.asm.Opcodes.POP;
 import static org.objectweb.asm.Opcodes.POP2;
@@ -111,6 +141,11 @@ import static org.objectweb.asm.Opcodes.V1_7;
 
 public class ClassTranslator implements NodeVisitor<Void, TranslationException> {
 
+	/**
+	 * The prefix of the names of the methods that are generated for the rules of a ruleset.
+	 */
+	private static final String RULE_METHOD_PREFIX = "rule_";
+
 	/**
 	 * De symboltable met de variabelen en de functies.
 	 */
@@ -141,11 +176,35 @@ public class ClassTranslator implements NodeVisitor<Void, TranslationException>
 	 */
 	private Map<String, Integer> methodVariableIndexes;
 
+	/**
+	 * A map common subexpression --> index of the local variable with its value, the next index holds whether the
+	 * value has been computed.
+	 */
+	private Map<CommonSubexpressionNode, Integer> subexpressionIndexes;
+
 	/**
 	 * The name of the class that is generated.
 	 */
 	private String generatedClassName;
 
+	/**
+	 * The symbol table that determines the slots of the variables when the values are passed in a frame, or
+	 * {@code null} when the values are read from and written to the symbol table of the context.
+	 */
+	private SlotSymbolTable frameSchema;
+
+	/**
+	 * Whether operations may be translated to operations on primitive values, see
+	 * {@link #appendPrimitiveOperation(ExpressionNode)}.
+	 */
+	private boolean primitiveOperationsEnabled = true;
+
+	/**
+	 * Whether calls to functions are linked at runtime by {@link FunctionLinker}, see
+	 * {@link #setDynamicFunctionLinking(boolean)}.
+	 */
+	private boolean dynamicFunctionLinking = false;
+
 	/**
 	 * Constructor.
 	 */
@@ -153,6 +212,17 @@ public class ClassTranslator implements NodeVisitor<Void, TranslationException>
 		this.symbolTable = abacusContext.getSymbolTable();
 	}
 
+	/**
+	 * Sets whether calls to functions are translated to {@code invokedynamic} instructions that are linked at runtime
+	 * to the functions of the symbol table, see {@link FunctionLinker}. When not set, the generated class calls the
+	 * method {@code function_<name>} that must be implemented by the extended class. Calls to intrinsic functions are
+	 * always translated to a call to their static method.
+	 * @param dynamicFunctionLinking {@code true} when calls to functions must be linked at runtime.
+	 */
+	public void setDynamicFunctionLinking(boolean dynamicFunctionLinking) {
+		this.dynamicFunctionLinking = dynamicFunctionLinking;
+	}
+
 	/**
 	 * Translates the node to byte code.
 	 * @param node The node to be translated.
@@ -162,11 +232,108 @@ public class ClassTranslator implements NodeVisitor<Void, TranslationException>
 	 * @throws TranslationException
 	 */
 	public byte[] translate(Node node, Class extendedClass, String generatedClassName) throws TranslationException {
+		frameSchema = null;
 		initialize(node);
 		this.generatedClassName = generatedClassName;
 		return buildClass(node, extendedClass);
 	}
 
+	/**
+	 * Translates the node to byte code for a class that receives the values of the variables in a frame. The generated
+	 * method {@link FrameAbacusWrapper#f(Object[])} reads the values of the variables from the frame by slot and
+	 * writes the assigned values back to the frame, so no symbol table lookups are needed.
+	 * @param node The node to be translated.
+	 * @param extendedClass The class that needs to be extended by the generated class, must extend
+	 * {@link FrameAbacusWrapper}.
+	 * @param generatedClassName The name of the class that will be generated.
+	 * @param schema The symbol table that determines the slots of the variables in the frame.
+	 * @return A byte array containing the byte code.
+	 * @throws TranslationException
+	 */
+	public byte[] translate(Node node, Class extendedClass, String generatedClassName, SlotSymbolTable schema)
+			throws TranslationException {
+		if (!FrameAbacusWrapper.class.isAssignableFrom(extendedClass)) {
+			throw new TranslationException("The extended class must extend "
+					+ FrameAbacusWrapper.class.getSimpleName() + ".", node);
+		}
+
+		frameSchema = schema;
+		initialize(node);
+		this.generatedClassName = generatedClassName;
+		return buildClass(node, extendedClass);
+	}
+
+	/**
+	 * Translates a ruleset, a list of nodes, to byte code for a single class. Every rule is translated to its own
+	 * method, which receives the values of the variables in a frame like
+	 * {@link #translate(Node, Class, String, SlotSymbolTable)}; the method {@link RulesetWrapper#f(int, Object[])}
+	 * dispatches to the method of a rule with a {@code tableswitch}. Since all rules share one class, they share its
+	 * constant pool and are loaded at once.
+	 * @param nodes The nodes to be translated, the index of a node in the list is the index of its rule.
+	 * @param extendedClass The class that needs to be extended by the generated class, must extend
+	 * {@link RulesetWrapper}.
+	 * @param generatedClassName The name of the class that will be generated.
+	 * @param schema The symbol table that determines the slots of the variables in the frame.
+	 * @return A byte array containing the byte code.
+	 * @throws TranslationException
+	 */
+	public byte[] translateRuleset(List<? extends Node> nodes, Class extendedClass, String generatedClassName,
+			SlotSymbolTable schema) throws TranslationException {
+		if (nodes.isEmpty()) {
+			throw new IllegalArgumentException("The ruleset must contain at least one rule.");
+		}
+		if (!RulesetWrapper.class.isAssignableFrom(extendedClass)) {
+			throw new TranslationException("The extended class must extend "
+					+ RulesetWrapper.class.getSimpleName() + ".", nodes.get(0));
+		}
+
+		frameSchema = schema;
+		this.generatedClassName = generatedClassName;
+
+		ClassWriter cw = new ClassWriter(COMPUTE_FRAMES);
+		cw.visit(V1_7, ACC_PUBLIC + ACC_SUPER, determineClassName(generatedClassName), null, determineClassName(extendedClass), null);
+
+		cw.visitSource(null, null);
+
+		appendConstructor(cw, extendedClass);
+
+		// Append a method for every rule.
+		for (int i = 0; i < nodes.size(); i++) {
+			Node node = nodes.get(i);
+			initialize(node);
+			lineNumber = -1;
+
+			mv = cw.visitMethod(ACC_PUBLIC, RULE_METHOD_PREFIX + i,
+					determineMethodDescriptor(Object.class, Object[].class), null, null);
+			mv.visitCode();
+
+			appendReadFrameValues(node);
+			appendInitializeSubexpressions();
+
+			node.accept(this);
+
+			appendStoreFrameValues(node);
+
+			mv.visitInsn(ARETURN);
+			mv.visitMaxs(0, 0);
+			mv.visitEnd();
+		}
+
+		appendRuleDispatcher(cw, nodes.size());
+
+		// Append the method that returns the number of rules.
+		mv = cw.visitMethod(ACC_PUBLIC, "getRuleCount", "()I", null, null);
+		mv.visitCode();
+		mv.visitLdcInsn(nodes.size());
+		mv.visitInsn(IRETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+
+		return cw.toByteArray();
+	}
+
 	/**
 	 * Initializes the translator for translating the given node.
 	 * @param node The node to be translated.
@@ -199,11 +366,43 @@ public class ClassTranslator implements NodeVisitor<Void, TranslationException>
 		Set<Variable> variableSet = new HashSet<>(readVariableList);
 		variableSet.addAll(storeVariableList);
 
-		// Start counting at 1, because 'this' has index 0.
-		int i = 1;
+		// Start counting at 1, because 'this' has index 0. When the values are passed in a frame, the frame has index 1.
+		int i = frameSchema == null ? 1 : 2;
 		for (Variable variable : variableSet) {
 			methodVariableIndexes.put(variable.getIdentifier(), i++);
 		}
+
+		// Every common subexpression gets two local variables after the variables: its value and whether it has been
+		// computed.
+		final Map<CommonSubexpressionNode, Integer> indexes = new IdentityHashMap<>();
+		final int firstIndex = i;
+		try {
+			node.accept(new DefaultVisitor<Void, VisitingException>() {
+				@Override
+				public Void visit(CommonSubexpressionNode node) throws VisitingException {
+					if (!indexes.containsKey(node)) {
+						indexes.put(node, firstIndex + 2 * indexes.size());
+						node.getExpression().accept(this);
+					}
+					return null;
+				}
+			});
+		} catch (VisitingException e) {
+			throw new TranslationException(e.getMessage(), node, e);
+		}
+		subexpressionIndexes = indexes;
+	}
+
+	/**
+	 * Initializes the local variables of the common subexpressions: the values are {@code null} and not computed.
+	 */
+	private void appendInitializeSubexpressions() {
+		for (int index : subexpressionIndexes.values()) {
+			mv.visitInsn(ACONST_NULL);
+			mv.visitVarInsn(ASTORE, index);
+			mv.visitInsn(ICONST_0);
+			mv.visitVarInsn(ISTORE, index + 1);
+		}
 	}
 
 	/**
@@ -220,7 +419,47 @@ public class ClassTranslator implements NodeVisitor<Void, TranslationException>
 
 		cw.visitSource(null, null);
 
-		// Append the constructor.
+		appendConstructor(cw, extendedClass);
+
+		// Append the function f.
+		if (frameSchema == null) {
+			mv = cw.visitMethod(ACC_PUBLIC, "f", determineMethodDescriptor(Object.class), null, null);
+			mv.visitCode();
+
+			appendReadVariableValues();
+			appendInitializeSubexpressions();
+
+			node.accept(this);
+
+			appendStoreVariableValues();
+		} else {
+			mv = cw.visitMethod(ACC_PUBLIC, "f", determineMethodDescriptor(Object.class, Object[].class), null, null);
+			mv.visitCode();
+
+			appendReadFrameValues(node);
+			appendInitializeSubexpressions();
+
+			node.accept(this);
+
+			appendStoreFrameValues(node);
+		}
+
+		mv.visitInsn(ARETURN);
+
+		mv.visitMaxs(0, 1);
+		mv.visitEnd();
+
+		cw.visitEnd();
+
+		return cw.toByteArray();
+	}
+
+	/**
+	 * Appends the constructor, which calls the constructor of the extended class.
+	 * @param cw The class writer.
+	 * @param extendedClass The class that is extended by the generated class.
+	 */
+	private void appendConstructor(ClassWriter cw, Class extendedClass) {
 		mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
 		mv.visitCode();
 		Label l0 = new Label();
@@ -234,26 +473,50 @@ public class ClassTranslator implements NodeVisitor<Void, TranslationException>
 		mv.visitLocalVariable("this", "L" + determineClassName(generatedClassName) + ";", null, l0, l1, 0);
 		mv.visitMaxs(0, 0);
 		mv.visitEnd();
+	}
 
-
-		// Append the function f.
-		mv = cw.visitMethod(ACC_PUBLIC, "f", determineMethodDescriptor(Object.class), null, null);
+	/**
+	 * Appends the method {@link RulesetWrapper#f(int, Object[])}, which calls the method of the rule with the given
+	 * index and throws an {@link IndexOutOfBoundsException} when the rule does not exist.
+	 * @param cw The class writer.
+	 * @param ruleCount The number of rules.
+	 */
+	private void appendRuleDispatcher(ClassWriter cw, int ruleCount) {
+		mv = cw.visitMethod(ACC_PUBLIC, "f", determineMethodDescriptor(Object.class, int.class, Object[].class),
+				null, null);
 		mv.visitCode();
 
-		appendReadVariableValues();
-
-		node.accept(this);
-
-		appendStoreVariableValues();
+		Label[] ruleLabels = new Label[ruleCount];
+		for (int i = 0; i < ruleCount; i++) {
+			ruleLabels[i] = new Label();
+		}
+		Label defaultLabel = new Label();
+
+		mv.visitVarInsn(ILOAD, 1);
+		mv.visitTableSwitchInsn(0, ruleCount - 1, defaultLabel, ruleLabels);
+
+		for (int i = 0; i < ruleCount; i++) {
+			mv.visitLabel(ruleLabels[i]);
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitVarInsn(ALOAD, 2);
+			mv.visitMethodInsn(INVOKEVIRTUAL, determineClassName(generatedClassName), RULE_METHOD_PREFIX + i,
+					determineMethodDescriptor(Object.class, Object[].class), false);
+			mv.visitInsn(ARETURN);
+		}
 
-		mv.visitInsn(ARETURN);
+		mv.visitLabel(defaultLabel);
+		mv.visitTypeInsn(NEW, determineClassName(IndexOutOfBoundsException.class));
+		mv.visitInsn(DUP);
+		mv.visitLdcInsn("The ruleset does not contain rule ");
+		mv.visitVarInsn(ILOAD, 1);
+		mv.visitMethodInsn(INVOKESTATIC, "java/lang/String", "valueOf", "(I)Ljava/lang/String;", false);
+		mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/String", "concat", "(Ljava/lang/String;)Ljava/lang/String;", false);
+		mv.visitMethodInsn(INVOKESPECIAL, determineClassName(IndexOutOfBoundsException.class), "<init>",
+				determineMethodDescriptor(null, String.class), false);
+		mv.visitInsn(ATHROW);
 
-		mv.visitMaxs(0, 1);
+		mv.visitMaxs(0, 0);
 		mv.visitEnd();
-
-		cw.visitEnd();
-
-		return cw.toByteArray();
 	}
 
 	@Override
@@ -264,6 +527,9 @@ public class ClassTranslator implements NodeVisitor<Void, TranslationException>
 	@Override
 	public Void visit(AndNode node) throws TranslationException {
 		appendLineNumberLabel(node);
+		if (appendPrimitiveOperation(node)) {
+			return null;
+		}
 
 		appendOrAnd(node, false);
 
@@ -304,6 +570,26 @@ public class ClassTranslator implements NodeVisitor<Void, TranslationException>
 		return null;
 	}
 
+	@Override
+	public Void visit(CommonSubexpressionNode node) throws TranslationException {
+		int index = subexpressionIndexes.get(node);
+
+		// Compute the value of the subexpression the first time, after that load the computed value.
+		Label computed = new Label();
+		mv.visitVarInsn(ILOAD, index + 1);
+		mv.visitJumpInsn(IFNE, computed);             // if already computed --> jump to computed
+
+		node.getExpression().accept(this);
+		mv.visitVarInsn(ASTORE, index);
+		mv.visitInsn(ICONST_1);
+		mv.visitVarInsn(ISTORE, index + 1);
+
+		mv.visitLabel(computed);                        // define label computed
+		mv.visitVarInsn(ALOAD, index);
+		mv.visitTypeInsn(CHECKCAST, determineClassName(node.getType()));
+		return null;
+	}
+
 	@Override
 	public Void visit(ConcatStringNode node) throws TranslationException {
 		appendLineNumberLabel(node);
@@ -355,6 +641,9 @@ public class ClassTranslator implements NodeVisitor<Void, TranslationException>
 	@Override
 	public Void visit(DivideNode node) throws TranslationException {
 		appendLineNumberLabel(node);
+		if (appendPrimitiveOperation(node)) {
+			return null;
+		}
 		appendBinaryArithmeticOperation(node, "divide");
 		return null;
 	}
@@ -362,6 +651,9 @@ public class ClassTranslator implements NodeVisitor<Void, TranslationException>
 	@Override
 	public Void visit(EqNode node) throws TranslationException {
 		appendLineNumberLabel(node);
+		if (appendPrimitiveOperation(node)) {
+			return null;
+		}
 		appendComparisonNode(node, "EQUALS");
 		return null;
 	}
@@ -374,6 +666,25 @@ public class ClassTranslator implements NodeVisitor<Void, TranslationException>
 
 	@Override
 	public Void visit(FunctionNode node) throws TranslationException {
+		// Call the method of an intrinsic function directly.
+		if (node.getIntrinsic() != null) {
+			for (ExpressionNode parameter : node.getParameters()) {
+				parameter.accept(this);
+			}
+
+			// The parameters may be on other lines, so an exception thrown by the method points to the call.
+			appendLineNumberLabel(node);
+			Method intrinsic = node.getIntrinsic();
+			mv.visitMethodInsn(INVOKESTATIC, determineClassName(intrinsic.getDeclaringClass()), intrinsic.getName(),
+					org.objectweb.asm.Type.getMethodDescriptor(intrinsic), false);
+			return null;
+		}
+
+		if (dynamicFunctionLinking) {
+			appendDynamicFunctionCall(node);
+			return null;
+		}
+
 		mv.visitVarInsn(ALOAD, 0);
 
 		ArrayList<Class> classes = new ArrayList<>();
@@ -390,9 +701,45 @@ public class ClassTranslator implements NodeVisitor<Void, TranslationException>
 		return null;
 	}
 
+	/**
+	 * Appends an {@code invokedynamic} instruction for the call to the function, which receives the cache for the
+	 * results of pure functions of the generated class, the symbol table and the parameters. The types of the
+	 * parameters are passed to the bootstrap method so the function can be resolved when the call site is linked.
+	 * @param node The node with the call to the function.
+	 * @throws TranslationException
+	 */
+	private void appendDynamicFunctionCall(FunctionNode node) throws TranslationException {
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitFieldInsn(GETFIELD, determineClassName(generatedClassName), "functionResultCache",
+				determineFieldDescriptor(FunctionResultCache.class));
+		appendGetSymbolTable();
+
+		List<Class> classes = new ArrayList<>();
+		classes.add(FunctionResultCache.class);
+		classes.add(SymbolTable.class);
+		List<Type> types = new ArrayList<>();
+
+		for (ExpressionNode parameter : node.getParameters()) {
+			parameter.accept(this);
+			classes.add(determineJavaClass(parameter.getType()));
+			types.add(parameter.getType());
+		}
+
+		Handle bootstrap = new Handle(H_INVOKESTATIC, determineClassName(FunctionLinker.class), "bootstrap",
+				determineMethodDescriptor(CallSite.class, MethodHandles.Lookup.class, String.class, MethodType.class,
+						String.class), false);
+
+		mv.visitInvokeDynamicInsn(node.getIdentifier(),
+				determineMethodDescriptor(determineJavaClass(node.getType()), classes.toArray(new Class[classes.size()])),
+				bootstrap, FunctionLinker.encodeTypes(types));
+	}
+
 	@Override
 	public Void visit(GeqNode node) throws TranslationException {
 		appendLineNumberLabel(node);
+		if (appendPrimitiveOperation(node)) {
+			return null;
+		}
 		appendComparisonNode(node, "GREATER_THAN_EQUALS");
 		return null;
 	}
@@ -400,6 +747,9 @@ public class ClassTranslator implements NodeVisitor<Void, TranslationException>
 	@Override
 	public Void visit(GtNode node) throws TranslationException {
 		appendLineNumberLabel(node);
+		if (appendPrimitiveOperation(node)) {
+			return null;
+		}
 		appendComparisonNode(node, "GREATER_THAN");
 		return null;
 	}
@@ -456,6 +806,9 @@ public class ClassTranslator implements NodeVisitor<Void, TranslationException>
 	@Override
 	public Void visit(LeqNode node) throws TranslationException {
 		appendLineNumberLabel(node);
+		if (appendPrimitiveOperation(node)) {
+			return null;
+		}
 		appendComparisonNode(node, "LESS_THAN_EQUALS");
 		return null;
 	}
@@ -463,6 +816,9 @@ public class ClassTranslator implements NodeVisitor<Void, TranslationException>
 	@Override
 	public Void visit(LtNode node) throws TranslationException {
 		appendLineNumberLabel(node);
+		if (appendPrimitiveOperation(node)) {
+			return null;
+		}
 		appendComparisonNode(node, "LESS_THAN");
 		return null;
 	}
@@ -470,6 +826,9 @@ public class ClassTranslator implements NodeVisitor<Void, TranslationException>
 	@Override
 	public Void visit(ModuloNode node) throws TranslationException {
 		appendLineNumberLabel(node);
+		if (appendPrimitiveOperation(node)) {
+			return null;
+		}
 		appendBinaryArithmeticOperation(node, "modulo");
 		return null;
 	}
@@ -477,6 +836,9 @@ public class ClassTranslator implements NodeVisitor<Void, TranslationException>
 	@Override
 	public Void visit(MultiplyNode node) throws TranslationException {
 		appendLineNumberLabel(node);
+		if (appendPrimitiveOperation(node)) {
+			return null;
+		}
 		appendBinaryArithmeticOperation(node, "multiply");
 		return null;
 	}
@@ -484,6 +846,9 @@ public class ClassTranslator implements NodeVisitor<Void, TranslationException>
 	@Override
 	public Void visit(NegativeNode node) throws TranslationException {
 		appendLineNumberLabel(node);
+		if (appendPrimitiveOperation(node)) {
+			return null;
+		}
 		node.getArgument().accept(this);
 
 		mv.visitMethodInsn(INVOKESTATIC,
@@ -500,6 +865,9 @@ public class ClassTranslator implements NodeVisitor<Void, TranslationException>
 	@Override
 	public Void visit(NeqNode node) throws TranslationException {
 		appendLineNumberLabel(node);
+		if (appendPrimitiveOperation(node)) {
+			return null;
+		}
 		appendComparisonNode(node, "NOT_EQUALS");
 		return null;
 	}
@@ -507,6 +875,9 @@ public class ClassTranslator implements NodeVisitor<Void, TranslationException>
 	@Override
 	public Void visit(NotNode node) throws TranslationException {
 		appendLineNumberLabel(node);
+		if (appendPrimitiveOperation(node)) {
+			return null;
+		}
 		node.getArgument().accept(this);
 
 		mv.visitMethodInsn(INVOKESTATIC,
@@ -526,6 +897,9 @@ public class ClassTranslator implements NodeVisitor<Void, TranslationException>
 	@Override
 	public Void visit(OrNode node) throws TranslationException {
 		appendLineNumberLabel(node);
+		if (appendPrimitiveOperation(node)) {
+			return null;
+		}
 		appendOrAnd(node, true);
 		return null;
 	}
@@ -576,6 +950,9 @@ public class ClassTranslator implements NodeVisitor<Void, TranslationException>
 	@Override
 	public Void visit(SubtractNode node) throws TranslationException {
 		appendLineNumberLabel(node);
+		if (appendPrimitiveOperation(node)) {
+			return null;
+		}
 		appendBinaryArithmeticOperation(node, "subtract");
 		return null;
 	}
@@ -583,6 +960,9 @@ public class ClassTranslator implements NodeVisitor<Void, TranslationException>
 	@Override
 	public Void visit(SumNode node) throws TranslationException {
 		appendLineNumberLabel(node);
+		if (appendPrimitiveOperation(node)) {
+			return null;
+		}
 		appendBinaryArithmeticOperation(node, "sum");
 		return null;
 	}
@@ -862,6 +1242,268 @@ public class ClassTranslator implements NodeVisitor<Void, TranslationException>
 				false);
 	}
 
+	/**
+	 * Tries to append the operation as an operation on primitive values. This is possible when the operation and all
+	 * its operands are integer or boolean operations, integer or boolean literals, or variables. The operations are
+	 * then performed on {@code long} and {@code int} values on the operand stack, and only the result is boxed.
+	 *
+	 * Since the variables can be {@code null}, the variables of the operation are checked first. When all of them are
+	 * not {@code null} the primitive operation is executed. Otherwise the result is {@code null} when every operation in
+	 * the tree results in {@code null} for a {@code null} operand (see {@link #propagatesNull(ExpressionNode)}), so
+	 * only the primitive operation is appended. Equality and the logic of {@code &&} and {@code ||} have their own
+	 * rules for {@code null}; for trees with those operations the operation on the boxed values is appended as well,
+	 * which handles the {@code null} values.
+	 * @param node The node to append.
+	 * @return {@code true} when the operation is appended, {@code false} when it needs to be appended as a boxed
+	 * operation.
+	 */
+	private boolean appendPrimitiveOperation(ExpressionNode node) throws TranslationException {
+		if (!primitiveOperationsEnabled) {
+			return false;
+		}
+
+		Set<String> identifiers = new LinkedHashSet<>();
+		boolean isInteger = isPrimitiveInteger(node, identifiers);
+		if (!isInteger && !isPrimitiveBoolean(node, identifiers)) {
+			return false;
+		}
+
+		Label boxedLabel = new Label();
+		for (String identifier : identifiers) {
+			mv.visitVarInsn(ALOAD, methodVariableIndexes.get(identifier));
+			mv.visitJumpInsn(IFNULL, boxedLabel);
+		}
+
+		if (isInteger) {
+			appendPrimitiveInteger(node);
+			mv.visitMethodInsn(INVOKESTATIC, "java/lang/Long", "valueOf", "(J)Ljava/lang/Long;", false);
+		} else {
+			appendPrimitiveBoolean(node);
+			mv.visitMethodInsn(INVOKESTATIC, "java/lang/Boolean", "valueOf", "(Z)Ljava/lang/Boolean;", false);
+		}
+
+		if (identifiers.isEmpty()) {
+			return true;
+		}
+
+		Label endLabel = new Label();
+		mv.visitJumpInsn(GOTO, endLabel);
+		mv.visitLabel(boxedLabel);
+
+		if (propagatesNull(node)) {
+			// One of the variables is null, so the result is null.
+			mv.visitInsn(ACONST_NULL);
+		} else {
+			// One of the variables is null, execute the operation on the boxed values.
+			primitiveOperationsEnabled = false;
+			node.accept(this);
+			primitiveOperationsEnabled = true;
+		}
+
+		mv.visitLabel(endLabel);
+		return true;
+	}
+
+	/**
+	 * Determines whether the operation results in {@code null} as soon as one of its variables is {@code null}, which
+	 * is the case when it has no equality and no {@code &&} or {@code ||} operations. The node must be accepted by
+	 * {@link #isPrimitiveInteger(ExpressionNode, Set)} or {@link #isPrimitiveBoolean(ExpressionNode, Set)}.
+	 */
+	private static boolean propagatesNull(ExpressionNode node) {
+		if (node instanceof EqNode || node instanceof NeqNode || node instanceof AndNode || node instanceof OrNode) {
+			return false;
+		}
+		if (node instanceof BinaryOperationNode) {
+			BinaryOperationNode operation = (BinaryOperationNode) node;
+			return propagatesNull(operation.getLhs()) && propagatesNull(operation.getRhs());
+		}
+		if (node instanceof NegativeNode) {
+			return propagatesNull(((NegativeNode) node).getArgument());
+		}
+		if (node instanceof NotNode) {
+			return propagatesNull(((NotNode) node).getArgument());
+		}
+		if (node instanceof FactorNode) {
+			return propagatesNull(((FactorNode) node).getArgument());
+		}
+		// A literal or a variable.
+		return true;
+	}
+
+	/**
+	 * Determines whether the node can be translated to an operation that results in a {@code long}, and collects the
+	 * identifiers of its variables.
+	 */
+	private static boolean isPrimitiveInteger(ExpressionNode node, Set<String> identifiers) {
+		if (!Type.equals(node.getType(), Type.INTEGER)) {
+			return false;
+		}
+
+		if (node instanceof IntegerNode) {
+			return ((IntegerNode) node).getValue() != null;
+		}
+		if (node instanceof VariableNode) {
+			identifiers.add(((VariableNode) node).getIdentifier());
+			return true;
+		}
+		if (node instanceof SumNode || node instanceof SubtractNode || node instanceof MultiplyNode
+				|| node instanceof DivideNode || node instanceof ModuloNode) {
+			BinaryOperationNode operation = (BinaryOperationNode) node;
+			return isPrimitiveInteger(operation.getLhs(), identifiers)
+					&& isPrimitiveInteger(operation.getRhs(), identifiers);
+		}
+		if (node instanceof NegativeNode) {
+			return isPrimitiveInteger(((NegativeNode) node).getArgument(), identifiers);
+		}
+		if (node instanceof FactorNode) {
+			return isPrimitiveInteger(((FactorNode) node).getArgument(), identifiers);
+		}
+		return false;
+	}
+
+	/**
+	 * Determines whether the node can be translated to an operation that results in a boolean {@code int}, and
+	 * collects the identifiers of its variables.
+	 */
+	private static boolean isPrimitiveBoolean(ExpressionNode node, Set<String> identifiers) {
+		if (!Type.equals(node.getType(), Type.BOOLEAN)) {
+			return false;
+		}
+
+		if (node instanceof BooleanNode) {
+			return ((BooleanNode) node).getValue() != null;
+		}
+		if (node instanceof VariableNode) {
+			identifiers.add(((VariableNode) node).getIdentifier());
+			return true;
+		}
+		if (node instanceof AndNode || node instanceof OrNode) {
+			BinaryOperationNode operation = (BinaryOperationNode) node;
+			return isPrimitiveBoolean(operation.getLhs(), identifiers)
+					&& isPrimitiveBoolean(operation.getRhs(), identifiers);
+		}
+		if (node instanceof NotNode) {
+			return isPrimitiveBoolean(((NotNode) node).getArgument(), identifiers);
+		}
+		if (node instanceof EqNode || node instanceof NeqNode) {
+			BinaryOperationNode operation = (BinaryOperationNode) node;
+			return (isPrimitiveInteger(operation.getLhs(), identifiers)
+					&& isPrimitiveInteger(operation.getRhs(), identifiers))
+					|| (isPrimitiveBoolean(operation.getLhs(), identifiers)
+					&& isPrimitiveBoolean(operation.getRhs(), identifiers));
+		}
+		if (node instanceof AbstractComparisonNode) {
+			BinaryOperationNode operation = (BinaryOperationNode) node;
+			return isPrimitiveInteger(operation.getLhs(), identifiers)
+					&& isPrimitiveInteger(operation.getRhs(), identifiers);
+		}
+		return false;
+	}
+
+	/**
+	 * Appends the operation, leaves a {@code long} on the stack. The node must be accepted by
+	 * {@link #isPrimitiveInteger(ExpressionNode, Set)} and its variables must not be {@code null}.
+	 */
+	private void appendPrimitiveInteger(ExpressionNode node) {
+		if (node instanceof IntegerNode) {
+			mv.visitLdcInsn(((IntegerNode) node).getValue());
+		} else if (node instanceof VariableNode) {
+			mv.visitVarInsn(ALOAD, methodVariableIndexes.get(((VariableNode) node).getIdentifier()));
+			mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Long", "longValue", "()J", false);
+		} else if (node instanceof NegativeNode) {
+			appendPrimitiveInteger(((NegativeNode) node).getArgument());
+			mv.visitInsn(LNEG);
+		} else if (node instanceof FactorNode) {
+			appendPrimitiveInteger(((FactorNode) node).getArgument());
+		} else {
+			BinaryOperationNode operation = (BinaryOperationNode) node;
+			appendPrimitiveInteger(operation.getLhs());
+			appendPrimitiveInteger(operation.getRhs());
+
+			if (node instanceof SumNode) {
+				mv.visitInsn(LADD);
+			} else if (node instanceof SubtractNode) {
+				mv.visitInsn(LSUB);
+			} else if (node instanceof MultiplyNode) {
+				mv.visitInsn(LMUL);
+			} else if (node instanceof DivideNode) {
+				mv.visitInsn(LDIV);
+			} else {
+				mv.visitInsn(LREM);
+			}
+		}
+	}
+
+	/**
+	 * Appends the operation, leaves a boolean {@code int} on the stack. The node must be accepted by
+	 * {@link #isPrimitiveBoolean(ExpressionNode, Set)} and its variables must not be {@code null}.
+	 */
+	private void appendPrimitiveBoolean(ExpressionNode node) {
+		if (node instanceof BooleanNode) {
+			mv.visitInsn(((BooleanNode) node).getValue() ? ICONST_1 : ICONST_0);
+		} else if (node instanceof VariableNode) {
+			mv.visitVarInsn(ALOAD, methodVariableIndexes.get(((VariableNode) node).getIdentifier()));
+			mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Boolean", "booleanValue", "()Z", false);
+		} else if (node instanceof NotNode) {
+			appendPrimitiveBoolean(((NotNode) node).getArgument());
+			mv.visitInsn(ICONST_1);
+			mv.visitInsn(IXOR);
+		} else if (node instanceof AndNode || node instanceof OrNode) {
+			BinaryOperationNode operation = (BinaryOperationNode) node;
+			boolean isOr = node instanceof OrNode;
+
+			Label shortCircuitLabel = new Label();
+			Label endLabel = new Label();
+			appendPrimitiveBoolean(operation.getLhs());
+			mv.visitJumpInsn(isOr ? IFNE : IFEQ, shortCircuitLabel);
+			appendPrimitiveBoolean(operation.getRhs());
+			mv.visitJumpInsn(GOTO, endLabel);
+			mv.visitLabel(shortCircuitLabel);
+			mv.visitInsn(isOr ? ICONST_1 : ICONST_0);
+			mv.visitLabel(endLabel);
+		} else {
+			BinaryOperationNode operation = (BinaryOperationNode) node;
+			int jumpOpcode;
+			if (Type.equals(operation.getLhs().getType(), Type.BOOLEAN)) {
+				appendPrimitiveBoolean(operation.getLhs());
+				appendPrimitiveBoolean(operation.getRhs());
+				jumpOpcode = node instanceof EqNode ? IF_ICMPEQ : IF_ICMPNE;
+			} else {
+				appendPrimitiveInteger(operation.getLhs());
+				appendPrimitiveInteger(operation.getRhs());
+				mv.visitInsn(LCMP);
+				jumpOpcode = determineComparisonJumpOpcode(node);
+			}
+
+			Label trueLabel = new Label();
+			Label endLabel = new Label();
+			mv.visitJumpInsn(jumpOpcode, trueLabel);
+			mv.visitInsn(ICONST_0);
+			mv.visitJumpInsn(GOTO, endLabel);
+			mv.visitLabel(trueLabel);
+			mv.visitInsn(ICONST_1);
+			mv.visitLabel(endLabel);
+		}
+	}
+
+	/**
+	 * Determines the opcode that jumps when the result of {@code LCMP} satisfies the comparison.
+	 */
+	private static int determineComparisonJumpOpcode(ExpressionNode node) {
+		if (node instanceof EqNode) {
+			return IFEQ;
+		} else if (node instanceof NeqNode) {
+			return IFNE;
+		} else if (node instanceof LtNode) {
+			return IFLT;
+		} else if (node instanceof LeqNode) {
+			return IFLE;
+		} else if (node instanceof GtNode) {
+			return IFGT;
+		}
+		return IFGE;
+	}
+
 	/**
 	 * Appends a call to {@link AbacusContext#getMathContext()}. Effectively pushing the math context on the stack.
 	 */
@@ -935,6 +1577,42 @@ public class ClassTranslator implements NodeVisitor<Void, TranslationException>
 		mv.visitLabel(successLabel);
 	}
 
+	/**
+	 * Reads all variables that are read at any time from the frame and place them in the method variable array.
+	 */
+	private void appendReadFrameValues(Node node) throws TranslationException {
+		for (Variable variable : readVariableList) {
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitLdcInsn(determineSlot(variable, node));
+			mv.visitInsn(AALOAD);
+			mv.visitTypeInsn(CHECKCAST, determineClassName(variable.getType()));
+			mv.visitVarInsn(ASTORE, methodVariableIndexes.get(variable.getIdentifier()));
+		}
+	}
+
+	/**
+	 * Stores all variables that are written at any time from the method variable array to the frame.
+	 */
+	private void appendStoreFrameValues(Node node) throws TranslationException {
+		for (Variable variable : storeVariableList) {
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitLdcInsn(determineSlot(variable, node));
+			mv.visitVarInsn(ALOAD, methodVariableIndexes.get(variable.getIdentifier()));
+			mv.visitInsn(AASTORE);
+		}
+	}
+
+	/**
+	 * Determines the slot of the variable in the frame.
+	 */
+	private int determineSlot(Variable variable, Node node) throws TranslationException {
+		int slot = frameSchema.getSlot(variable.getIdentifier());
+		if (slot < 0) {
+			throw new TranslationException("Variable '" + variable.getIdentifier() + "' does not exist.", node);
+		}
+		return slot;
+	}
+
 	/**
 	 * Stores all variables that are written at any time frin the method variable array to the symbol table.
 	 */
@@ -1044,6 +1722,13 @@ public class ClassTranslator implements NodeVisitor<Void, TranslationException>
 	 * @return The field descriptor.
 	 */
 	private static String determineFieldDescriptor(Class clazz) {
+		if (clazz.isPrimitive()) {
+			return org.objectweb.asm.Type.getDescriptor(clazz);
+		}
+		// The name of an array class already is a descriptor.
+		if (clazz.isArray()) {
+			return determineClassName(clazz);
+		}
 		return "L" + determineClassName(clazz) + ";";
 	}
 
@@ -8,6 +8,7 @@ import org.gertje.abacus.nodes.ArrayNode;
 import org.gertje.abacus.nodes.AssignmentNode;
 import org.gertje.abacus.nodes.BinaryOperationNode;
 import org.gertje.abacus.nodes.BooleanNode;
+import org.gertje.abacus.nodes.CommonSubexpressionNode;
 import org.gertje.abacus.nodes.ConcatStringNode;
 import org.gertje.abacus.nodes.DateNode;
 import org.gertje.abacus.nodes.DecimalNode;
@@ -49,8 +50,11 @@ import org.gertje.abacus.util.JavaTypeHelper;
 
 import java.math.MathContext;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 public class Translator implements NodeVisitor<Void, TranslationException> {
 
@@ -74,6 +78,16 @@ public class Translator implements NodeVisitor<Void, TranslationException> {
 	 */
 	private String resultName;
 
+	/**
+	 * The definitions of the variables of the common subexpressions.
+	 */
+	private StringBuilder subexpressionDefinitions;
+
+	/**
+	 * The common subexpressions whose variables have been defined.
+	 */
+	private Set<CommonSubexpressionNode> definedSubexpressions;
+
 	/**
 	 * Constructor.
 	 */
@@ -82,12 +96,18 @@ public class Translator implements NodeVisitor<Void, TranslationException> {
 		this.symbolTable = abacusContext.getSymbolTable();
 
 		expression = new StringBuilder();
+		subexpressionDefinitions = new StringBuilder();
+		definedSubexpressions = Collections.newSetFromMap(new IdentityHashMap<CommonSubexpressionNode, Boolean>());
 	}
 
 	public String translate(Node node) throws TranslationException {
 		expression.append(determineMathContext());
 		node.accept(this);
 
+		// The variables of the common subexpressions are defined before all other variables, since they are used
+		// outside the block they are computed in.
+		expression.insert(0, subexpressionDefinitions);
+
 		if (node.getNodeType() == NodeType.EXPRESSION) {
 			expression.append("return ").append(determineVariableName(node)).append(";\n");
 		} else {
@@ -186,6 +206,31 @@ public class Translator implements NodeVisitor<Void, TranslationException> {
 		return null;
 	}
 
+	@Override
+	public Void visit(CommonSubexpressionNode node) throws TranslationException {
+		ExpressionNode subexpression = node.getExpression();
+
+		String name = determineVariableName(node);
+		String computed = name + "c";
+		String value = determineVariableName(subexpression);
+
+		if (definedSubexpressions.add(node)) {
+			subexpressionDefinitions.append(determineJavaType(node.getType())).append(" ").append(name)
+					.append(" = null;\n");
+			subexpressionDefinitions.append("boolean ").append(computed).append(" = false;\n");
+		}
+
+		// Compute the value of the subexpression the first time, after that the computed value is used.
+		expression.append("if (!").append(computed).append(") {\n");
+
+		subexpression.accept(this);
+		appendAssignment(name, node.getType(), value, subexpression.getType());
+		expression.append(computed).append(" = true;\n");
+
+		expression.append("}\n");
+		return null;
+	}
+
 	@Override
 	public Void visit(ConcatStringNode node) throws TranslationException {
 		ExpressionNode lhs = node.getLhs();
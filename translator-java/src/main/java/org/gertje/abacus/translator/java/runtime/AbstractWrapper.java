@@ -0,0 +1,24 @@
+package org.gertje.abacus.translator.java.runtime;
+
+import org.gertje.abacus.context.AbacusContext;
+import org.gertje.abacus.functions.FunctionResultCache;
+
+/**
+ * Base class of the generated classes, for expressions (see {@link AbacusWrapper}) as well as for rulesets (see
+ * {@link RulesetWrapper}). Holds the context the generated methods evaluate in.
+ */
+public abstract class AbstractWrapper {
+
+	protected AbacusContext abacusContext;
+
+	/**
+	 * The memoized results of the calls to pure functions, see {@link FunctionLinker}. The results are kept as long as
+	 * the instance evaluates with the same context.
+	 */
+	protected final FunctionResultCache functionResultCache = new FunctionResultCache();
+
+	public void setAbacusContext(AbacusContext abacusContext) {
+		this.abacusContext = abacusContext;
+		functionResultCache.clear();
+	}
+}
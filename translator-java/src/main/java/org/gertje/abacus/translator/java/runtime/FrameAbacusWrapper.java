@@ -0,0 +1,29 @@
+package org.gertje.abacus.translator.java.runtime;
+
+import org.gertje.abacus.symboltable.SlotSymbolTable;
+
+/**
+ * Base class for the classes that receive the values of the variables in a frame: an array with the value of every
+ * variable at its slot, see {@link SlotSymbolTable}. The generated method reads and writes the values by index, so it
+ * does not need to look up the variables in the symbol table.
+ */
+public abstract class FrameAbacusWrapper<T> extends AbacusWrapper<T> {
+
+	/**
+	 * Evaluates the expression with the values in the frame. The values of the variables that are assigned are written
+	 * back to the frame.
+	 * @param frame The values of the variables, indexed by slot.
+	 * @return The value of the expression.
+	 * @throws Exception When the expression could not be evaluated.
+	 */
+	public abstract T f(Object[] frame) throws Exception;
+
+	/**
+	 * Evaluates the expression with the values of the symbol table of the context, which must be a
+	 * {@link SlotSymbolTable} with the schema the class was generated for.
+	 */
+	@Override
+	public T f() throws Exception {
+		return f(((SlotSymbolTable) abacusContext.getSymbolTable()).getValues());
+	}
+}
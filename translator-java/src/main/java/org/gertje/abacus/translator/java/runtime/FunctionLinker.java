@@ -0,0 +1,283 @@
+package org.gertje.abacus.translator.java.runtime;
+
+import org.gertje.abacus.functions.Function;
+import org.gertje.abacus.functions.FunctionResultCache;
+import org.gertje.abacus.functions.PureFunction;
+import org.gertje.abacus.symboltable.FunctionRegistry;
+import org.gertje.abacus.symboltable.FunctionRegistryOwner;
+import org.gertje.abacus.symboltable.NoSuchFunctionException;
+import org.gertje.abacus.symboltable.SymbolTable;
+import org.gertje.abacus.types.Type;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.lang.invoke.SwitchPoint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Links the {@code invokedynamic} call sites of the calls to functions in generated classes.
+ *
+ * A call site receives the cache for the results of pure functions, the symbol table and the values of the
+ * parameters. The first call resolves the function in the {@link FunctionRegistry} of the symbol table and links the
+ * call site to it, so later calls invoke the function directly. The link is guarded by the registry (a call with the symbol table of another registry relinks the call
+ * site) and by the {@link SwitchPoint} of the registry (registering a function relinks all call sites). A call site
+ * that is relinked more than {@link #MAX_RELINKS} times, for instance because every evaluation uses a new symbol
+ * table, is no longer linked: it resolves the function in the registry on every call.
+ *
+ * When the symbol table does not keep its functions in a registry, every call is resolved by the symbol table.
+ *
+ * The results of calls to pure functions are memoized in the bounded {@link FunctionResultCache} that the generated
+ * class passes to the call site: the cache of the instance that evaluates the expression (see
+ * {@link AbstractWrapper#functionResultCache}), so results do not outlive the evaluations of that instance.
+ */
+public final class FunctionLinker {
+
+	/**
+	 * The separator between the types in the type signature of a call site.
+	 */
+	private static final String TYPE_SEPARATOR = ",";
+
+	/**
+	 * The separator between the base type and the dimensionality of a type in the type signature of a call site.
+	 */
+	private static final String DIMENSIONALITY_SEPARATOR = "/";
+
+	/**
+	 * The type signature of a parameter that has no type, i.e. the {@code null} literal.
+	 */
+	private static final String NULL_TYPE = "null";
+
+	/**
+	 * The number of times a call site is relinked before it resolves the function on every call instead.
+	 */
+	public static final int MAX_RELINKS = 8;
+
+	private static final MethodHandle RELINK;
+	private static final MethodHandle RESOLVE;
+	private static final MethodHandle INVOKE;
+	private static final MethodHandle INVOKE_MEMOIZED;
+	private static final MethodHandle IS_OWNED_BY;
+
+	static {
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		try {
+			RELINK = lookup.findVirtual(FunctionCallSite.class, "relink", MethodType.methodType(Object.class,
+					FunctionResultCache.class, SymbolTable.class, Object[].class));
+			RESOLVE = lookup.findVirtual(FunctionCallSite.class, "resolve", MethodType.methodType(Object.class,
+					FunctionResultCache.class, SymbolTable.class, Object[].class));
+			INVOKE = lookup.findStatic(FunctionLinker.class, "invoke", MethodType.methodType(Object.class,
+					Function.class, FunctionResultCache.class, SymbolTable.class, Object[].class));
+			INVOKE_MEMOIZED = lookup.findStatic(FunctionLinker.class, "invokeMemoized",
+					MethodType.methodType(Object.class, Function.class, FunctionResultCache.class, SymbolTable.class,
+							Object[].class));
+			IS_OWNED_BY = lookup.findStatic(FunctionLinker.class, "isOwnedBy", MethodType.methodType(boolean.class,
+					FunctionRegistry.class, FunctionResultCache.class, SymbolTable.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private FunctionLinker() {
+	}
+
+	/**
+	 * The bootstrap method of the call sites.
+	 * @param lookup The lookup of the generated class.
+	 * @param name The name of the function.
+	 * @param type The type of the call site: the cache for the results, the symbol table and the parameters, see
+	 * {@link #encodeTypes(List)} for the types of the parameters.
+	 * @param typeSignature The abacus types of the parameters, see {@link #encodeTypes(List)}.
+	 * @return The call site.
+	 */
+	public static CallSite bootstrap(MethodHandles.Lookup lookup, String name, MethodType type, String typeSignature) {
+		return new FunctionCallSite(name, type, decodeTypes(typeSignature));
+	}
+
+	/**
+	 * Encodes the abacus types of the parameters of a call in the type signature that is passed to the bootstrap
+	 * method.
+	 * @param types The types of the parameters.
+	 * @return The type signature.
+	 */
+	public static String encodeTypes(List<Type> types) {
+		StringBuilder signature = new StringBuilder();
+		for (Type type : types) {
+			if (signature.length() > 0) {
+				signature.append(TYPE_SEPARATOR);
+			}
+			if (type == null) {
+				signature.append(NULL_TYPE);
+			} else {
+				signature.append(type.getBaseType().name()).append(DIMENSIONALITY_SEPARATOR)
+						.append(type.getDimensionality());
+			}
+		}
+		return signature.toString();
+	}
+
+	/**
+	 * Decodes the type signature that is created by {@link #encodeTypes(List)}.
+	 */
+	static List<Type> decodeTypes(String typeSignature) {
+		List<Type> types = new ArrayList<>();
+		if (typeSignature.isEmpty()) {
+			return types;
+		}
+
+		for (String part : typeSignature.split(TYPE_SEPARATOR)) {
+			if (NULL_TYPE.equals(part)) {
+				types.add(null);
+				continue;
+			}
+			String[] baseTypeAndDimensionality = part.split(DIMENSIONALITY_SEPARATOR);
+			types.add(Type.get(Type.BaseType.valueOf(baseTypeAndDimensionality[0]),
+					Integer.parseInt(baseTypeAndDimensionality[1])));
+		}
+		return types;
+	}
+
+	/**
+	 * Invokes the linked function.
+	 */
+	private static Object invoke(Function function, FunctionResultCache functionResultCache, SymbolTable symbolTable,
+			Object[] params) {
+		return function.evaluate(Arrays.asList(params));
+	}
+
+	/**
+	 * Invokes the linked pure function, returns the memoized result when the function was called with the same
+	 * parameters before.
+	 */
+	private static Object invokeMemoized(Function function, FunctionResultCache functionResultCache,
+			SymbolTable symbolTable, Object[] params) {
+		return functionResultCache.evaluate(function, Arrays.asList(params));
+	}
+
+	/**
+	 * Determines whether the symbol table keeps its functions in the given registry.
+	 */
+	private static boolean isOwnedBy(FunctionRegistry registry, FunctionResultCache functionResultCache,
+			SymbolTable symbolTable) {
+		return symbolTable instanceof FunctionRegistryOwner
+				&& ((FunctionRegistryOwner) symbolTable).getFunctionRegistry() == registry;
+	}
+
+	/**
+	 * The call site of a call to a function.
+	 */
+	private static class FunctionCallSite extends MutableCallSite {
+
+		/**
+		 * The name of the function.
+		 */
+		private final String name;
+
+		/**
+		 * The abacus types of the parameters.
+		 */
+		private final List<Type> types;
+
+		/**
+		 * The method handle that resolves the function and relinks the call site, adapted to the type of the call
+		 * site.
+		 */
+		private final MethodHandle fallback;
+
+		/**
+		 * The number of times the call site is linked. The count is not exact when several threads relink the call
+		 * site at the same time, which does not matter since it only bounds the number of relinks.
+		 */
+		private int relinks;
+
+		public FunctionCallSite(String name, MethodType type, List<Type> types) {
+			super(type);
+			this.name = name;
+			this.types = types;
+
+			fallback = adapt(RELINK.bindTo(this));
+			setTarget(fallback);
+		}
+
+		/**
+		 * Resolves the function, links the call site to it and invokes it.
+		 * @param functionResultCache The cache for the results of pure functions.
+		 * @param symbolTable The symbol table.
+		 * @param params The values of the parameters.
+		 * @return The return value of the function.
+		 * @throws NoSuchFunctionException When the function does not exist.
+		 */
+		Object relink(FunctionResultCache functionResultCache, SymbolTable symbolTable, Object[] params)
+				throws NoSuchFunctionException {
+			if (!(symbolTable instanceof FunctionRegistryOwner)) {
+				return symbolTable.getFunctionReturnValue(name, Arrays.asList(params), types);
+			}
+
+			// Linking costs more than resolving the function, stop linking when the link does not last.
+			if (relinks++ >= MAX_RELINKS) {
+				setTarget(adapt(RESOLVE.bindTo(this)));
+				return resolve(functionResultCache, symbolTable, params);
+			}
+
+			FunctionRegistry registry = ((FunctionRegistryOwner) symbolTable).getFunctionRegistry();
+			// Retrieve the switch point before the function, so a function that is registered in between invalidates
+			// the link.
+			SwitchPoint switchPoint = registry.getSwitchPoint();
+			Function function = determineFunction(registry);
+
+			MethodHandle target = function instanceof PureFunction
+					? adapt(INVOKE_MEMOIZED.bindTo(function))
+					: adapt(INVOKE.bindTo(function));
+			MethodHandle guarded = MethodHandles.guardWithTest(IS_OWNED_BY.bindTo(registry), target, fallback);
+			setTarget(switchPoint.guardWithTest(guarded, fallback));
+
+			return function instanceof PureFunction
+					? invokeMemoized(function, functionResultCache, symbolTable, params)
+					: function.evaluate(Arrays.asList(params));
+		}
+
+		/**
+		 * Resolves the function and invokes it, without linking the call site.
+		 * @param functionResultCache The cache for the results of pure functions.
+		 * @param symbolTable The symbol table.
+		 * @param params The values of the parameters.
+		 * @return The return value of the function.
+		 * @throws NoSuchFunctionException When the function does not exist.
+		 */
+		Object resolve(FunctionResultCache functionResultCache, SymbolTable symbolTable, Object[] params)
+				throws NoSuchFunctionException {
+			if (!(symbolTable instanceof FunctionRegistryOwner)) {
+				return symbolTable.getFunctionReturnValue(name, Arrays.asList(params), types);
+			}
+
+			Function function = determineFunction(((FunctionRegistryOwner) symbolTable).getFunctionRegistry());
+			return function instanceof PureFunction
+					? invokeMemoized(function, functionResultCache, symbolTable, params)
+					: function.evaluate(Arrays.asList(params));
+		}
+
+		/**
+		 * Returns the function of the registry that is called from this call site.
+		 * @throws NoSuchFunctionException When the function does not exist.
+		 */
+		private Function determineFunction(FunctionRegistry registry) throws NoSuchFunctionException {
+			Function function = registry.getFunction(name, types);
+			if (function == null) {
+				throw new NoSuchFunctionException("Function '" + name + "' does not exist.");
+			}
+			return function;
+		}
+
+		/**
+		 * Adapts a method handle that receives the cache, the symbol table and the parameters in an array to the type
+		 * of the call site.
+		 */
+		private MethodHandle adapt(MethodHandle handle) {
+			return handle.asCollector(Object[].class, type().parameterCount() - 2).asType(type());
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package org.gertje.abacus.translator.java.runtime;
+
+import org.gertje.abacus.symboltable.SlotSymbolTable;
+
+/**
+ * Base class for the classes that are generated for a ruleset, see
+ * {@link org.gertje.abacus.translator.java.nodevisitors.ClassTranslator#translateRuleset}. A ruleset class evaluates
+ * any of its rules; the rules are identified by their index. Like the {@link FrameAbacusWrapper} the rules receive the
+ * values of the variables in a frame.
+ */
+public abstract class RulesetWrapper extends AbstractWrapper {
+
+	/**
+	 * Evaluates the rule with the values in the frame. The values of the variables that are assigned are written back
+	 * to the frame.
+	 * @param rule The index of the rule.
+	 * @param frame The values of the variables, indexed by slot.
+	 * @return The value of the rule.
+	 * @throws Exception When the rule could not be evaluated.
+	 * @throws IndexOutOfBoundsException When the ruleset does not contain the rule.
+	 */
+	public abstract Object f(int rule, Object[] frame) throws Exception;
+
+	/**
+	 * Returns the number of rules in the ruleset.
+	 */
+	public abstract int getRuleCount();
+
+	/**
+	 * Evaluates the rule with the values of the symbol table of the context, which must be a {@link SlotSymbolTable}
+	 * with the schema the class was generated for.
+	 * @param rule The index of the rule.
+	 * @return The value of the rule.
+	 * @throws Exception When the rule could not be evaluated.
+	 */
+	public Object f(int rule) throws Exception {
+		return f(rule, ((SlotSymbolTable) abacusContext.getSymbolTable()).getValues());
+	}
+
+	/**
+	 * Evaluates all rules in order with the values in the frame. A rule sees the values that are assigned by the rules
+	 * before it.
+	 * @param frame The values of the variables, indexed by slot.
+	 * @return The values of the rules, indexed by rule.
+	 * @throws Exception When one of the rules could not be evaluated.
+	 */
+	public Object[] evaluateAll(Object[] frame) throws Exception {
+		Object[] results = new Object[getRuleCount()];
+		for (int i = 0; i < results.length; i++) {
+			results[i] = f(i, frame);
+		}
+		return results;
+	}
+}
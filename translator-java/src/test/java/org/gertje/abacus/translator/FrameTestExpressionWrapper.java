@@ -0,0 +1,10 @@
+package org.gertje.abacus.translator;
+
+import org.gertje.abacus.translator.java.runtime.FrameAbacusWrapper;
+
+public abstract class FrameTestExpressionWrapper<T> extends FrameAbacusWrapper<T> {
+
+	public java.math.BigDecimal function_rand() {
+		return new java.math.BigDecimal("0.5");
+	}
+}
@@ -14,4 +14,9 @@ public class TranslationTest extends AbacusTest {
 	public void testClassTranslation() throws Exception {
 		runTestCaseRunner(new ClassTranslatorTestCaseRunner());
 	}
+
+	@Test
+	public void testFrameClassTranslation() throws Exception {
+		runTestCaseRunner(new FrameClassTranslatorTestCaseRunner());
+	}
 }
@@ -0,0 +1,180 @@
+package org.gertje.abacus.translator.java.cache;
+
+import org.gertje.abacus.context.AbacusContext;
+import org.gertje.abacus.context.SimpleAbacusContext;
+import org.gertje.abacus.lexer.AbacusLexer;
+import org.gertje.abacus.nodes.AbacusNodeFactory;
+import org.gertje.abacus.nodes.Node;
+import org.gertje.abacus.nodes.NodeFactory;
+import org.gertje.abacus.nodevisitors.SemanticsChecker;
+import org.gertje.abacus.nodevisitors.Simplifier;
+import org.gertje.abacus.parser.Parser;
+import org.gertje.abacus.symboltable.SimpleSymbolTable;
+import org.gertje.abacus.symboltable.Variable;
+import org.gertje.abacus.translator.TestExpressionWrapper;
+import org.gertje.abacus.translator.java.runtime.AbacusWrapper;
+import org.gertje.abacus.types.Type;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.File;
+import java.math.BigDecimal;
+
+/**
+ * Tests the {@link CompiledClassRegistry}.
+ */
+public class CompiledClassRegistryTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testDeduplication() throws Exception {
+		CompiledClassRegistry registry = new CompiledClassRegistry(TestExpressionWrapper.class, 10);
+		AbacusContext abacusContext = createContext(Type.INTEGER, 3L);
+
+		Class<?> first = registry.getClass(compile("a * 2 + 1", abacusContext), abacusContext);
+		Class<?> second = registry.getClass(compile("a * 2 + 1", abacusContext), abacusContext);
+
+		Assert.assertSame(first, second);
+		Assert.assertEquals(1, registry.getMissCount());
+		Assert.assertEquals(1, registry.getHitCount());
+
+		AbacusWrapper wrapper = registry.newInstance(compile("a * 2 + 1", abacusContext), abacusContext);
+		Assert.assertEquals(7L, wrapper.f());
+	}
+
+	@Test
+	public void testDifferentTypes() throws Exception {
+		CompiledClassRegistry registry = new CompiledClassRegistry(TestExpressionWrapper.class, 10);
+		AbacusContext integerContext = createContext(Type.INTEGER, 3L);
+		AbacusContext decimalContext = createContext(Type.DECIMAL, new BigDecimal("1.5"));
+
+		Class<?> integerClass = registry.getClass(compile("a * 2", integerContext), integerContext);
+		Class<?> decimalClass = registry.getClass(compile("a * 2", decimalContext), decimalContext);
+
+		Assert.assertNotSame(integerClass, decimalClass);
+		Assert.assertEquals(0, new BigDecimal("3")
+				.compareTo((BigDecimal) registry.newInstance(compile("a * 2", decimalContext), decimalContext).f()));
+	}
+
+	@Test
+	public void testPooledLoaders() throws Exception {
+		CompiledClassRegistry registry = new CompiledClassRegistry(TestExpressionWrapper.class, 4, 2);
+		AbacusContext abacusContext = createContext(Type.INTEGER, 3L);
+
+		Class<?> first = registry.getClass(compile("a + 1", abacusContext), abacusContext);
+		Class<?> second = registry.getClass(compile("a + 2", abacusContext), abacusContext);
+		Class<?> third = registry.getClass(compile("a + 3", abacusContext), abacusContext);
+
+		Assert.assertSame(first.getClassLoader(), second.getClassLoader());
+		Assert.assertNotSame(first.getClassLoader(), third.getClassLoader());
+		Assert.assertEquals(2, registry.getLoaderCount());
+
+		// Evict the first two classes; their loader is released.
+		for (int i = 4; i < 7; i++) {
+			registry.getClass(compile("a + " + i, abacusContext), abacusContext);
+		}
+		Assert.assertEquals(4, registry.size());
+		Assert.assertEquals(2, registry.getEvictionCount());
+		Assert.assertEquals(2, registry.getLoaderCount());
+
+		registry.invalidateAll();
+		Assert.assertEquals(0, registry.size());
+		Assert.assertEquals(0, registry.getLoaderCount());
+	}
+
+	@Test
+	public void testGenerateAgainAfterEviction() throws Exception {
+		CompiledClassRegistry registry = new CompiledClassRegistry(TestExpressionWrapper.class, 1);
+		AbacusContext abacusContext = createContext(Type.INTEGER, 3L);
+
+		Class<?> first = registry.getClass(compile("a + 1", abacusContext), abacusContext);
+		registry.getClass(compile("a + 2", abacusContext), abacusContext);
+
+		// The class has the same name, so it must be defined by another loader.
+		Class<?> again = registry.getClass(compile("a + 1", abacusContext), abacusContext);
+		Assert.assertEquals(first.getName(), again.getName());
+		Assert.assertNotSame(first.getClassLoader(), again.getClassLoader());
+		Assert.assertEquals(4L, registry.newInstance(compile("a + 1", abacusContext), abacusContext).f());
+	}
+
+	@Test
+	public void testDiskCache() throws Exception {
+		DiskClassCache diskCache = new DiskClassCache(temporaryFolder.getRoot(), 1024 * 1024);
+		AbacusContext abacusContext = createContext(Type.INTEGER, 3L);
+
+		CompiledClassRegistry registry = new CompiledClassRegistry(TestExpressionWrapper.class, 10, 64, diskCache);
+		Assert.assertEquals(7L, registry.newInstance(compile("a * 2 + 1", abacusContext), abacusContext).f());
+		Assert.assertEquals(0, diskCache.getHitCount());
+		Assert.assertEquals(1, diskCache.getMissCount());
+
+		// A new registry, like after a restart, loads the byte code from disk.
+		registry = new CompiledClassRegistry(TestExpressionWrapper.class, 10, 64, diskCache);
+		Assert.assertEquals(7L, registry.newInstance(compile("a * 2 + 1", abacusContext), abacusContext).f());
+		Assert.assertEquals(1, diskCache.getHitCount());
+	}
+
+	@Test
+	public void testUnverifiableByteCodeInDiskCache() throws Exception {
+		File directory = temporaryFolder.getRoot();
+		AbacusContext abacusContext = createContext(Type.INTEGER, 3L);
+		String className = new CompiledClassRegistry(TestExpressionWrapper.class, 10, 64,
+				new DiskClassCache(directory, 1024 * 1024)).getClass(compile("a * 2 + 1", abacusContext), abacusContext)
+				.getName();
+
+		// The disk cache returns byte code that can be defined, but does not pass verification.
+		final byte[] unverifiableByteCode = createUnverifiableClass(className);
+		DiskClassCache diskCache = new DiskClassCache(directory, 1024 * 1024) {
+			@Override
+			public byte[] get(String key) {
+				return super.get(key) != null ? unverifiableByteCode : null;
+			}
+		};
+
+		CompiledClassRegistry registry = new CompiledClassRegistry(TestExpressionWrapper.class, 10, 64, diskCache);
+		Assert.assertEquals(7L, registry.newInstance(compile("a * 2 + 1", abacusContext), abacusContext).f());
+		// The loader that defined the unverifiable class is released.
+		Assert.assertEquals(1, registry.getLoaderCount());
+	}
+
+	/**
+	 * Creates a class that extends the {@link TestExpressionWrapper}, with a method {@code f} that returns an
+	 * {@code int} instead of an object.
+	 */
+	private static byte[] createUnverifiableClass(String className) {
+		ClassWriter classWriter = new ClassWriter(0);
+		classWriter.visit(Opcodes.V1_7, Opcodes.ACC_PUBLIC, className.replace('.', '/'), null,
+				TestExpressionWrapper.class.getName().replace('.', '/'), null);
+
+		MethodVisitor methodVisitor = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "f", "()Ljava/lang/Object;", null,
+				null);
+		methodVisitor.visitCode();
+		methodVisitor.visitInsn(Opcodes.ICONST_0);
+		methodVisitor.visitInsn(Opcodes.ARETURN);
+		methodVisitor.visitMaxs(1, 1);
+		methodVisitor.visitEnd();
+
+		classWriter.visitEnd();
+		return classWriter.toByteArray();
+	}
+
+	private Node compile(String expression, AbacusContext abacusContext) throws Exception {
+		NodeFactory nodeFactory = new AbacusNodeFactory();
+		Node node = new Parser(new AbacusLexer(expression), nodeFactory).parse();
+		new SemanticsChecker(abacusContext.getSymbolTable()).check(node);
+		return new Simplifier(abacusContext, nodeFactory).simplify(node);
+	}
+
+	private AbacusContext createContext(Type type, Object value) throws Exception {
+		SimpleSymbolTable symbolTable = new SimpleSymbolTable();
+		symbolTable.addVariable(new Variable("a", type));
+		symbolTable.setVariableValue("a", value);
+		return new SimpleAbacusContext(symbolTable);
+	}
+}
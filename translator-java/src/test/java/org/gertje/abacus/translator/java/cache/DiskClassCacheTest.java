@@ -0,0 +1,104 @@
+package org.gertje.abacus.translator.java.cache;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+/**
+ * Tests the {@link DiskClassCache}.
+ */
+public class DiskClassCacheTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testGetAndPut() throws Exception {
+		DiskClassCache cache = new DiskClassCache(temporaryFolder.getRoot(), 1024);
+
+		Assert.assertNull(cache.get("a"));
+		cache.put("a", new byte[] {1, 2, 3});
+		Assert.assertArrayEquals(new byte[] {1, 2, 3}, cache.get("a"));
+
+		// Another cache on the same directory sees the entry.
+		Assert.assertArrayEquals(new byte[] {1, 2, 3}, new DiskClassCache(temporaryFolder.getRoot(), 1024).get("a"));
+
+		cache.invalidateAll();
+		Assert.assertNull(cache.get("a"));
+		Assert.assertEquals(1, cache.getHitCount());
+		Assert.assertEquals(2, cache.getMissCount());
+	}
+
+	@Test
+	public void testEviction() throws Exception {
+		File directory = temporaryFolder.getRoot();
+		// Every file holds a digest of 32 bytes and the byte code, so two entries of 10 bytes fit.
+		DiskClassCache cache = new DiskClassCache(directory, 100);
+
+		cache.put("a", new byte[10]);
+		cache.put("b", new byte[10]);
+		setLastModified(directory, "a", 1000);
+		setLastModified(directory, "b", 2000);
+
+		// Read a, so b is the least recently used entry.
+		Assert.assertNotNull(cache.get("a"));
+		cache.put("c", new byte[10]);
+
+		Assert.assertNotNull(cache.get("a"));
+		Assert.assertNull(cache.get("b"));
+		Assert.assertNotNull(cache.get("c"));
+		Assert.assertEquals(2, directory.list().length);
+	}
+
+	@Test
+	public void testDamagedEntryIsMissing() throws Exception {
+		File directory = temporaryFolder.getRoot();
+		DiskClassCache cache = new DiskClassCache(directory, 1024);
+
+		cache.put("a", new byte[] {1, 2, 3});
+		cache.put("b", new byte[] {4, 5, 6});
+
+		// Change the byte code of a and truncate b.
+		Path a = determineFile(directory, "a");
+		byte[] content = Files.readAllBytes(a);
+		content[content.length - 1] = 4;
+		Files.write(a, content);
+		Path b = determineFile(directory, "b");
+		Files.write(b, Arrays.copyOf(Files.readAllBytes(b), 10));
+
+		Assert.assertNull(cache.get("a"));
+		Assert.assertNull(cache.get("b"));
+		Assert.assertEquals(2, cache.getMissCount());
+		Assert.assertFalse(Files.exists(a));
+		Assert.assertFalse(Files.exists(b));
+	}
+
+	@Test
+	public void testLeftBehindTemporaryFileIsDeleted() throws Exception {
+		File directory = temporaryFolder.getRoot();
+		Path leftBehind = Files.createTempFile(directory.toPath(), "a", ".tmp");
+		Files.setLastModifiedTime(leftBehind, FileTime.fromMillis(System.currentTimeMillis() - 2L * 60L * 60L * 1000L));
+		// A temporary file that was created recently may still be written by another JVM.
+		Path written = Files.createTempFile(directory.toPath(), "b", ".tmp");
+
+		new DiskClassCache(directory, 1024);
+
+		Assert.assertFalse(Files.exists(leftBehind));
+		Assert.assertTrue(Files.exists(written));
+	}
+
+	private static Path determineFile(File directory, String key) {
+		return new File(directory, DiskClassCache.hash(key) + ".class").toPath();
+	}
+
+	private static void setLastModified(File directory, String key, long time) throws Exception {
+		Files.setLastModifiedTime(determineFile(directory, key), FileTime.fromMillis(time));
+	}
+}
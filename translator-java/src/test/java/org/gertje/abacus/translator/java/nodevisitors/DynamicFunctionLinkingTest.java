@@ -0,0 +1,215 @@
+package org.gertje.abacus.translator.java.nodevisitors;
+
+import org.gertje.abacus.context.AbacusContext;
+import org.gertje.abacus.context.SimpleAbacusContext;
+import org.gertje.abacus.functions.AbstractFunction;
+import org.gertje.abacus.functions.PureFunction;
+import org.gertje.abacus.lexer.AbacusLexer;
+import org.gertje.abacus.nodes.AbacusNodeFactory;
+import org.gertje.abacus.nodes.Node;
+import org.gertje.abacus.nodes.NodeFactory;
+import org.gertje.abacus.nodevisitors.SemanticsChecker;
+import org.gertje.abacus.nodevisitors.Simplifier;
+import org.gertje.abacus.parser.Parser;
+import org.gertje.abacus.symboltable.FunctionRegistry;
+import org.gertje.abacus.symboltable.SimpleSymbolTable;
+import org.gertje.abacus.symboltable.Variable;
+import org.gertje.abacus.translator.java.runtime.AbacusWrapper;
+import org.gertje.abacus.translator.java.runtime.FunctionLinker;
+import org.gertje.abacus.types.Type;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.invoke.SwitchPoint;
+import java.math.BigDecimal;
+import java.security.SecureClassLoader;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests the translation of calls to functions that are linked at runtime.
+ */
+public class DynamicFunctionLinkingTest {
+
+	private static final String CLASS_NAME = "org.gertje.asmtest.DynamicFunctionLinking";
+
+	@Test
+	public void testOverloadsAndRelink() throws Exception {
+		SimpleSymbolTable sym = new SimpleSymbolTable();
+		sym.addVariable(new Variable("i", Type.INTEGER));
+		sym.addVariable(new Variable("d", Type.DECIMAL));
+		sym.setVariableValue("i", -3L);
+		sym.setVariableValue("d", new BigDecimal("-1.5"));
+		sym.registerFunction(new AbsFunction(Type.INTEGER, 0));
+		sym.registerFunction(new AbsFunction(Type.DECIMAL, 0));
+
+		// The base class does not implement function_abs, the calls are linked to the functions of the symbol table.
+		AbacusWrapper<?> wrapper = createWrapper("abs(i) + abs(d)", sym, CLASS_NAME);
+		Assert.assertEquals(0, new BigDecimal("4.5").compareTo((BigDecimal) wrapper.f()));
+		Assert.assertEquals(0, new BigDecimal("4.5").compareTo((BigDecimal) wrapper.f()));
+
+		// Replacing an overload relinks the call sites.
+		sym.registerFunction(new AbsFunction(Type.INTEGER, 10));
+		Assert.assertEquals(0, new BigDecimal("14.5").compareTo((BigDecimal) wrapper.f()));
+
+		// A symbol table with other functions relinks the call sites as well.
+		SimpleSymbolTable other = new SimpleSymbolTable();
+		other.addVariable(new Variable("i", Type.INTEGER));
+		other.addVariable(new Variable("d", Type.DECIMAL));
+		other.setVariableValue("i", 2L);
+		other.setVariableValue("d", new BigDecimal("0.5"));
+		other.registerFunction(new AbsFunction(Type.INTEGER, 0));
+		other.registerFunction(new AbsFunction(Type.DECIMAL, 0));
+		wrapper.setAbacusContext(new SimpleAbacusContext(other));
+		Assert.assertEquals(0, new BigDecimal("2.5").compareTo((BigDecimal) wrapper.f()));
+	}
+
+	@Test
+	public void testPureFunctionIsMemoized() throws Exception {
+		SimpleSymbolTable sym = new SimpleSymbolTable();
+		sym.addVariable(new Variable("i", Type.INTEGER));
+		sym.setVariableValue("i", -3L);
+		AbsFunction function = new PureAbsFunction(Type.INTEGER, 0);
+		sym.registerFunction(function);
+
+		AbacusWrapper<?> wrapper = createWrapper("abs(i)", sym, CLASS_NAME + "Pure");
+		Assert.assertEquals(3L, wrapper.f());
+		Assert.assertEquals(3L, wrapper.f());
+		sym.setVariableValue("i", 4L);
+		Assert.assertEquals(4L, wrapper.f());
+		Assert.assertEquals(2, function.calls);
+
+		// The results belong to the instance, another instance of the class shares the call sites but not the results.
+		AbacusWrapper<?> other = wrapper.getClass().newInstance();
+		other.setAbacusContext(new SimpleAbacusContext(sym));
+		Assert.assertEquals(4L, other.f());
+		Assert.assertEquals(3, function.calls);
+
+		// The results are discarded when the instance gets another context.
+		wrapper.setAbacusContext(new SimpleAbacusContext(sym));
+		Assert.assertEquals(4L, wrapper.f());
+		Assert.assertEquals(4, function.calls);
+	}
+
+	@Test
+	public void testNewSymbolTablePerEvaluation() throws Exception {
+		SimpleSymbolTable sym = new SimpleSymbolTable();
+		sym.addVariable(new Variable("i", Type.INTEGER));
+		sym.registerFunction(new AbsFunction(Type.INTEGER, 0));
+		AbacusWrapper<?> wrapper = createWrapper("abs(i)", sym, CLASS_NAME + "NewSymbolTable");
+
+		// Every evaluation uses a symbol table with its own registry, so the links do not last.
+		int[] relinks = new int[1];
+		for (long i = 0; i < 100; i++) {
+			CountingSymbolTable evaluationSym = new CountingSymbolTable(relinks);
+			evaluationSym.addVariable(new Variable("i", Type.INTEGER));
+			evaluationSym.setVariableValue("i", -i);
+			evaluationSym.getFunctionRegistry().register(new AbsFunction(Type.INTEGER, i));
+			wrapper.setAbacusContext(new SimpleAbacusContext(evaluationSym));
+
+			Assert.assertEquals(2 * i, wrapper.f());
+		}
+
+		Assert.assertEquals(FunctionLinker.MAX_RELINKS, relinks[0]);
+	}
+
+	/**
+	 * Creates an instance of the class that is generated for the expression, with calls to functions that are linked at
+	 * runtime.
+	 */
+	private AbacusWrapper<?> createWrapper(String expression, SimpleSymbolTable sym, final String className)
+			throws Exception {
+		NodeFactory nodeFactory = new AbacusNodeFactory();
+		AbacusContext abacusContext = new SimpleAbacusContext(sym);
+
+		Node node = new Parser(new AbacusLexer(expression), nodeFactory).parse();
+		new SemanticsChecker(sym).check(node);
+		node = new Simplifier(abacusContext, nodeFactory).simplify(node);
+
+		ClassTranslator translator = new ClassTranslator(abacusContext);
+		translator.setDynamicFunctionLinking(true);
+		final byte[] byteCode = translator.translate(node, AbacusWrapper.class, className);
+		Class<?> clazz = new SecureClassLoader(getClass().getClassLoader()) {
+			@Override
+			protected Class<?> findClass(String name) throws ClassNotFoundException {
+				return super.defineClass(name, byteCode, 0, byteCode.length);
+			}
+		}.loadClass(className);
+
+		AbacusWrapper<?> wrapper = (AbacusWrapper<?>) clazz.newInstance();
+		wrapper.setAbacusContext(abacusContext);
+		return wrapper;
+	}
+
+	/**
+	 * Function that returns the absolute value of a number, plus an offset.
+	 */
+	private static class AbsFunction extends AbstractFunction {
+
+		private final Type type;
+		private final long offset;
+		protected int calls;
+
+		public AbsFunction(Type type, long offset) {
+			super(Collections.singletonList(type), false);
+			this.type = type;
+			this.offset = offset;
+		}
+
+		@Override
+		public String getName() {
+			return "abs";
+		}
+
+		@Override
+		public Type getReturnType() {
+			return type;
+		}
+
+		@Override
+		public Object evaluate(List<Object> params) {
+			calls++;
+			Object value = params.get(0);
+			if (value == null) {
+				return null;
+			}
+			if (value instanceof Long) {
+				return Math.abs((Long) value) + offset;
+			}
+			return ((BigDecimal) value).abs().add(BigDecimal.valueOf(offset));
+		}
+	}
+
+	/**
+	 * Pure variant of the {@link AbsFunction}.
+	 */
+	private static class PureAbsFunction extends AbsFunction implements PureFunction {
+
+		public PureAbsFunction(Type type, long offset) {
+			super(type, offset);
+		}
+	}
+
+	/**
+	 * Symbol table with a registry that counts the number of times a call site is linked to its functions.
+	 */
+	private static class CountingSymbolTable extends SimpleSymbolTable {
+
+		private final FunctionRegistry functionRegistry;
+
+		public CountingSymbolTable(final int[] relinks) {
+			functionRegistry = new FunctionRegistry() {
+				@Override
+				public SwitchPoint getSwitchPoint() {
+					relinks[0]++;
+					return super.getSwitchPoint();
+				}
+			};
+		}
+
+		@Override
+		public FunctionRegistry getFunctionRegistry() {
+			return functionRegistry;
+		}
+	}
+}
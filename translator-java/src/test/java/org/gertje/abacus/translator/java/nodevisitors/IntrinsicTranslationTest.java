@@ -0,0 +1,147 @@
+package org.gertje.abacus.translator.java.nodevisitors;
+
+import org.gertje.abacus.context.AbacusContext;
+import org.gertje.abacus.context.SimpleAbacusContext;
+import org.gertje.abacus.functions.AbstractIntrinsicFunction;
+import org.gertje.abacus.lexer.AbacusLexer;
+import org.gertje.abacus.nodes.AbacusNodeFactory;
+import org.gertje.abacus.nodes.Node;
+import org.gertje.abacus.nodes.NodeFactory;
+import org.gertje.abacus.nodevisitors.SemanticsChecker;
+import org.gertje.abacus.nodevisitors.Simplifier;
+import org.gertje.abacus.parser.Parser;
+import org.gertje.abacus.symboltable.SimpleSymbolTable;
+import org.gertje.abacus.symboltable.Variable;
+import org.gertje.abacus.translator.java.runtime.AbacusWrapper;
+import org.gertje.abacus.types.Type;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.security.SecureClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Tests the translation of calls to intrinsic functions.
+ */
+public class IntrinsicTranslationTest {
+
+	private static final String CLASS_NAME = "org.gertje.asmtest.Intrinsic";
+
+	@Test
+	public void testIntrinsicCall() throws Exception {
+		SimpleSymbolTable sym = new SimpleSymbolTable();
+		sym.addVariable(new Variable("a", Type.DECIMAL));
+		sym.addVariable(new Variable("b", Type.INTEGER));
+		sym.setVariableValue("a", new BigDecimal("1.25"));
+		sym.setVariableValue("b", 1L);
+		sym.registerFunction(new ScaleFunction());
+
+		NodeFactory nodeFactory = new AbacusNodeFactory();
+		AbacusContext abacusContext = new SimpleAbacusContext(sym);
+
+		Node node = new Parser(new AbacusLexer("scale(a, b) * 2"), nodeFactory).parse();
+		new SemanticsChecker(sym).check(node);
+		node = new Simplifier(abacusContext, nodeFactory).simplify(node);
+
+		// The base class does not implement function_scale, the generated class calls the static method.
+		AbacusWrapper<?> wrapper = createWrapper(node, abacusContext, CLASS_NAME);
+		Assert.assertEquals(0, new BigDecimal("2.6").compareTo((BigDecimal) wrapper.f()));
+	}
+
+	@Test
+	public void testLineNumberOfIntrinsicCall() throws Exception {
+		SimpleSymbolTable sym = new SimpleSymbolTable();
+		sym.addVariable(new Variable("b", Type.INTEGER));
+		sym.setVariableValue("b", 1L);
+		sym.registerFunction(new FailFunction());
+
+		NodeFactory nodeFactory = new AbacusNodeFactory();
+		AbacusContext abacusContext = new SimpleAbacusContext(sym);
+
+		Node node = new Parser(new AbacusLexer("b +\nb *\nfail()"), nodeFactory).parse();
+		new SemanticsChecker(sym).check(node);
+		node = new Simplifier(abacusContext, nodeFactory).simplify(node);
+
+		AbacusWrapper<?> wrapper = createWrapper(node, abacusContext, CLASS_NAME + "LineNumber");
+		try {
+			wrapper.f();
+			Assert.fail("Expected an IllegalStateException.");
+		} catch (IllegalStateException e) {
+			// The stack trace points to the line of the call, not to the line of the operand before it.
+			StackTraceElement element = e.getStackTrace()[1];
+			Assert.assertEquals(CLASS_NAME + "LineNumber", element.getClassName());
+			Assert.assertEquals(3, element.getLineNumber());
+		}
+	}
+
+	/**
+	 * Creates an instance of the class that is generated for the expression.
+	 */
+	private AbacusWrapper<?> createWrapper(Node node, AbacusContext abacusContext, final String className)
+			throws Exception {
+		final byte[] byteCode = new ClassTranslator(abacusContext).translate(node, AbacusWrapper.class, className);
+		Class<?> clazz = new SecureClassLoader(getClass().getClassLoader()) {
+			@Override
+			protected Class<?> findClass(String name) throws ClassNotFoundException {
+				return super.defineClass(name, byteCode, 0, byteCode.length);
+			}
+		}.loadClass(className);
+
+		AbacusWrapper<?> wrapper = (AbacusWrapper<?>) clazz.newInstance();
+		wrapper.setAbacusContext(abacusContext);
+		return wrapper;
+	}
+
+	/**
+	 * Function that rounds a decimal to a number of decimals.
+	 */
+	public static class ScaleFunction extends AbstractIntrinsicFunction {
+
+		public ScaleFunction() {
+			super(Arrays.asList(Type.DECIMAL, Type.INTEGER), false, ScaleFunction.class, "scale");
+		}
+
+		public static BigDecimal scale(BigDecimal value, Long decimals) {
+			if (value == null || decimals == null) {
+				return null;
+			}
+			return value.setScale(decimals.intValue(), BigDecimal.ROUND_HALF_UP);
+		}
+
+		@Override
+		public Type getReturnType() {
+			return Type.DECIMAL;
+		}
+
+		@Override
+		public String getName() {
+			return "scale";
+		}
+	}
+
+	/**
+	 * Function that always throws an exception.
+	 */
+	public static class FailFunction extends AbstractIntrinsicFunction {
+
+		public FailFunction() {
+			super(Collections.<Type>emptyList(), false, FailFunction.class, "fail");
+		}
+
+		public static Long fail() {
+			throw new IllegalStateException("Failed.");
+		}
+
+		@Override
+		public Type getReturnType() {
+			return Type.INTEGER;
+		}
+
+		@Override
+		public String getName() {
+			return "fail";
+		}
+	}
+}
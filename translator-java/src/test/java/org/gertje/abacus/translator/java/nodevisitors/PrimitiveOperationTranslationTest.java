@@ -0,0 +1,207 @@
+package org.gertje.abacus.translator.java.nodevisitors;
+
+import org.gertje.abacus.context.AbacusContext;
+import org.gertje.abacus.context.SimpleAbacusContext;
+import org.gertje.abacus.lexer.AbacusLexer;
+import org.gertje.abacus.nodes.AbacusNodeFactory;
+import org.gertje.abacus.nodes.Node;
+import org.gertje.abacus.nodes.NodeFactory;
+import org.gertje.abacus.nodevisitors.Evaluator;
+import org.gertje.abacus.nodevisitors.SemanticsChecker;
+import org.gertje.abacus.nodevisitors.Simplifier;
+import org.gertje.abacus.parser.Parser;
+import org.gertje.abacus.runtime.expression.ArithmeticOperation;
+import org.gertje.abacus.runtime.expression.BooleanOperation;
+import org.gertje.abacus.symboltable.SimpleSymbolTable;
+import org.gertje.abacus.symboltable.Variable;
+import org.gertje.abacus.translator.java.runtime.AbacusWrapper;
+import org.gertje.abacus.types.Type;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureClassLoader;
+
+/**
+ * Tests the translation of integer and boolean operations to operations on primitive values. The results of the
+ * generated classes are compared with the results of the {@link Evaluator} for all combinations of the values of the
+ * variables, including {@code null}.
+ */
+public class PrimitiveOperationTranslationTest {
+
+	private static final String CLASS_NAME = "org.gertje.asmtest.PrimitiveOperation";
+
+	private static final Long[] INTEGER_VALUES = {null, -3L, 0L, 2L};
+
+	private static final Boolean[] BOOLEAN_VALUES = {null, Boolean.TRUE, Boolean.FALSE};
+
+	@Test
+	public void testNullVariableFallsBackToBoxedOperation() throws Exception {
+		assertSameAsEvaluator("x + 1");
+		assertSameAsEvaluator("x * 2 + y");
+		assertSameAsEvaluator("-x");
+		assertSameAsEvaluator("x < y");
+		assertSameAsEvaluator("b && true");
+		assertSameAsEvaluator("!b || c");
+	}
+
+	@Test
+	public void testNestedEqualityOfIntegersAndBooleans() throws Exception {
+		assertSameAsEvaluator("x == y");
+		assertSameAsEvaluator("b != c");
+		assertSameAsEvaluator("(x == 2) == b");
+		assertSameAsEvaluator("(x != y) != (b == c)");
+		assertSameAsEvaluator("!(x == y) == (c != false)");
+		assertSameAsEvaluator("((x == 0) == b) != ((y != 0) == c)");
+	}
+
+	@Test
+	public void testMixedLiteralsAndVariables() throws Exception {
+		assertSameAsEvaluator("-(x * 3 - 2) + 7 * y - 4");
+		assertSameAsEvaluator("x * x + 2 * x * y + y * y");
+		assertSameAsEvaluator("x > 1 && (b || y <= -1)");
+		assertSameAsEvaluator("(x + 1 >= y) == !c");
+	}
+
+	@Test
+	public void testOperationWithoutEqualityHasNoBoxedFallback() throws Exception {
+		// The result is null as soon as a variable is null, so the boxed operation is not needed.
+		Assert.assertFalse(referencesClass(translate("-(x * 3 - y) % 7 < x", createSymbolTable()),
+				ArithmeticOperation.class));
+		Assert.assertFalse(referencesClass(translate("!(x >= y)", createSymbolTable()), BooleanOperation.class));
+
+		// Equality has its own rules for null, the boxed operation handles them.
+		Assert.assertTrue(referencesClass(translate("x + 1 == y", createSymbolTable()), BooleanOperation.class));
+	}
+
+	@Test
+	public void testDivisionAndModuloByZero() throws Exception {
+		SimpleSymbolTable sym = createSymbolTable();
+		AbacusWrapper<?> divide = createWrapper("x / y", sym);
+		AbacusWrapper<?> modulo = createWrapper("x % y", sym);
+		AbacusWrapper<?> divideByLiteral = createWrapper("x / 0", sym);
+		AbacusWrapper<?> moduloByLiteral = createWrapper("x % 0", sym);
+
+		sym.setVariableValue("x", 7L);
+		sym.setVariableValue("y", 2L);
+		Assert.assertEquals(3L, divide.f());
+		Assert.assertEquals(1L, modulo.f());
+
+		sym.setVariableValue("x", -7L);
+		Assert.assertEquals(ArithmeticOperation.divide(-7L, 2L), divide.f());
+		Assert.assertEquals(ArithmeticOperation.modulo(-7L, 2L), modulo.f());
+
+		// Like the ArithmeticOperation, dividing an integer by zero throws an ArithmeticException.
+		sym.setVariableValue("y", 0L);
+		assertArithmeticException(divide);
+		assertArithmeticException(modulo);
+		assertArithmeticException(divideByLiteral);
+		assertArithmeticException(moduloByLiteral);
+		try {
+			ArithmeticOperation.divide(-7L, 0L);
+			Assert.fail("Expected an ArithmeticException.");
+		} catch (ArithmeticException e) {
+			// Expected.
+		}
+
+		// Dividing null by zero results in null.
+		sym.setVariableValue("x", null);
+		Assert.assertNull(divide.f());
+		Assert.assertNull(modulo.f());
+		Assert.assertNull(divideByLiteral.f());
+		Assert.assertNull(moduloByLiteral.f());
+	}
+
+	/**
+	 * Asserts that the generated class returns the same value as the {@link Evaluator} for all combinations of the
+	 * values of the variables.
+	 */
+	private void assertSameAsEvaluator(String expression) throws Exception {
+		SimpleSymbolTable sym = createSymbolTable();
+		AbacusContext abacusContext = new SimpleAbacusContext(sym);
+		Node node = parse(expression, sym);
+		AbacusWrapper<?> wrapper = createWrapper(expression, sym);
+
+		for (Long x : INTEGER_VALUES) {
+			for (Long y : INTEGER_VALUES) {
+				for (Boolean b : BOOLEAN_VALUES) {
+					for (Boolean c : BOOLEAN_VALUES) {
+						sym.setVariableValue("x", x);
+						sym.setVariableValue("y", y);
+						sym.setVariableValue("b", b);
+						sym.setVariableValue("c", c);
+
+						Assert.assertEquals(expression + " with x = " + x + ", y = " + y + ", b = " + b + ", c = " + c,
+								new Evaluator(abacusContext).evaluate(node), wrapper.f());
+					}
+				}
+			}
+		}
+	}
+
+	private static void assertArithmeticException(AbacusWrapper<?> wrapper) throws Exception {
+		try {
+			wrapper.f();
+			Assert.fail("Expected an ArithmeticException.");
+		} catch (ArithmeticException e) {
+			// Expected.
+		}
+	}
+
+	/**
+	 * Creates a symbol table with the integer variables x and y and the boolean variables b and c.
+	 */
+	private static SimpleSymbolTable createSymbolTable() {
+		SimpleSymbolTable sym = new SimpleSymbolTable();
+		sym.addVariable(new Variable("x", Type.INTEGER));
+		sym.addVariable(new Variable("y", Type.INTEGER));
+		sym.addVariable(new Variable("b", Type.BOOLEAN));
+		sym.addVariable(new Variable("c", Type.BOOLEAN));
+		return sym;
+	}
+
+	/**
+	 * Parses, checks and simplifies the expression.
+	 */
+	private static Node parse(String expression, SimpleSymbolTable sym) throws Exception {
+		NodeFactory nodeFactory = new AbacusNodeFactory();
+		Node node = new Parser(new AbacusLexer(expression), nodeFactory).parse();
+		new SemanticsChecker(sym).check(node);
+		return new Simplifier(new SimpleAbacusContext(sym), nodeFactory).simplify(node);
+	}
+
+	/**
+	 * Translates the expression into the byte code of a class.
+	 */
+	private static byte[] translate(String expression, SimpleSymbolTable sym) throws Exception {
+		return new ClassTranslator(new SimpleAbacusContext(sym)).translate(parse(expression, sym), AbacusWrapper.class,
+				CLASS_NAME);
+	}
+
+	/**
+	 * Determines whether the byte code refers to the class.
+	 */
+	private static boolean referencesClass(byte[] byteCode, Class<?> clazz) {
+		String internalName = clazz.getName().replace('.', '/');
+		return new String(byteCode, StandardCharsets.ISO_8859_1).contains(internalName);
+	}
+
+	/**
+	 * Creates an instance of the class that is generated for the expression.
+	 */
+	private AbacusWrapper<?> createWrapper(String expression, SimpleSymbolTable sym) throws Exception {
+		AbacusContext abacusContext = new SimpleAbacusContext(sym);
+
+		final byte[] byteCode = translate(expression, sym);
+		Class<?> clazz = new SecureClassLoader(getClass().getClassLoader()) {
+			@Override
+			protected Class<?> findClass(String name) throws ClassNotFoundException {
+				return super.defineClass(name, byteCode, 0, byteCode.length);
+			}
+		}.loadClass(CLASS_NAME);
+
+		AbacusWrapper<?> wrapper = (AbacusWrapper<?>) clazz.newInstance();
+		wrapper.setAbacusContext(abacusContext);
+		return wrapper;
+	}
+}
@@ -0,0 +1,94 @@
+package org.gertje.abacus.translator.java.nodevisitors;
+
+import org.gertje.abacus.context.AbacusContext;
+import org.gertje.abacus.context.SimpleAbacusContext;
+import org.gertje.abacus.lexer.AbacusLexer;
+import org.gertje.abacus.nodes.AbacusNodeFactory;
+import org.gertje.abacus.nodes.Node;
+import org.gertje.abacus.nodes.NodeFactory;
+import org.gertje.abacus.nodevisitors.SemanticsChecker;
+import org.gertje.abacus.nodevisitors.Simplifier;
+import org.gertje.abacus.parser.Parser;
+import org.gertje.abacus.symboltable.SlotSymbolTable;
+import org.gertje.abacus.symboltable.Variable;
+import org.gertje.abacus.translator.java.runtime.RulesetWrapper;
+import org.gertje.abacus.types.Type;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.security.SecureClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests the translation of a ruleset into a single class.
+ */
+public class RulesetTranslationTest {
+
+	private static final String CLASS_NAME = "org.gertje.asmtest.Ruleset";
+
+	@Test
+	public void testRuleset() throws Exception {
+		SlotSymbolTable sym = new SlotSymbolTable();
+		sym.addVariable(new Variable("a", Type.INTEGER));
+		sym.addVariable(new Variable("b", Type.DECIMAL));
+		sym.addVariable(new Variable("c", Type.STRING));
+
+		RulesetWrapper ruleset = createRuleset(sym, "a * 2 + 1", "b = b * 2; b > 3", "c + '!'", "a = a + 1");
+
+		Assert.assertEquals(4, ruleset.getRuleCount());
+
+		Object[] frame = sym.createFrame().getValues();
+		frame[0] = 3L;
+		frame[1] = new BigDecimal("1.5");
+		frame[2] = "hi";
+
+		Object[] results = ruleset.evaluateAll(frame);
+		Assert.assertEquals(7L, results[0]);
+		Assert.assertEquals(Boolean.FALSE, results[1]);
+		Assert.assertEquals("hi!", results[2]);
+		Assert.assertEquals(4L, results[3]);
+
+		// The assignments are written back to the frame.
+		Assert.assertEquals(4L, frame[0]);
+		Assert.assertEquals(0, new BigDecimal("3").compareTo((BigDecimal) frame[1]));
+
+		Assert.assertEquals(Boolean.TRUE, ruleset.f(1, frame));
+		Assert.assertEquals(9L, ruleset.f(0, frame));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testUnknownRule() throws Exception {
+		SlotSymbolTable sym = new SlotSymbolTable();
+		sym.addVariable(new Variable("a", Type.INTEGER));
+
+		createRuleset(sym, "a + 1").f(1, sym.getValues());
+	}
+
+	private static RulesetWrapper createRuleset(SlotSymbolTable sym, String... expressions) throws Exception {
+		NodeFactory nodeFactory = new AbacusNodeFactory();
+		AbacusContext abacusContext = new SimpleAbacusContext(sym);
+
+		List<Node> nodes = new ArrayList<>();
+		for (String expression : expressions) {
+			Node node = new Parser(new AbacusLexer(expression), nodeFactory).parse();
+			new SemanticsChecker(sym).check(node);
+			nodes.add(new Simplifier(abacusContext, nodeFactory).simplify(node));
+		}
+
+		final byte[] byteCode = new ClassTranslator(abacusContext)
+				.translateRuleset(nodes, RulesetWrapper.class, CLASS_NAME, sym);
+
+		Class<?> clazz = new SecureClassLoader() {
+			@Override
+			protected Class<?> findClass(String name) throws ClassNotFoundException {
+				return super.defineClass(name, byteCode, 0, byteCode.length);
+			}
+		}.loadClass(CLASS_NAME);
+
+		RulesetWrapper ruleset = (RulesetWrapper) clazz.newInstance();
+		ruleset.setAbacusContext(abacusContext);
+		return ruleset;
+	}
+}
@@ -7,6 +7,7 @@ import org.gertje.abacus.nodes.AndNode;
 import org.gertje.abacus.nodes.ArrayNode;
 import org.gertje.abacus.nodes.AssignmentNode;
 import org.gertje.abacus.nodes.BooleanNode;
+import org.gertje.abacus.nodes.CommonSubexpressionNode;
 import org.gertje.abacus.nodes.ConcatStringNode;
 import org.gertje.abacus.nodes.DateNode;
 import org.gertje.abacus.nodes.DecimalNode;
@@ -207,6 +208,26 @@ public class JavaScriptTranslator implements NodeVisitor<Void, VisitingException
 		return null;
 	}
 
+	@Override
+	public Void visit(CommonSubexpressionNode node) throws VisitingException {
+		ExpressionNode subexpression = node.getExpression();
+
+		String name = determineVariableName(node);
+		String value = determineVariableName(subexpression);
+
+		// The variable of the node is undefined until the subexpression is computed the first time, after that the
+		// computed value is reused.
+		appendDefinition(node);
+
+		expression.append("if (").append(name).append(" === undefined) {\n");
+
+		subexpression.accept(this);
+		appendAssignment(name, node.getType(), value, subexpression.getType());
+
+		expression.append("}\n");
+		return null;
+	}
+
 	@Override
 	public Void visit(ConcatStringNode node) throws VisitingException {
 		ExpressionNode lhs = node.getLhs();